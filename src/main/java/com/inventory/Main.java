@@ -1,8 +1,27 @@
 package com.inventory;
 
+import com.inventory.dao.SalesSummaryDAO;
+import com.inventory.services.CheckoutService;
+import com.inventory.services.ParkedCartStore;
+import com.inventory.services.PromotionService;
+import com.inventory.services.CsvExportService;
+import com.inventory.services.PdfReportService;
+import com.inventory.services.ReportCache;
+import com.inventory.services.ReportSnapshotService;
+import com.inventory.services.SalesChangeMonitor;
+import com.inventory.services.SalesCube;
+import com.inventory.services.StockLedger;
+import com.inventory.services.TopProductsTracker;
+import com.inventory.services.XlsxExportService;
+import com.inventory.services.StockSnapshotService;
+import com.inventory.services.ReceiptService;
+import com.inventory.utils.BackgroundScheduler;
 import com.inventory.utils.DatabaseConnection;
+import com.inventory.utils.SaleNumberGenerator;
 import com.inventory.utils.SceneManager;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
@@ -30,6 +49,28 @@ public class Main extends Application {
             System.out.println("✅ Connexion à la base de données réussie!");
         }
 
+        // L'identifiant de caisse doit être configuré avant toute vente
+        try {
+            SaleNumberGenerator.getDefault();
+        } catch (IllegalStateException e) {
+            System.err.println("❌ " + e.getMessage());
+            Alert alert = new Alert(Alert.AlertType.ERROR, e.getMessage());
+            alert.setHeaderText("Caisse non configurée");
+            alert.showAndWait();
+            Platform.exit();
+            return;
+        }
+
+        // Ouvrir le journal de caisse et relancer la synchronisation des ventes en attente
+        CheckoutService.start();
+
+        // Charger les polices des reçus hors du thread JavaFX, avant la première vente
+        ReceiptService.start();
+
+        // Créer le schéma d'abord; les services qui lisent la base démarrent ensuite
+        // (sur le thread d'initialisation, hors du thread JavaFX)
+        DatabaseConnection.initializeAsync().thenRun(Main::startServices);
+
         // Configuration de la fenêtre principale
         stage.setTitle("📦 Inventory Management System");
         stage.setMinWidth(1200);
@@ -51,12 +92,57 @@ public class Main extends Application {
         stage.show();
     }
 
+    /**
+     * Démarrer les services qui lisent la base, une fois les tables créées
+     */
+    private static void startServices() {
+        // Charger l'index des promotions en arrière-plan
+        PromotionService.getInstance();
+
+        // Instantanés périodiques du stock (stock à une date passée)
+        StockSnapshotService.start();
+
+        // Rapports Z, valorisation mensuelle et stock faible précalculés aux heures creuses
+        ReportSnapshotService.start();
+
+        // Reprendre l'historique des agrégats de ventes s'ils n'existent pas encore,
+        // puis charger le cube des ventes en mémoire à partir de ces agrégats
+        // (rechargé quand d'autres postes enregistrent des ventes)
+        Thread backfill = new Thread(() -> {
+            if (new SalesSummaryDAO().backfillIfEmpty()) {
+                ReportCache.summariesRebuilt();
+            }
+            SalesChangeMonitor.start();
+            SalesCube.start();
+            TopProductsTracker.start();
+        }, "sales-summary-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
     public static Stage getPrimaryStage() {
         return primaryStage;
     }
 
     @Override
     public void stop() {
+        // Vider le journal de caisse avant de fermer
+        CheckoutService.shutdown();
+        ReceiptService.shutdown();
+        PromotionService.shutdown();
+        ParkedCartStore.shutdown();
+        StockLedger.shutdown();
+        StockSnapshotService.shutdown();
+        SalesChangeMonitor.shutdown();
+        SalesCube.shutdown();
+        TopProductsTracker.shutdown();
+        ReportCache.shutdown();
+        CsvExportService.shutdown();
+        PdfReportService.shutdown();
+        XlsxExportService.shutdown();
+        ReportSnapshotService.shutdown();
+        BackgroundScheduler.shutdown();
+
         // Fermer la connexion à la base de données
         DatabaseConnection.closeConnection();
         System.out.println("👋 Application fermée. Au revoir!");
@@ -3,6 +3,7 @@ package com.inventory.controllers;
 import com.inventory.dao.CategoryDAO;
 import com.inventory.models.Category;
 import com.inventory.models.User;
+import com.inventory.services.CatalogService;
 import com.inventory.utils.SceneManager;
 import com.inventory.utils.SessionManager;
 import io.github.palexdev.materialfx.controls.MFXButton;
@@ -12,6 +13,8 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
 import javafx.scene.layout.*;
 import org.kordamp.ikonli.javafx.FontIcon;
@@ -40,6 +43,8 @@ public class CategoriesController implements Initializable {
     private FlowPane categoriesContainer;
 
     private final CategoryDAO categoryDAO = new CategoryDAO();
+    // Écritures du catalogue: signalées aux rapports, au cube et au stock faible précalculé
+    private final CatalogService catalogService = new CatalogService();
     private List<Category> allCategories;
 
     @Override
@@ -251,17 +256,36 @@ public class CategoriesController implements Initializable {
     @FXML
     private void handleAddCategory() {
         System.out.println("Ajouter une catégorie...");
-        // TODO: Ouvrir dialog d'ajout
+        // TODO: Ouvrir dialog d'ajout (enregistrement via catalogService.createCategory)
     }
 
     private void handleEditCategory(Category category) {
         System.out.println("Modifier la catégorie: " + category.getName());
-        // TODO: Ouvrir dialog de modification
+        // TODO: Ouvrir dialog de modification (enregistrement via catalogService.updateCategory)
     }
 
     private void handleDeleteCategory(Category category) {
-        System.out.println("Supprimer la catégorie: " + category.getName());
-        // TODO: Confirmation et suppression
+        if (!SessionManager.isAdmin())
+            return;
+
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION,
+                "Supprimer la catégorie " + category.getName() + " ? Ses produits deviendront sans catégorie.",
+                ButtonType.YES, ButtonType.NO);
+        alert.setHeaderText("Suppression de catégorie");
+        if (alert.showAndWait().filter(ButtonType.YES::equals).isEmpty())
+            return;
+
+        new Thread(() -> {
+            boolean deleted = catalogService.deleteCategory(category.getId());
+            Platform.runLater(() -> {
+                if (deleted) {
+                    System.out.println("✅ Catégorie supprimée: " + category.getName());
+                    loadCategories();
+                } else {
+                    System.err.println("❌ Échec de la suppression de la catégorie: " + category.getName());
+                }
+            });
+        }).start();
     }
 
     @FXML
@@ -1,6 +1,16 @@
 package com.inventory.controllers;
 
+import com.inventory.dao.DashboardDAO;
+import com.inventory.dao.ReportDAO;
+import com.inventory.models.DashboardStats;
+import com.inventory.models.ReportEntry;
+import com.inventory.models.ReportPeriod;
 import com.inventory.models.User;
+import com.inventory.services.ReportCache;
+import com.inventory.services.ReportCache.Section;
+import com.inventory.services.SalesCube;
+import com.inventory.utils.BackgroundScheduler;
+import com.inventory.utils.SectionScope;
 import com.inventory.utils.SceneManager;
 import com.inventory.utils.SessionManager;
 import io.github.palexdev.materialfx.controls.MFXButton;
@@ -16,15 +26,26 @@ import javafx.scene.chart.XYChart;
 import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
 import javafx.scene.shape.Circle;
+import javafx.stage.Stage;
 import javafx.util.Duration;
+import org.kordamp.ikonli.javafx.FontIcon;
 
+import java.math.BigDecimal;
 import java.net.URL;
 import java.text.NumberFormat;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Contrôleur pour le tableau de bord principal
@@ -68,6 +89,8 @@ public class DashboardController implements Initializable {
     private Label totalRevenueLabel;
     @FXML
     private Label salesChangeLabel;
+    @FXML
+    private FontIcon salesChangeIcon;
 
     // Charts
     @FXML
@@ -83,9 +106,40 @@ public class DashboardController implements Initializable {
     @FXML
     private Circle notificationBadge;
 
+    // Indicateurs, graphique hebdomadaire et catégories: trois requêtes indépendantes, exécutées en parallèle
+    private static final ExecutorService DASHBOARD_EXECUTOR = Executors.newFixedThreadPool(3, r -> {
+        Thread thread = new Thread(r, "dashboard-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Échéance commune des sections du chargement initial
+    private static final java.time.Duration LOAD_TIMEOUT = java.time.Duration.ofSeconds(15);
+
+    // Intervalle de lecture des marqueurs de changement (propriété "inventory.dashboard.refresh.seconds", au moins 1)
+    private static final long REFRESH_SECONDS = Math.max(1, Long.getLong("inventory.dashboard.refresh.seconds", 10));
+
+    // Indicateurs du chargement initial et marqueurs lus juste avant eux
+    private record InitialStats(DashboardDAO.Watermarks watermarks, DashboardStats stats) {
+    }
+
+    private final DashboardDAO dashboardDAO = new DashboardDAO();
+    private final ReportDAO reportDAO = new ReportDAO();
     private final NumberFormat currencyFormat = NumberFormat.getInstance(Locale.FRANCE);
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("EEEE d MMMM yyyy", Locale.FRENCH);
 
+    // Chargement initial des sections (annulé quand l'écran est quitté)
+    private SectionScope loadScope;
+
+    // Actualisation en direct: derniers marqueurs lus et derniers indicateurs affichés
+    private volatile ScheduledFuture<?> refreshTask;
+    private final AtomicBoolean polling = new AtomicBoolean();
+    private volatile DashboardDAO.Watermarks lastWatermarks;
+    private volatile DashboardStats lastStats;
+    private volatile LocalDate loadedDay;
+    private volatile int unreadNotifications;
+    private int userId;
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         // Vérifier si l'utilisateur est connecté
@@ -99,12 +153,14 @@ public class DashboardController implements Initializable {
         setupGreeting();
         setupAdminSection();
         loadDashboardData();
+        startLiveRefresh();
         playEntryAnimation();
     }
 
     private void setupUserInfo() {
         User user = SessionManager.getCurrentUser();
         if (user != null) {
+            userId = user.getId();
             userNameLabel.setText(user.getFullName());
             userRoleLabel.setText(user.getRoleDisplayName());
         }
@@ -142,51 +198,221 @@ public class DashboardController implements Initializable {
     }
 
     private void loadDashboardData() {
-        // Charger les stats en arrière-plan
-        new Thread(() -> {
-            try {
-                // TODO: Remplacer par de vraies données de la base
-                int totalProducts = 156;
-                double todaySales = 125000;
-                int lowStock = 8;
-                double totalRevenue = 2450000;
-
-                Platform.runLater(() -> {
-                    // Animer les compteurs
-                    animateCounter(totalProductsLabel, 0, totalProducts, "");
-                    animateCounter(todaySalesLabel, 0, (int) todaySales, " FCFA");
-                    animateCounter(lowStockLabel, 0, lowStock, "");
-                    animateCounter(totalRevenueLabel, 0, (int) totalRevenue, " FCFA");
-
-                    // Charger les graphiques
-                    loadSalesChart();
-                    loadCategoriesChart();
-
-                    // Afficher badge notification si stock faible
-                    if (lowStock > 0) {
-                        notificationBadge.setVisible(true);
-                        notificationBadge.setManaged(true);
-                    }
-                });
-
-            } catch (Exception e) {
-                System.err.println("Erreur chargement données: " + e.getMessage());
+        // Le tableau de bord s'affiche en une latence de requête: les trois chargements partent ensemble
+        ReportPeriod week = new ReportPeriod(LocalDate.now().minusDays(6), LocalDate.now());
+        ReportPeriod month = ReportPeriod.thisMonth();
+        ReportCache reportCache = ReportCache.getInstance();
+        loadedDay = LocalDate.now();
+
+        SectionScope scope = new SectionScope(DASHBOARD_EXECUTOR, LOAD_TIMEOUT);
+        loadScope = scope;
+        // Marqueurs lus avant les indicateurs: la première actualisation ne recalcule
+        // que ce qui a changé depuis (tout, si les marqueurs sont illisibles)
+        scope.fork("indicateurs",
+                () -> new InitialStats(dashboardDAO.findWatermarks(userId),
+                        dashboardDAO.findStats(LocalDateTime.now())),
+                this::showInitialStats);
+
+        SalesCube cube = SalesCube.getInstance();
+        if (cube != null && cube.isReady()) {
+            // Réponse immédiate depuis le cube en mémoire, sans requête
+            loadSalesChart(week, cube.trend(week, SalesCube.Slice.all()));
+            loadCategoriesChart(cube.byCategory(month, SalesCube.Slice.all()));
+        } else {
+            scope.fork("ventes de la semaine",
+                    () -> reportCache.get(Section.SALES_TREND, week, () -> reportDAO.findSalesTrend(week)),
+                    trend -> loadSalesChart(week, trend));
+            scope.fork("catégories",
+                    () -> reportCache.get(Section.CATEGORIES, month, () -> reportDAO.findRevenueByCategory(month)),
+                    this::loadCategoriesChart);
+        }
+    }
+
+    private void showInitialStats(InitialStats initial) {
+        if (initial.watermarks() != null) {
+            unreadNotifications = initial.watermarks().unreadNotifications();
+        }
+        showStats(initial.stats());
+        // Après l'affichage: une section en échec laisse la première actualisation tout recalculer
+        lastWatermarks = initial.watermarks();
+    }
+
+    private void showStats(DashboardStats stats) {
+        lastStats = stats;
+
+        // Animer les compteurs
+        animateCounter(totalProductsLabel, 0, stats.getProductCount(), "");
+        animateCounter(todaySalesLabel, 0, stats.getTodaySales().longValue(), " FCFA");
+        animateCounter(lowStockLabel, 0, stats.getLowStockCount(), "");
+        animateCounter(totalRevenueLabel, 0, stats.getMonthRevenue().longValue(), " FCFA");
+
+        showSalesChange(stats.getSalesChangePercent());
+        showNotificationBadge(stats);
+    }
+
+    /**
+     * Afficher le badge si du stock est faible ou si des notifications sont non lues
+     */
+    private void showNotificationBadge(DashboardStats stats) {
+        boolean visible = stats.getLowStockCount() > 0 || unreadNotifications > 0;
+        notificationBadge.setVisible(visible);
+        notificationBadge.setManaged(visible);
+    }
+
+    // ========== Actualisation en direct ==========
+
+    /**
+     * Lire périodiquement les marqueurs de changement tant que le tableau de bord est affiché
+     */
+    private void startLiveRefresh() {
+        refreshTask = BackgroundScheduler.scheduleWithFixedDelay("tableau de bord", this::pollIfVisible,
+                REFRESH_SECONDS, REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void pollIfVisible() {
+        if (SceneManager.getCurrentController() != this) {
+            // Autre écran affiché: ce tableau de bord n'est plus visible
+            refreshTask.cancel(false);
+            Platform.runLater(loadScope::cancel);
+            return;
+        }
+        Stage stage = SceneManager.getPrimaryStage();
+        if (stage == null || !stage.isShowing() || stage.isIconified())
+            return;
+
+        // Une seule lecture à la fois, même si la base répond lentement
+        if (polling.compareAndSet(false, true)) {
+            DASHBOARD_EXECUTOR.execute(() -> {
+                try {
+                    refreshChanged();
+                } catch (RuntimeException e) {
+                    System.err.println("Erreur actualisation du tableau de bord: " + e.getMessage());
+                } finally {
+                    polling.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Recalculer seulement les tuiles et séries touchées par un changement: une
+     * nouvelle vente touche les ventes, le graphique de la semaine (barre du jour)
+     * et les catégories; une modification de produit touche les comptes de stock
+     * et aussi les ventes (une annulation ou un retour remet du stock sans créer
+     * de vente); les notifications touchent le badge. Sans changement, rien n'est
+     * recalculé.
+     */
+    private void refreshChanged() {
+        DashboardDAO.Watermarks current = dashboardDAO.findWatermarks(userId);
+        if (current == null)
+            return;
+        DashboardDAO.Watermarks previous = lastWatermarks;
+        lastWatermarks = current;
+
+        LocalDate today = LocalDate.now();
+        boolean newDay = !today.equals(loadedDay);
+        boolean stock = previous == null
+                || !Objects.equals(previous.productsUpdatedAt(), current.productsUpdatedAt());
+        boolean sales = previous == null || newDay || previous.maxSaleId() != current.maxSaleId() || stock;
+        boolean notifications = previous == null
+                || previous.unreadNotifications() != current.unreadNotifications();
+        if (!sales && !notifications)
+            return;
+
+        DashboardStats previousStats = lastStats;
+        DashboardStats stats = dashboardDAO.findStats(LocalDateTime.now(), previousStats, sales, stock);
+
+        // Hors cube: les ventes des autres caisses n'arrivent que par la base
+        ReportPeriod week = new ReportPeriod(today.minusDays(6), today);
+        ReportPeriod month = ReportPeriod.thisMonth();
+        List<ReportEntry> trend = newDay ? reportDAO.findSalesTrend(week) : null;
+        List<ReportEntry> categories = sales ? reportDAO.findRevenueByCategory(month) : null;
+        loadedDay = today;
+        unreadNotifications = current.unreadNotifications();
+
+        Platform.runLater(() -> {
+            if (SceneManager.getCurrentController() != this)
+                return;
+            updateStats(previousStats, stats);
+            if (trend != null) {
+                loadSalesChart(week, trend);
+            } else if (sales) {
+                updateTodayBar(stats.getTodaySales());
             }
-        }).start();
+            if (categories != null) {
+                loadCategoriesChart(categories);
+            }
+        });
+    }
+
+    /**
+     * Mettre à jour les compteurs qui ont changé, depuis leur valeur affichée
+     */
+    private void updateStats(DashboardStats previous, DashboardStats stats) {
+        lastStats = stats;
+        if (previous == null) {
+            showStats(stats);
+            return;
+        }
+
+        if (previous.getProductCount() != stats.getProductCount()) {
+            animateCounter(totalProductsLabel, previous.getProductCount(), stats.getProductCount(), "");
+        }
+        if (previous.getLowStockCount() != stats.getLowStockCount()) {
+            animateCounter(lowStockLabel, previous.getLowStockCount(), stats.getLowStockCount(), "");
+        }
+        if (previous.getTodaySales().compareTo(stats.getTodaySales()) != 0) {
+            animateCounter(todaySalesLabel, previous.getTodaySales().longValue(), stats.getTodaySales().longValue(),
+                    " FCFA");
+        }
+        if (previous.getMonthRevenue().compareTo(stats.getMonthRevenue()) != 0) {
+            animateCounter(totalRevenueLabel, previous.getMonthRevenue().longValue(),
+                    stats.getMonthRevenue().longValue(), " FCFA");
+        }
+        showSalesChange(stats.getSalesChangePercent());
+        showNotificationBadge(stats);
+    }
+
+    /**
+     * Remplacer la barre d'aujourd'hui (dernier jour de la semaine affichée)
+     */
+    private void updateTodayBar(BigDecimal todaySales) {
+        if (salesChart.getData().isEmpty())
+            return;
+        List<XYChart.Data<String, Number>> bars = salesChart.getData().get(0).getData();
+        if (!bars.isEmpty()) {
+            bars.get(bars.size() - 1).setYValue(todaySales);
+        }
     }
 
-    private void loadSalesChart() {
+    private void showSalesChange(BigDecimal percent) {
+        salesChangeLabel.getStyleClass().removeAll("positive", "negative");
+        if (percent == null) {
+            salesChangeIcon.setVisible(false);
+            salesChangeLabel.setText("Aucune vente hier");
+            return;
+        }
+
+        boolean up = percent.signum() >= 0;
+        salesChangeIcon.setVisible(true);
+        salesChangeIcon.setIconLiteral(up ? "fas-arrow-up" : "fas-arrow-down");
+        salesChangeIcon.setStyle("-fx-icon-color: " + (up ? "#10B981" : "#EF4444") + ";");
+        salesChangeLabel.getStyleClass().add(up ? "positive" : "negative");
+        salesChangeLabel.setText((up ? "+" : "") + percent.toPlainString() + "% vs hier");
+    }
+
+    private void loadSalesChart(ReportPeriod week, List<ReportEntry> trend) {
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Ventes");
 
-        // Données de démonstration
-        series.getData().add(new XYChart.Data<>("Lun", 45000));
-        series.getData().add(new XYChart.Data<>("Mar", 62000));
-        series.getData().add(new XYChart.Data<>("Mer", 38000));
-        series.getData().add(new XYChart.Data<>("Jeu", 71000));
-        series.getData().add(new XYChart.Data<>("Ven", 55000));
-        series.getData().add(new XYChart.Data<>("Sam", 89000));
-        series.getData().add(new XYChart.Data<>("Dim", 42000));
+        // Une entrée par jour, dans l'ordre: libellé court du jour de la semaine
+        LocalDate day = week.getFrom();
+        for (ReportEntry entry : trend) {
+            String name = day.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.FRENCH).replace(".", "");
+            series.getData().add(new XYChart.Data<>(name.substring(0, 1).toUpperCase() + name.substring(1),
+                    entry.getAmount()));
+            day = day.plusDays(1);
+        }
 
         salesChart.getData().clear();
         salesChart.getData().add(series);
@@ -199,13 +425,11 @@ public class DashboardController implements Initializable {
         });
     }
 
-    private void loadCategoriesChart() {
-        ObservableList<PieChart.Data> pieData = FXCollections.observableArrayList(
-                new PieChart.Data("Électronique", 35),
-                new PieChart.Data("Vêtements", 25),
-                new PieChart.Data("Alimentation", 20),
-                new PieChart.Data("Maison", 12),
-                new PieChart.Data("Autres", 8));
+    private void loadCategoriesChart(List<ReportEntry> categories) {
+        ObservableList<PieChart.Data> pieData = FXCollections.observableArrayList();
+        for (ReportEntry entry : categories) {
+            pieData.add(new PieChart.Data(entry.getLabel(), entry.getAmount().doubleValue()));
+        }
 
         categoriesChart.setData(pieData);
 
@@ -214,18 +438,20 @@ public class DashboardController implements Initializable {
             String[] colors = { "#6366F1", "#10B981", "#F59E0B", "#8B5CF6", "#EC4899" };
             int i = 0;
             for (PieChart.Data data : categoriesChart.getData()) {
-                data.getNode().setStyle("-fx-pie-color: " + colors[i % colors.length] + ";");
+                if (data.getNode() != null) {
+                    data.getNode().setStyle("-fx-pie-color: " + colors[i % colors.length] + ";");
+                }
                 i++;
             }
         });
     }
 
-    private void animateCounter(Label label, int from, int to, String suffix) {
+    private void animateCounter(Label label, long from, long to, String suffix) {
         Timeline timeline = new Timeline();
-        IntegerHolder holder = new IntegerHolder(from);
+        LongHolder holder = new LongHolder(from);
 
         KeyFrame keyFrame = new KeyFrame(Duration.millis(20), event -> {
-            int step = Math.max(1, (to - from) / 50);
+            long step = Math.max(1, (to - from) / 50);
             holder.value = Math.min(holder.value + step, to);
             label.setText(formatNumber(holder.value) + suffix);
         });
@@ -238,7 +464,7 @@ public class DashboardController implements Initializable {
         timeline.setOnFinished(e -> label.setText(formatNumber(to) + suffix));
     }
 
-    private String formatNumber(int number) {
+    private String formatNumber(long number) {
         return currencyFormat.format(number);
     }
 
@@ -327,10 +553,10 @@ public class DashboardController implements Initializable {
     }
 
     // Helper class for animation
-    private static class IntegerHolder {
-        int value;
+    private static class LongHolder {
+        long value;
 
-        IntegerHolder(int initial) {
+        LongHolder(long initial) {
             this.value = initial;
         }
     }
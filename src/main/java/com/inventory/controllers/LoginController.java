@@ -62,12 +62,8 @@ public class LoginController implements Initializable {
     private void initializeDatabase() {
         statusLabel.setText("Connexion à la base de données...");
 
-        new Thread(() -> {
-            // Initialiser les tables
-            DatabaseConnection.initializeDatabase();
-            // Créer l'admin par défaut si nécessaire
-            DatabaseConnection.insertDefaultAdmin();
-
+        // Tables et admin par défaut créés au démarrage de l'application
+        DatabaseConnection.initializeAsync().thenRun(() -> {
             Platform.runLater(() -> {
                 if (DatabaseConnection.testConnection()) {
                     statusLabel.setText("✅ Prêt à se connecter");
@@ -77,7 +73,7 @@ public class LoginController implements Initializable {
                     statusLabel.setStyle("-fx-text-fill: #EF4444;");
                 }
             });
-        }).start();
+        });
     }
 
     private void setupFields() {
@@ -5,6 +5,7 @@ import com.inventory.dao.ProductDAO;
 import com.inventory.models.Category;
 import com.inventory.models.Product;
 import com.inventory.models.User;
+import com.inventory.services.CatalogService;
 import com.inventory.utils.SceneManager;
 import com.inventory.utils.SessionManager;
 import io.github.palexdev.materialfx.controls.MFXButton;
@@ -17,6 +18,8 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
 import javafx.scene.layout.*;
 import org.kordamp.ikonli.javafx.FontIcon;
@@ -65,6 +68,8 @@ public class ProductsController implements Initializable {
 
     private final ProductDAO productDAO = new ProductDAO();
     private final CategoryDAO categoryDAO = new CategoryDAO();
+    // Écritures du catalogue: signalées aux rapports, au cube et au stock faible précalculé
+    private final CatalogService catalogService = new CatalogService();
     private final NumberFormat currencyFormat = NumberFormat.getInstance(Locale.FRANCE);
 
     private List<Product> allProducts;
@@ -365,18 +370,37 @@ public class ProductsController implements Initializable {
 
     @FXML
     private void handleAddProduct() {
-        // TODO: Ouvrir le dialog d'ajout de produit
+        // TODO: Ouvrir le dialog d'ajout de produit (enregistrement via catalogService.createProduct)
         System.out.println("Ajouter un produit...");
     }
 
     private void handleEditProduct(Product product) {
-        // TODO: Ouvrir le dialog de modification
+        // TODO: Ouvrir le dialog de modification (enregistrement via catalogService.updateProduct)
         System.out.println("Modifier le produit: " + product.getName());
     }
 
     private void handleDeleteProduct(Product product) {
-        // TODO: Confirmation et suppression
-        System.out.println("Supprimer le produit: " + product.getName());
+        if (!SessionManager.isAdmin())
+            return;
+
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION,
+                "Désactiver le produit " + product.getName() + " ? Il ne sera plus proposé à la vente.",
+                ButtonType.YES, ButtonType.NO);
+        alert.setHeaderText("Suppression de produit");
+        if (alert.showAndWait().filter(ButtonType.YES::equals).isEmpty())
+            return;
+
+        new Thread(() -> {
+            boolean deleted = catalogService.deleteProduct(product.getId());
+            Platform.runLater(() -> {
+                if (deleted) {
+                    System.out.println("✅ Produit désactivé: " + product.getName());
+                    loadData();
+                } else {
+                    System.err.println("❌ Échec de la suppression du produit: " + product.getName());
+                }
+            });
+        }).start();
     }
 
     private void handleViewProduct(Product product) {
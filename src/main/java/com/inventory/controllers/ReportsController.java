@@ -1,28 +1,62 @@
 package com.inventory.controllers;
 
 import com.inventory.dao.ProductDAO;
+import com.inventory.dao.ReportDAO;
 import com.inventory.models.Product;
+import com.inventory.models.ReportEntry;
+import com.inventory.models.ReportPeriod;
+import com.inventory.models.ReportSummary;
 import com.inventory.models.User;
+import com.inventory.services.CsvExportService;
+import com.inventory.services.ExportJob;
+import com.inventory.services.PdfReportService;
+import com.inventory.services.ReportCache;
+import com.inventory.services.ReportCache.Section;
+import com.inventory.services.ReportSnapshotService;
+import com.inventory.services.SalesCube;
+import com.inventory.services.TopProductsTracker;
+import com.inventory.services.XlsxExportService;
+import com.inventory.utils.DownsampledSeries;
+import com.inventory.utils.LocalStorage;
 import com.inventory.utils.SceneManager;
+import com.inventory.utils.SectionScope;
 import com.inventory.utils.SessionManager;
+import io.github.palexdev.materialfx.controls.MFXButton;
 import io.github.palexdev.materialfx.controls.MFXComboBox;
+import io.github.palexdev.materialfx.controls.MFXDatePicker;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.chart.*;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import org.kordamp.ikonli.javafx.FontIcon;
 
+import java.io.File;
+import java.math.BigDecimal;
 import java.net.URL;
+import java.nio.file.Path;
 import java.text.NumberFormat;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Contrôleur pour les rapports et statistiques
@@ -37,6 +71,10 @@ public class ReportsController implements Initializable {
     private Label userRoleLabel;
     @FXML
     private MFXComboBox<String> periodSelector;
+    @FXML
+    private MFXDatePicker fromDatePicker;
+    @FXML
+    private MFXDatePicker toDatePicker;
 
     // Stats
     @FXML
@@ -61,10 +99,56 @@ public class ReportsController implements Initializable {
     private VBox topProductsContainer;
     @FXML
     private VBox lowStockReportContainer;
+    @FXML
+    private Label stockValuationLabel;
+
+    // Exports
+    @FXML
+    private MFXButton exportPdfButton;
+    @FXML
+    private MFXButton exportXlsxButton;
+    @FXML
+    private MFXButton exportSalesButton;
+    @FXML
+    private MFXButton exportInventoryButton;
+    @FXML
+    private MFXButton exportLowStockButton;
+
+    private static final int TOP_PRODUCTS = 5;
+
+    // Échéance commune des sections d'un chargement
+    private static final Duration LOAD_TIMEOUT = Duration.ofSeconds(15);
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.FRENCH);
+
+    private static final FileChooser.ExtensionFilter CSV_FILTER = new FileChooser.ExtensionFilter("CSV", "*.csv");
+
+    // Threads partagés par les sections des rapports (requêtes indépendantes, exécutées en parallèle)
+    private static final ExecutorService REPORT_EXECUTOR = Executors.newFixedThreadPool(4, r -> {
+        Thread thread = new Thread(r, "report-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private final ProductDAO productDAO = new ProductDAO();
+    private final ReportDAO reportDAO = new ReportDAO();
+    private final ReportCache reportCache = ReportCache.getInstance();
     private final NumberFormat currencyFormat = NumberFormat.getInstance(Locale.FRANCE);
 
+    // Tendance des ventes complète, réduite à la largeur du graphique
+    private DownsampledSeries trendSeries;
+
+    // Chargement en cours des sections, annulé au rechargement suivant (thread JavaFX)
+    private SectionScope loadScope;
+
+    // Dernières données affichées, reprises par le rapport PDF (thread JavaFX)
+    private ReportSummary lastSummary;
+    private List<ReportEntry> lastTopProducts = List.of();
+
+    // Export en cours et bouton qui l'a lancé (accédés uniquement sur le thread JavaFX)
+    private ExportJob activeExport;
+    private MFXButton activeExportButton;
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         if (!SessionManager.isLoggedIn()) {
@@ -75,7 +159,9 @@ public class ReportsController implements Initializable {
         setupUserInfo();
         setupAdminSection();
         setupPeriodSelector();
+        trendSeries = new DownsampledSeries(salesTrendChart, "Ventes");
         loadReportData();
+        showStockValuation();
     }
 
     private void setupUserInfo() {
@@ -96,105 +182,195 @@ public class ReportsController implements Initializable {
     private void setupPeriodSelector() {
         periodSelector.setItems(FXCollections.observableArrayList(
                 "Aujourd'hui",
+                "Hier",
                 "Cette semaine",
                 "Ce mois",
                 "Ce trimestre",
                 "Cette année",
                 "Personnalisé"));
         periodSelector.selectItem("Ce mois");
-        periodSelector.setOnAction(e -> loadReportData());
+        periodSelector.setOnAction(e -> {
+            boolean custom = "Personnalisé".equals(periodSelector.getValue());
+            fromDatePicker.setVisible(custom);
+            fromDatePicker.setManaged(custom);
+            toDatePicker.setVisible(custom);
+            toDatePicker.setManaged(custom);
+            loadReportData();
+        });
+        fromDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> loadReportData());
+        toDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> loadReportData());
+    }
+
+    private ReportPeriod selectedPeriod() {
+        String selection = periodSelector.getValue();
+        if (selection == null)
+            return ReportPeriod.thisMonth();
+
+        return switch (selection) {
+            case "Aujourd'hui" -> ReportPeriod.today();
+            case "Hier" -> new ReportPeriod(LocalDate.now().minusDays(1), LocalDate.now().minusDays(1));
+            case "Cette semaine" -> ReportPeriod.thisWeek();
+            case "Ce trimestre" -> ReportPeriod.thisQuarter();
+            case "Cette année" -> ReportPeriod.thisYear();
+            case "Personnalisé" -> {
+                LocalDate from = fromDatePicker.getValue();
+                LocalDate to = toDatePicker.getValue();
+                if (from == null || to == null || to.isBefore(from))
+                    yield null;
+                yield new ReportPeriod(from, to);
+            }
+            default -> ReportPeriod.thisMonth();
+        };
     }
 
     private void loadReportData() {
-        new Thread(() -> {
-            try {
-                // Données de démonstration
-                // TODO: Remplacer par de vraies données de la base
-
-                Platform.runLater(() -> {
-                    // Stats
-                    totalRevenueLabel.setText(currencyFormat.format(2450000) + " FCFA");
-                    totalSalesLabel.setText("156");
-                    totalProductsSoldLabel.setText("892");
-                    avgSaleLabel.setText(currencyFormat.format(15705) + " FCFA");
-
-                    // Charts
-                    loadSalesTrendChart();
-                    loadCategoryPieChart();
-                    loadPaymentMethodChart();
-                    loadTopProducts();
-                    loadLowStockReport();
-                });
+        ReportPeriod period = selectedPeriod();
+        if (period == null)
+            return; // Période personnalisée incomplète
 
-            } catch (Exception e) {
-                System.err.println("Erreur chargement rapports: " + e.getMessage());
-            }
-        }).start();
+        // Les sections se chargent en parallèle sous une même portée; un changement de période l'annule
+        if (loadScope != null) {
+            loadScope.cancel();
+        }
+        SectionScope scope = new SectionScope(REPORT_EXECUTOR, LOAD_TIMEOUT);
+        loadScope = scope;
+
+        // Journée close: rapport Z précalculé aux heures creuses (petit fichier local), validé
+        // par une requête d'une ligne hors du thread JavaFX; absent ou obsolète, calcul normal
+        ReportSnapshotService snapshots = ReportSnapshotService.getInstance();
+        if (snapshots != null && period.getFrom().equals(period.getTo()) && period.getTo().isBefore(LocalDate.now())) {
+            scope.fork("rapport Z", () -> snapshots.dailyReport(period.getFrom()), daily -> {
+                if (daily != null) {
+                    showDailyReport(daily);
+                } else {
+                    loadSalesSections(scope, period);
+                }
+            }, () -> loadSalesSections(scope, period));
+        } else {
+            loadSalesSections(scope, period);
+        }
+        loadLowStockReport(scope);
     }
 
-    private void loadSalesTrendChart() {
-        XYChart.Series<String, Number> series = new XYChart.Series<>();
-        series.setName("Ventes");
+    private void showDailyReport(ReportSnapshotService.DailyReport daily) {
+        showSummary(daily.summary());
+        loadSalesTrendChart(daily.trend());
+        loadCategoryPieChart(daily.categories());
+        loadPaymentMethodChart(daily.paymentMethods());
+        loadTopProducts(daily.topProducts().subList(0, Math.min(TOP_PRODUCTS, daily.topProducts().size())));
+    }
 
-        series.getData().add(new XYChart.Data<>("Sem 1", 450000));
-        series.getData().add(new XYChart.Data<>("Sem 2", 620000));
-        series.getData().add(new XYChart.Data<>("Sem 3", 380000));
-        series.getData().add(new XYChart.Data<>("Sem 4", 710000));
+    /**
+     * Sections de ventes: cube en mémoire et classement en direct s'ils sont prêts, sinon la base
+     */
+    private void loadSalesSections(SectionScope scope, ReportPeriod period) {
+        SalesCube cube = SalesCube.getInstance();
+        if (cube != null && cube.isReady()) {
+            // Réponse immédiate depuis le cube en mémoire, sans requête
+            SalesCube.Slice slice = SalesCube.Slice.all();
+            showSummary(cube.summary(period, slice));
+            loadSalesTrendChart(cube.trend(period, slice));
+            loadCategoryPieChart(cube.byCategory(period, slice));
+            loadPaymentMethodChart(cube.byPaymentMethod(period, slice));
+        } else {
+            scope.fork("synthèse", () -> reportCache.get(Section.SUMMARY, period,
+                    () -> reportDAO.findSummary(period)), this::showSummary);
+            scope.fork("tendance", () -> reportCache.get(Section.SALES_TREND, period,
+                    () -> reportDAO.findSalesTrend(period)), this::loadSalesTrendChart);
+            scope.fork("catégories", () -> reportCache.get(Section.CATEGORIES, period,
+                    () -> reportDAO.findRevenueByCategory(period)), this::loadCategoryPieChart);
+            scope.fork("modes de paiement", () -> reportCache.get(Section.PAYMENT_METHODS, period,
+                    () -> reportDAO.findRevenueByPaymentMethod(period)), this::loadPaymentMethodChart);
+        }
 
-        salesTrendChart.getData().clear();
-        salesTrendChart.getData().add(series);
+        // Classement en direct pour aujourd'hui, cette semaine et ce mois
+        TopProductsTracker tracker = TopProductsTracker.getInstance();
+        List<ReportEntry> liveTopProducts = tracker != null ? tracker.top(period, TOP_PRODUCTS) : null;
+        if (liveTopProducts != null) {
+            loadTopProducts(liveTopProducts);
+        } else {
+            scope.fork("meilleurs produits", () -> reportCache.get(Section.TOP_PRODUCTS, period,
+                    () -> reportDAO.findTopProducts(period, TOP_PRODUCTS)), this::loadTopProducts,
+                    () -> showUnavailable(topProductsContainer));
+        }
     }
 
-    private void loadCategoryPieChart() {
-        categoryPieChart.setData(FXCollections.observableArrayList(
-                new PieChart.Data("Électronique", 35),
-                new PieChart.Data("Vêtements", 25),
-                new PieChart.Data("Alimentation", 20),
-                new PieChart.Data("Maison", 12),
-                new PieChart.Data("Autres", 8)));
+    /**
+     * Section dont le chargement a échoué ou dépassé l'échéance
+     */
+    private void showUnavailable(VBox container) {
+        container.getChildren().clear();
+        Label label = new Label("Données indisponibles pour le moment");
+        label.setStyle("-fx-text-fill: #64748B; -fx-font-size: 14px; -fx-padding: 20;");
+        container.getChildren().add(label);
+    }
+
+    private void showSummary(ReportSummary summary) {
+        lastSummary = summary;
+        totalRevenueLabel.setText(currencyFormat.format(summary.getRevenue()) + " FCFA");
+        totalSalesLabel.setText(String.valueOf(summary.getSaleCount()));
+        totalProductsSoldLabel.setText(String.valueOf(summary.getUnitsSold()));
+        avgSaleLabel.setText(currencyFormat.format(summary.getAverageBasket()) + " FCFA");
+    }
+
+    private void loadSalesTrendChart(List<ReportEntry> trend) {
+        List<String> labels = new ArrayList<>(trend.size());
+        List<BigDecimal> amounts = new ArrayList<>(trend.size());
+        for (ReportEntry entry : trend) {
+            labels.add(entry.getLabel());
+            amounts.add(entry.getAmount());
+        }
+        trendSeries.setData(labels, amounts);
+    }
+
+    private void loadCategoryPieChart(List<ReportEntry> categories) {
+        ObservableList<PieChart.Data> data = FXCollections.observableArrayList();
+        for (ReportEntry entry : categories) {
+            data.add(new PieChart.Data(entry.getLabel(), entry.getAmount().doubleValue()));
+        }
+        categoryPieChart.setData(data);
 
         // Couleurs personnalisées
         String[] colors = { "#6366F1", "#10B981", "#F59E0B", "#8B5CF6", "#EC4899" };
         int i = 0;
-        for (PieChart.Data data : categoryPieChart.getData()) {
+        for (PieChart.Data slice : categoryPieChart.getData()) {
             final int colorIndex = i;
             Platform.runLater(() -> {
-                if (data.getNode() != null) {
-                    data.getNode().setStyle("-fx-pie-color: " + colors[colorIndex % colors.length] + ";");
+                if (slice.getNode() != null) {
+                    slice.getNode().setStyle("-fx-pie-color: " + colors[colorIndex % colors.length] + ";");
                 }
             });
             i++;
         }
     }
 
-    private void loadPaymentMethodChart() {
+    private void loadPaymentMethodChart(List<ReportEntry> paymentMethods) {
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Montant");
 
-        series.getData().add(new XYChart.Data<>("Espèces", 1200000));
-        series.getData().add(new XYChart.Data<>("Carte", 650000));
-        series.getData().add(new XYChart.Data<>("Mobile", 600000));
+        for (ReportEntry entry : paymentMethods) {
+            series.getData().add(new XYChart.Data<>(entry.getLabel(), entry.getAmount()));
+        }
 
         paymentMethodChart.getData().clear();
         paymentMethodChart.getData().add(series);
     }
 
-    private void loadTopProducts() {
+    private void loadTopProducts(List<ReportEntry> topProducts) {
+        lastTopProducts = topProducts;
         topProductsContainer.getChildren().clear();
 
-        // Top 5 produits (données de démo)
-        String[][] topProducts = {
-                { "iPhone 15 Pro", "45", "4,500,000" },
-                { "MacBook Air M3", "23", "2,300,000" },
-                { "AirPods Pro", "67", "1,675,000" },
-                { "Samsung Galaxy S24", "31", "1,240,000" },
-                { "iPad Pro 12.9", "18", "1,080,000" }
-        };
+        if (topProducts.isEmpty()) {
+            Label emptyLabel = new Label("Aucune vente sur la période");
+            emptyLabel.setStyle("-fx-text-fill: #64748B; -fx-font-size: 14px; -fx-padding: 20;");
+            topProductsContainer.getChildren().add(emptyLabel);
+            return;
+        }
 
         int rank = 1;
-        for (String[] product : topProducts) {
-            HBox row = createTopProductRow(rank++, product[0], Integer.parseInt(product[1]),
-                    Double.parseDouble(product[2].replace(",", "")));
+        for (ReportEntry product : topProducts) {
+            HBox row = createTopProductRow(rank++, product.getLabel(), product.getQuantity(),
+                    product.getAmount().doubleValue());
             topProductsContainer.getChildren().add(row);
         }
     }
@@ -228,25 +404,50 @@ public class ReportsController implements Initializable {
         return row;
     }
 
-    private void loadLowStockReport() {
+    private void loadLowStockReport(SectionScope scope) {
+        // Dernière liste précalculée affichée aussitôt, puis remplacée par la liste à jour
+        ReportSnapshotService snapshots = ReportSnapshotService.getInstance();
+        ReportSnapshotService.LowStock snapshot = snapshots != null ? snapshots.lowStock() : null;
+        if (snapshot != null) {
+            showLowStock(snapshot.products());
+        }
+
+        scope.fork("stock faible", () -> reportCache.get(Section.LOW_STOCK, null, productDAO::findLowStock),
+                this::showLowStock, () -> {
+                    if (snapshot == null) {
+                        showUnavailable(lowStockReportContainer);
+                    }
+                });
+    }
+
+    private void showLowStock(List<Product> lowStockProducts) {
         lowStockReportContainer.getChildren().clear();
+        if (lowStockProducts.isEmpty()) {
+            Label emptyLabel = new Label("🎉 Aucun produit en stock faible!");
+            emptyLabel.setStyle("-fx-text-fill: #10B981; -fx-font-size: 14px; -fx-padding: 20;");
+            lowStockReportContainer.getChildren().add(emptyLabel);
+        } else {
+            for (Product product : lowStockProducts) {
+                HBox row = createLowStockRow(product);
+                lowStockReportContainer.getChildren().add(row);
+            }
+        }
+    }
 
-        new Thread(() -> {
-            List<Product> lowStockProducts = productDAO.findLowStock();
+    /**
+     * Valorisation du stock à la fin du mois dernier, si elle a été précalculée
+     */
+    private void showStockValuation() {
+        ReportSnapshotService snapshots = ReportSnapshotService.getInstance();
+        YearMonth lastMonth = YearMonth.now().minusMonths(1);
+        ReportSnapshotService.StockValuation valuation = snapshots != null ? snapshots.stockValuation(lastMonth) : null;
+        if (valuation == null)
+            return;
 
-            Platform.runLater(() -> {
-                if (lowStockProducts.isEmpty()) {
-                    Label emptyLabel = new Label("🎉 Aucun produit en stock faible!");
-                    emptyLabel.setStyle("-fx-text-fill: #10B981; -fx-font-size: 14px; -fx-padding: 20;");
-                    lowStockReportContainer.getChildren().add(emptyLabel);
-                } else {
-                    for (Product product : lowStockProducts) {
-                        HBox row = createLowStockRow(product);
-                        lowStockReportContainer.getChildren().add(row);
-                    }
-                }
-            });
-        }).start();
+        stockValuationLabel.setText("Stock fin " + lastMonth.format(MONTH_FORMAT) + " : "
+                + currencyFormat.format(valuation.total()) + " FCFA");
+        stockValuationLabel.setVisible(true);
+        stockValuationLabel.setManaged(true);
     }
 
     private HBox createLowStockRow(Product product) {
@@ -299,14 +500,121 @@ public class ReportsController implements Initializable {
 
     @FXML
     private void handleExportPDF() {
-        System.out.println("Export PDF...");
-        // TODO: Générer PDF avec iText
+        ReportPeriod period = selectedPeriod();
+        if (period == null || lastSummary == null)
+            return; // Rapport pas encore chargé
+
+        // Graphiques capturés sur le thread JavaFX, le document est écrit en arrière-plan
+        PdfReportService.Content content = new PdfReportService.Content(period, lastSummary, lastTopProducts,
+                List.of(toChartImage("Évolution des ventes", salesTrendChart),
+                        toChartImage("Ventes par catégorie", categoryPieChart),
+                        toChartImage("Modes de paiement", paymentMethodChart)));
+        startExport(exportPdfButton, "rapport-" + period.getFrom() + "-" + period.getTo() + ".pdf", "pages",
+                new FileChooser.ExtensionFilter("PDF", "*.pdf"),
+                (target, listener) -> PdfReportService.getInstance().generate(content, target, listener));
+    }
+
+    /**
+     * Rendre un graphique en image RGB pour le rapport PDF
+     */
+    private static PdfReportService.ChartImage toChartImage(String title, Chart chart) {
+        WritableImage image = chart.snapshot(new SnapshotParameters(), null);
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        byte[] bgra = new byte[width * height * 4];
+        image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getByteBgraInstance(), bgra, 0, width * 4);
+
+        byte[] rgb = new byte[width * height * 3];
+        for (int src = 0, dst = 0; src < bgra.length; src += 4, dst += 3) {
+            rgb[dst] = bgra[src + 2];
+            rgb[dst + 1] = bgra[src + 1];
+            rgb[dst + 2] = bgra[src];
+        }
+        return new PdfReportService.ChartImage(title, width, height, rgb);
     }
 
     @FXML
     private void handleExportLowStock() {
-        System.out.println("Export rapport stock faible...");
-        // TODO: Export CSV/Excel
+        startExport(exportLowStockButton, "stock-faible-" + LocalDate.now() + ".csv", "lignes", CSV_FILTER,
+                (target, listener) -> CsvExportService.getInstance().exportLowStock(target, listener));
+    }
+
+    @FXML
+    private void handleExportInventory() {
+        startExport(exportInventoryButton, "inventaire-" + LocalDate.now() + ".csv", "lignes", CSV_FILTER,
+                (target, listener) -> CsvExportService.getInstance().exportProducts(target, listener));
+    }
+
+    @FXML
+    private void handleExportSales() {
+        ReportPeriod period = selectedPeriod();
+        if (period == null)
+            return;
+        startExport(exportSalesButton, "ventes-" + period.getFrom() + "-" + period.getTo() + ".csv", "lignes",
+                CSV_FILTER,
+                (target, listener) -> CsvExportService.getInstance().exportSaleItems(period, target, listener));
+    }
+
+    @FXML
+    private void handleExportXlsx() {
+        ReportPeriod period = selectedPeriod();
+        if (period == null)
+            return;
+        startExport(exportXlsxButton, "comptabilite-" + period.getFrom() + "-" + period.getTo() + ".xlsx", "lignes",
+                new FileChooser.ExtensionFilter("Classeur Excel", "*.xlsx"),
+                (target, listener) -> XlsxExportService.getInstance().exportAccounting(period, target, listener));
+    }
+
+    private interface ExportStarter {
+        ExportJob start(Path target, ExportJob.ProgressListener listener);
+    }
+
+    /**
+     * Lancer un export; un nouveau clic sur le bouton pendant l'export l'annule
+     */
+    private void startExport(MFXButton button, String fileName, String unit, FileChooser.ExtensionFilter filter,
+            ExportStarter starter) {
+        if (activeExport != null) {
+            if (button == activeExportButton) {
+                activeExport.cancel();
+            }
+            return; // Un seul export à la fois
+        }
+
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Exporter");
+        chooser.setInitialDirectory(LocalStorage.directory("exports").toFile());
+        chooser.setInitialFileName(fileName);
+        chooser.getExtensionFilters().add(filter);
+        if (filter == CSV_FILTER) {
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV compressé", "*.csv.gz"));
+        }
+        File file = chooser.showSaveDialog(button.getScene().getWindow());
+        if (file == null)
+            return;
+
+        String label = button.getText();
+        button.setText("Annuler");
+        activeExportButton = button;
+        activeExport = starter.start(file.toPath(), (rows, totalRows) -> Platform.runLater(() -> {
+            if (activeExportButton == button) {
+                int percent = totalRows > 0 ? (int) (rows * 100 / totalRows) : 0;
+                button.setText("Annuler (" + percent + " %)");
+            }
+        }));
+
+        activeExport.getResult().whenComplete((rows, error) -> Platform.runLater(() -> {
+            activeExport = null;
+            activeExportButton = null;
+            button.setText(label);
+            if (error == null) {
+                System.out.println("📤 Export terminé: " + rows + " " + unit + " → " + file);
+            } else if (error instanceof CancellationException) {
+                System.out.println("⏹️ Export annulé: " + file.getName());
+            } else {
+                System.err.println("❌ Erreur export " + file.getName() + ": " + error.getMessage());
+            }
+        }));
     }
 
     // ========== Navigation ==========
@@ -1,14 +1,21 @@
 package com.inventory.controllers;
 
 import com.inventory.dao.ProductDAO;
+import com.inventory.models.Cart;
 import com.inventory.models.Product;
 import com.inventory.models.Sale;
 import com.inventory.models.SaleItem;
 import com.inventory.models.User;
+import com.inventory.services.CheckoutService;
+import com.inventory.services.ParkedCartStore;
+import com.inventory.services.PromotionService;
+import com.inventory.services.ReceiptService;
+import com.inventory.utils.BarcodeBurstDetector;
 import com.inventory.utils.SceneManager;
 import com.inventory.utils.SessionManager;
 import io.github.palexdev.materialfx.controls.MFXButton;
 import io.github.palexdev.materialfx.controls.MFXTextField;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -16,13 +23,17 @@ import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
 import javafx.scene.layout.*;
+import javafx.util.Duration;
 import org.kordamp.ikonli.javafx.FontIcon;
 
 import java.math.BigDecimal;
 import java.net.URL;
 import java.text.NumberFormat;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Locale;
+import java.util.Optional;
 import java.util.ResourceBundle;
 
 /**
@@ -45,6 +56,8 @@ public class SalesController implements Initializable {
     @FXML
     private VBox cartItemsContainer;
     @FXML
+    private FlowPane parkedCartsContainer;
+    @FXML
     private Label cartItemsCountLabel;
     @FXML
     private Label subtotalLabel;
@@ -66,11 +79,50 @@ public class SalesController implements Initializable {
     private MFXButton mobileBtn;
 
     private final ProductDAO productDAO = new ProductDAO();
+    private final ParkedCartStore parkedCarts = ParkedCartStore.getInstance();
     private final NumberFormat currencyFormat = NumberFormat.getInstance(Locale.FRANCE);
 
     private List<Product> allProducts;
-    private Sale currentSale;
+    private Map<String, Product> productsByCode = Map.of();
+    private Cart cart;
+    private final Map<Integer, CartRow> cartRows = new HashMap<>();
+    private final Cart.Listener cartListener = new Cart.Listener() {
+        @Override
+        public void itemAdded(SaleItem item) {
+            showCartRow(item);
+        }
+
+        @Override
+        public void itemUpdated(SaleItem item) {
+            CartRow row = cartRows.get(item.getProductId());
+            if (row != null) {
+                row.refresh();
+            }
+        }
+
+        @Override
+        public void itemRemoved(SaleItem item) {
+            removeCartRow(item);
+        }
+
+        @Override
+        public void cleared() {
+            renderCart();
+        }
+
+        @Override
+        public void totalsChanged(Cart changed) {
+            updateCartTotals();
+        }
+    };
     private String selectedPaymentMethod = "CASH";
+    // Vente en cours d'écriture dans le journal: le panier est figé jusqu'à la fin
+    private boolean checkoutInProgress;
+
+    // Saisie: recherche différée pour la frappe humaine, rafales du lecteur traitées à part
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(120));
+    private final BarcodeBurstDetector barcodeDetector = new BarcodeBurstDetector(this::handleBarcodeScan);
+    private String renderedQuery = "";
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -79,16 +131,13 @@ public class SalesController implements Initializable {
             return;
         }
 
-        currentSale = new Sale();
-        currentSale.setSaleNumber(Sale.generateSaleNumber());
-        currentSale.setUserId(SessionManager.getCurrentUser().getId());
-
         setupUserInfo();
         setupAdminSection();
         setupSearch();
         loadProducts();
-        updateCartDisplay();
+        startNewCart();
         selectCashPayment();
+        renderParkedCarts();
     }
 
     private void setupUserInfo() {
@@ -107,16 +156,70 @@ public class SalesController implements Initializable {
     }
 
     private void setupSearch() {
+        searchDebounce.setOnFinished(e -> {
+            String query = productSearchField.getText();
+            if (!query.equals(renderedQuery)) {
+                filterProducts(query);
+            }
+        });
         productSearchField.textProperty().addListener((obs, oldVal, newVal) -> {
-            filterProducts(newVal);
+            // Les caractères d'un scan en cours ne relancent pas la recherche
+            if (barcodeDetector.isBurstInProgress()) {
+                searchDebounce.stop();
+                return;
+            }
+            searchDebounce.playFromStart();
+        });
+
+        // Écouter le clavier sur toute la vue (le lecteur peut taper hors du champ)
+        productSearchField.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene != null) {
+                barcodeDetector.attach(newScene.getRoot());
+            } else {
+                barcodeDetector.detach();
+            }
         });
     }
 
+    /**
+     * Code lu par le lecteur: recherche exacte et ajout direct au panier
+     */
+    private void handleBarcodeScan(String code) {
+        // Retirer du champ de recherche les caractères tapés par le lecteur,
+        // sans relancer de recherche (la liste affichée reste celle d'avant le scan)
+        String text = productSearchField.getText();
+        if (text.endsWith(code)) {
+            productSearchField.setText(text.substring(0, text.length() - code.length()));
+        }
+        searchDebounce.stop();
+
+        Product product = productsByCode.get(code);
+        if (product != null) {
+            addToCart(product);
+            return;
+        }
+
+        // Produit créé depuis le chargement de la liste
+        new Thread(() -> {
+            Optional<Product> found = productDAO.findByCode(code);
+            Platform.runLater(() -> found.ifPresentOrElse(this::addToCart,
+                    () -> System.out.println("⚠️ Code-barres inconnu: " + code)));
+        }).start();
+    }
+
     private void loadProducts() {
         new Thread(() -> {
             try {
-                allProducts = productDAO.findAll();
-                Platform.runLater(() -> displayProducts(allProducts));
+                List<Product> products = productDAO.findAll();
+                Map<String, Product> byCode = new HashMap<>(products.size() * 2);
+                for (Product product : products) {
+                    byCode.put(product.getCode(), product);
+                }
+                Platform.runLater(() -> {
+                    allProducts = products;
+                    productsByCode = byCode;
+                    displayProducts(allProducts);
+                });
             } catch (Exception e) {
                 System.err.println("Erreur chargement produits: " + e.getMessage());
             }
@@ -124,6 +227,7 @@ public class SalesController implements Initializable {
     }
 
     private void filterProducts(String query) {
+        renderedQuery = query == null ? "" : query;
         if (query == null || query.trim().isEmpty()) {
             displayProducts(allProducts);
             return;
@@ -213,116 +317,168 @@ public class SalesController implements Initializable {
     }
 
     private void addToCart(Product product) {
+        if (checkoutInProgress) {
+            System.out.println("⚠️ Vente en cours d'enregistrement, article non ajouté");
+            return;
+        }
         if (product.isOutOfStock()) {
             System.out.println("Produit en rupture de stock!");
             return;
         }
 
-        // Check if already in cart
-        SaleItem existingItem = currentSale.getItems().stream()
-                .filter(item -> item.getProductId() == product.getId())
-                .findFirst()
-                .orElse(null);
+        cart.add(product, 1);
+    }
+
+    // ========== Cart Rendering ==========
+
+    private void startNewCart() {
+        Sale sale = new Sale();
+        sale.setSaleNumber(Sale.generateSaleNumber());
+        bindCart(new Cart(sale));
+    }
+
+    private void bindCart(Cart newCart) {
+        if (cart != null) {
+            cart.removeListener(cartListener);
+        }
+        Sale sale = newCart.getSale();
+        sale.setUserId(SessionManager.getCurrentUser().getId());
+        sale.setUserName(SessionManager.getCurrentUser().getFullName());
+        // Remise promotionnelle résolue en mémoire, sans requête par article
+        PromotionService promotions = PromotionService.getInstance();
+        newCart.setPricing(product -> promotions.discountFor(product.getId()));
+        cart = newCart;
+        cart.addListener(cartListener);
+        renderCart();
+    }
+
+    /**
+     * Reconstruire entièrement l'affichage du panier (changement de panier uniquement);
+     * les modifications suivantes ne touchent que la ligne concernée
+     */
+    private void renderCart() {
+        cartItemsContainer.getChildren().clear();
+        cartRows.clear();
 
-        if (existingItem != null) {
-            existingItem.setQuantity(existingItem.getQuantity() + 1);
+        if (cart.isEmpty()) {
+            showEmptyCart();
         } else {
-            SaleItem newItem = new SaleItem(product, 1);
-            currentSale.addItem(newItem);
+            for (SaleItem item : cart.getItems()) {
+                CartRow row = new CartRow(item);
+                cartRows.put(item.getProductId(), row);
+                cartItemsContainer.getChildren().add(row.node);
+            }
         }
+        updateCartTotals();
+    }
 
-        updateCartDisplay();
+    private void showCartRow(SaleItem item) {
+        if (cartRows.isEmpty()) {
+            cartItemsContainer.getChildren().clear();
+        }
+        CartRow row = new CartRow(item);
+        cartRows.put(item.getProductId(), row);
+        cartItemsContainer.getChildren().add(row.node);
     }
 
-    private void updateCartDisplay() {
-        cartItemsContainer.getChildren().clear();
+    private void removeCartRow(SaleItem item) {
+        CartRow row = cartRows.remove(item.getProductId());
+        if (row != null) {
+            cartItemsContainer.getChildren().remove(row.node);
+        }
+        if (cartRows.isEmpty()) {
+            showEmptyCart();
+        }
+    }
 
-        if (currentSale.getItems().isEmpty()) {
-            VBox emptyCart = new VBox(10);
-            emptyCart.setAlignment(Pos.CENTER);
-            emptyCart.setPadding(new Insets(40));
+    private void showEmptyCart() {
+        VBox emptyCart = new VBox(10);
+        emptyCart.setAlignment(Pos.CENTER);
+        emptyCart.setPadding(new Insets(40));
 
-            FontIcon icon = new FontIcon("fas-shopping-cart");
-            icon.setIconSize(48);
-            icon.setStyle("-fx-icon-color: #475569;");
+        FontIcon icon = new FontIcon("fas-shopping-cart");
+        icon.setIconSize(48);
+        icon.setStyle("-fx-icon-color: #475569;");
 
-            Label label = new Label("Panier vide");
-            label.setStyle("-fx-text-fill: #64748B; -fx-font-size: 14px;");
+        Label label = new Label("Panier vide");
+        label.setStyle("-fx-text-fill: #64748B; -fx-font-size: 14px;");
 
-            emptyCart.getChildren().addAll(icon, label);
-            cartItemsContainer.getChildren().add(emptyCart);
-        } else {
-            for (SaleItem item : currentSale.getItems()) {
-                HBox cartRow = createCartItemRow(item);
-                cartItemsContainer.getChildren().add(cartRow);
-            }
-        }
+        emptyCart.getChildren().addAll(icon, label);
+        cartItemsContainer.getChildren().add(emptyCart);
+    }
 
-        // Update totals
-        int totalItems = currentSale.getTotalItems();
+    private void updateCartTotals() {
+        int totalItems = cart.getItemCount();
         cartItemsCountLabel.setText(totalItems + " article" + (totalItems > 1 ? "s" : ""));
-        subtotalLabel.setText(currencyFormat.format(currentSale.getTotalAmount()) + " FCFA");
-        discountLabel.setText(currencyFormat.format(currentSale.getDiscountAmount()) + " FCFA");
-        totalLabel.setText(currencyFormat.format(currentSale.getFinalAmount()) + " FCFA");
+        BigDecimal discount = cart.getLineDiscount().add(cart.getSale().getDiscountAmount());
+        subtotalLabel.setText(currencyFormat.format(cart.getSubtotal().add(cart.getLineDiscount())) + " FCFA");
+        discountLabel.setText(currencyFormat.format(discount) + " FCFA");
+        totalLabel.setText(currencyFormat.format(cart.getFinalAmount()) + " FCFA");
     }
 
-    private HBox createCartItemRow(SaleItem item) {
-        HBox row = new HBox(10);
-        row.setAlignment(Pos.CENTER_LEFT);
-        row.setPadding(new Insets(12, 10, 12, 10));
-        row.setStyle("-fx-background-color: #0F172A; -fx-background-radius: 10; -fx-border-radius: 10;");
+    /**
+     * Ligne du panier; seuls ses libellés sont mis à jour lors d'un changement de quantité
+     */
+    private final class CartRow {
+        private final SaleItem item;
+        private final HBox node;
+        private final Label priceLabel;
+        private final Label qtyLabel;
+        private final Label subtotalLabel;
 
-        // Info
-        VBox infoBox = new VBox(2);
-        HBox.setHgrow(infoBox, Priority.ALWAYS);
+        CartRow(SaleItem item) {
+            this.item = item;
 
-        Label nameLabel = new Label(item.getProductName());
-        nameLabel.setStyle("-fx-text-fill: #F8FAFC; -fx-font-size: 13px; -fx-font-weight: bold;");
+            node = new HBox(10);
+            node.setAlignment(Pos.CENTER_LEFT);
+            node.setPadding(new Insets(12, 10, 12, 10));
+            node.setStyle("-fx-background-color: #0F172A; -fx-background-radius: 10; -fx-border-radius: 10;");
 
-        Label priceLabel = new Label(currencyFormat.format(item.getUnitPrice()) + " F x " + item.getQuantity());
-        priceLabel.setStyle("-fx-text-fill: #64748B; -fx-font-size: 11px;");
+            // Info
+            VBox infoBox = new VBox(2);
+            HBox.setHgrow(infoBox, Priority.ALWAYS);
 
-        infoBox.getChildren().addAll(nameLabel, priceLabel);
+            Label nameLabel = new Label(item.getProductName());
+            nameLabel.setStyle("-fx-text-fill: #F8FAFC; -fx-font-size: 13px; -fx-font-weight: bold;");
 
-        // Quantity controls
-        HBox qtyControls = new HBox(5);
-        qtyControls.setAlignment(Pos.CENTER);
+            priceLabel = new Label();
+            priceLabel.setStyle("-fx-text-fill: #64748B; -fx-font-size: 11px;");
 
-        MFXButton minusBtn = new MFXButton("-");
-        minusBtn.setStyle(
-                "-fx-background-color: #334155; -fx-text-fill: #F8FAFC; -fx-min-width: 28; -fx-min-height: 28;");
-        minusBtn.setOnAction(e -> {
-            if (item.getQuantity() > 1) {
-                item.setQuantity(item.getQuantity() - 1);
-                currentSale.recalculateTotal();
-                updateCartDisplay();
-            } else {
-                currentSale.removeItem(item);
-                updateCartDisplay();
-            }
-        });
+            infoBox.getChildren().addAll(nameLabel, priceLabel);
 
-        Label qtyLabel = new Label(String.valueOf(item.getQuantity()));
-        qtyLabel.setStyle("-fx-text-fill: #F8FAFC; -fx-font-size: 14px; -fx-min-width: 30; -fx-alignment: center;");
+            // Quantity controls
+            HBox qtyControls = new HBox(5);
+            qtyControls.setAlignment(Pos.CENTER);
 
-        MFXButton plusBtn = new MFXButton("+");
-        plusBtn.setStyle(
-                "-fx-background-color: #334155; -fx-text-fill: #F8FAFC; -fx-min-width: 28; -fx-min-height: 28;");
-        plusBtn.setOnAction(e -> {
-            item.setQuantity(item.getQuantity() + 1);
-            currentSale.recalculateTotal();
-            updateCartDisplay();
-        });
+            MFXButton minusBtn = new MFXButton("-");
+            minusBtn.setStyle(
+                    "-fx-background-color: #334155; -fx-text-fill: #F8FAFC; -fx-min-width: 28; -fx-min-height: 28;");
+            minusBtn.setOnAction(e -> cart.decrement(item.getProductId()));
 
-        qtyControls.getChildren().addAll(minusBtn, qtyLabel, plusBtn);
+            qtyLabel = new Label();
+            qtyLabel.setStyle("-fx-text-fill: #F8FAFC; -fx-font-size: 14px; -fx-min-width: 30; -fx-alignment: center;");
 
-        // Subtotal
-        Label subtotalLabel = new Label(currencyFormat.format(item.getSubtotal()) + " F");
-        subtotalLabel.setStyle(
-                "-fx-text-fill: #10B981; -fx-font-size: 14px; -fx-font-weight: bold; -fx-min-width: 80; -fx-alignment: center-right;");
+            MFXButton plusBtn = new MFXButton("+");
+            plusBtn.setStyle(
+                    "-fx-background-color: #334155; -fx-text-fill: #F8FAFC; -fx-min-width: 28; -fx-min-height: 28;");
+            plusBtn.setOnAction(e -> cart.increment(item.getProductId()));
 
-        row.getChildren().addAll(infoBox, qtyControls, subtotalLabel);
-        return row;
+            qtyControls.getChildren().addAll(minusBtn, qtyLabel, plusBtn);
+
+            // Subtotal
+            subtotalLabel = new Label();
+            subtotalLabel.setStyle(
+                    "-fx-text-fill: #10B981; -fx-font-size: 14px; -fx-font-weight: bold; -fx-min-width: 80; -fx-alignment: center-right;");
+
+            node.getChildren().addAll(infoBox, qtyControls, subtotalLabel);
+            refresh();
+        }
+
+        void refresh() {
+            priceLabel.setText(currencyFormat.format(item.getUnitPrice()) + " F x " + item.getQuantity());
+            qtyLabel.setText(String.valueOf(item.getQuantity()));
+            subtotalLabel.setText(currencyFormat.format(item.getSubtotal()) + " F");
+        }
     }
 
     // ========== Payment Methods ==========
@@ -354,41 +510,175 @@ public class SalesController implements Initializable {
         mobileBtn.setStyle(selectedPaymentMethod.equals("MOBILE") ? activeStyle : inactiveStyle);
     }
 
+    // ========== Parked Carts ==========
+
+    /**
+     * Mettre le panier courant en attente et servir le client suivant
+     */
+    @FXML
+    private void parkCart() {
+        if (cart.isEmpty() || checkoutInProgress)
+            return;
+
+        parkedCarts.park(captureSale());
+        customerNameField.clear();
+        customerPhoneField.clear();
+        selectCashPayment();
+        startNewCart();
+        renderParkedCarts();
+    }
+
+    /**
+     * Reprendre un panier en attente (le panier courant, s'il n'est pas vide, est mis en attente à sa place)
+     */
+    private void resumeCart(String saleNumber) {
+        if (checkoutInProgress)
+            return;
+        Sale resumed = parkedCarts.resume(saleNumber);
+        if (resumed == null)
+            return;
+
+        if (!cart.isEmpty()) {
+            parkedCarts.park(captureSale());
+        }
+
+        bindCart(new Cart(resumed));
+        customerNameField.setText(resumed.getCustomerName() != null ? resumed.getCustomerName() : "");
+        customerPhoneField.setText(resumed.getCustomerPhone() != null ? resumed.getCustomerPhone() : "");
+        selectedPaymentMethod = resumed.getPaymentMethod() != null ? resumed.getPaymentMethod() : "CASH";
+        updatePaymentButtonStyles();
+        renderParkedCarts();
+    }
+
+    private Sale captureSale() {
+        Sale sale = cart.toSale();
+        sale.setPaymentMethod(selectedPaymentMethod);
+        sale.setCustomerName(customerNameField.getText());
+        sale.setCustomerPhone(customerPhoneField.getText());
+        return sale;
+    }
+
+    private void renderParkedCarts() {
+        List<Sale> parked = parkedCarts.getParked();
+        parkedCartsContainer.getChildren().clear();
+        parkedCartsContainer.setVisible(!parked.isEmpty());
+        parkedCartsContainer.setManaged(!parked.isEmpty());
+
+        for (Sale sale : parked) {
+            String customer = sale.getCustomerName() != null && !sale.getCustomerName().isBlank()
+                    ? sale.getCustomerName()
+                    : "#" + sale.getSaleNumber().substring(Math.max(0, sale.getSaleNumber().length() - 4));
+
+            MFXButton chip = new MFXButton(customer + " • " + currencyFormat.format(sale.getFinalAmount()) + " F");
+            FontIcon icon = new FontIcon("fas-play");
+            icon.setIconSize(10);
+            icon.setStyle("-fx-icon-color: #F59E0B;");
+            chip.setGraphic(icon);
+            chip.setStyle("""
+                        -fx-background-color: rgba(245, 158, 11, 0.15);
+                        -fx-text-fill: #F8FAFC;
+                        -fx-font-size: 12px;
+                        -fx-background-radius: 8;
+                    """);
+            chip.setOnAction(e -> resumeCart(sale.getSaleNumber()));
+            parkedCartsContainer.getChildren().add(chip);
+        }
+    }
+
     // ========== Actions ==========
 
     @FXML
     private void clearCart() {
-        currentSale = new Sale();
-        currentSale.setSaleNumber(Sale.generateSaleNumber());
-        currentSale.setUserId(SessionManager.getCurrentUser().getId());
-        updateCartDisplay();
+        if (checkoutInProgress)
+            return;
+        startNewCart();
     }
 
     @FXML
     private void handleValidateSale() {
-        if (currentSale.getItems().isEmpty()) {
+        if (cart.isEmpty()) {
             System.out.println("Le panier est vide!");
             return;
         }
+        if (checkoutInProgress) {
+            return;
+        }
+
+        Sale sale = cart.toSale();
+        sale.setPaymentMethod(selectedPaymentMethod);
+        sale.setCustomerName(customerNameField.getText());
+        sale.setCustomerPhone(customerPhoneField.getText());
+
+        CheckoutService checkoutService = CheckoutService.getInstance();
+        if (checkoutService == null) {
+            System.err.println("❌ Journal de caisse indisponible, vente non enregistrée");
+            return;
+        }
 
-        currentSale.setPaymentMethod(selectedPaymentMethod);
-        currentSale.setCustomerName(customerNameField.getText());
-        currentSale.setCustomerPhone(customerPhoneField.getText());
+        // La vente est écrite dans le journal local; la base est mise à jour en arrière-plan
+        setCheckoutInProgress(true);
+        checkoutService.checkout(sale).whenComplete((ignored, error) -> Platform.runLater(() -> {
+            setCheckoutInProgress(false);
+            if (error != null) {
+                System.err.println("❌ Erreur enregistrement vente: " + error.getMessage());
+                return;
+            }
 
-        // TODO: Sauvegarder la vente en base de données
-        // TODO: Mettre à jour le stock
-        // TODO: Générer le reçu
+            // Reçu généré en arrière-plan, sans bloquer la vente suivante; une erreur
+            // (polices indisponibles comprises) ne fait que priver la vente de reçu
+            ReceiptService.ready().thenCompose(receipts -> receipts.generate(sale)).whenComplete((path, receiptError) -> {
+                if (receiptError != null) {
+                    System.err.println("❌ Erreur génération reçu: " + receiptError.getMessage());
+                } else {
+                    System.out.println("🧾 Reçu généré: " + path);
+                }
+            });
+
+            System.out.println("=== VENTE VALIDÉE ===");
+            System.out.println("Numéro: " + sale.getSaleNumber());
+            System.out.println("Total: " + currencyFormat.format(sale.getFinalAmount()) + " FCFA");
+            System.out.println("Paiement: " + sale.getPaymentMethodDisplay());
+            System.out.println("Articles: " + sale.getTotalItems());
+
+            applyStockChanges(sale);
+
+            // Reset for next sale
+            if (cart.getSale() == sale) {
+                clearCart();
+                customerNameField.clear();
+                customerPhoneField.clear();
+            }
+        }));
+    }
 
-        System.out.println("=== VENTE VALIDÉE ===");
-        System.out.println("Numéro: " + currentSale.getSaleNumber());
-        System.out.println("Total: " + currencyFormat.format(currentSale.getFinalAmount()) + " FCFA");
-        System.out.println("Paiement: " + currentSale.getPaymentMethodDisplay());
-        System.out.println("Articles: " + currentSale.getTotalItems());
+    /**
+     * Figer le panier pendant l'écriture de la vente: les articles journalisés sont
+     * exactement ceux du reçu et du panier vidé ensuite
+     */
+    private void setCheckoutInProgress(boolean inProgress) {
+        checkoutInProgress = inProgress;
+        cartItemsContainer.setDisable(inProgress);
+        parkedCartsContainer.setDisable(inProgress);
+        customerNameField.setDisable(inProgress);
+        customerPhoneField.setDisable(inProgress);
+        cashBtn.setDisable(inProgress);
+        cardBtn.setDisable(inProgress);
+        mobileBtn.setDisable(inProgress);
+    }
 
-        // Reset for next sale
-        clearCart();
-        customerNameField.clear();
-        customerPhoneField.clear();
+    /**
+     * Répercuter localement la vente sur les quantités affichées
+     */
+    private void applyStockChanges(Sale sale) {
+        if (allProducts == null)
+            return;
+        for (SaleItem item : sale.getItems()) {
+            allProducts.stream()
+                    .filter(p -> p.getId() == item.getProductId())
+                    .findFirst()
+                    .ifPresent(p -> p.setQuantity(p.getQuantity() - item.getQuantity()));
+        }
+        filterProducts(productSearchField.getText());
     }
 
     // ========== Navigation ==========
@@ -408,6 +698,11 @@ public class SalesController implements Initializable {
         SceneManager.switchTo("categories");
     }
 
+    @FXML
+    private void navigateToHistory() {
+        SceneManager.switchTo("sales-history");
+    }
+
     @FXML
     private void navigateToUsers() {
         if (SessionManager.isAdmin()) {
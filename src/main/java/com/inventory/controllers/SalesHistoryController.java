@@ -0,0 +1,539 @@
+package com.inventory.controllers;
+
+import com.inventory.dao.SaleDAO;
+import com.inventory.dao.UserDAO;
+import com.inventory.models.Refund;
+import com.inventory.models.Sale;
+import com.inventory.models.SaleFilter;
+import com.inventory.models.SaleItem;
+import com.inventory.models.User;
+import com.inventory.services.SaleEventBus;
+import com.inventory.utils.SceneManager;
+import com.inventory.utils.SessionManager;
+import io.github.palexdev.materialfx.controls.MFXButton;
+import io.github.palexdev.materialfx.controls.MFXComboBox;
+import io.github.palexdev.materialfx.controls.MFXDatePicker;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.*;
+import org.kordamp.ikonli.javafx.FontIcon;
+
+import java.net.URL;
+import java.text.NumberFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * Contrôleur pour l'historique des ventes.
+ *
+ * Les ventes sont chargées par pages (pagination par clé côté serveur) au fil
+ * du défilement; les lignes d'une vente ne sont chargées qu'à son dépliage,
+ * d'où l'on peut retourner un article ou annuler la vente.
+ */
+public class SalesHistoryController implements Initializable {
+
+    private static final int PAGE_SIZE = 50;
+    private static final String ALL_CASHIERS = "Tous les caissiers";
+    private static final String ALL_PAYMENTS = "Tous les paiements";
+    private static final String ALL_STATUSES = "Tous les statuts";
+
+    @FXML
+    private VBox adminSection;
+    @FXML
+    private Label userNameLabel;
+    @FXML
+    private Label userRoleLabel;
+    @FXML
+    private MFXDatePicker fromDatePicker;
+    @FXML
+    private MFXDatePicker toDatePicker;
+    @FXML
+    private MFXComboBox<String> cashierFilter;
+    @FXML
+    private MFXComboBox<String> paymentFilter;
+    @FXML
+    private MFXComboBox<String> statusFilter;
+    @FXML
+    private ScrollPane salesScroll;
+    @FXML
+    private VBox salesContainer;
+    @FXML
+    private Label saleCountLabel;
+    @FXML
+    private MFXButton loadMoreButton;
+
+    private final SaleDAO saleDAO = new SaleDAO();
+    private final UserDAO userDAO = new UserDAO();
+    private final NumberFormat currencyFormat = NumberFormat.getInstance(Locale.FRANCE);
+    private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final Map<String, Integer> cashierIds = new LinkedHashMap<>();
+    private final Map<String, String> paymentMethods = new LinkedHashMap<>();
+    private final Map<String, String> statuses = new LinkedHashMap<>();
+
+    // État de la pagination (thread JavaFX uniquement)
+    private SaleFilter filter = new SaleFilter();
+    private Sale lastLoaded;
+    private int loadedCount;
+    private boolean loading;
+    private boolean exhausted;
+    private int generation;
+
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        if (!SessionManager.isLoggedIn()) {
+            SceneManager.switchTo("login");
+            return;
+        }
+
+        setupUserInfo();
+        setupAdminSection();
+        setupFilters();
+        setupInfiniteScroll();
+        loadCashiers();
+        reload();
+    }
+
+    private void setupUserInfo() {
+        User user = SessionManager.getCurrentUser();
+        if (user != null) {
+            userNameLabel.setText(user.getFullName());
+            userRoleLabel.setText(user.getRoleDisplayName());
+        }
+    }
+
+    private void setupAdminSection() {
+        if (SessionManager.isAdmin()) {
+            adminSection.setVisible(true);
+            adminSection.setManaged(true);
+        }
+    }
+
+    private void setupFilters() {
+        paymentMethods.put(ALL_PAYMENTS, null);
+        paymentMethods.put("Espèces", "CASH");
+        paymentMethods.put("Carte", "CARD");
+        paymentMethods.put("Mobile Money", "MOBILE");
+        paymentFilter.setItems(FXCollections.observableArrayList(paymentMethods.keySet()));
+        paymentFilter.selectFirst();
+
+        statuses.put(ALL_STATUSES, null);
+        statuses.put("Terminée", "COMPLETED");
+        statuses.put("En attente", "PENDING");
+        statuses.put("Annulée", "CANCELLED");
+        statusFilter.setItems(FXCollections.observableArrayList(statuses.keySet()));
+        statusFilter.selectFirst();
+
+        cashierIds.put(ALL_CASHIERS, null);
+        cashierFilter.setItems(FXCollections.observableArrayList(cashierIds.keySet()));
+        cashierFilter.selectFirst();
+
+        // Filter listeners
+        fromDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> reload());
+        toDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> reload());
+        cashierFilter.setOnAction(e -> reload());
+        paymentFilter.setOnAction(e -> reload());
+        statusFilter.setOnAction(e -> reload());
+    }
+
+    private void setupInfiniteScroll() {
+        // Charger la page suivante à l'approche du bas de la liste
+        salesScroll.vvalueProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal.doubleValue() >= 0.95) {
+                loadNextPage();
+            }
+        });
+    }
+
+    private void loadCashiers() {
+        new Thread(() -> {
+            List<User> users = userDAO.findAll();
+
+            Platform.runLater(() -> {
+                for (User user : users) {
+                    cashierIds.put(user.getFullName() + " (" + user.getUsername() + ")", user.getId());
+                }
+                cashierFilter.setItems(FXCollections.observableArrayList(cashierIds.keySet()));
+                cashierFilter.selectFirst();
+            });
+        }).start();
+    }
+
+    private SaleFilter buildFilter() {
+        SaleFilter newFilter = new SaleFilter();
+        newFilter.setFromDate(fromDatePicker.getValue());
+        newFilter.setToDate(toDatePicker.getValue());
+        newFilter.setUserId(cashierIds.get(cashierFilter.getValue()));
+        newFilter.setPaymentMethod(paymentMethods.get(paymentFilter.getValue()));
+        newFilter.setStatus(statuses.get(statusFilter.getValue()));
+        return newFilter;
+    }
+
+    /**
+     * Repartir de la première page avec les filtres courants
+     */
+    private void reload() {
+        generation++;
+        filter = buildFilter();
+        lastLoaded = null;
+        loadedCount = 0;
+        loading = false;
+        exhausted = false;
+        salesContainer.getChildren().clear();
+        salesScroll.setVvalue(0);
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (loading || exhausted)
+            return;
+
+        loading = true;
+        loadMoreButton.setDisable(true);
+
+        int requestGeneration = generation;
+        SaleFilter pageFilter = filter;
+        Sale after = lastLoaded;
+
+        new Thread(() -> {
+            List<Sale> page = saleDAO.findPage(pageFilter, after, PAGE_SIZE);
+
+            Platform.runLater(() -> {
+                // Résultat obsolète (filtres modifiés entre-temps)
+                if (requestGeneration != generation)
+                    return;
+
+                loading = false;
+                appendPage(page);
+            });
+        }).start();
+    }
+
+    private void appendPage(List<Sale> page) {
+        if (page.size() < PAGE_SIZE) {
+            exhausted = true;
+        }
+        if (!page.isEmpty()) {
+            lastLoaded = page.get(page.size() - 1);
+        }
+
+        for (Sale sale : page) {
+            salesContainer.getChildren().add(new SaleRow(sale).node);
+        }
+        loadedCount += page.size();
+
+        if (loadedCount == 0) {
+            salesContainer.getChildren().add(createEmptyState());
+        }
+
+        saleCountLabel.setText(loadedCount + (exhausted ? " ventes" : " ventes affichées"));
+        loadMoreButton.setDisable(exhausted);
+        loadMoreButton.setVisible(!exhausted);
+    }
+
+    /**
+     * Ligne d'historique: en-tête de la vente et détail chargé au premier dépliage
+     */
+    private final class SaleRow {
+        private final Sale sale;
+        private final VBox node;
+        private final VBox itemsBox;
+        private final FontIcon chevron;
+        private final Label statusLabel;
+
+        // Demande en cours par ligne (0 = vente entière), réutilisée si l'opération doit être relancée
+        private final Map<Integer, Refund> pendingRefunds = new HashMap<>();
+
+        SaleRow(Sale sale) {
+            this.sale = sale;
+
+            node = new VBox(0);
+            node.setStyle("-fx-background-color: #1E293B; -fx-background-radius: 10;");
+
+            HBox header = new HBox(15);
+            header.setAlignment(Pos.CENTER_LEFT);
+            header.setPadding(new Insets(12, 15, 12, 15));
+            header.setStyle("-fx-cursor: hand;");
+
+            chevron = new FontIcon("fas-chevron-right");
+            chevron.setIconSize(12);
+            chevron.setStyle("-fx-icon-color: #64748B;");
+
+            // Sale info
+            VBox infoBox = new VBox(2);
+            HBox.setHgrow(infoBox, Priority.ALWAYS);
+
+            Label numberLabel = new Label(sale.getSaleNumber());
+            numberLabel.setStyle("-fx-text-fill: #F8FAFC; -fx-font-size: 14px; -fx-font-weight: bold;");
+
+            String date = sale.getCreatedAt() != null ? sale.getCreatedAt().format(dateFormatter) : "";
+            String cashier = sale.getUserName() != null ? sale.getUserName() : "—";
+            Label detailLabel = new Label(date + "  •  " + cashier + "  •  " + sale.getPaymentMethodDisplay());
+            detailLabel.setStyle("-fx-text-fill: #64748B; -fx-font-size: 12px;");
+
+            infoBox.getChildren().addAll(numberLabel, detailLabel);
+
+            if (sale.getCustomerName() != null && !sale.getCustomerName().isBlank()) {
+                Label customerLabel = new Label(sale.getCustomerName());
+                customerLabel.setStyle("-fx-text-fill: #94A3B8; -fx-font-size: 12px;");
+                infoBox.getChildren().add(customerLabel);
+            }
+
+            statusLabel = new Label();
+
+            Label amountLabel = new Label(currencyFormat.format(sale.getFinalAmount()) + " F");
+            amountLabel.setStyle(
+                    "-fx-text-fill: #10B981; -fx-font-size: 16px; -fx-font-weight: bold; -fx-min-width: 110; -fx-alignment: center-right;");
+
+            header.getChildren().addAll(chevron, infoBox, statusLabel, amountLabel);
+            header.setOnMouseClicked(e -> toggle());
+
+            itemsBox = new VBox(6);
+            itemsBox.setPadding(new Insets(0, 15, 12, 42));
+            itemsBox.setVisible(false);
+            itemsBox.setManaged(false);
+
+            node.getChildren().addAll(header, itemsBox);
+            refreshStatus();
+        }
+
+        private void refreshStatus() {
+            statusLabel.setText(sale.getStatusDisplay());
+            statusLabel.getStyleClass().setAll("label", "badge", sale.getStatusClass());
+        }
+
+        private void toggle() {
+            boolean expand = !itemsBox.isVisible();
+            itemsBox.setVisible(expand);
+            itemsBox.setManaged(expand);
+            chevron.setIconLiteral(expand ? "fas-chevron-down" : "fas-chevron-right");
+
+            if (expand && itemsBox.getChildren().isEmpty()) {
+                loadItems();
+            }
+        }
+
+        private void loadItems() {
+            itemsBox.getChildren().setAll(mutedLabel("Chargement..."));
+
+            new Thread(() -> {
+                List<SaleItem> items = saleDAO.findItems(sale.getId());
+                Map<Integer, Integer> returned = saleDAO.findReturnedQuantities(sale.getId());
+
+                Platform.runLater(() -> {
+                    sale.setItems(items);
+                    itemsBox.getChildren().clear();
+                    if (items.isEmpty()) {
+                        itemsBox.getChildren().add(mutedLabel("Aucun article"));
+                        return;
+                    }
+                    for (SaleItem item : items) {
+                        itemsBox.getChildren().add(createItemRow(item, returned.getOrDefault(item.getId(), 0)));
+                    }
+                    // Annulations et retours réservés aux administrateurs
+                    if (!"CANCELLED".equals(sale.getStatus()) && SessionManager.isAdmin()) {
+                        MFXButton cancelBtn = new MFXButton("Annuler la vente");
+                        cancelBtn.setStyle(
+                                "-fx-background-color: rgba(239, 68, 68, 0.15); -fx-text-fill: #EF4444; -fx-background-radius: 8;");
+                        cancelBtn.setOnAction(e -> submitRefund(0, cancelBtn));
+                        HBox actions = new HBox(cancelBtn);
+                        actions.setAlignment(Pos.CENTER_RIGHT);
+                        actions.setPadding(new Insets(6, 0, 0, 0));
+                        itemsBox.getChildren().add(actions);
+                    }
+                });
+            }).start();
+        }
+
+        private HBox createItemRow(SaleItem item, int returnedQuantity) {
+            HBox row = new HBox(10);
+            row.setAlignment(Pos.CENTER_LEFT);
+
+            String name = item.getProductName() != null ? item.getProductName() : "Produit #" + item.getProductId();
+            Label nameLabel = new Label(name);
+            nameLabel.setStyle("-fx-text-fill: #CBD5E1; -fx-font-size: 13px;");
+            HBox.setHgrow(nameLabel, Priority.ALWAYS);
+            nameLabel.setMaxWidth(Double.MAX_VALUE);
+
+            String detail = item.getQuantity() + " x " + currencyFormat.format(item.getUnitPrice()) + " F";
+            if (item.getDiscountPercentage() != null && item.getDiscountPercentage().signum() > 0) {
+                detail += "  (-" + item.getDiscountPercentage().stripTrailingZeros().toPlainString() + "%)";
+            }
+            if (returnedQuantity > 0) {
+                detail += "  •  " + returnedQuantity + " retourné(s)";
+            }
+            Label detailLabel = new Label(detail);
+            detailLabel.setStyle("-fx-text-fill: #64748B; -fx-font-size: 12px;");
+
+            Label subtotalLabel = new Label(currencyFormat.format(item.getSubtotal()) + " F");
+            subtotalLabel.setStyle(
+                    "-fx-text-fill: #F8FAFC; -fx-font-size: 13px; -fx-min-width: 110; -fx-alignment: center-right;");
+
+            row.getChildren().addAll(nameLabel, detailLabel, subtotalLabel);
+
+            // Retour d'une unité de la ligne
+            if (returnedQuantity < item.getQuantity() && !"CANCELLED".equals(sale.getStatus())
+                    && SessionManager.isAdmin()) {
+                MFXButton returnBtn = new MFXButton();
+                FontIcon returnIcon = new FontIcon("fas-undo");
+                returnIcon.setIconSize(12);
+                returnIcon.setStyle("-fx-icon-color: #F59E0B;");
+                returnBtn.setGraphic(returnIcon);
+                returnBtn.setStyle("-fx-background-color: rgba(245, 158, 11, 0.15); -fx-background-radius: 8;");
+                returnBtn.setOnAction(e -> submitRefund(item.getId(), returnBtn));
+                row.getChildren().add(returnBtn);
+            }
+            return row;
+        }
+
+        /**
+         * Envoyer un retour (saleItemId = 0 pour annuler toute la vente)
+         */
+        private void submitRefund(int saleItemId, MFXButton button) {
+            User user = SessionManager.getCurrentUser();
+            if (user == null || !SessionManager.isAdmin())
+                return;
+            if (!confirmRefund(saleItemId))
+                return;
+
+            Refund refund = pendingRefunds.computeIfAbsent(saleItemId, k -> {
+                Refund created = new Refund(sale.getId(), user.getId(),
+                        k == 0 ? "Annulation depuis l'historique" : "Retour depuis l'historique");
+                if (k != 0) {
+                    created.addLine(k, 1);
+                }
+                return created;
+            });
+
+            button.setDisable(true);
+            new Thread(() -> {
+                boolean success = saleDAO.refund(refund);
+                if (success && !refund.isAlreadyApplied()) {
+                    SaleEventBus.getInstance().publishRefunded(sale, refund);
+                }
+
+                Platform.runLater(() -> {
+                    if (!success) {
+                        // La même demande sera renvoyée au prochain clic
+                        button.setDisable(false);
+                        return;
+                    }
+                    pendingRefunds.remove(saleItemId);
+                    System.out.println("↩️ Retour " + sale.getSaleNumber() + ": "
+                            + currencyFormat.format(refund.getAmount()) + " FCFA");
+                    reloadStatusAndItems();
+                });
+            }).start();
+        }
+
+        private boolean confirmRefund(int saleItemId) {
+            String message = saleItemId == 0
+                    ? "Annuler la vente " + sale.getSaleNumber() + " ? Tous ses articles seront remis en stock."
+                    : "Retourner un article de la vente " + sale.getSaleNumber() + " ?";
+            Alert alert = new Alert(Alert.AlertType.CONFIRMATION, message, ButtonType.YES, ButtonType.NO);
+            alert.setHeaderText(saleItemId == 0 ? "Annulation de vente" : "Retour d'article");
+            return alert.showAndWait().filter(ButtonType.YES::equals).isPresent();
+        }
+
+        private void reloadStatusAndItems() {
+            new Thread(() -> {
+                Map<Integer, Integer> returned = saleDAO.findReturnedQuantities(sale.getId());
+                boolean fullyReturned = sale.getItems().stream()
+                        .allMatch(item -> returned.getOrDefault(item.getId(), 0) >= item.getQuantity());
+
+                Platform.runLater(() -> {
+                    if (fullyReturned) {
+                        sale.setStatus("CANCELLED");
+                    }
+                    refreshStatus();
+                    loadItems();
+                });
+            }).start();
+        }
+    }
+
+    private Label mutedLabel(String text) {
+        Label label = new Label(text);
+        label.setStyle("-fx-text-fill: #64748B; -fx-font-size: 12px;");
+        return label;
+    }
+
+    private VBox createEmptyState() {
+        VBox emptyState = new VBox(15);
+        emptyState.setAlignment(Pos.CENTER);
+        emptyState.setPadding(new Insets(50));
+
+        FontIcon icon = new FontIcon("fas-receipt");
+        icon.setIconSize(48);
+        icon.setStyle("-fx-icon-color: #64748B;");
+
+        Label label = new Label("Aucune vente trouvée");
+        label.setStyle("-fx-text-fill: #64748B; -fx-font-size: 16px;");
+
+        emptyState.getChildren().addAll(icon, label);
+        return emptyState;
+    }
+
+    @FXML
+    private void loadMoreSales() {
+        loadNextPage();
+    }
+
+    @FXML
+    private void refreshSales() {
+        reload();
+    }
+
+    // ========== Navigation ==========
+
+    @FXML
+    private void navigateToDashboard() {
+        SceneManager.switchTo("dashboard");
+    }
+
+    @FXML
+    private void navigateToProducts() {
+        SceneManager.switchTo("products");
+    }
+
+    @FXML
+    private void navigateToCategories() {
+        SceneManager.switchTo("categories");
+    }
+
+    @FXML
+    private void navigateToSales() {
+        SceneManager.switchTo("sales");
+    }
+
+    @FXML
+    private void navigateToUsers() {
+        if (SessionManager.isAdmin()) {
+            SceneManager.switchTo("users");
+        }
+    }
+
+    @FXML
+    private void navigateToReports() {
+        SceneManager.switchTo("reports");
+    }
+
+    @FXML
+    private void handleLogout() {
+        SessionManager.endSession();
+        SceneManager.switchTo("login");
+    }
+}
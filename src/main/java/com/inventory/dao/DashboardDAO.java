@@ -0,0 +1,126 @@
+package com.inventory.dao;
+
+import com.inventory.models.DashboardStats;
+import com.inventory.utils.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Data Access Object pour les indicateurs du tableau de bord.
+ *
+ * Tous les indicateurs sont lus en une seule requête (un aller-retour avec
+ * le serveur): le chiffre du jour, d'hier et du mois dans l'agrégat
+ * journalier (net des retours), les comptes de produits dans la table
+ * produits.
+ *
+ * Les marqueurs de changement (dernière vente, dernière modification de
+ * produit, notifications non lues) se lisent dans les index, sans parcours
+ * de table: le tableau de bord peut les interroger souvent.
+ */
+public class DashboardDAO {
+
+    private static final String SALES_COLUMNS = """
+                (SELECT COALESCE(SUM(revenue), 0) FROM sales_daily_summary WHERE sale_date = ?) as today_sales,
+                (SELECT COALESCE(SUM(revenue), 0) FROM sales_daily_summary WHERE sale_date = ?) as yesterday_sales,
+                (SELECT COALESCE(SUM(revenue), 0) FROM sales_daily_summary
+                 WHERE sale_date BETWEEN ? AND ?) as month_revenue
+            """;
+
+    private static final String STOCK_COLUMNS = """
+                (SELECT COUNT(*) FROM products WHERE is_active = TRUE) as product_count,
+                (SELECT COUNT(*) FROM products
+                 WHERE is_active = TRUE AND quantity <= alert_threshold) as low_stock_count
+            """;
+
+    private static final String WATERMARKS_SQL = """
+                SELECT
+                    (SELECT COALESCE(MAX(id), 0) FROM sales) as max_sale_id,
+                    (SELECT MAX(updated_at) FROM products) as products_updated_at,
+                    (SELECT COUNT(*) FROM notifications
+                     WHERE is_read = FALSE AND (user_id = ? OR user_id IS NULL)) as unread_notifications
+            """;
+
+    /**
+     * Marqueurs de changement des données du tableau de bord: deux lectures
+     * égales signifient que les indicateurs n'ont pas à être recalculés
+     */
+    public record Watermarks(int maxSaleId, Timestamp productsUpdatedAt, int unreadNotifications) {
+    }
+
+    /**
+     * Indicateurs du tableau de bord à l'instant donné
+     */
+    public DashboardStats findStats(LocalDateTime now) {
+        return findStats(now, null, true, true);
+    }
+
+    /**
+     * Recalculer seulement les indicateurs de ventes et/ou de stock; les autres
+     * sont repris de previous
+     */
+    public DashboardStats findStats(LocalDateTime now, DashboardStats previous, boolean sales, boolean stock) {
+        DashboardStats stats = new DashboardStats();
+        if (previous != null) {
+            stats.setProductCount(previous.getProductCount());
+            stats.setLowStockCount(previous.getLowStockCount());
+            stats.setTodaySales(previous.getTodaySales());
+            stats.setYesterdaySales(previous.getYesterdaySales());
+            stats.setMonthRevenue(previous.getMonthRevenue());
+        }
+        if (!sales && !stock)
+            return stats;
+
+        String sql = "SELECT " + (sales ? SALES_COLUMNS : "") + (sales && stock ? ", " : "")
+                + (stock ? STOCK_COLUMNS : "");
+        LocalDate today = now.toLocalDate();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (sales) {
+                stmt.setDate(1, Date.valueOf(today));
+                stmt.setDate(2, Date.valueOf(today.minusDays(1)));
+                stmt.setDate(3, Date.valueOf(today.withDayOfMonth(1)));
+                stmt.setDate(4, Date.valueOf(today));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    if (sales) {
+                        stats.setTodaySales(rs.getBigDecimal("today_sales"));
+                        stats.setYesterdaySales(rs.getBigDecimal("yesterday_sales"));
+                        stats.setMonthRevenue(rs.getBigDecimal("month_revenue"));
+                    }
+                    if (stock) {
+                        stats.setProductCount(rs.getInt("product_count"));
+                        stats.setLowStockCount(rs.getInt("low_stock_count"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur indicateurs du tableau de bord: " + e.getMessage());
+        }
+        return stats;
+    }
+
+    /**
+     * Marqueurs de changement courants (notifications de l'utilisateur et notifications générales),
+     * ou null si la base est indisponible
+     */
+    public Watermarks findWatermarks(int userId) {
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(WATERMARKS_SQL)) {
+            stmt.setInt(1, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Watermarks(rs.getInt("max_sale_id"), rs.getTimestamp("products_updated_at"),
+                            rs.getInt("unread_notifications"));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur lecture des marqueurs du tableau de bord: " + e.getMessage());
+        }
+        return null;
+    }
+}
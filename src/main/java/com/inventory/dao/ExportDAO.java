@@ -0,0 +1,202 @@
+package com.inventory.dao;
+
+import com.inventory.models.ReportPeriod;
+import com.inventory.utils.DatabaseConnection;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Data Access Object pour les exports en flux.
+ *
+ * Les lignes sont lues avec un curseur en avant seulement et une taille de
+ * lot Integer.MIN_VALUE: le pilote MySQL les transmet une à une au lieu de
+ * charger tout le résultat en mémoire. Les intitulés de colonnes des
+ * requêtes servent d'en-têtes aux fichiers exportés.
+ */
+public class ExportDAO {
+
+    /**
+     * Destinataire des lignes lues (le ResultSet est positionné sur la ligne courante).
+     * Lever une CancellationException interrompt la lecture.
+     */
+    public interface RowVisitor {
+        /**
+         * Appelé une fois avant la première ligne, même si le résultat est vide
+         */
+        default void columns(ResultSetMetaData metaData) throws SQLException, IOException {
+        }
+
+        void visit(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    private static final Binder NO_PARAMETERS = stmt -> {
+    };
+
+    private static final String PRODUCT_COLUMNS = """
+                p.code as `Code`, p.name as `Produit`, COALESCE(c.name, '') as `Catégorie`,
+                COALESCE(s.name, '') as `Fournisseur`, p.quantity as `Quantité`,
+                p.alert_threshold as `Seuil d'alerte`, p.purchase_price as `Prix d'achat`,
+                p.selling_price as `Prix de vente`, p.expiration_date as `Expiration`
+            """;
+
+    private static final String PRODUCT_JOINS = """
+                FROM products p
+                LEFT JOIN categories c ON p.category_id = c.id
+                LEFT JOIN suppliers s ON p.supplier_id = s.id
+            """;
+
+    private static final String LOW_STOCK_FILTER = " WHERE p.is_active = TRUE AND p.quantity <= p.alert_threshold ";
+    private static final String ACTIVE_FILTER = " WHERE p.is_active = TRUE ";
+    private static final String SALES_FILTER = " WHERE s.status = 'COMPLETED' AND s.created_at >= ? AND s.created_at < ? ";
+    private static final String SALES_PERIOD_FILTER = " WHERE s.created_at >= ? AND s.created_at < ? ";
+    private static final String MOVEMENTS_PERIOD_FILTER = " WHERE m.created_at >= ? AND m.created_at < ? ";
+
+    // ========== Produits en stock faible ==========
+
+    public long countLowStock() throws SQLException {
+        return count("SELECT COUNT(*) FROM products p" + LOW_STOCK_FILTER, NO_PARAMETERS);
+    }
+
+    public void streamLowStock(RowVisitor visitor) throws SQLException, IOException {
+        stream("SELECT " + PRODUCT_COLUMNS + PRODUCT_JOINS + LOW_STOCK_FILTER + "ORDER BY p.quantity ASC",
+                NO_PARAMETERS, visitor);
+    }
+
+    // ========== Inventaire complet ==========
+
+    public long countProducts() throws SQLException {
+        return count("SELECT COUNT(*) FROM products p" + ACTIVE_FILTER, NO_PARAMETERS);
+    }
+
+    public void streamProducts(RowVisitor visitor) throws SQLException, IOException {
+        stream("SELECT " + PRODUCT_COLUMNS + PRODUCT_JOINS + ACTIVE_FILTER + "ORDER BY p.name", NO_PARAMETERS,
+                visitor);
+    }
+
+    // ========== Lignes de vente d'une période ==========
+
+    public long countSaleItems(ReportPeriod period) throws SQLException {
+        return count("SELECT COUNT(*) FROM sales s JOIN sale_items si ON si.sale_id = s.id" + SALES_FILTER,
+                stmt -> bindPeriod(stmt, period));
+    }
+
+    public void streamSaleItems(ReportPeriod period, RowVisitor visitor) throws SQLException, IOException {
+        String sql = """
+                    SELECT s.sale_number as `Vente`, s.created_at as `Date`, u.full_name as `Caissier`,
+                           s.payment_method as `Paiement`, p.code as `Code`, p.name as `Produit`,
+                           si.quantity as `Quantité`, si.unit_price as `Prix unitaire`,
+                           si.discount_percentage as `Remise (%)`, si.subtotal as `Sous-total`
+                    FROM sales s
+                    JOIN sale_items si ON si.sale_id = s.id
+                    JOIN products p ON p.id = si.product_id
+                    JOIN users u ON u.id = s.user_id
+                """ + SALES_FILTER + "ORDER BY s.created_at, s.id, si.id";
+
+        stream(sql, stmt -> bindPeriod(stmt, period), visitor);
+    }
+
+    // ========== Ventes d'une période (tous statuts) ==========
+
+    public long countSales(ReportPeriod period) throws SQLException {
+        return count("SELECT COUNT(*) FROM sales s" + SALES_PERIOD_FILTER, stmt -> bindPeriod(stmt, period));
+    }
+
+    public void streamSales(ReportPeriod period, RowVisitor visitor) throws SQLException, IOException {
+        String sql = """
+                    SELECT s.sale_number as `Vente`, s.created_at as `Date`, u.full_name as `Caissier`,
+                           s.customer_name as `Client`, s.payment_method as `Paiement`, s.status as `Statut`,
+                           s.discount_amount as `Remise`, s.tax_amount as `Taxes`, s.total_amount as `Total`
+                    FROM sales s
+                    JOIN users u ON u.id = s.user_id
+                """ + SALES_PERIOD_FILTER + "ORDER BY s.created_at, s.id";
+
+        stream(sql, stmt -> bindPeriod(stmt, period), visitor);
+    }
+
+    // ========== Valorisation du stock ==========
+
+    public void streamStockValuation(RowVisitor visitor) throws SQLException, IOException {
+        String sql = """
+                    SELECT p.code as `Code`, p.name as `Produit`, COALESCE(c.name, '') as `Catégorie`,
+                           p.quantity as `Quantité`, p.purchase_price as `Prix d'achat`,
+                           p.selling_price as `Prix de vente`,
+                           p.quantity * p.purchase_price as `Valeur d'achat`,
+                           p.quantity * p.selling_price as `Valeur de vente`
+                """ + PRODUCT_JOINS + ACTIVE_FILTER + "ORDER BY p.name";
+
+        stream(sql, NO_PARAMETERS, visitor);
+    }
+
+    // ========== Mouvements de stock d'une période ==========
+
+    public long countMovements(ReportPeriod period) throws SQLException {
+        return count("SELECT COUNT(*) FROM stock_movements m" + MOVEMENTS_PERIOD_FILTER,
+                stmt -> bindPeriod(stmt, period));
+    }
+
+    public void streamMovements(ReportPeriod period, RowVisitor visitor) throws SQLException, IOException {
+        String sql = """
+                    SELECT m.created_at as `Date`, p.code as `Code`, p.name as `Produit`,
+                           m.movement_type as `Type`,
+                           CASE m.movement_type WHEN 'OUT' THEN -m.quantity ELSE m.quantity END as `Quantité`,
+                           m.reason as `Motif`, COALESCE(u.full_name, '') as `Utilisateur`
+                    FROM stock_movements m
+                    JOIN products p ON p.id = m.product_id
+                    LEFT JOIN users u ON u.id = m.user_id
+                """ + MOVEMENTS_PERIOD_FILTER + "ORDER BY m.created_at, m.id";
+
+        stream(sql, stmt -> bindPeriod(stmt, period), visitor);
+    }
+
+    // ========== Utilitaires ==========
+
+    private long count(String sql, Binder binder) throws SQLException {
+        try (Connection conn = connect();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private void stream(String sql, Binder binder, RowVisitor visitor) throws SQLException, IOException {
+        try (Connection conn = connect();
+                PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE); // Lecture ligne à ligne
+            binder.bind(stmt);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                visitor.columns(rs.getMetaData());
+                while (rs.next()) {
+                    try {
+                        visitor.visit(rs);
+                    } catch (CancellationException e) {
+                        // Sans arrêt de la requête, la fermeture lirait toutes les lignes restantes
+                        stmt.cancel();
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null)
+            throw new SQLException("Base de données indisponible");
+        return conn;
+    }
+
+    private void bindPeriod(PreparedStatement stmt, ReportPeriod period) throws SQLException {
+        stmt.setTimestamp(1, Timestamp.valueOf(period.getStart()));
+        stmt.setTimestamp(2, Timestamp.valueOf(period.getEnd()));
+    }
+}
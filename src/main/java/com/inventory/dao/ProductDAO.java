@@ -1,24 +1,46 @@
 package com.inventory.dao;
 
 import com.inventory.models.Product;
+import com.inventory.models.StockMovement;
 import com.inventory.utils.DatabaseConnection;
 
 import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object pour les opérations sur les produits
  */
 public class ProductDAO {
 
+    private final Consumer<StockMovement> movementSink;
+
+    /**
+     * Les mouvements de stock sont écrits directement en base
+     */
+    public ProductDAO() {
+        this(new StockMovementDAO()::create);
+    }
+
+    /**
+     * @param movementSink destination des mouvements de stock produits par les écritures
+     *                     (par exemple un journal asynchrone)
+     */
+    public ProductDAO(Consumer<StockMovement> movementSink) {
+        this.movementSink = movementSink;
+    }
+
     /**
      * Créer un nouveau produit
+     *
+     * @param userId utilisateur à qui est attribué le mouvement de stock initial
      */
-    public boolean create(Product product) {
+    public boolean create(Product product, int userId) {
         String sql = """
                     INSERT INTO products (code, name, description, category_id, supplier_id,
                                           purchase_price, selling_price, quantity, alert_threshold,
@@ -29,6 +51,8 @@ public class ProductDAO {
         try (Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
+            // Transaction explicite: le stock initial est horodaté avant la validation
+            conn.setAutoCommit(false);
             stmt.setString(1, product.getCode());
             stmt.setString(2, product.getName());
             stmt.setString(3, product.getDescription());
@@ -59,12 +83,18 @@ public class ProductDAO {
             stmt.setString(11, product.getImagePath());
 
             int affectedRows = stmt.executeUpdate();
+            LocalDateTime movedAt = StockMovementDAO.stamp();
+            conn.commit();
 
             if (affectedRows > 0) {
                 ResultSet generatedKeys = stmt.getGeneratedKeys();
                 if (generatedKeys.next()) {
                     product.setId(generatedKeys.getInt(1));
                 }
+                if (product.getQuantity() != 0) {
+                    recordMovement(StockMovement.ofChange(product.getId(), userId, product.getQuantity(), "Stock initial"),
+                            movedAt);
+                }
                 return true;
             }
         } catch (SQLException e) {
@@ -75,8 +105,10 @@ public class ProductDAO {
 
     /**
      * Mettre à jour un produit
+     *
+     * @param userId utilisateur à qui est attribué l'ajustement de quantité éventuel
      */
-    public boolean update(Product product) {
+    public boolean update(Product product, int userId) {
         String sql = """
                     UPDATE products SET
                         code = ?, name = ?, description = ?, category_id = ?, supplier_id = ?,
@@ -85,41 +117,71 @@ public class ProductDAO {
                     WHERE id = ?
                 """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null)
+            return false;
+
+        try (conn) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement lockStmt = conn.prepareStatement(
+                    "SELECT quantity FROM products WHERE id = ? FOR UPDATE");
+                    PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                // Quantité précédente, pour tracer l'ajustement éventuel
+                lockStmt.setInt(1, product.getId());
+                Integer previousQuantity = null;
+                try (ResultSet rs = lockStmt.executeQuery()) {
+                    if (rs.next()) {
+                        previousQuantity = rs.getInt(1);
+                    }
+                }
 
-            stmt.setString(1, product.getCode());
-            stmt.setString(2, product.getName());
-            stmt.setString(3, product.getDescription());
+                stmt.setString(1, product.getCode());
+                stmt.setString(2, product.getName());
+                stmt.setString(3, product.getDescription());
 
-            if (product.getCategoryId() > 0) {
-                stmt.setInt(4, product.getCategoryId());
-            } else {
-                stmt.setNull(4, Types.INTEGER);
-            }
+                if (product.getCategoryId() > 0) {
+                    stmt.setInt(4, product.getCategoryId());
+                } else {
+                    stmt.setNull(4, Types.INTEGER);
+                }
 
-            if (product.getSupplierId() > 0) {
-                stmt.setInt(5, product.getSupplierId());
-            } else {
-                stmt.setNull(5, Types.INTEGER);
-            }
+                if (product.getSupplierId() > 0) {
+                    stmt.setInt(5, product.getSupplierId());
+                } else {
+                    stmt.setNull(5, Types.INTEGER);
+                }
 
-            stmt.setBigDecimal(6, product.getPurchasePrice());
-            stmt.setBigDecimal(7, product.getSellingPrice());
-            stmt.setInt(8, product.getQuantity());
-            stmt.setInt(9, product.getAlertThreshold());
+                stmt.setBigDecimal(6, product.getPurchasePrice());
+                stmt.setBigDecimal(7, product.getSellingPrice());
+                stmt.setInt(8, product.getQuantity());
+                stmt.setInt(9, product.getAlertThreshold());
 
-            if (product.getExpirationDate() != null) {
-                stmt.setDate(10, Date.valueOf(product.getExpirationDate()));
-            } else {
-                stmt.setNull(10, Types.DATE);
-            }
+                if (product.getExpirationDate() != null) {
+                    stmt.setDate(10, Date.valueOf(product.getExpirationDate()));
+                } else {
+                    stmt.setNull(10, Types.DATE);
+                }
 
-            stmt.setString(11, product.getImagePath());
-            stmt.setBoolean(12, product.isActive());
-            stmt.setInt(13, product.getId());
+                stmt.setString(11, product.getImagePath());
+                stmt.setBoolean(12, product.isActive());
+                stmt.setInt(13, product.getId());
 
-            return stmt.executeUpdate() > 0;
+                boolean updated = stmt.executeUpdate() > 0;
+                LocalDateTime movedAt = StockMovementDAO.stamp();
+                conn.commit();
+
+                int delta = previousQuantity != null ? product.getQuantity() - previousQuantity : 0;
+                if (updated && delta != 0) {
+                    StockMovement movement = new StockMovement(product.getId(), userId, StockMovement.ADJUSTMENT, delta,
+                            "Modification de la fiche produit");
+                    recordMovement(movement, movedAt);
+                }
+                return updated;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             System.err.println("❌ Erreur mise à jour produit: " + e.getMessage());
         }
@@ -364,22 +426,52 @@ public class ProductDAO {
     /**
      * Mettre à jour la quantité d'un produit
      */
-    public boolean updateQuantity(int productId, int quantityChange) {
+    public boolean updateQuantity(int productId, int quantityChange, int userId) {
+        return updateQuantity(productId, quantityChange, "Mise à jour du stock", userId);
+    }
+
+    /**
+     * Mettre à jour la quantité d'un produit en traçant le mouvement (IN/OUT) dans le journal de stock
+     */
+    public boolean updateQuantity(int productId, int quantityChange, String reason, int userId) {
         String sql = "UPDATE products SET quantity = quantity + ? WHERE id = ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            // Transaction explicite: le mouvement est horodaté avant la validation
+            conn.setAutoCommit(false);
             stmt.setInt(1, quantityChange);
             stmt.setInt(2, productId);
 
-            return stmt.executeUpdate() > 0;
+            int updated = stmt.executeUpdate();
+            LocalDateTime movedAt = StockMovementDAO.stamp();
+            conn.commit();
+
+            if (updated > 0) {
+                if (quantityChange != 0) {
+                    recordMovement(StockMovement.ofChange(productId, userId, quantityChange, reason), movedAt);
+                }
+                return true;
+            }
         } catch (SQLException e) {
             System.err.println("❌ Erreur mise à jour quantité: " + e.getMessage());
         }
         return false;
     }
 
+    /**
+     * Transmettre un mouvement à sa destination, horodaté par la transaction qui a modifié le stock
+     */
+    private void recordMovement(StockMovement movement, LocalDateTime movedAt) {
+        movement.setCreatedAt(movedAt);
+        try {
+            movementSink.accept(movement);
+        } catch (RuntimeException e) {
+            System.err.println("❌ Erreur enregistrement mouvement de stock: " + movement + " - " + e.getMessage());
+        }
+    }
+
     /**
      * Compter le nombre total de produits actifs
      */
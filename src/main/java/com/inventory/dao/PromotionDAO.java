@@ -0,0 +1,176 @@
+package com.inventory.dao;
+
+import com.inventory.models.Promotion;
+import com.inventory.utils.DatabaseConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object pour les opérations sur les promotions.
+ * Les modifications passent par PromotionService, qui valide la promotion et
+ * reconstruit son index.
+ */
+public class PromotionDAO {
+
+    /**
+     * Créer une nouvelle promotion
+     */
+    public boolean create(Promotion promotion) {
+        String sql = """
+                    INSERT INTO promotions (product_id, discount_percentage, start_date, end_date, is_active, created_by)
+                    VALUES (?, ?, ?, ?, ?, ?)
+                """;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            stmt.setInt(1, promotion.getProductId());
+            stmt.setBigDecimal(2, promotion.getDiscountPercentage());
+            stmt.setDate(3, Date.valueOf(promotion.getStartDate()));
+            stmt.setDate(4, Date.valueOf(promotion.getEndDate()));
+            stmt.setBoolean(5, promotion.isActive());
+
+            if (promotion.getCreatedBy() > 0) {
+                stmt.setInt(6, promotion.getCreatedBy());
+            } else {
+                stmt.setNull(6, Types.INTEGER);
+            }
+
+            int affectedRows = stmt.executeUpdate();
+
+            if (affectedRows > 0) {
+                ResultSet generatedKeys = stmt.getGeneratedKeys();
+                if (generatedKeys.next()) {
+                    promotion.setId(generatedKeys.getInt(1));
+                }
+                return true;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur création promotion: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Mettre à jour une promotion
+     */
+    public boolean update(Promotion promotion) {
+        String sql = """
+                    UPDATE promotions SET
+                        product_id = ?, discount_percentage = ?, start_date = ?, end_date = ?, is_active = ?
+                    WHERE id = ?
+                """;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, promotion.getProductId());
+            stmt.setBigDecimal(2, promotion.getDiscountPercentage());
+            stmt.setDate(3, Date.valueOf(promotion.getStartDate()));
+            stmt.setDate(4, Date.valueOf(promotion.getEndDate()));
+            stmt.setBoolean(5, promotion.isActive());
+            stmt.setInt(6, promotion.getId());
+
+            if (stmt.executeUpdate() > 0) {
+                return true;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur mise à jour promotion: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Supprimer une promotion
+     */
+    public boolean delete(int id) {
+        String sql = "DELETE FROM promotions WHERE id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, id);
+            if (stmt.executeUpdate() > 0) {
+                return true;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur suppression promotion: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Obtenir les promotions actives en cours ou à venir
+     */
+    public List<Promotion> findCurrentAndUpcoming() {
+        List<Promotion> promotions = new ArrayList<>();
+        String sql = """
+                    SELECT pr.*, p.name as product_name
+                    FROM promotions pr
+                    JOIN products p ON pr.product_id = p.id
+                    WHERE pr.is_active = TRUE AND pr.end_date >= CURDATE()
+                    ORDER BY pr.product_id, pr.start_date
+                """;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                promotions.add(mapResultSetToPromotion(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur liste promotions: " + e.getMessage());
+        }
+        return promotions;
+    }
+
+    /**
+     * Obtenir une empreinte de la table des promotions (pour détecter les changements faits ailleurs)
+     */
+    public String fetchVersion() {
+        String sql = "SELECT COUNT(*), COALESCE(MAX(id), 0), COALESCE(SUM(CRC32(CONCAT_WS('|', id, product_id, "
+                + "discount_percentage, start_date, end_date, is_active))), 0) FROM promotions";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+
+            if (rs.next()) {
+                return rs.getLong(1) + ":" + rs.getLong(2) + ":" + rs.getString(3);
+            }
+        } catch (SQLException e) {
+            System.err.println("⚠️ Erreur version promotions: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Mapper un ResultSet vers un objet Promotion
+     */
+    private Promotion mapResultSetToPromotion(ResultSet rs) throws SQLException {
+        Promotion promotion = new Promotion();
+        promotion.setId(rs.getInt("id"));
+        promotion.setProductId(rs.getInt("product_id"));
+        promotion.setDiscountPercentage(rs.getBigDecimal("discount_percentage"));
+        promotion.setStartDate(rs.getDate("start_date").toLocalDate());
+        promotion.setEndDate(rs.getDate("end_date").toLocalDate());
+        promotion.setActive(rs.getBoolean("is_active"));
+        promotion.setCreatedBy(rs.getInt("created_by"));
+
+        try {
+            promotion.setProductName(rs.getString("product_name"));
+        } catch (SQLException e) {
+            // Colonne peut ne pas exister
+        }
+
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        if (createdAt != null) {
+            promotion.setCreatedAt(createdAt.toLocalDateTime());
+        }
+
+        return promotion;
+    }
+}
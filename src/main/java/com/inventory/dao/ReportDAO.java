@@ -0,0 +1,294 @@
+package com.inventory.dao;
+
+import com.inventory.models.ReportEntry;
+import com.inventory.models.ReportPeriod;
+import com.inventory.models.ReportSummary;
+import com.inventory.models.Sale;
+import com.inventory.utils.DatabaseConnection;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object pour les rapports de ventes.
+ *
+ * Les indicateurs, la tendance et les répartitions par catégorie et par mode
+ * de paiement sont lus dans les agrégats journaliers (une ligne par jour de la
+ * période). Le classement des produits (en unités vendues) agrège les ventes
+ * terminées de la période, bornées par created_at >= ? AND created_at < ? (index
+ * idx_sales_status_created et idx_sale_items_sale), déduction faite des retours.
+ */
+public class ReportDAO {
+
+    private static final String DAYS_FILTER = " sale_date BETWEEN ? AND ? ";
+    private static final String PERIOD_FILTER = " s.status = 'COMPLETED' AND s.created_at >= ? AND s.created_at < ? ";
+
+    // Quantité et montant d'une ligne de vente, déduction faite de ses retours
+    private static final String NET_QUANTITY = "si.quantity - COALESCE((SELECT SUM(ri.quantity) "
+            + "FROM sale_refund_items ri WHERE ri.sale_item_id = si.id), 0)";
+    private static final String NET_SUBTOTAL = "si.subtotal - COALESCE((SELECT SUM(ri.amount) "
+            + "FROM sale_refund_items ri WHERE ri.sale_item_id = si.id), 0)";
+
+    /**
+     * Chiffre d'affaires, nombre de ventes et unités vendues sur la période
+     */
+    public ReportSummary findSummary(ReportPeriod period) {
+        String sql = "SELECT COALESCE(SUM(sale_count), 0), COALESCE(SUM(revenue), 0), COALESCE(SUM(units_sold), 0) "
+                + "FROM sales_daily_summary WHERE" + DAYS_FILTER;
+
+        ReportSummary summary = new ReportSummary();
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = prepareDays(conn, sql, period);
+                ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                summary.setSaleCount(rs.getInt(1));
+                summary.setRevenue(rs.getBigDecimal(2));
+                summary.setUnitsSold(rs.getInt(3));
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur rapport synthèse: " + e.getMessage());
+        }
+        return summary;
+    }
+
+    /**
+     * Ventes par jour (ou par semaine, à partir du lundi, pour les longues périodes).
+     * Les jours ou semaines sans vente figurent avec un montant nul.
+     */
+    public List<ReportEntry> findSalesTrend(ReportPeriod period) {
+        boolean daily = period.isDaily();
+        String bucket = daily ? "sale_date" : "DATE_SUB(sale_date, INTERVAL WEEKDAY(sale_date) DAY)";
+        String sql = "SELECT " + bucket + " as bucket, SUM(sale_count) as sale_count, SUM(revenue) as revenue "
+                + "FROM sales_daily_summary WHERE" + DAYS_FILTER + "GROUP BY bucket ORDER BY bucket";
+
+        // Tous les intervalles de la période, y compris ceux sans vente
+        Map<LocalDate, ReportEntry> buckets = new LinkedHashMap<>();
+        for (LocalDate day : period.getBuckets()) {
+            buckets.put(day, new ReportEntry(period.getBucketLabel(day), 0, BigDecimal.ZERO));
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = prepareDays(conn, sql, period);
+                ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                ReportEntry entry = buckets.get(rs.getDate("bucket").toLocalDate());
+                if (entry != null) {
+                    entry.setQuantity(rs.getInt("sale_count"));
+                    entry.setAmount(rs.getBigDecimal("revenue"));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur rapport tendance des ventes: " + e.getMessage());
+        }
+        return new ArrayList<>(buckets.values());
+    }
+
+    /**
+     * Chiffre d'affaires et unités vendues par catégorie, du plus grand au plus petit
+     */
+    public List<ReportEntry> findRevenueByCategory(ReportPeriod period) {
+        String sql = "SELECT COALESCE(c.name, 'Sans catégorie') as label, "
+                + "SUM(dc.units_sold) as quantity, SUM(dc.revenue) as amount "
+                + "FROM sales_daily_category dc "
+                + "LEFT JOIN categories c ON c.id = dc.category_id "
+                + "WHERE dc.sale_date BETWEEN ? AND ? "
+                + "GROUP BY dc.category_id, c.name HAVING quantity <> 0 ORDER BY amount DESC";
+
+        return findEntries(conn -> prepareDays(conn, sql, period), "catégories");
+    }
+
+    /**
+     * Chiffre d'affaires et nombre de ventes par mode de paiement
+     */
+    public List<ReportEntry> findRevenueByPaymentMethod(ReportPeriod period) {
+        String sql = "SELECT payment_method as label, SUM(sale_count) as quantity, SUM(revenue) as amount "
+                + "FROM sales_daily_payment WHERE" + DAYS_FILTER
+                + "GROUP BY payment_method HAVING quantity <> 0 ORDER BY amount DESC";
+
+        List<ReportEntry> entries = findEntries(conn -> prepareDays(conn, sql, period), "modes de paiement");
+        for (ReportEntry entry : entries) {
+            entry.setLabel(Sale.getPaymentMethodDisplay(entry.getLabel()));
+        }
+        return entries;
+    }
+
+    /**
+     * Amorçage du classement des produits: classement, unités vendues, ventes et
+     * retours comptés, lus dans un même instantané de la base
+     */
+    public static final class TopProductsSeed {
+        private final List<ReportEntry> topProducts;
+        private final long unitsSold;
+        private final int[] saleIds;
+        private final int[] refundIds;
+
+        TopProductsSeed(List<ReportEntry> topProducts, long unitsSold, int[] saleIds, int[] refundIds) {
+            this.topProducts = topProducts;
+            this.unitsSold = unitsSold;
+            this.saleIds = saleIds;
+            this.refundIds = refundIds;
+        }
+
+        public List<ReportEntry> getTopProducts() {
+            return topProducts;
+        }
+
+        public long getUnitsSold() {
+            return unitsSold;
+        }
+
+        /**
+         * La vente était visible à l'amorçage: elle est déjà comptée
+         */
+        public boolean containsSale(int saleId) {
+            return Arrays.binarySearch(saleIds, saleId) >= 0;
+        }
+
+        /**
+         * Le retour était visible à l'amorçage: il est déjà déduit
+         */
+        public boolean containsRefund(int refundId) {
+            return Arrays.binarySearch(refundIds, refundId) >= 0;
+        }
+    }
+
+    /**
+     * Produits les plus vendus (en unités) sur la période
+     */
+    public List<ReportEntry> findTopProducts(ReportPeriod period, int limit) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return queryTopProducts(conn, period, limit);
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur rapport meilleurs produits: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Amorcer le classement des produits de la période, ou null si l'une des lectures échoue
+     */
+    public TopProductsSeed findTopProductsSeed(ReportPeriod period, int limit) {
+        String salesSql = "SELECT id FROM sales WHERE created_at >= ? AND created_at < ? ORDER BY id";
+        String refundsSql = "SELECT r.id FROM sale_refunds r JOIN sales s ON s.id = r.sale_id "
+                + "WHERE s.created_at >= ? AND s.created_at < ? ORDER BY r.id";
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null)
+            return null;
+
+        try (conn) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+
+                int[] saleIds = queryIds(conn, salesSql, period);
+                int[] refundIds = queryIds(conn, refundsSql, period);
+                List<ReportEntry> top = queryTopProducts(conn, period, limit);
+                long unitsSold = queryUnitsSold(conn, period);
+
+                conn.commit();
+                return new TopProductsSeed(top, unitsSold, saleIds, refundIds);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur amorçage du classement des produits: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private List<ReportEntry> queryTopProducts(Connection conn, ReportPeriod period, int limit) throws SQLException {
+        String sql = "SELECT si.product_id as id, p.name as label, SUM(" + NET_QUANTITY + ") as quantity, "
+                + "SUM(" + NET_SUBTOTAL + ") as amount "
+                + "FROM sales s "
+                + "JOIN sale_items si ON si.sale_id = s.id "
+                + "JOIN products p ON p.id = si.product_id "
+                + "WHERE" + PERIOD_FILTER
+                + "GROUP BY si.product_id, p.name HAVING quantity > 0 ORDER BY quantity DESC, amount DESC LIMIT ?";
+
+        List<ReportEntry> entries = new ArrayList<>();
+        try (PreparedStatement stmt = prepare(conn, sql, period)) {
+            stmt.setInt(3, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ReportEntry entry = new ReportEntry(rs.getString("label"), rs.getInt("quantity"),
+                            rs.getBigDecimal("amount"));
+                    entry.setId(rs.getInt("id"));
+                    entries.add(entry);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private long queryUnitsSold(Connection conn, ReportPeriod period) throws SQLException {
+        String sql = "SELECT COALESCE(SUM(" + NET_QUANTITY + "), 0) "
+                + "FROM sales s "
+                + "JOIN sale_items si ON si.sale_id = s.id "
+                + "WHERE" + PERIOD_FILTER;
+
+        try (PreparedStatement stmt = prepare(conn, sql, period);
+                ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Identifiants lus par une requête bornée à la période, triés
+     */
+    private int[] queryIds(Connection conn, String sql, ReportPeriod period) throws SQLException {
+        int[] ids = new int[256];
+        int count = 0;
+        try (PreparedStatement stmt = prepare(conn, sql, period);
+                ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                }
+                ids[count++] = rs.getInt(1);
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private interface StatementFactory {
+        PreparedStatement prepare(Connection conn) throws SQLException;
+    }
+
+    private List<ReportEntry> findEntries(StatementFactory factory, String section) {
+        List<ReportEntry> entries = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = factory.prepare(conn)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(new ReportEntry(rs.getString("label"), rs.getInt("quantity"), rs.getBigDecimal("amount")));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur rapport " + section + ": " + e.getMessage());
+        }
+        return entries;
+    }
+
+    private PreparedStatement prepareDays(Connection conn, String sql, ReportPeriod period) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        stmt.setDate(1, Date.valueOf(period.getFrom()));
+        stmt.setDate(2, Date.valueOf(period.getTo()));
+        return stmt;
+    }
+
+    private PreparedStatement prepare(Connection conn, String sql, ReportPeriod period) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        stmt.setTimestamp(1, Timestamp.valueOf(period.getStart()));
+        stmt.setTimestamp(2, Timestamp.valueOf(period.getEnd()));
+        return stmt;
+    }
+}
@@ -0,0 +1,537 @@
+package com.inventory.dao;
+
+import com.inventory.models.Refund;
+import com.inventory.models.Sale;
+import com.inventory.models.SaleFilter;
+import com.inventory.models.SaleItem;
+import com.inventory.models.StockMovement;
+import com.inventory.utils.DatabaseConnection;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object pour les opérations sur les ventes
+ */
+public class SaleDAO {
+
+    // Erreur MySQL de clé unique en double (ER_DUP_ENTRY)
+    private static final int DUPLICATE_KEY_ERROR = 1062;
+
+    /**
+     * Enregistrer une vente complète (en-tête, lignes et déduction du stock)
+     * dans une seule transaction
+     */
+    public boolean create(Sale sale) {
+        String saleSql = """
+                    INSERT INTO sales (sale_number, user_id, customer_name, customer_phone, total_amount,
+                                       discount_amount, tax_amount, payment_method, status, notes, created_at)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """;
+        String itemSql = """
+                    INSERT INTO sale_items (sale_id, product_id, quantity, unit_price, discount_percentage, subtotal)
+                    VALUES (?, ?, ?, ?, ?, ?)
+                """;
+        String stockSql = "UPDATE products SET quantity = quantity - ? WHERE id = ?";
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null)
+            return false;
+
+        try (conn) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement saleStmt = conn.prepareStatement(saleSql, Statement.RETURN_GENERATED_KEYS);
+                    PreparedStatement itemStmt = conn.prepareStatement(itemSql);
+                    PreparedStatement stockStmt = conn.prepareStatement(stockSql);
+                    PreparedStatement movementStmt = StockMovementDAO.prepareInsert(conn)) {
+
+                LocalDateTime createdAt = sale.getCreatedAt() != null ? sale.getCreatedAt() : LocalDateTime.now();
+
+                saleStmt.setString(1, sale.getSaleNumber());
+                saleStmt.setInt(2, sale.getUserId());
+                saleStmt.setString(3, sale.getCustomerName());
+                saleStmt.setString(4, sale.getCustomerPhone());
+                saleStmt.setBigDecimal(5, sale.getTotalAmount());
+                saleStmt.setBigDecimal(6, sale.getDiscountAmount());
+                saleStmt.setBigDecimal(7, sale.getTaxAmount());
+                saleStmt.setString(8, sale.getPaymentMethod());
+                saleStmt.setString(9, sale.getStatus());
+                saleStmt.setString(10, sale.getNotes());
+                saleStmt.setTimestamp(11, Timestamp.valueOf(createdAt));
+                saleStmt.executeUpdate();
+
+                ResultSet generatedKeys = saleStmt.getGeneratedKeys();
+                if (generatedKeys.next()) {
+                    sale.setId(generatedKeys.getInt(1));
+                }
+
+                List<StockMovement> movements = new ArrayList<>();
+                for (SaleItem item : sale.getItems()) {
+                    item.setSaleId(sale.getId());
+                    itemStmt.setInt(1, sale.getId());
+                    itemStmt.setInt(2, item.getProductId());
+                    itemStmt.setInt(3, item.getQuantity());
+                    itemStmt.setBigDecimal(4, item.getUnitPrice());
+                    itemStmt.setBigDecimal(5, item.getDiscountPercentage());
+                    itemStmt.setBigDecimal(6, item.getSubtotal());
+                    itemStmt.addBatch();
+
+                    stockStmt.setInt(1, item.getQuantity());
+                    stockStmt.setInt(2, item.getProductId());
+                    stockStmt.addBatch();
+
+                    StockMovement movement = new StockMovement(item.getProductId(), sale.getUserId(),
+                            StockMovement.OUT, item.getQuantity(), "Vente " + sale.getSaleNumber());
+                    movement.setReferenceId(sale.getId());
+                    movements.add(movement);
+                }
+                itemStmt.executeBatch();
+                stockStmt.executeBatch();
+
+                // Mouvements horodatés à la déduction du stock, pas à l'encaissement (vente rejouée)
+                LocalDateTime movedAt = StockMovementDAO.stamp();
+                for (StockMovement movement : movements) {
+                    movement.setCreatedAt(movedAt);
+                    StockMovementDAO.addToBatch(movementStmt, movement);
+                }
+                movementStmt.executeBatch();
+
+                // Agrégats journaliers (après les lignes, dont ils dépendent)
+                SalesSummaryDAO.applySale(conn, sale.getId(), 1);
+
+                conn.commit();
+                sale.setCreatedAt(createdAt);
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur enregistrement vente: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Vérifier si une vente existe déjà pour un numéro donné
+     */
+    public boolean existsBySaleNumber(String saleNumber) {
+        String sql = "SELECT 1 FROM sales WHERE sale_number = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, saleNumber);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next();
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur recherche vente: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Annuler une vente ou retourner une partie de ses lignes, dans une seule transaction:
+     * enregistrement du retour, remise en stock, mouvements de stock IN compensatoires,
+     * retrait des lignes retournées des agrégats journaliers et passage au statut
+     * CANCELLED lorsque toutes les lignes sont retournées.
+     *
+     * Rejouable: si le requestId a déjà été appliqué, rien n'est modifié et
+     * l'opération est considérée comme réussie (refund.isAlreadyApplied()).
+     */
+    public boolean refund(Refund refund) {
+        String refundSql = """
+                    INSERT INTO sale_refunds (request_id, sale_id, user_id, reason, created_at)
+                    VALUES (?, ?, ?, ?, ?)
+                """;
+        String lockSql = """
+                    SELECT total_amount,
+                           (SELECT COALESCE(SUM(r.amount), 0) FROM sale_refunds r WHERE r.sale_id = s.id) as refunded
+                    FROM sales s WHERE id = ? FOR UPDATE
+                """;
+        String linesSql = """
+                    SELECT si.id, si.product_id, si.quantity, si.subtotal,
+                           COALESCE(SUM(ri.quantity), 0) as returned_quantity,
+                           COALESCE(SUM(ri.amount), 0) as returned_amount
+                    FROM sale_items si
+                    LEFT JOIN sale_refund_items ri ON ri.sale_item_id = si.id
+                    WHERE si.sale_id = ?
+                    GROUP BY si.id, si.product_id, si.quantity, si.subtotal
+                """;
+        String itemSql = """
+                    INSERT INTO sale_refund_items (refund_id, sale_item_id, product_id, quantity, amount)
+                    VALUES (?, ?, ?, ?, ?)
+                """;
+        String stockSql = "UPDATE products SET quantity = quantity + ? WHERE id = ?";
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null)
+            return false;
+
+        try (conn) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement refundStmt = conn.prepareStatement(refundSql, Statement.RETURN_GENERATED_KEYS);
+                    PreparedStatement lockStmt = conn.prepareStatement(lockSql);
+                    PreparedStatement linesStmt = conn.prepareStatement(linesSql);
+                    PreparedStatement itemStmt = conn.prepareStatement(itemSql);
+                    PreparedStatement stockStmt = conn.prepareStatement(stockSql);
+                    PreparedStatement movementStmt = StockMovementDAO.prepareInsert(conn)) {
+
+                // Verrouiller la vente: les retours concurrents sur une même vente sont sérialisés
+                lockStmt.setInt(1, refund.getSaleId());
+                BigDecimal remainingRevenue;
+                try (ResultSet rs = lockStmt.executeQuery()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        System.err.println("❌ Vente introuvable: " + refund.getSaleId());
+                        return false;
+                    }
+                    remainingRevenue = rs.getBigDecimal("total_amount").subtract(rs.getBigDecimal("refunded"));
+                }
+
+                // Réserver le requestId (clé unique): un rejeu s'arrête ici
+                LocalDateTime createdAt = LocalDateTime.now();
+                refundStmt.setString(1, refund.getRequestId());
+                refundStmt.setInt(2, refund.getSaleId());
+                refundStmt.setInt(3, refund.getUserId());
+                refundStmt.setString(4, refund.getReason());
+                refundStmt.setTimestamp(5, Timestamp.valueOf(createdAt));
+                try {
+                    refundStmt.executeUpdate();
+                } catch (SQLIntegrityConstraintViolationException e) {
+                    // Clé en double: un rejeu seulement si un retour porte déjà ce requestId
+                    if (e.getErrorCode() != DUPLICATE_KEY_ERROR)
+                        throw e;
+                    conn.rollback();
+                    if (!loadExistingRefund(conn, refund))
+                        throw e;
+                    System.out.println("ℹ️ Retour déjà appliqué: " + refund.getRequestId());
+                    return true;
+                }
+
+                ResultSet generatedKeys = refundStmt.getGeneratedKeys();
+                if (generatedKeys.next()) {
+                    refund.setId(generatedKeys.getInt(1));
+                }
+
+                // Quantités restantes par ligne
+                linesStmt.setInt(1, refund.getSaleId());
+                BigDecimal total = BigDecimal.ZERO;
+                List<Refund.Line> lines = new ArrayList<>();
+                List<StockMovement> movements = new ArrayList<>();
+                boolean fullyReturned = true;
+                try (ResultSet rs = linesStmt.executeQuery()) {
+                    while (rs.next()) {
+                        int saleItemId = rs.getInt("id");
+                        int productId = rs.getInt("product_id");
+                        int soldQuantity = rs.getInt("quantity");
+                        int remaining = soldQuantity - rs.getInt("returned_quantity");
+                        BigDecimal remainingAmount = rs.getBigDecimal("subtotal").subtract(rs.getBigDecimal("returned_amount"));
+
+                        int quantity = refund.isFullCancellation()
+                                ? remaining
+                                : refund.getQuantities().getOrDefault(saleItemId, 0);
+                        if (quantity > remaining) {
+                            conn.rollback();
+                            System.err.println("❌ Quantité retournée supérieure au restant (ligne " + saleItemId + ")");
+                            return false;
+                        }
+                        if (quantity < remaining) {
+                            fullyReturned = false;
+                        }
+                        if (quantity <= 0)
+                            continue;
+
+                        // Montant au prorata; la dernière unité reprend le reliquat (pas d'écart d'arrondi)
+                        BigDecimal amount = quantity == remaining
+                                ? remainingAmount
+                                : rs.getBigDecimal("subtotal").multiply(BigDecimal.valueOf(quantity))
+                                        .divide(BigDecimal.valueOf(soldQuantity), 2, RoundingMode.HALF_UP);
+                        total = total.add(amount);
+                        lines.add(new Refund.Line(saleItemId, productId, quantity, amount));
+
+                        itemStmt.setInt(1, refund.getId());
+                        itemStmt.setInt(2, saleItemId);
+                        itemStmt.setInt(3, productId);
+                        itemStmt.setInt(4, quantity);
+                        itemStmt.setBigDecimal(5, amount);
+                        itemStmt.addBatch();
+
+                        stockStmt.setInt(1, quantity);
+                        stockStmt.setInt(2, productId);
+                        stockStmt.addBatch();
+
+                        StockMovement movement = new StockMovement(productId, refund.getUserId(), StockMovement.IN,
+                                quantity, refund.isFullCancellation() ? "Annulation vente" : "Retour client");
+                        movement.setReferenceId(refund.getSaleId());
+                        movements.add(movement);
+                    }
+                }
+
+                if (lines.isEmpty()) {
+                    conn.rollback();
+                    System.err.println("❌ Aucune ligne à retourner pour la vente " + refund.getSaleId());
+                    return false;
+                }
+
+                itemStmt.executeBatch();
+                stockStmt.executeBatch();
+
+                LocalDateTime movedAt = StockMovementDAO.stamp();
+                for (StockMovement movement : movements) {
+                    movement.setCreatedAt(movedAt);
+                    StockMovementDAO.addToBatch(movementStmt, movement);
+                }
+                movementStmt.executeBatch();
+
+                try (PreparedStatement amountStmt = conn.prepareStatement(
+                        "UPDATE sale_refunds SET amount = ? WHERE id = ?")) {
+                    amountStmt.setBigDecimal(1, total);
+                    amountStmt.setInt(2, refund.getId());
+                    amountStmt.executeUpdate();
+                }
+
+                // Retirer les lignes retournées des agrégats tant que la vente est encore au statut
+                // COMPLETED; l'annulation complète retire aussi la vente et le reliquat de son total
+                BigDecimal revenueAmount = fullyReturned ? remainingRevenue : total;
+                SalesSummaryDAO.applyRefund(conn, refund.getSaleId(), refund.getId(), fullyReturned, revenueAmount);
+
+                if (fullyReturned) {
+                    try (PreparedStatement statusStmt = conn.prepareStatement(
+                            "UPDATE sales SET status = 'CANCELLED' WHERE id = ?")) {
+                        statusStmt.setInt(1, refund.getSaleId());
+                        statusStmt.executeUpdate();
+                    }
+                }
+
+                conn.commit();
+                refund.setSaleCancelled(fullyReturned);
+                refund.setAmount(total);
+                refund.setRevenueAmount(revenueAmount);
+                refund.setLines(lines);
+                refund.setCreatedAt(createdAt);
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur retour vente: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Compléter un retour rejoué avec celui déjà enregistré sous le même requestId
+     * (false si aucun retour ne porte ce requestId)
+     */
+    private boolean loadExistingRefund(Connection conn, Refund refund) throws SQLException {
+        String refundSql = "SELECT id, sale_id, amount, created_at FROM sale_refunds WHERE request_id = ?";
+        String itemsSql = "SELECT sale_item_id, product_id, quantity, amount FROM sale_refund_items WHERE refund_id = ?";
+
+        try (PreparedStatement refundStmt = conn.prepareStatement(refundSql);
+                PreparedStatement itemsStmt = conn.prepareStatement(itemsSql)) {
+            refundStmt.setString(1, refund.getRequestId());
+            try (ResultSet rs = refundStmt.executeQuery()) {
+                if (!rs.next())
+                    return false;
+                refund.setId(rs.getInt("id"));
+                refund.setSaleId(rs.getInt("sale_id"));
+                refund.setAmount(rs.getBigDecimal("amount"));
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                refund.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+            }
+
+            List<Refund.Line> lines = new ArrayList<>();
+            itemsStmt.setInt(1, refund.getId());
+            try (ResultSet rs = itemsStmt.executeQuery()) {
+                while (rs.next()) {
+                    lines.add(new Refund.Line(rs.getInt("sale_item_id"), rs.getInt("product_id"),
+                            rs.getInt("quantity"), rs.getBigDecimal("amount")));
+                }
+            }
+            refund.setLines(lines);
+            conn.commit();
+        }
+        refund.setAlreadyApplied(true);
+        return true;
+    }
+
+    /**
+     * Quantités déjà retournées par ligne de vente (sale_item_id -> quantité)
+     */
+    public Map<Integer, Integer> findReturnedQuantities(int saleId) {
+        Map<Integer, Integer> returned = new HashMap<>();
+        String sql = """
+                    SELECT ri.sale_item_id, SUM(ri.quantity) as returned_quantity
+                    FROM sale_refund_items ri
+                    JOIN sale_items si ON ri.sale_item_id = si.id
+                    WHERE si.sale_id = ?
+                    GROUP BY ri.sale_item_id
+                """;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, saleId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    returned.put(rs.getInt("sale_item_id"), rs.getInt("returned_quantity"));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur retours vente: " + e.getMessage());
+        }
+        return returned;
+    }
+
+    /**
+     * Obtenir une page de l'historique des ventes, de la plus récente à la plus ancienne.
+     *
+     * Pagination par clé (created_at, id): la page suivante reprend après la
+     * dernière vente de la page courante (after), sans OFFSET, ce qui garde un
+     * coût constant quelle que soit la profondeur. Les lignes ne sont pas chargées.
+     */
+    public List<Sale> findPage(SaleFilter filter, Sale after, int limit) {
+        List<Sale> sales = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("""
+                    SELECT s.id, s.sale_number, s.user_id, s.customer_name, s.customer_phone, s.total_amount,
+                           s.discount_amount, s.tax_amount, s.payment_method, s.status, s.notes, s.created_at,
+                           u.full_name as user_name
+                    FROM sales s
+                    LEFT JOIN users u ON s.user_id = u.id
+                    WHERE 1 = 1
+                """);
+
+        if (filter != null) {
+            if (filter.getFromDate() != null) {
+                sql.append(" AND s.created_at >= ?");
+                params.add(Timestamp.valueOf(filter.getFromDate().atStartOfDay()));
+            }
+            if (filter.getToDate() != null) {
+                sql.append(" AND s.created_at < ?");
+                params.add(Timestamp.valueOf(filter.getToDate().plusDays(1).atStartOfDay()));
+            }
+            if (filter.getUserId() != null) {
+                sql.append(" AND s.user_id = ?");
+                params.add(filter.getUserId());
+            }
+            if (filter.getPaymentMethod() != null) {
+                sql.append(" AND s.payment_method = ?");
+                params.add(filter.getPaymentMethod());
+            }
+            if (filter.getStatus() != null) {
+                sql.append(" AND s.status = ?");
+                params.add(filter.getStatus());
+            }
+        }
+
+        if (after != null) {
+            Timestamp afterCreatedAt = Timestamp.valueOf(after.getCreatedAt());
+            sql.append(" AND (s.created_at < ? OR (s.created_at = ? AND s.id < ?))");
+            params.add(afterCreatedAt);
+            params.add(afterCreatedAt);
+            params.add(after.getId());
+        }
+
+        sql.append(" ORDER BY s.created_at DESC, s.id DESC LIMIT ?");
+        params.add(limit);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            stmt.setFetchSize(limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sales.add(mapResultSetToSale(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur historique ventes: " + e.getMessage());
+        }
+        return sales;
+    }
+
+    /**
+     * Obtenir les lignes d'une vente (chargées à la demande)
+     */
+    public List<SaleItem> findItems(int saleId) {
+        List<SaleItem> items = new ArrayList<>();
+        String sql = """
+                    SELECT si.*, p.code as product_code, p.name as product_name
+                    FROM sale_items si
+                    LEFT JOIN products p ON si.product_id = p.id
+                    WHERE si.sale_id = ?
+                    ORDER BY si.id
+                """;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, saleId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    items.add(mapResultSetToSaleItem(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur lignes vente: " + e.getMessage());
+        }
+        return items;
+    }
+
+    /**
+     * Mapper un ResultSet vers un objet Sale (sans les lignes)
+     */
+    private Sale mapResultSetToSale(ResultSet rs) throws SQLException {
+        Sale sale = new Sale();
+        sale.setId(rs.getInt("id"));
+        sale.setSaleNumber(rs.getString("sale_number"));
+        sale.setUserId(rs.getInt("user_id"));
+        sale.setUserName(rs.getString("user_name"));
+        sale.setCustomerName(rs.getString("customer_name"));
+        sale.setCustomerPhone(rs.getString("customer_phone"));
+        sale.setTotalAmount(rs.getBigDecimal("total_amount"));
+        sale.setDiscountAmount(rs.getBigDecimal("discount_amount"));
+        sale.setTaxAmount(rs.getBigDecimal("tax_amount"));
+        sale.setPaymentMethod(rs.getString("payment_method"));
+        sale.setStatus(rs.getString("status"));
+        sale.setNotes(rs.getString("notes"));
+
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        if (createdAt != null) {
+            sale.setCreatedAt(createdAt.toLocalDateTime());
+        }
+
+        return sale;
+    }
+
+    /**
+     * Mapper un ResultSet vers un objet SaleItem
+     */
+    private SaleItem mapResultSetToSaleItem(ResultSet rs) throws SQLException {
+        SaleItem item = new SaleItem();
+        item.setId(rs.getInt("id"));
+        item.setSaleId(rs.getInt("sale_id"));
+        item.setProductId(rs.getInt("product_id"));
+        item.setProductCode(rs.getString("product_code"));
+        item.setProductName(rs.getString("product_name"));
+        item.setQuantity(rs.getInt("quantity"));
+        item.setUnitPrice(rs.getBigDecimal("unit_price"));
+        item.setDiscountPercentage(rs.getBigDecimal("discount_percentage"));
+        item.setSubtotal(rs.getBigDecimal("subtotal"));
+        return item;
+    }
+}
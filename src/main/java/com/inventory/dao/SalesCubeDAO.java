@@ -0,0 +1,224 @@
+package com.inventory.dao;
+
+import com.inventory.utils.DatabaseConnection;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Data Access Object pour le chargement du cube des ventes en mémoire.
+ *
+ * Tout est lu dans une même transaction à instantané cohérent: les agrégats,
+ * les ventes visibles et les retours déjà appliqués décrivent le même état de
+ * la base, ce qui permet ensuite d'appliquer sans double compte les événements
+ * de vente survenus pendant le chargement. Les ventes visibles sont relevées
+ * une à une, pas par leur plus grand identifiant: une vente validée après une
+ * vente d'identifiant supérieur peut être absente de l'instantané.
+ */
+public class SalesCubeDAO {
+
+    /**
+     * Destinataire des lignes d'agrégat lues
+     */
+    public interface Visitor {
+        void sale(LocalDate day, String paymentMethod, int userId, int saleCount, BigDecimal revenue, int unitsSold);
+
+        void line(LocalDate day, int categoryId, String paymentMethod, int userId, int saleCount, int unitsSold,
+                BigDecimal revenue);
+    }
+
+    /**
+     * État de la base au moment du chargement
+     */
+    public static final class Snapshot {
+        private final int[] saleIds;
+        private final Set<Integer> refundIds;
+        private final Map<Integer, Integer> productCategories;
+        private final Map<Integer, String> categoryNames;
+        private final Map<Integer, String> userNames;
+
+        Snapshot(int[] saleIds, Set<Integer> refundIds, Map<Integer, Integer> productCategories,
+                Map<Integer, String> categoryNames, Map<Integer, String> userNames) {
+            this.saleIds = saleIds;
+            this.refundIds = refundIds;
+            this.productCategories = productCategories;
+            this.categoryNames = categoryNames;
+            this.userNames = userNames;
+        }
+
+        /**
+         * La vente était visible au chargement: elle est déjà dans les agrégats lus
+         */
+        public boolean containsSale(int saleId) {
+            return Arrays.binarySearch(saleIds, saleId) >= 0;
+        }
+
+        /**
+         * Retours (et annulations) déjà déduits des agrégats lus
+         */
+        public Set<Integer> getRefundIds() {
+            return refundIds;
+        }
+
+        /**
+         * Catégorie de chaque produit (product_id -> category_id, 0 = sans catégorie)
+         */
+        public Map<Integer, Integer> getProductCategories() {
+            return productCategories;
+        }
+
+        public Map<Integer, String> getCategoryNames() {
+            return categoryNames;
+        }
+
+        public Map<Integer, String> getUserNames() {
+            return userNames;
+        }
+    }
+
+    /**
+     * Lire tous les agrégats journaliers, ou null si la base est indisponible
+     */
+    public Snapshot load(Visitor visitor) {
+        String salesSql = "SELECT sale_date, payment_method, user_id, sale_count, revenue, units_sold "
+                + "FROM sales_daily_payment WHERE sale_count <> 0";
+        String linesSql = "SELECT sale_date, category_id, payment_method, user_id, sale_count, units_sold, revenue "
+                + "FROM sales_daily_category WHERE sale_count <> 0";
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null)
+            return null;
+
+        try (conn) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+
+                int[] saleIds = new int[1024];
+                int saleCount = 0;
+                try (ResultSet rs = stmt.executeQuery("SELECT id FROM sales ORDER BY id")) {
+                    while (rs.next()) {
+                        if (saleCount == saleIds.length) {
+                            saleIds = Arrays.copyOf(saleIds, saleCount * 2);
+                        }
+                        saleIds[saleCount++] = rs.getInt(1);
+                    }
+                }
+
+                Set<Integer> refunds = new HashSet<>();
+                try (ResultSet rs = stmt.executeQuery("SELECT id FROM sale_refunds")) {
+                    while (rs.next()) {
+                        refunds.add(rs.getInt(1));
+                    }
+                }
+
+                Map<Integer, Integer> categories = new HashMap<>();
+                try (ResultSet rs = stmt.executeQuery("SELECT id, COALESCE(category_id, 0) FROM products")) {
+                    while (rs.next()) {
+                        categories.put(rs.getInt(1), rs.getInt(2));
+                    }
+                }
+
+                Map<Integer, String> categoryNames = readNames(stmt, "SELECT id, name FROM categories");
+                Map<Integer, String> userNames = readNames(stmt, "SELECT id, full_name FROM users");
+
+                try (ResultSet rs = stmt.executeQuery(salesSql)) {
+                    while (rs.next()) {
+                        visitor.sale(rs.getDate("sale_date").toLocalDate(), rs.getString("payment_method"),
+                                rs.getInt("user_id"), rs.getInt("sale_count"), rs.getBigDecimal("revenue"),
+                                rs.getInt("units_sold"));
+                    }
+                }
+
+                try (ResultSet rs = stmt.executeQuery(linesSql)) {
+                    while (rs.next()) {
+                        visitor.line(rs.getDate("sale_date").toLocalDate(), rs.getInt("category_id"),
+                                rs.getString("payment_method"), rs.getInt("user_id"), rs.getInt("sale_count"),
+                                rs.getInt("units_sold"), rs.getBigDecimal("revenue"));
+                    }
+                }
+
+                conn.commit();
+                return new Snapshot(Arrays.copyOf(saleIds, saleCount), refunds, categories, categoryNames, userNames);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur chargement du cube des ventes: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Plus grands identifiants de vente et de retour enregistrés
+     */
+    public record LatestIds(int saleId, int refundId) {
+    }
+
+    /**
+     * Ventes et retours enregistrés après des identifiants donnés
+     */
+    public record RecentIds(Set<Integer> saleIds, Set<Integer> refundIds) {
+    }
+
+    /**
+     * Plus grands identifiants de vente et de retour, ou null si la base est indisponible
+     */
+    public LatestIds findLatestIds() {
+        String sql = "SELECT (SELECT COALESCE(MAX(id), 0) FROM sales), (SELECT COALESCE(MAX(id), 0) FROM sale_refunds)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                return new LatestIds(rs.getInt(1), rs.getInt(2));
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur lecture des derniers identifiants de vente: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Ventes et retours d'identifiant supérieur à ceux donnés, ou null si la base est indisponible
+     */
+    public RecentIds findIdsAfter(int saleId, int refundId) {
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement salesStmt = conn.prepareStatement("SELECT id FROM sales WHERE id > ?");
+                PreparedStatement refundsStmt = conn.prepareStatement("SELECT id FROM sale_refunds WHERE id > ?")) {
+            salesStmt.setInt(1, saleId);
+            refundsStmt.setInt(1, refundId);
+            return new RecentIds(readIds(salesStmt), readIds(refundsStmt));
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur lecture des ventes récentes: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private Set<Integer> readIds(PreparedStatement stmt) throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    private Map<Integer, String> readNames(Statement stmt, String sql) throws SQLException {
+        Map<Integer, String> names = new HashMap<>();
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                names.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return names;
+    }
+}
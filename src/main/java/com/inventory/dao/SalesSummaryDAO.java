@@ -0,0 +1,314 @@
+package com.inventory.dao;
+
+import com.inventory.utils.DatabaseConnection;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+
+/**
+ * Data Access Object pour les agrégats journaliers des ventes.
+ *
+ * Les tables sales_daily_summary, sales_daily_category (lignes par catégorie,
+ * mode de paiement et caissier) et sales_daily_payment (ventes par mode de
+ * paiement et caissier) sont mises à jour dans la transaction de chaque vente (et de ses retours):
+ * un rapport sur une période lit ainsi une ligne par jour au lieu de toutes
+ * les ventes. Seules les ventes terminées (COMPLETED) sont comptées, déduction
+ * faite des lignes retournées; une vente entièrement retournée n'est plus comptée.
+ */
+public class SalesSummaryDAO {
+
+    private static final String APPLY_DAILY_SQL = """
+                INSERT INTO sales_daily_summary (sale_date, sale_count, revenue, units_sold)
+                SELECT * FROM (
+                    SELECT DATE(s.created_at) as d, ? as c, ? * s.total_amount as r,
+                           ? * COALESCE((SELECT SUM(si.quantity) FROM sale_items si WHERE si.sale_id = s.id), 0) as u
+                    FROM sales s
+                    WHERE s.id = ? AND s.status = 'COMPLETED'
+                ) dt
+                ON DUPLICATE KEY UPDATE sale_count = sale_count + dt.c, revenue = revenue + dt.r,
+                                        units_sold = units_sold + dt.u
+            """;
+
+    // Catégories triées: les verrous des lignes d'agrégat sont toujours pris dans le même ordre
+    private static final String APPLY_CATEGORY_SQL = """
+                INSERT INTO sales_daily_category (sale_date, category_id, payment_method, user_id,
+                                                  sale_count, units_sold, revenue)
+                SELECT * FROM (
+                    SELECT DATE(s.created_at) as d, COALESCE(p.category_id, 0) as cat, s.payment_method as pm,
+                           s.user_id as uid, ? as c, ? * SUM(si.quantity) as u, ? * SUM(si.subtotal) as r
+                    FROM sales s
+                    JOIN sale_items si ON si.sale_id = s.id
+                    JOIN products p ON p.id = si.product_id
+                    WHERE s.id = ? AND s.status = 'COMPLETED'
+                    GROUP BY d, cat, pm, uid
+                ) dt
+                ORDER BY dt.cat
+                ON DUPLICATE KEY UPDATE sale_count = sale_count + dt.c, units_sold = units_sold + dt.u,
+                                        revenue = revenue + dt.r
+            """;
+
+    private static final String APPLY_PAYMENT_SQL = """
+                INSERT INTO sales_daily_payment (sale_date, payment_method, user_id, sale_count, revenue, units_sold)
+                SELECT * FROM (
+                    SELECT DATE(s.created_at) as d, s.payment_method as pm, s.user_id as uid, ? as c,
+                           ? * s.total_amount as r,
+                           ? * COALESCE((SELECT SUM(si.quantity) FROM sale_items si WHERE si.sale_id = s.id), 0) as u
+                    FROM sales s
+                    WHERE s.id = ? AND s.status = 'COMPLETED'
+                ) dt
+                ON DUPLICATE KEY UPDATE sale_count = sale_count + dt.c, revenue = revenue + dt.r,
+                                        units_sold = units_sold + dt.u
+            """;
+
+    private static final String REFUND_DAILY_SQL = """
+                INSERT INTO sales_daily_summary (sale_date, sale_count, revenue, units_sold)
+                SELECT * FROM (
+                    SELECT DATE(s.created_at) as d, -? as c, -? as r,
+                           -COALESCE((SELECT SUM(ri.quantity) FROM sale_refund_items ri WHERE ri.refund_id = ?), 0) as u
+                    FROM sales s
+                    WHERE s.id = ? AND s.status = 'COMPLETED'
+                ) dt
+                ON DUPLICATE KEY UPDATE sale_count = sale_count + dt.c, revenue = revenue + dt.r,
+                                        units_sold = units_sold + dt.u
+            """;
+
+    // Toutes les catégories de la vente: l'annulation complète la retire aussi de celles déjà retournées
+    private static final String REFUND_CATEGORY_SQL = """
+                INSERT INTO sales_daily_category (sale_date, category_id, payment_method, user_id,
+                                                  sale_count, units_sold, revenue)
+                SELECT * FROM (
+                    SELECT DATE(s.created_at) as d, COALESCE(p.category_id, 0) as cat, s.payment_method as pm,
+                           s.user_id as uid, -? as c, -COALESCE(SUM(ri.quantity), 0) as u,
+                           -COALESCE(SUM(ri.amount), 0) as r
+                    FROM sales s
+                    JOIN sale_items si ON si.sale_id = s.id
+                    JOIN products p ON p.id = si.product_id
+                    LEFT JOIN sale_refund_items ri ON ri.sale_item_id = si.id AND ri.refund_id = ?
+                    WHERE s.id = ? AND s.status = 'COMPLETED'
+                    GROUP BY d, cat, pm, uid
+                ) dt
+                ORDER BY dt.cat
+                ON DUPLICATE KEY UPDATE sale_count = sale_count + dt.c, units_sold = units_sold + dt.u,
+                                        revenue = revenue + dt.r
+            """;
+
+    private static final String REFUND_PAYMENT_SQL = """
+                INSERT INTO sales_daily_payment (sale_date, payment_method, user_id, sale_count, revenue, units_sold)
+                SELECT * FROM (
+                    SELECT DATE(s.created_at) as d, s.payment_method as pm, s.user_id as uid, -? as c, -? as r,
+                           -COALESCE((SELECT SUM(ri.quantity) FROM sale_refund_items ri WHERE ri.refund_id = ?), 0) as u
+                    FROM sales s
+                    WHERE s.id = ? AND s.status = 'COMPLETED'
+                ) dt
+                ON DUPLICATE KEY UPDATE sale_count = sale_count + dt.c, revenue = revenue + dt.r,
+                                        units_sold = units_sold + dt.u
+            """;
+
+    // Quantité et montant d'une ligne de vente, déduction faite de ses retours
+    private static final String NET_QUANTITY = "si.quantity - COALESCE((SELECT SUM(ri.quantity) "
+            + "FROM sale_refund_items ri WHERE ri.sale_item_id = si.id), 0)";
+    private static final String NET_SUBTOTAL = "si.subtotal - COALESCE((SELECT SUM(ri.amount) "
+            + "FROM sale_refund_items ri WHERE ri.sale_item_id = si.id), 0)";
+
+    /**
+     * Ajouter (sign = 1) ou retirer (sign = -1) une vente des agrégats,
+     * dans la transaction de l'appelant. La vente doit être au statut COMPLETED.
+     */
+    static void applySale(Connection conn, int saleId, int sign) throws SQLException {
+        try (PreparedStatement dailyStmt = conn.prepareStatement(APPLY_DAILY_SQL);
+                PreparedStatement categoryStmt = conn.prepareStatement(APPLY_CATEGORY_SQL);
+                PreparedStatement paymentStmt = conn.prepareStatement(APPLY_PAYMENT_SQL)) {
+
+            dailyStmt.setInt(1, sign);
+            dailyStmt.setInt(2, sign);
+            dailyStmt.setInt(3, sign);
+            dailyStmt.setInt(4, saleId);
+            dailyStmt.executeUpdate();
+
+            categoryStmt.setInt(1, sign);
+            categoryStmt.setInt(2, sign);
+            categoryStmt.setInt(3, sign);
+            categoryStmt.setInt(4, saleId);
+            categoryStmt.executeUpdate();
+
+            paymentStmt.setInt(1, sign);
+            paymentStmt.setInt(2, sign);
+            paymentStmt.setInt(3, sign);
+            paymentStmt.setInt(4, saleId);
+            paymentStmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Retirer des agrégats les lignes d'un retour déjà inséré dans sale_refund_items,
+     * dans la transaction de l'appelant. La vente doit encore être au statut COMPLETED.
+     *
+     * @param cancelled     toutes les lignes de la vente sont désormais retournées (la vente n'est plus comptée)
+     * @param revenueAmount montant à retirer du chiffre d'affaires de la vente
+     */
+    static void applyRefund(Connection conn, int saleId, int refundId, boolean cancelled, BigDecimal revenueAmount)
+            throws SQLException {
+        int count = cancelled ? 1 : 0;
+        try (PreparedStatement dailyStmt = conn.prepareStatement(REFUND_DAILY_SQL);
+                PreparedStatement categoryStmt = conn.prepareStatement(REFUND_CATEGORY_SQL);
+                PreparedStatement paymentStmt = conn.prepareStatement(REFUND_PAYMENT_SQL)) {
+
+            dailyStmt.setInt(1, count);
+            dailyStmt.setBigDecimal(2, revenueAmount);
+            dailyStmt.setInt(3, refundId);
+            dailyStmt.setInt(4, saleId);
+            dailyStmt.executeUpdate();
+
+            categoryStmt.setInt(1, count);
+            categoryStmt.setInt(2, refundId);
+            categoryStmt.setInt(3, saleId);
+            categoryStmt.executeUpdate();
+
+            paymentStmt.setInt(1, count);
+            paymentStmt.setBigDecimal(2, revenueAmount);
+            paymentStmt.setInt(3, refundId);
+            paymentStmt.setInt(4, saleId);
+            paymentStmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Recalculer les agrégats d'un intervalle de jours (inclus) à partir des ventes et de leurs retours.
+     * Utilisé pour les reprises d'historique; remplace les lignes existantes de l'intervalle.
+     *
+     * @return le nombre de jours ayant au moins une vente, ou -1 en cas d'erreur
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        String[] deleteSqls = {
+                "DELETE FROM sales_daily_summary WHERE sale_date BETWEEN ? AND ?",
+                "DELETE FROM sales_daily_category WHERE sale_date BETWEEN ? AND ?",
+                "DELETE FROM sales_daily_payment WHERE sale_date BETWEEN ? AND ?"
+        };
+        String dailySql = """
+                    INSERT INTO sales_daily_summary (sale_date, sale_count, revenue, units_sold)
+                    SELECT d, COUNT(*), SUM(net_amount), SUM(units)
+                    FROM (
+                        SELECT DATE(s.created_at) as d,
+                               s.total_amount - COALESCE((SELECT SUM(r.amount) FROM sale_refunds r WHERE r.sale_id = s.id), 0) as net_amount,
+                               COALESCE((SELECT SUM(%1$s) FROM sale_items si WHERE si.sale_id = s.id), 0) as units
+                        FROM sales s
+                        WHERE s.status = 'COMPLETED' AND s.created_at >= ? AND s.created_at < ?
+                    ) per_sale
+                    GROUP BY d
+                """.formatted(NET_QUANTITY, NET_SUBTOTAL);
+        String categorySql = """
+                    INSERT INTO sales_daily_category (sale_date, category_id, payment_method, user_id,
+                                                      sale_count, units_sold, revenue)
+                    SELECT DATE(s.created_at) as d, COALESCE(p.category_id, 0) as cat, s.payment_method, s.user_id,
+                           COUNT(DISTINCT s.id), SUM(%1$s), SUM(%2$s)
+                    FROM sales s
+                    JOIN sale_items si ON si.sale_id = s.id
+                    JOIN products p ON p.id = si.product_id
+                    WHERE s.status = 'COMPLETED' AND s.created_at >= ? AND s.created_at < ?
+                    GROUP BY d, cat, s.payment_method, s.user_id
+                """.formatted(NET_QUANTITY, NET_SUBTOTAL);
+        String paymentSql = """
+                    INSERT INTO sales_daily_payment (sale_date, payment_method, user_id, sale_count, revenue, units_sold)
+                    SELECT d, payment_method, user_id, COUNT(*), SUM(net_amount), SUM(units)
+                    FROM (
+                        SELECT DATE(s.created_at) as d, s.payment_method, s.user_id,
+                               s.total_amount - COALESCE((SELECT SUM(r.amount) FROM sale_refunds r WHERE r.sale_id = s.id), 0) as net_amount,
+                               COALESCE((SELECT SUM(%1$s) FROM sale_items si WHERE si.sale_id = s.id), 0) as units
+                        FROM sales s
+                        WHERE s.status = 'COMPLETED' AND s.created_at >= ? AND s.created_at < ?
+                    ) per_sale
+                    GROUP BY d, payment_method, user_id
+                """.formatted(NET_QUANTITY, NET_SUBTOTAL);
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null)
+            return -1;
+
+        try (conn) {
+            conn.setAutoCommit(false);
+            try {
+                for (String deleteSql : deleteSqls) {
+                    try (PreparedStatement stmt = conn.prepareStatement(deleteSql)) {
+                        stmt.setDate(1, Date.valueOf(from));
+                        stmt.setDate(2, Date.valueOf(to));
+                        stmt.executeUpdate();
+                    }
+                }
+
+                int days = insertRange(conn, dailySql, from, to);
+                insertRange(conn, categorySql, from, to);
+                insertRange(conn, paymentSql, from, to);
+
+                conn.commit();
+                return days;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur reconstruction des agrégats de ventes: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Recalculer tous les agrégats, de la première à la dernière vente
+     */
+    public int rebuildAll() {
+        String sql = "SELECT MIN(created_at), MAX(created_at) FROM sales";
+
+        LocalDate from;
+        LocalDate to;
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next() || rs.getTimestamp(1) == null)
+                return 0;
+            from = rs.getTimestamp(1).toLocalDateTime().toLocalDate();
+            to = rs.getTimestamp(2).toLocalDateTime().toLocalDate();
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur reconstruction des agrégats de ventes: " + e.getMessage());
+            return -1;
+        }
+        return rebuild(from, to);
+    }
+
+    /**
+     * Reprendre l'historique si les agrégats sont vides alors que des ventes existent
+     * (première exécution après la création des tables); true si les agrégats ont été reconstruits
+     */
+    public boolean backfillIfEmpty() {
+        String sql = """
+                    SELECT NOT EXISTS (SELECT 1 FROM sales_daily_summary)
+                       AND EXISTS (SELECT 1 FROM sales WHERE status = 'COMPLETED')
+                """;
+
+        boolean needed;
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                ResultSet rs = stmt.executeQuery()) {
+            needed = rs.next() && rs.getBoolean(1);
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur vérification des agrégats de ventes: " + e.getMessage());
+            return false;
+        }
+
+        if (needed) {
+            int days = rebuildAll();
+            if (days >= 0) {
+                System.out.println("📊 Agrégats de ventes reconstitués: " + days + " jours");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int insertRange(Connection conn, String sql, LocalDate from, LocalDate to) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+            return stmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.inventory.dao;
+
+import com.inventory.models.StockMovement;
+import com.inventory.utils.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object pour le journal des mouvements de stock.
+ *
+ * L'horodatage d'un mouvement (created_at) est l'instant où le changement de
+ * stock prend effet, pas celui de l'opération métier: une vente rejouée depuis
+ * le journal de caisse est horodatée au rejeu. Voir {@link #stamp()}.
+ */
+public class StockMovementDAO {
+
+    private static final String INSERT_SQL = """
+                INSERT INTO stock_movements (product_id, user_id, movement_type, quantity, reason, reference_id, created_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    /**
+     * Horodatage d'un mouvement, à prendre dans la transaction qui modifie
+     * products, après la mise à jour et avant la validation: un instantané de
+     * stock (voir StockSnapshotDAO) voit alors, à quelques millisecondes près,
+     * le changement si et seulement si l'horodatage ne lui est pas postérieur.
+     * Tronqué à la seconde comme created_at (MySQL arrondirait à la seconde
+     * supérieure).
+     */
+    public static LocalDateTime stamp() {
+        return LocalDateTime.now().withNano(0);
+    }
+
+    /**
+     * Enregistrer un mouvement de stock
+     */
+    public boolean create(StockMovement movement) {
+        return insertBatch(List.of(movement));
+    }
+
+    /**
+     * Enregistrer plusieurs mouvements en un seul lot JDBC (une transaction)
+     */
+    public boolean insertBatch(List<StockMovement> movements) {
+        if (movements.isEmpty())
+            return true;
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null)
+            return false;
+
+        try (conn) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+                for (StockMovement movement : movements) {
+                    bind(stmt, movement);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur enregistrement mouvements de stock: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Enregistrer les mouvements un par un, dans l'ordre, après l'échec d'un lot:
+     * une ligne refusée par la base (clé étrangère, valeur invalide...) est ajoutée
+     * à rejected sans bloquer les suivantes. S'arrête à la première erreur
+     * passagère (connexion perdue, verrou), à retenter plus tard.
+     *
+     * @return le nombre de mouvements traités depuis le début de la liste (écrits ou refusés)
+     */
+    public int insertEach(List<StockMovement> movements, List<StockMovement> rejected) {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null)
+            return 0;
+
+        int processed = 0;
+        try (conn; PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            for (StockMovement movement : movements) {
+                try {
+                    bind(stmt, movement);
+                    stmt.executeUpdate();
+                } catch (SQLException e) {
+                    if (isTransient(e))
+                        throw e;
+                    System.err.println("❌ Mouvement de stock refusé (" + movement + "): " + e.getMessage());
+                    rejected.add(movement);
+                }
+                processed++;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur enregistrement mouvements de stock: " + e.getMessage());
+        }
+        return processed;
+    }
+
+    private static boolean isTransient(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                || e instanceof SQLNonTransientConnectionException || (state != null && state.startsWith("08"));
+    }
+
+    /**
+     * Ajouter un mouvement au lot d'une instruction préparée avec {@link #prepareInsert(Connection)}
+     * (pour l'inclure dans la transaction d'un autre DAO)
+     */
+    static void addToBatch(PreparedStatement stmt, StockMovement movement) throws SQLException {
+        bind(stmt, movement);
+        stmt.addBatch();
+    }
+
+    static PreparedStatement prepareInsert(Connection conn) throws SQLException {
+        return conn.prepareStatement(INSERT_SQL);
+    }
+
+    /**
+     * Obtenir les derniers mouvements d'un produit
+     */
+    public List<StockMovement> findByProduct(int productId, int limit) {
+        List<StockMovement> movements = new ArrayList<>();
+        String sql = """
+                    SELECT sm.*, p.name as product_name
+                    FROM stock_movements sm
+                    JOIN products p ON sm.product_id = p.id
+                    WHERE sm.product_id = ?
+                    ORDER BY sm.created_at DESC, sm.id DESC
+                    LIMIT ?
+                """;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, productId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    movements.add(mapResultSetToMovement(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur liste mouvements de stock: " + e.getMessage());
+        }
+        return movements;
+    }
+
+    private static void bind(PreparedStatement stmt, StockMovement movement) throws SQLException {
+        LocalDateTime createdAt = movement.getCreatedAt() != null ? movement.getCreatedAt().withNano(0) : stamp();
+        stmt.setInt(1, movement.getProductId());
+        stmt.setInt(2, movement.getUserId());
+        stmt.setString(3, movement.getMovementType());
+        stmt.setInt(4, movement.getQuantity());
+        stmt.setString(5, movement.getReason());
+        if (movement.getReferenceId() != null) {
+            stmt.setInt(6, movement.getReferenceId());
+        } else {
+            stmt.setNull(6, Types.INTEGER);
+        }
+        stmt.setTimestamp(7, Timestamp.valueOf(createdAt));
+    }
+
+    /**
+     * Mapper un ResultSet vers un objet StockMovement
+     */
+    private StockMovement mapResultSetToMovement(ResultSet rs) throws SQLException {
+        StockMovement movement = new StockMovement();
+        movement.setId(rs.getInt("id"));
+        movement.setProductId(rs.getInt("product_id"));
+        movement.setUserId(rs.getInt("user_id"));
+        movement.setMovementType(rs.getString("movement_type"));
+        movement.setQuantity(rs.getInt("quantity"));
+        movement.setReason(rs.getString("reason"));
+
+        int referenceId = rs.getInt("reference_id");
+        if (!rs.wasNull()) {
+            movement.setReferenceId(referenceId);
+        }
+
+        try {
+            movement.setProductName(rs.getString("product_name"));
+        } catch (SQLException e) {
+            // Colonne peut ne pas exister
+        }
+
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        if (createdAt != null) {
+            movement.setCreatedAt(createdAt.toLocalDateTime());
+        }
+
+        return movement;
+    }
+}
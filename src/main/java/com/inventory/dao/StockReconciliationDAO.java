@@ -0,0 +1,146 @@
+package com.inventory.dao;
+
+import com.inventory.models.StockDiscrepancy;
+import com.inventory.models.StockMovement;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Data Access Object pour la réconciliation entre products.quantity et le journal des mouvements.
+ *
+ * Chaque méthode travaille sur une tranche d'identifiants [fromId, toId] et une
+ * connexion fournie par l'appelant, ce qui permet de traiter plusieurs tranches
+ * en parallèle sur des connexions distinctes du pool.
+ */
+public class StockReconciliationDAO {
+
+    // Variation signée d'un mouvement (les ajustements sont déjà signés)
+    private static final String SIGNED_QUANTITY = "CASE movement_type WHEN 'OUT' THEN -quantity ELSE quantity END";
+
+    private static final String RECONCILIATION_REASON = "Réconciliation du stock";
+
+    /**
+     * Plus petit et plus grand identifiant de produit, ou null si le catalogue est vide
+     */
+    public int[] findIdBounds(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT MIN(id), MAX(id), COUNT(*) FROM products")) {
+            if (rs.next() && rs.getInt(3) > 0) {
+                return new int[] { rs.getInt(1), rs.getInt(2) };
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Nombre de produits de la tranche
+     */
+    public int countProducts(Connection conn, int fromId, int toId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM products WHERE id BETWEEN ? AND ?")) {
+            stmt.setInt(1, fromId);
+            stmt.setInt(2, toId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Produits de la tranche dont la quantité diffère de la somme de leurs mouvements
+     */
+    public List<StockDiscrepancy> findDiscrepancies(Connection conn, int fromId, int toId) throws SQLException {
+        // Somme du journal calculée côté serveur pour toute la tranche en une requête
+        String sql = "SELECT p.id, p.name, p.quantity, COALESCE(m.ledger_quantity, 0) as ledger_quantity "
+                + "FROM products p "
+                + "LEFT JOIN (SELECT product_id, SUM(" + SIGNED_QUANTITY + ") as ledger_quantity "
+                + "FROM stock_movements WHERE product_id BETWEEN ? AND ? GROUP BY product_id) m "
+                + "ON m.product_id = p.id "
+                + "WHERE p.id BETWEEN ? AND ? AND p.quantity <> COALESCE(m.ledger_quantity, 0) "
+                + "ORDER BY p.id";
+
+        List<StockDiscrepancy> discrepancies = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, fromId);
+            stmt.setInt(2, toId);
+            stmt.setInt(3, fromId);
+            stmt.setInt(4, toId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    discrepancies.add(new StockDiscrepancy(rs.getInt("id"), rs.getString("name"),
+                            rs.getInt("quantity"), rs.getInt("ledger_quantity")));
+                }
+            }
+        }
+        return discrepancies;
+    }
+
+    /**
+     * Corriger les écarts détectés en ajoutant des mouvements ADJUSTMENT au journal.
+     *
+     * Les produits concernés sont verrouillés et leurs écarts recalculés dans la
+     * transaction: une vente validée entre la détection et la correction ne
+     * produit donc pas d'ajustement erroné.
+     *
+     * @return les écarts effectivement corrigés
+     */
+    public List<StockDiscrepancy> correctDiscrepancies(Connection conn, List<StockDiscrepancy> detected, int userId)
+            throws SQLException {
+        List<StockDiscrepancy> corrected = new ArrayList<>();
+        if (detected.isEmpty())
+            return corrected;
+
+        String ids = detected.stream()
+                .map(d -> String.valueOf(d.getProductId()))
+                .collect(Collectors.joining(","));
+        String lockSql = "SELECT id, name, quantity FROM products WHERE id IN (" + ids + ") ORDER BY id FOR UPDATE";
+        String ledgerSql = "SELECT product_id, SUM(" + SIGNED_QUANTITY + ") as ledger_quantity "
+                + "FROM stock_movements WHERE product_id IN (" + ids + ") GROUP BY product_id";
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement();
+                PreparedStatement movementStmt = StockMovementDAO.prepareInsert(conn)) {
+
+            Map<Integer, StockDiscrepancy> locked = new LinkedHashMap<>();
+            try (ResultSet rs = stmt.executeQuery(lockSql)) {
+                while (rs.next()) {
+                    locked.put(rs.getInt("id"),
+                            new StockDiscrepancy(rs.getInt("id"), rs.getString("name"), rs.getInt("quantity"), 0));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(ledgerSql)) {
+                while (rs.next()) {
+                    StockDiscrepancy discrepancy = locked.get(rs.getInt("product_id"));
+                    if (discrepancy != null) {
+                        discrepancy.setLedgerQuantity(rs.getInt("ledger_quantity"));
+                    }
+                }
+            }
+
+            for (StockDiscrepancy discrepancy : locked.values()) {
+                if (discrepancy.getDifference() == 0)
+                    continue;
+                StockMovement adjustment = new StockMovement(discrepancy.getProductId(), userId,
+                        StockMovement.ADJUSTMENT, discrepancy.getDifference(), RECONCILIATION_REASON);
+                StockMovementDAO.addToBatch(movementStmt, adjustment);
+                corrected.add(discrepancy);
+            }
+
+            if (!corrected.isEmpty()) {
+                movementStmt.executeBatch();
+            }
+            conn.commit();
+            return corrected;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.inventory.dao;
+
+import com.inventory.models.StockSnapshot;
+import com.inventory.utils.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Data Access Object pour les instantanés de stock et le stock à une date passée.
+ *
+ * Le stock à une date se calcule à partir de l'instantané le plus proche
+ * antérieur, auquel on applique uniquement les mouvements survenus depuis;
+ * sans instantané antérieur, on part du stock actuel et on retranche les
+ * mouvements postérieurs à la date.
+ *
+ * Le rejeu se fait sur created_at, l'instant où chaque mouvement a pris effet
+ * (voir StockMovementDAO.stamp()). L'instantané lit products dans une
+ * lecture cohérente (sans verrou) ouverte juste après le changement de
+ * seconde qui suit taken_at: un changement validé avant cette lecture porte
+ * un horodatage au plus égal à taken_at, un changement validé après est
+ * rejoué. Seul un changement horodaté et validé dans les quelques
+ * millisecondes entre le changement de seconde et l'ouverture de la lecture
+ * serait compté deux fois.
+ */
+public class StockSnapshotDAO {
+
+    // Variation signée d'un mouvement (les ajustements sont déjà signés)
+    private static final String SIGNED_QUANTITY = "CASE movement_type WHEN 'OUT' THEN -quantity ELSE quantity END";
+
+    /**
+     * Enregistrer un instantané des quantités de tous les produits
+     */
+    public Optional<StockSnapshot> create() {
+        String snapshotSql = "INSERT INTO stock_snapshots (taken_at, product_count) VALUES (?, ?)";
+        String itemsSql = "INSERT INTO stock_snapshot_items (snapshot_id, product_id, quantity) VALUES (?, ?, ?)";
+
+        // Ouvrir la lecture juste après un changement de seconde, sans connexion ni verrou pendant l'attente
+        LocalDateTime takenAt = StockMovementDAO.stamp();
+        long wait = Timestamp.valueOf(takenAt.plusSeconds(1)).getTime() - System.currentTimeMillis();
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            }
+        }
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null)
+            return Optional.empty();
+
+        try (conn) {
+            // Lecture cohérente sans verrou: les ventes et ajustements ne sont jamais bloqués
+            Map<Integer, Integer> quantities = new HashMap<>();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+                try (ResultSet rs = stmt.executeQuery("SELECT id, quantity FROM products")) {
+                    while (rs.next()) {
+                        quantities.put(rs.getInt("id"), rs.getInt("quantity"));
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+            try (PreparedStatement snapshotStmt = conn.prepareStatement(snapshotSql, Statement.RETURN_GENERATED_KEYS);
+                    PreparedStatement itemsStmt = conn.prepareStatement(itemsSql)) {
+                snapshotStmt.setTimestamp(1, Timestamp.valueOf(takenAt));
+                snapshotStmt.setInt(2, quantities.size());
+                snapshotStmt.executeUpdate();
+
+                int snapshotId;
+                try (ResultSet generatedKeys = snapshotStmt.getGeneratedKeys()) {
+                    if (!generatedKeys.next()) {
+                        conn.rollback();
+                        return Optional.empty();
+                    }
+                    snapshotId = generatedKeys.getInt(1);
+                }
+
+                for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+                    itemsStmt.setInt(1, snapshotId);
+                    itemsStmt.setInt(2, entry.getKey());
+                    itemsStmt.setInt(3, entry.getValue());
+                    itemsStmt.addBatch();
+                }
+                itemsStmt.executeBatch();
+
+                conn.commit();
+                return Optional.of(new StockSnapshot(snapshotId, takenAt, quantities.size()));
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur instantané de stock: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Obtenir l'instantané le plus récent
+     */
+    public Optional<StockSnapshot> findLatest() {
+        return findLatestAtOrBefore(LocalDateTime.now());
+    }
+
+    /**
+     * Obtenir l'instantané le plus récent pris au plus tard à une date
+     */
+    public Optional<StockSnapshot> findLatestAtOrBefore(LocalDateTime at) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return findLatestAtOrBefore(conn, at);
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur recherche instantané: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Quantités en stock de tous les produits à une date passée (product_id -> quantité)
+     */
+    public Map<Integer, Integer> findQuantitiesAt(LocalDateTime at) {
+        Map<Integer, Integer> quantities = new HashMap<>();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Optional<StockSnapshot> snapshot = findLatestAtOrBefore(conn, at);
+
+            if (snapshot.isPresent()) {
+                // Instantané antérieur + mouvements de l'intervalle (snapshot, at]
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT product_id, quantity FROM stock_snapshot_items WHERE snapshot_id = ?")) {
+                    stmt.setInt(1, snapshot.get().getId());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            quantities.put(rs.getInt("product_id"), rs.getInt("quantity"));
+                        }
+                    }
+                }
+                applyMovements(conn, quantities, snapshot.get().getTakenAt(), at, 1);
+            } else {
+                // Aucun instantané antérieur: stock actuel moins les mouvements postérieurs à la date
+                try (Statement stmt = conn.createStatement();
+                        ResultSet rs = stmt.executeQuery("SELECT id, quantity FROM products")) {
+                    while (rs.next()) {
+                        quantities.put(rs.getInt("id"), rs.getInt("quantity"));
+                    }
+                }
+                applyMovements(conn, quantities, at, LocalDateTime.now(), -1);
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur stock à date: " + e.getMessage());
+        }
+        return quantities;
+    }
+
+    /**
+     * Quantité en stock d'un produit à une date passée
+     */
+    public int findQuantityAt(int productId, LocalDateTime at) {
+        String snapshotItemSql = "SELECT quantity FROM stock_snapshot_items WHERE snapshot_id = ? AND product_id = ?";
+        String movementsSql = "SELECT COALESCE(SUM(" + SIGNED_QUANTITY + "), 0) FROM stock_movements "
+                + "WHERE product_id = ? AND created_at > ? AND created_at <= ?";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Optional<StockSnapshot> snapshot = findLatestAtOrBefore(conn, at);
+            int base = 0;
+            LocalDateTime from;
+            LocalDateTime to;
+            int direction;
+
+            if (snapshot.isPresent()) {
+                try (PreparedStatement stmt = conn.prepareStatement(snapshotItemSql)) {
+                    stmt.setInt(1, snapshot.get().getId());
+                    stmt.setInt(2, productId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            base = rs.getInt(1);
+                        }
+                    }
+                }
+                from = snapshot.get().getTakenAt();
+                to = at;
+                direction = 1;
+            } else {
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT quantity FROM products WHERE id = ?")) {
+                    stmt.setInt(1, productId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            base = rs.getInt(1);
+                        }
+                    }
+                }
+                from = at;
+                to = LocalDateTime.now();
+                direction = -1;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(movementsSql)) {
+                stmt.setInt(1, productId);
+                stmt.setTimestamp(2, Timestamp.valueOf(from));
+                stmt.setTimestamp(3, Timestamp.valueOf(to));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        base += direction * rs.getInt(1);
+                    }
+                }
+            }
+            return base;
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur stock produit à date: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Supprimer les instantanés antérieurs à une date (en conservant toujours le plus récent)
+     */
+    public int deleteOlderThan(LocalDateTime before) {
+        String sql = """
+                    DELETE FROM stock_snapshots
+                    WHERE taken_at < ?
+                      AND id <> (SELECT latest.id FROM (SELECT MAX(id) as id FROM stock_snapshots) latest)
+                """;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(before));
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur purge instantanés: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    private Optional<StockSnapshot> findLatestAtOrBefore(Connection conn, LocalDateTime at) throws SQLException {
+        String sql = """
+                    SELECT id, taken_at, product_count FROM stock_snapshots
+                    WHERE taken_at <= ?
+                    ORDER BY taken_at DESC, id DESC
+                    LIMIT 1
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(at));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(new StockSnapshot(rs.getInt("id"),
+                            rs.getTimestamp("taken_at").toLocalDateTime(), rs.getInt("product_count")));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Appliquer (direction 1) ou retrancher (direction -1) les mouvements de l'intervalle (from, to]
+     */
+    private void applyMovements(Connection conn, Map<Integer, Integer> quantities,
+            LocalDateTime from, LocalDateTime to, int direction) throws SQLException {
+        String sql = "SELECT product_id, SUM(" + SIGNED_QUANTITY + ") as delta FROM stock_movements "
+                + "WHERE created_at > ? AND created_at <= ? GROUP BY product_id";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    quantities.merge(rs.getInt("product_id"), direction * rs.getInt("delta"), Integer::sum);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.inventory.models;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Panier de caisse indexé par produit.
+ *
+ * Le sous-total et le nombre d'articles sont maintenus de façon incrémentale
+ * (O(1) par modification) et chaque changement est publié aux écouteurs,
+ * ce qui permet de ne redessiner que la ligne concernée.
+ */
+public class Cart {
+
+    /**
+     * Écouteur des modifications du panier
+     */
+    public interface Listener {
+        default void itemAdded(SaleItem item) {
+        }
+
+        default void itemUpdated(SaleItem item) {
+        }
+
+        default void itemRemoved(SaleItem item) {
+        }
+
+        default void cleared() {
+        }
+
+        default void totalsChanged(Cart cart) {
+        }
+    }
+
+    /**
+     * Politique de remise appliquée aux nouvelles lignes (en pourcentage)
+     */
+    public interface Pricing {
+        BigDecimal discountFor(Product product);
+    }
+
+    private final Sale sale;
+    private final Map<Integer, SaleItem> itemsByProduct = new LinkedHashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private Pricing pricing;
+    private BigDecimal subtotal = BigDecimal.ZERO;
+    private BigDecimal lineDiscount = BigDecimal.ZERO;
+    private int itemCount;
+
+    // Constructeur avec la vente à remplir
+    public Cart(Sale sale) {
+        this.sale = sale;
+        for (SaleItem item : sale.getItems()) {
+            itemsByProduct.put(item.getProductId(), item);
+            subtotal = subtotal.add(item.getSubtotal());
+            lineDiscount = lineDiscount.add(item.getDiscountAmount());
+            itemCount += item.getQuantity();
+        }
+    }
+
+    public void setPricing(Pricing pricing) {
+        this.pricing = pricing;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Opérations
+
+    /**
+     * Ajouter une quantité d'un produit (nouvelle ligne ou ligne existante)
+     */
+    public SaleItem add(Product product, int quantity) {
+        SaleItem existing = itemsByProduct.get(product.getId());
+        if (existing != null) {
+            setQuantity(existing, existing.getQuantity() + quantity);
+            return existing;
+        }
+
+        SaleItem item = new SaleItem(product, quantity);
+        if (pricing != null) {
+            BigDecimal discount = pricing.discountFor(product);
+            if (discount != null && discount.signum() > 0) {
+                item.setDiscountPercentage(discount);
+            }
+        }
+        itemsByProduct.put(product.getId(), item);
+        subtotal = subtotal.add(item.getSubtotal());
+        lineDiscount = lineDiscount.add(item.getDiscountAmount());
+        itemCount += quantity;
+
+        listeners.forEach(l -> l.itemAdded(item));
+        fireTotalsChanged();
+        return item;
+    }
+
+    /**
+     * Augmenter d'une unité la quantité d'une ligne
+     */
+    public void increment(int productId) {
+        SaleItem item = itemsByProduct.get(productId);
+        if (item != null) {
+            setQuantity(item, item.getQuantity() + 1);
+        }
+    }
+
+    /**
+     * Diminuer d'une unité la quantité d'une ligne (suppression à zéro)
+     */
+    public void decrement(int productId) {
+        SaleItem item = itemsByProduct.get(productId);
+        if (item != null) {
+            setQuantity(item, item.getQuantity() - 1);
+        }
+    }
+
+    /**
+     * Définir la quantité d'une ligne (suppression si inférieure ou égale à zéro)
+     */
+    public void setQuantity(int productId, int quantity) {
+        SaleItem item = itemsByProduct.get(productId);
+        if (item != null) {
+            setQuantity(item, quantity);
+        }
+    }
+
+    /**
+     * Supprimer une ligne du panier
+     */
+    public void remove(int productId) {
+        SaleItem item = itemsByProduct.remove(productId);
+        if (item == null)
+            return;
+
+        subtotal = subtotal.subtract(item.getSubtotal());
+        lineDiscount = lineDiscount.subtract(item.getDiscountAmount());
+        itemCount -= item.getQuantity();
+
+        listeners.forEach(l -> l.itemRemoved(item));
+        fireTotalsChanged();
+    }
+
+    /**
+     * Vider le panier
+     */
+    public void clear() {
+        itemsByProduct.clear();
+        subtotal = BigDecimal.ZERO;
+        lineDiscount = BigDecimal.ZERO;
+        itemCount = 0;
+
+        listeners.forEach(Listener::cleared);
+        fireTotalsChanged();
+    }
+
+    private void setQuantity(SaleItem item, int quantity) {
+        if (quantity <= 0) {
+            remove(item.getProductId());
+            return;
+        }
+
+        BigDecimal oldSubtotal = item.getSubtotal();
+        BigDecimal oldDiscount = item.getDiscountAmount();
+        int oldQuantity = item.getQuantity();
+        item.setQuantity(quantity);
+
+        subtotal = subtotal.subtract(oldSubtotal).add(item.getSubtotal());
+        lineDiscount = lineDiscount.subtract(oldDiscount).add(item.getDiscountAmount());
+        itemCount += quantity - oldQuantity;
+
+        listeners.forEach(l -> l.itemUpdated(item));
+        fireTotalsChanged();
+    }
+
+    private void fireTotalsChanged() {
+        sale.setTotalAmount(subtotal);
+        listeners.forEach(l -> l.totalsChanged(this));
+    }
+
+    // Consultation
+
+    public SaleItem getItem(int productId) {
+        return itemsByProduct.get(productId);
+    }
+
+    public Collection<SaleItem> getItems() {
+        return Collections.unmodifiableCollection(itemsByProduct.values());
+    }
+
+    public boolean isEmpty() {
+        return itemsByProduct.isEmpty();
+    }
+
+    public int getLineCount() {
+        return itemsByProduct.size();
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Sous-total net des remises de ligne
+     */
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    /**
+     * Montant total des remises de ligne (promotions)
+     */
+    public BigDecimal getLineDiscount() {
+        return lineDiscount;
+    }
+
+    public BigDecimal getFinalAmount() {
+        return sale.getFinalAmount();
+    }
+
+    /**
+     * Obtenir la vente (en-tête) associée au panier, sans recopier les lignes
+     */
+    public Sale getSale() {
+        return sale;
+    }
+
+    /**
+     * Synchroniser les lignes et totaux dans la vente, pour l'encaissement
+     */
+    public Sale toSale() {
+        sale.setItems(new ArrayList<>(itemsByProduct.values()));
+        sale.setTotalAmount(subtotal);
+        return sale;
+    }
+}
@@ -0,0 +1,79 @@
+package com.inventory.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Modèle représentant les indicateurs du tableau de bord
+ */
+public class DashboardStats {
+
+    private int productCount;
+    private int lowStockCount;
+    private BigDecimal todaySales;
+    private BigDecimal yesterdaySales;
+    private BigDecimal monthRevenue;
+
+    // Constructeur par défaut
+    public DashboardStats() {
+        this.todaySales = BigDecimal.ZERO;
+        this.yesterdaySales = BigDecimal.ZERO;
+        this.monthRevenue = BigDecimal.ZERO;
+    }
+
+    // Getters et Setters
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public void setProductCount(int productCount) {
+        this.productCount = productCount;
+    }
+
+    public int getLowStockCount() {
+        return lowStockCount;
+    }
+
+    public void setLowStockCount(int lowStockCount) {
+        this.lowStockCount = lowStockCount;
+    }
+
+    public BigDecimal getTodaySales() {
+        return todaySales;
+    }
+
+    public void setTodaySales(BigDecimal todaySales) {
+        this.todaySales = todaySales;
+    }
+
+    /**
+     * Ventes d'hier (journée entière, nettes des retours)
+     */
+    public BigDecimal getYesterdaySales() {
+        return yesterdaySales;
+    }
+
+    public void setYesterdaySales(BigDecimal yesterdaySales) {
+        this.yesterdaySales = yesterdaySales;
+    }
+
+    public BigDecimal getMonthRevenue() {
+        return monthRevenue;
+    }
+
+    public void setMonthRevenue(BigDecimal monthRevenue) {
+        this.monthRevenue = monthRevenue;
+    }
+
+    /**
+     * Évolution des ventes du jour par rapport à celles d'hier (journée entière, nettes des retours),
+     * en pourcentage (null si hier n'a aucune vente)
+     */
+    public BigDecimal getSalesChangePercent() {
+        if (yesterdaySales.signum() == 0)
+            return null;
+        return todaySales.subtract(yesterdaySales)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(yesterdaySales, 0, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,129 @@
+package com.inventory.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Modèle représentant une promotion sur un produit
+ */
+public class Promotion {
+
+    private int id;
+    private int productId;
+    private String productName;
+    private BigDecimal discountPercentage;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private boolean isActive;
+    private int createdBy;
+    private LocalDateTime createdAt;
+
+    // Constructeur par défaut
+    public Promotion() {
+        this.discountPercentage = BigDecimal.ZERO;
+        this.isActive = true;
+    }
+
+    // Constructeur avec paramètres
+    public Promotion(int productId, BigDecimal discountPercentage, LocalDate startDate, LocalDate endDate) {
+        this();
+        this.productId = productId;
+        this.discountPercentage = discountPercentage;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    // Getters et Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public BigDecimal getDiscountPercentage() {
+        return discountPercentage;
+    }
+
+    public void setDiscountPercentage(BigDecimal discountPercentage) {
+        this.discountPercentage = discountPercentage;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public boolean isActive() {
+        return isActive;
+    }
+
+    public void setActive(boolean active) {
+        isActive = active;
+    }
+
+    public int getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(int createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    // Méthodes utilitaires
+
+    /**
+     * Vérifie si la promotion s'applique à une date donnée (bornes incluses)
+     */
+    public boolean appliesOn(LocalDate date) {
+        return isActive && !date.isBefore(startDate) && !date.isAfter(endDate);
+    }
+
+    @Override
+    public String toString() {
+        return "Promotion{" +
+                "id=" + id +
+                ", productId=" + productId +
+                ", discountPercentage=" + discountPercentage +
+                ", startDate=" + startDate +
+                ", endDate=" + endDate +
+                '}';
+    }
+}
@@ -0,0 +1,178 @@
+package com.inventory.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Modèle représentant une annulation ou un retour (total ou partiel) sur une vente.
+ *
+ * L'identifiant de demande (requestId) rend l'opération rejouable sans effet
+ * de bord: une demande déjà appliquée n'est jamais appliquée une seconde fois.
+ */
+public class Refund {
+
+    /**
+     * Ligne effectivement retournée (renseignée à l'application du retour)
+     */
+    public record Line(int saleItemId, int productId, int quantity, BigDecimal amount) {
+    }
+
+    private int id;
+    private String requestId;
+    private int saleId;
+    private int userId;
+    private String reason;
+    private Map<Integer, Integer> quantities; // sale_item_id -> quantité retournée (vide = vente entière)
+    private BigDecimal amount;
+    private BigDecimal revenueAmount; // montant retiré du chiffre d'affaires des rapports
+    private List<Line> lines;
+    private boolean alreadyApplied;
+    private boolean saleCancelled; // toutes les lignes de la vente sont désormais retournées
+    private LocalDateTime createdAt;
+
+    // Constructeur par défaut
+    public Refund() {
+        this.requestId = UUID.randomUUID().toString();
+        this.quantities = new LinkedHashMap<>();
+        this.amount = BigDecimal.ZERO;
+        this.revenueAmount = BigDecimal.ZERO;
+        this.lines = new ArrayList<>();
+    }
+
+    // Constructeur pour une annulation complète
+    public Refund(int saleId, int userId, String reason) {
+        this();
+        this.saleId = saleId;
+        this.userId = userId;
+        this.reason = reason;
+    }
+
+    // Getters et Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public int getSaleId() {
+        return saleId;
+    }
+
+    public void setSaleId(int saleId) {
+        this.saleId = saleId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public Map<Integer, Integer> getQuantities() {
+        return quantities;
+    }
+
+    public void setQuantities(Map<Integer, Integer> quantities) {
+        this.quantities = quantities;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    /**
+     * Montant retiré du chiffre d'affaires: celui du retour, ou pour une
+     * annulation complète le total de la vente moins les retours précédents
+     */
+    public BigDecimal getRevenueAmount() {
+        return revenueAmount;
+    }
+
+    public void setRevenueAmount(BigDecimal revenueAmount) {
+        this.revenueAmount = revenueAmount;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<Line> lines) {
+        this.lines = lines;
+    }
+
+    public boolean isAlreadyApplied() {
+        return alreadyApplied;
+    }
+
+    public void setAlreadyApplied(boolean alreadyApplied) {
+        this.alreadyApplied = alreadyApplied;
+    }
+
+    public boolean isSaleCancelled() {
+        return saleCancelled;
+    }
+
+    public void setSaleCancelled(boolean saleCancelled) {
+        this.saleCancelled = saleCancelled;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    // Méthodes utilitaires
+
+    /**
+     * Ajouter une ligne à retourner
+     */
+    public void addLine(int saleItemId, int quantity) {
+        quantities.merge(saleItemId, quantity, Integer::sum);
+    }
+
+    public boolean isFullCancellation() {
+        return quantities.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "Refund{" +
+                "requestId='" + requestId + '\'' +
+                ", saleId=" + saleId +
+                ", amount=" + amount +
+                ", lines=" + quantities.size() +
+                '}';
+    }
+}
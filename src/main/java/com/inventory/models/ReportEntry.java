@@ -0,0 +1,64 @@
+package com.inventory.models;
+
+import java.math.BigDecimal;
+
+/**
+ * Modèle représentant une ligne agrégée d'un rapport (jour, catégorie, mode de paiement, produit...)
+ */
+public class ReportEntry {
+
+    private int id; // Identifiant de l'élément agrégé (produit...), 0 si sans objet
+    private String label;
+    private int quantity;
+    private BigDecimal amount;
+
+    // Constructeur par défaut
+    public ReportEntry() {
+        this.amount = BigDecimal.ZERO;
+    }
+
+    // Constructeur avec paramètres
+    public ReportEntry(String label, int quantity, BigDecimal amount) {
+        this.label = label;
+        this.quantity = quantity;
+        this.amount = amount;
+    }
+
+    // Getters et Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public String toString() {
+        return label + ": " + quantity + " / " + amount;
+    }
+}
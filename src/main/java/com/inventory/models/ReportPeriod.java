@@ -0,0 +1,139 @@
+package com.inventory.models;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Période couverte par un rapport (dates de début et de fin incluses)
+ */
+public class ReportPeriod {
+
+    // Au-delà, la tendance des ventes est regroupée par semaine plutôt que par jour
+    // (jusque-là, la courbe journalière est réduite à la largeur du graphique)
+    private static final long MAX_DAILY_DAYS = 366;
+
+    private static final DateTimeFormatter BUCKET_FORMAT = DateTimeFormatter.ofPattern("dd/MM");
+
+    private final LocalDate from;
+    private final LocalDate to;
+
+    public ReportPeriod(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Période invalide: " + from + " > " + to);
+        }
+        this.from = from;
+        this.to = to;
+    }
+
+    public static ReportPeriod today() {
+        LocalDate today = LocalDate.now();
+        return new ReportPeriod(today, today);
+    }
+
+    public static ReportPeriod thisWeek() {
+        LocalDate today = LocalDate.now();
+        return new ReportPeriod(today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)), today);
+    }
+
+    public static ReportPeriod thisMonth() {
+        LocalDate today = LocalDate.now();
+        return new ReportPeriod(today.withDayOfMonth(1), today);
+    }
+
+    public static ReportPeriod thisQuarter() {
+        LocalDate today = LocalDate.now();
+        int firstMonth = (today.getMonthValue() - 1) / 3 * 3 + 1;
+        return new ReportPeriod(LocalDate.of(today.getYear(), firstMonth, 1), today);
+    }
+
+    public static ReportPeriod thisYear() {
+        LocalDate today = LocalDate.now();
+        return new ReportPeriod(today.withDayOfYear(1), today);
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Début de la période (inclus)
+     */
+    public LocalDateTime getStart() {
+        return from.atStartOfDay();
+    }
+
+    /**
+     * Fin de la période (exclue), pour des bornes created_at >= ? AND created_at < ?
+     */
+    public LocalDateTime getEnd() {
+        return to.plusDays(1).atStartOfDay();
+    }
+
+    public long getDays() {
+        return ChronoUnit.DAYS.between(from, to) + 1;
+    }
+
+    /**
+     * Tendance par jour (sinon par semaine)
+     */
+    public boolean isDaily() {
+        return getDays() <= MAX_DAILY_DAYS;
+    }
+
+    /**
+     * Début de l'intervalle de tendance contenant un jour (le jour même, ou le lundi de sa semaine)
+     */
+    public LocalDate bucketOf(LocalDate day) {
+        return isDaily() ? day : day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /**
+     * Débuts de tous les intervalles de tendance de la période, dans l'ordre
+     */
+    public List<LocalDate> getBuckets() {
+        List<LocalDate> buckets = new ArrayList<>();
+        int step = isDaily() ? 1 : 7;
+        for (LocalDate day = bucketOf(from); !day.isAfter(to); day = day.plusDays(step)) {
+            buckets.add(day);
+        }
+        return buckets;
+    }
+
+    /**
+     * Libellé d'un intervalle de tendance
+     */
+    public String getBucketLabel(LocalDate bucket) {
+        return isDaily() ? bucket.format(BUCKET_FORMAT) : "Sem " + bucket.format(BUCKET_FORMAT);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof ReportPeriod))
+            return false;
+        ReportPeriod other = (ReportPeriod) o;
+        return from.equals(other.from) && to.equals(other.to);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(from, to);
+    }
+
+    @Override
+    public String toString() {
+        return from + " - " + to;
+    }
+}
@@ -0,0 +1,60 @@
+package com.inventory.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Modèle représentant les indicateurs globaux d'un rapport de ventes
+ */
+public class ReportSummary {
+
+    private BigDecimal revenue;
+    private int saleCount;
+    private int unitsSold;
+
+    // Constructeur par défaut
+    public ReportSummary() {
+        this.revenue = BigDecimal.ZERO;
+    }
+
+    // Constructeur avec paramètres
+    public ReportSummary(BigDecimal revenue, int saleCount, int unitsSold) {
+        this.revenue = revenue;
+        this.saleCount = saleCount;
+        this.unitsSold = unitsSold;
+    }
+
+    // Getters et Setters
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public int getSaleCount() {
+        return saleCount;
+    }
+
+    public void setSaleCount(int saleCount) {
+        this.saleCount = saleCount;
+    }
+
+    public int getUnitsSold() {
+        return unitsSold;
+    }
+
+    public void setUnitsSold(int unitsSold) {
+        this.unitsSold = unitsSold;
+    }
+
+    /**
+     * Panier moyen (chiffre d'affaires / nombre de ventes)
+     */
+    public BigDecimal getAverageBasket() {
+        if (saleCount == 0)
+            return BigDecimal.ZERO;
+        return revenue.divide(BigDecimal.valueOf(saleCount), 2, RoundingMode.HALF_UP);
+    }
+}
@@ -1,5 +1,7 @@
 package com.inventory.models;
 
+import com.inventory.utils.SaleNumberGenerator;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -177,6 +179,10 @@ public class Sale {
     }
 
     public String getPaymentMethodDisplay() {
+        return getPaymentMethodDisplay(paymentMethod);
+    }
+
+    public static String getPaymentMethodDisplay(String paymentMethod) {
         return switch (paymentMethod) {
             case "CASH" -> "Espèces";
             case "CARD" -> "Carte";
@@ -204,10 +210,10 @@ public class Sale {
     }
 
     /**
-     * Génère un numéro de vente unique
+     * Génère un numéro de vente unique (sans accès à la base, unique entre caisses)
      */
     public static String generateSaleNumber() {
-        return "VNT-" + System.currentTimeMillis();
+        return SaleNumberGenerator.getDefault().next();
     }
 
     @Override
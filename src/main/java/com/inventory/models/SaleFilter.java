@@ -0,0 +1,67 @@
+package com.inventory.models;
+
+import java.time.LocalDate;
+
+/**
+ * Critères de recherche dans l'historique des ventes (null = pas de filtre)
+ */
+public class SaleFilter {
+
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private Integer userId;
+    private String paymentMethod; // CASH, CARD, MOBILE
+    private String status; // COMPLETED, PENDING, CANCELLED
+
+    // Getters et Setters
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public void setFromDate(LocalDate fromDate) {
+        this.fromDate = fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    public void setToDate(LocalDate toDate) {
+        this.toDate = toDate;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(String paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    @Override
+    public String toString() {
+        return "SaleFilter{" +
+                "fromDate=" + fromDate +
+                ", toDate=" + toDate +
+                ", userId=" + userId +
+                ", paymentMethod='" + paymentMethod + '\'' +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
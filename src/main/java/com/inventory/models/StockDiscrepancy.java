@@ -0,0 +1,69 @@
+package com.inventory.models;
+
+/**
+ * Modèle représentant un écart entre la quantité d'un produit et la somme de ses mouvements de stock
+ */
+public class StockDiscrepancy {
+
+    private int productId;
+    private String productName;
+    private int quantity;
+    private int ledgerQuantity;
+
+    // Constructeur par défaut
+    public StockDiscrepancy() {
+    }
+
+    // Constructeur avec paramètres
+    public StockDiscrepancy(int productId, String productName, int quantity, int ledgerQuantity) {
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.ledgerQuantity = ledgerQuantity;
+    }
+
+    // Getters et Setters
+    public int getProductId() {
+        return productId;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public int getLedgerQuantity() {
+        return ledgerQuantity;
+    }
+
+    public void setLedgerQuantity(int ledgerQuantity) {
+        this.ledgerQuantity = ledgerQuantity;
+    }
+
+    /**
+     * Ajustement à ajouter au journal pour le ramener à la quantité du produit
+     */
+    public int getDifference() {
+        return quantity - ledgerQuantity;
+    }
+
+    @Override
+    public String toString() {
+        return productName + " (#" + productId + "): stock " + quantity + ", journal " + ledgerQuantity;
+    }
+}
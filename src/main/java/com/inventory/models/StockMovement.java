@@ -0,0 +1,149 @@
+package com.inventory.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Modèle représentant un mouvement de stock (entrée, sortie ou ajustement)
+ */
+public class StockMovement {
+
+    public static final String IN = "IN";
+    public static final String OUT = "OUT";
+    public static final String ADJUSTMENT = "ADJUSTMENT";
+
+    private int id;
+    private int productId;
+    private String productName;
+    private int userId;
+    private String movementType; // IN, OUT, ADJUSTMENT
+    private int quantity; // positive pour IN/OUT, signée pour ADJUSTMENT
+    private String reason;
+    private Integer referenceId;
+    private LocalDateTime createdAt;
+
+    // Constructeur par défaut
+    public StockMovement() {
+    }
+
+    // Constructeur avec paramètres
+    public StockMovement(int productId, int userId, String movementType, int quantity, String reason) {
+        this.productId = productId;
+        this.userId = userId;
+        this.movementType = movementType;
+        this.quantity = quantity;
+        this.reason = reason;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * Créer le mouvement correspondant à une variation de quantité (IN si positive, OUT sinon)
+     */
+    public static StockMovement ofChange(int productId, int userId, int quantityChange, String reason) {
+        return new StockMovement(productId, userId, quantityChange >= 0 ? IN : OUT, Math.abs(quantityChange), reason);
+    }
+
+    // Getters et Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public String getMovementType() {
+        return movementType;
+    }
+
+    public void setMovementType(String movementType) {
+        this.movementType = movementType;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public Integer getReferenceId() {
+        return referenceId;
+    }
+
+    public void setReferenceId(Integer referenceId) {
+        this.referenceId = referenceId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    // Méthodes utilitaires
+
+    /**
+     * Variation signée de la quantité en stock
+     */
+    public int getSignedQuantity() {
+        return switch (movementType) {
+            case IN -> quantity;
+            case OUT -> -quantity;
+            default -> quantity;
+        };
+    }
+
+    public String getMovementTypeDisplay() {
+        return switch (movementType) {
+            case IN -> "Entrée";
+            case OUT -> "Sortie";
+            case ADJUSTMENT -> "Ajustement";
+            default -> movementType;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "StockMovement{" +
+                "productId=" + productId +
+                ", movementType='" + movementType + '\'' +
+                ", quantity=" + quantity +
+                ", reason='" + reason + '\'' +
+                '}';
+    }
+}
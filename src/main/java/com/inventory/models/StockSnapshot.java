@@ -0,0 +1,58 @@
+package com.inventory.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Modèle représentant un instantané des quantités en stock de tous les produits
+ */
+public class StockSnapshot {
+
+    private int id;
+    private LocalDateTime takenAt;
+    private int productCount;
+
+    // Constructeur par défaut
+    public StockSnapshot() {
+    }
+
+    // Constructeur avec paramètres
+    public StockSnapshot(int id, LocalDateTime takenAt, int productCount) {
+        this.id = id;
+        this.takenAt = takenAt;
+        this.productCount = productCount;
+    }
+
+    // Getters et Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    public void setTakenAt(LocalDateTime takenAt) {
+        this.takenAt = takenAt;
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public void setProductCount(int productCount) {
+        this.productCount = productCount;
+    }
+
+    @Override
+    public String toString() {
+        return "StockSnapshot{" +
+                "id=" + id +
+                ", takenAt=" + takenAt +
+                ", productCount=" + productCount +
+                '}';
+    }
+}
@@ -0,0 +1,116 @@
+package com.inventory.services;
+
+import com.inventory.dao.CategoryDAO;
+import com.inventory.dao.ProductDAO;
+import com.inventory.models.Category;
+import com.inventory.models.Product;
+
+/**
+ * Modifications du catalogue (produits, catégories, quantités hors vente).
+ *
+ * Chaque écriture réussie est signalée aux services qui en gardent une copie:
+ * sections de stock du cache des rapports, stock faible précalculé, et
+ * catégories du cube des ventes. Les ventes et leurs retours sont signalés
+ * séparément par {@link SaleEventBus}.
+ */
+public final class CatalogService {
+
+    private final ProductDAO productDAO = new ProductDAO(StockLedger.getInstance()::record);
+    private final CategoryDAO categoryDAO = new CategoryDAO();
+
+    // ========== Produits ==========
+
+    public boolean createProduct(Product product, int userId) {
+        boolean created = productDAO.create(product, userId);
+        if (created) {
+            productChanged(product);
+        }
+        return created;
+    }
+
+    public boolean updateProduct(Product product, int userId) {
+        boolean updated = productDAO.update(product, userId);
+        if (updated) {
+            productChanged(product);
+        }
+        return updated;
+    }
+
+    /**
+     * Désactiver un produit (soft delete)
+     */
+    public boolean deleteProduct(int id) {
+        boolean deleted = productDAO.delete(id);
+        if (deleted) {
+            stockChanged();
+        }
+        return deleted;
+    }
+
+    public boolean hardDeleteProduct(int id) {
+        boolean deleted = productDAO.hardDelete(id);
+        if (deleted) {
+            stockChanged();
+        }
+        return deleted;
+    }
+
+    /**
+     * Ajuster la quantité d'un produit hors vente (réception, casse, inventaire)
+     */
+    public boolean adjustQuantity(int productId, int quantityChange, String reason, int userId) {
+        boolean updated = productDAO.updateQuantity(productId, quantityChange, reason, userId);
+        if (updated) {
+            stockChanged();
+        }
+        return updated;
+    }
+
+    // ========== Catégories ==========
+
+    public boolean createCategory(Category category) {
+        return categoryDAO.create(category);
+    }
+
+    /**
+     * Mettre à jour une catégorie: un changement de nom rend obsolètes les rapports qui l'affichent
+     */
+    public boolean updateCategory(Category category) {
+        boolean updated = categoryDAO.update(category);
+        if (updated) {
+            SalesCube cube = SalesCube.getInstance();
+            if (cube != null) {
+                cube.categoryChanged(category.getId(), category.getName());
+            }
+            ReportCache.getInstance().invalidateAll();
+        }
+        return updated;
+    }
+
+    /**
+     * Supprimer une catégorie (ses produits deviennent sans catégorie)
+     */
+    public boolean deleteCategory(int id) {
+        boolean deleted = categoryDAO.delete(id);
+        if (deleted) {
+            ReportCache.getInstance().invalidateAll();
+            ReportSnapshotService.stockChanged();
+        }
+        return deleted;
+    }
+
+    // ========== Invalidation ==========
+
+    private void productChanged(Product product) {
+        SalesCube cube = SalesCube.getInstance();
+        if (cube != null) {
+            cube.productChanged(product.getId(), product.getCategoryId());
+        }
+        stockChanged();
+    }
+
+    private void stockChanged() {
+        ReportCache.getInstance().invalidateStock();
+        ReportSnapshotService.stockChanged();
+    }
+}
@@ -0,0 +1,273 @@
+package com.inventory.services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Journal local en ajout seul des ventes validées.
+ *
+ * Chaque enregistrement est écrit sous la forme [longueur][CRC32][données].
+ * Un thread d'écriture unique regroupe les ajouts en attente et les rend
+ * durables avec un seul fsync par lot (group commit).
+ */
+public class CheckoutJournal implements AutoCloseable {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_BATCH = 256;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private static final PendingRecord SHUTDOWN = new PendingRecord(new byte[0]);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final BlockingQueue<PendingRecord> pending = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private final Object lock = new Object();
+    // Ordonne les ajouts et la fermeture: rien n'entre dans la file après le marqueur d'arrêt
+    private final Object queueLock = new Object();
+
+    private volatile long committedSize;
+    private boolean closed;
+
+    public CheckoutJournal(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.committedSize = recover();
+        this.writerThread = new Thread(this::writeLoop, "checkout-journal-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Ajouter un enregistrement; le futur est complété une fois l'enregistrement
+     * écrit et synchronisé sur disque
+     */
+    public CompletableFuture<Long> append(byte[] payload) {
+        PendingRecord record = new PendingRecord(payload);
+        synchronized (queueLock) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IOException("Journal fermé"));
+            }
+            pending.add(record);
+        }
+        return record.future;
+    }
+
+    /**
+     * Taille du journal durablement écrite (fin du dernier enregistrement synchronisé)
+     */
+    public long getCommittedSize() {
+        return committedSize;
+    }
+
+    /**
+     * Parcourir les enregistrements valides à partir d'une position donnée.
+     * Le consommateur reçoit les données et la position de fin de chaque enregistrement.
+     */
+    public void readFrom(long offset, BiConsumer<byte[], Long> consumer) throws IOException {
+        long end = committedSize;
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = offset;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (position + HEADER_SIZE <= end) {
+                header.clear();
+                readFully(reader, header, position);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length < 0 || length > MAX_RECORD_SIZE || position + HEADER_SIZE + length > end) {
+                    throw new IOException("Enregistrement invalide à la position " + position);
+                }
+
+                ByteBuffer data = ByteBuffer.allocate(length);
+                readFully(reader, data, position + HEADER_SIZE);
+                if (crc(data.array()) != checksum) {
+                    throw new IOException("Somme de contrôle invalide à la position " + position);
+                }
+
+                position += HEADER_SIZE + length;
+                consumer.accept(data.array(), position);
+            }
+        }
+    }
+
+    /**
+     * Vider le journal si tous ses enregistrements ont été rejoués
+     * (la position rejouée doit correspondre exactement à la fin du journal)
+     */
+    public boolean truncateIfFullyReplayed(long replayedOffset, Runnable beforeTruncate) throws IOException {
+        synchronized (lock) {
+            if (replayedOffset != committedSize || !pending.isEmpty()) {
+                return false;
+            }
+            beforeTruncate.run();
+            channel.truncate(0);
+            channel.force(true);
+            committedSize = 0;
+            return true;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (queueLock) {
+            if (closed)
+                return;
+            closed = true;
+            pending.add(SHUTDOWN);
+        }
+        try {
+            writerThread.join(5000);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("❌ Erreur fermeture journal de caisse: " + e.getMessage());
+        }
+
+        // Écrivain arrêté avant d'atteindre le marqueur (interrompu ou trop lent): échec explicite
+        List<PendingRecord> unwritten = new ArrayList<>();
+        pending.drainTo(unwritten);
+        unwritten.remove(SHUTDOWN);
+        IOException notWritten = new IOException("Journal fermé avant l'écriture de la vente");
+        for (PendingRecord record : unwritten) {
+            record.future.completeExceptionally(notWritten);
+        }
+        if (!unwritten.isEmpty()) {
+            System.err.println("❌ Journal de caisse fermé: " + unwritten.size() + " vente(s) non écrite(s)");
+        }
+    }
+
+    // ========== Écriture ==========
+
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>(MAX_BATCH);
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            pending.drainTo(batch, MAX_BATCH - 1);
+
+            // Le marqueur d'arrêt est toujours le dernier élément de la file (voir append et close)
+            if (batch.remove(SHUTDOWN)) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    private void commit(List<PendingRecord> batch) {
+        int size = 0;
+        for (PendingRecord record : batch) {
+            size += HEADER_SIZE + record.payload.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (PendingRecord record : batch) {
+            buffer.putInt(record.payload.length);
+            buffer.putInt(crc(record.payload));
+            buffer.put(record.payload);
+        }
+        buffer.flip();
+
+        synchronized (lock) {
+            long start = committedSize;
+            try {
+                long position = start;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                channel.force(false);
+                committedSize = position;
+
+                long end = start;
+                for (PendingRecord record : batch) {
+                    end += HEADER_SIZE + record.payload.length;
+                    record.future.complete(end);
+                }
+            } catch (IOException e) {
+                System.err.println("❌ Erreur écriture journal de caisse: " + e.getMessage());
+                for (PendingRecord record : batch) {
+                    record.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    // ========== Récupération ==========
+
+    /**
+     * Valider le journal existant et tronquer un éventuel enregistrement incomplet
+     * laissé par un arrêt brutal
+     */
+    private long recover() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length < 0 || length > MAX_RECORD_SIZE || position + HEADER_SIZE + length > size) {
+                break;
+            }
+            ByteBuffer data = ByteBuffer.allocate(length);
+            readFully(channel, data, position + HEADER_SIZE);
+            if (crc(data.array()) != checksum) {
+                break;
+            }
+            position += HEADER_SIZE + length;
+        }
+
+        if (position < size) {
+            System.err.println("⚠️ Journal de caisse tronqué à " + position + " octets (fin corrompue)");
+            channel.truncate(position);
+            channel.force(true);
+        }
+        return position;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Fin de fichier inattendue");
+            }
+        }
+    }
+
+    private static int crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static final class PendingRecord {
+        final byte[] payload;
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        PendingRecord(byte[] payload) {
+            this.payload = payload;
+        }
+    }
+}
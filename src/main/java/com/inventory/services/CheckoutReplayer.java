@@ -0,0 +1,221 @@
+package com.inventory.services;
+
+import com.inventory.dao.SaleDAO;
+import com.inventory.models.Sale;
+import com.inventory.utils.DatabaseConnection;
+import com.inventory.utils.LocalStorage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rejoue en arrière-plan les ventes du journal de caisse vers la base de données.
+ *
+ * La position rejouée est sauvegardée dans un fichier de point de reprise.
+ * Les doublons sont ignorés grâce au numéro de vente (clé unique), ce qui rend
+ * le rejeu idempotent après un arrêt brutal.
+ */
+public class CheckoutReplayer implements Runnable {
+
+    private static final long MIN_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 60_000;
+    private static final int MAX_ATTEMPTS_WHEN_ONLINE = 5;
+
+    private final CheckoutJournal journal;
+    private final Path checkpointFile;
+    private final Path rejectedFile;
+    private final SaleDAO saleDAO = new SaleDAO();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeUp = lock.newCondition();
+    private boolean signalled;
+    private volatile boolean running = true;
+
+    // Écrit par le thread de rejeu, lu par getPendingBytes() depuis d'autres threads
+    private volatile long replayedOffset;
+    private int failedAttempts;
+
+    public CheckoutReplayer(CheckoutJournal journal, Path directory) throws IOException {
+        this.journal = journal;
+        this.checkpointFile = directory.resolve("checkout.offset");
+        this.rejectedFile = directory.resolve("checkout.rejected");
+        this.replayedOffset = readCheckpoint();
+        if (replayedOffset > journal.getCommittedSize()) {
+            // Journal vidé sans que le point de reprise ait été mis à jour: tout rejouer
+            replayedOffset = 0;
+        }
+    }
+
+    /**
+     * Signaler qu'une nouvelle vente est disponible dans le journal
+     */
+    public void signal() {
+        lock.lock();
+        try {
+            signalled = true;
+            wakeUp.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Arrêter le rejeu
+     */
+    public void stop() {
+        running = false;
+        signal();
+    }
+
+    /**
+     * Nombre d'octets du journal encore à rejouer
+     */
+    public long getPendingBytes() {
+        return Math.max(0, journal.getCommittedSize() - replayedOffset);
+    }
+
+    @Override
+    public void run() {
+        long backoff = MIN_BACKOFF_MS;
+        while (running) {
+            boolean caughtUp = replayPending();
+            if (caughtUp) {
+                backoff = MIN_BACKOFF_MS;
+                compactIfPossible();
+                await(MAX_BACKOFF_MS);
+            } else {
+                await(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    /**
+     * Rejouer les ventes en attente; retourne false si la base est indisponible
+     */
+    private boolean replayPending() {
+        if (replayedOffset >= journal.getCommittedSize()) {
+            return true;
+        }
+        try {
+            journal.readFrom(replayedOffset, (payload, endOffset) -> {
+                if (!running || !push(payload)) {
+                    throw new ReplayInterrupted();
+                }
+                replayedOffset = endOffset;
+                writeCheckpoint(replayedOffset);
+            });
+            return true;
+        } catch (ReplayInterrupted e) {
+            return false;
+        } catch (IOException e) {
+            System.err.println("❌ Erreur lecture journal de caisse: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Envoyer une vente à la base; true si elle y est désormais présente
+     * (ou a été définitivement écartée)
+     */
+    private boolean push(byte[] payload) {
+        Sale sale;
+        try {
+            sale = SaleCodec.decode(payload);
+        } catch (RuntimeException e) {
+            reject(payload, "décodage impossible: " + e.getMessage());
+            return true;
+        }
+
+        try {
+            if (saleDAO.existsBySaleNumber(sale.getSaleNumber())) {
+                failedAttempts = 0;
+                return true;
+            }
+            if (saleDAO.create(sale)) {
+                failedAttempts = 0;
+                System.out.println("✅ Vente " + sale.getSaleNumber() + " synchronisée avec la base");
+                SaleEventBus.getInstance().publishCompleted(sale);
+                return true;
+            }
+        } catch (RuntimeException e) {
+            System.err.println("❌ Erreur synchronisation vente: " + e.getMessage());
+        }
+
+        // Base joignable mais vente refusée plusieurs fois: l'écarter pour ne pas bloquer la file
+        if (DatabaseConnection.testConnection() && ++failedAttempts >= MAX_ATTEMPTS_WHEN_ONLINE) {
+            failedAttempts = 0;
+            reject(payload, "refusée par la base (" + sale.getSaleNumber() + ")");
+            return true;
+        }
+        return false;
+    }
+
+    private void reject(byte[] payload, String reason) {
+        System.err.println("⚠️ Vente écartée du journal: " + reason);
+        ByteBuffer record = ByteBuffer.allocate(4 + payload.length);
+        record.putInt(payload.length).put(payload);
+        try {
+            Files.write(rejectedFile, record.array(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("❌ Erreur écriture ventes écartées: " + e.getMessage());
+        }
+    }
+
+    private void compactIfPossible() {
+        try {
+            // Le point de reprise est remis à zéro avant la troncature: en cas d'arrêt
+            // entre les deux, le rejeu recommence depuis le début et les doublons sont ignorés
+            if (replayedOffset > 0 && journal.truncateIfFullyReplayed(replayedOffset, () -> writeCheckpoint(0))) {
+                replayedOffset = 0;
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Compactage du journal impossible: " + e.getMessage());
+        }
+    }
+
+    private void await(long timeoutMs) {
+        lock.lock();
+        try {
+            if (!signalled && running) {
+                wakeUp.await(timeoutMs, TimeUnit.MILLISECONDS);
+            }
+            signalled = false;
+        } catch (InterruptedException e) {
+            running = false;
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        byte[] data = Files.readAllBytes(checkpointFile);
+        return data.length == Long.BYTES ? ByteBuffer.wrap(data).getLong() : 0;
+    }
+
+    private void writeCheckpoint(long offset) {
+        try {
+            LocalStorage.writeAtomically(checkpointFile, ByteBuffer.allocate(Long.BYTES).putLong(offset).array());
+        } catch (IOException e) {
+            System.err.println("⚠️ Erreur sauvegarde point de reprise: " + e.getMessage());
+        }
+    }
+
+    private static final class ReplayInterrupted extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ReplayInterrupted() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.inventory.services;
+
+import com.inventory.models.Sale;
+import com.inventory.utils.LocalStorage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service d'encaissement: les ventes validées sont d'abord écrites dans le
+ * journal local, puis synchronisées avec la base par le rejeu en arrière-plan.
+ * La latence d'encaissement ne dépend donc pas de la disponibilité de MySQL.
+ */
+public final class CheckoutService {
+
+    private static CheckoutService instance;
+
+    private final CheckoutJournal journal;
+    private final CheckoutReplayer replayer;
+    private final Thread replayerThread;
+
+    private CheckoutService(Path directory) throws IOException {
+        this.journal = new CheckoutJournal(directory.resolve("checkout.journal"));
+        this.replayer = new CheckoutReplayer(journal, directory);
+        this.replayerThread = new Thread(replayer, "checkout-replayer");
+        this.replayerThread.setDaemon(true);
+    }
+
+    /**
+     * Démarrer le service (ouverture du journal et lancement du rejeu)
+     */
+    public static synchronized void start() {
+        if (instance != null)
+            return;
+        try {
+            instance = new CheckoutService(LocalStorage.directory("journal"));
+            instance.replayerThread.start();
+            System.out.println("🧾 Journal de caisse ouvert");
+        } catch (IOException e) {
+            System.err.println("❌ Impossible d'ouvrir le journal de caisse: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Arrêter le service en vidant les écritures en attente
+     */
+    public static synchronized void shutdown() {
+        if (instance == null)
+            return;
+        instance.replayer.stop();
+        instance.journal.close();
+        instance = null;
+    }
+
+    /**
+     * Obtenir le service démarré
+     */
+    public static synchronized CheckoutService getInstance() {
+        if (instance == null) {
+            start();
+        }
+        return instance;
+    }
+
+    /**
+     * Enregistrer une vente validée; le futur est complété dès que la vente
+     * est durablement écrite dans le journal local
+     */
+    public CompletableFuture<Void> checkout(Sale sale) {
+        if (sale.getCreatedAt() == null) {
+            sale.setCreatedAt(LocalDateTime.now());
+        }
+        return journal.append(SaleCodec.encode(sale))
+                .thenRun(replayer::signal);
+    }
+
+    /**
+     * Vérifier s'il reste des ventes à synchroniser avec la base
+     */
+    public boolean hasPendingSales() {
+        return replayer.getPendingBytes() > 0;
+    }
+}
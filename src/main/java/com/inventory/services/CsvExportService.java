@@ -0,0 +1,225 @@
+package com.inventory.services;
+
+import com.inventory.dao.ExportDAO;
+import com.inventory.models.ReportPeriod;
+import com.inventory.utils.LocalStorage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export CSV en flux (stock faible, inventaire complet, lignes de vente d'une période).
+ *
+ * Chaque ligne lue en base est écrite aussitôt dans le fichier: la mémoire
+ * utilisée ne dépend pas du nombre de lignes. Le fichier est en UTF-8 (avec
+ * BOM pour Excel), au format RFC 4180, compressé en gzip si son nom se termine
+ * par ".gz". Il est écrit dans un fichier temporaire puis renommé: un export
+ * annulé ou en échec ne laisse pas de fichier partiel.
+ */
+public final class CsvExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 1_000;
+    private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+    private interface Source {
+        long count() throws SQLException;
+
+        void stream(ExportDAO.RowVisitor visitor) throws SQLException, IOException;
+    }
+
+    private static CsvExportService instance;
+
+    private final ExportDAO exportDAO = new ExportDAO();
+    private final ExecutorService executor;
+
+    private CsvExportService() {
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "csv-export");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    public static synchronized CsvExportService getInstance() {
+        if (instance == null) {
+            instance = new CsvExportService();
+        }
+        return instance;
+    }
+
+    /**
+     * Arrêter le thread d'export (l'export en cours est abandonné)
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.executor.shutdownNow();
+            instance = null;
+        }
+    }
+
+    public ExportJob exportLowStock(Path target, ExportJob.ProgressListener listener) {
+        return submit(new Source() {
+            @Override
+            public long count() throws SQLException {
+                return exportDAO.countLowStock();
+            }
+
+            @Override
+            public void stream(ExportDAO.RowVisitor visitor) throws SQLException, IOException {
+                exportDAO.streamLowStock(visitor);
+            }
+        }, target, listener);
+    }
+
+    public ExportJob exportProducts(Path target, ExportJob.ProgressListener listener) {
+        return submit(new Source() {
+            @Override
+            public long count() throws SQLException {
+                return exportDAO.countProducts();
+            }
+
+            @Override
+            public void stream(ExportDAO.RowVisitor visitor) throws SQLException, IOException {
+                exportDAO.streamProducts(visitor);
+            }
+        }, target, listener);
+    }
+
+    public ExportJob exportSaleItems(ReportPeriod period, Path target, ExportJob.ProgressListener listener) {
+        return submit(new Source() {
+            @Override
+            public long count() throws SQLException {
+                return exportDAO.countSaleItems(period);
+            }
+
+            @Override
+            public void stream(ExportDAO.RowVisitor visitor) throws SQLException, IOException {
+                exportDAO.streamSaleItems(period, visitor);
+            }
+        }, target, listener);
+    }
+
+    private ExportJob submit(Source source, Path target, ExportJob.ProgressListener listener) {
+        ExportJob job = new ExportJob();
+        executor.execute(() -> {
+            try {
+                job.getResult().complete(write(source, target, listener, job));
+            } catch (IOException | SQLException | RuntimeException e) {
+                job.getResult().completeExceptionally(e);
+            }
+        });
+        return job;
+    }
+
+    private long write(Source source, Path target, ExportJob.ProgressListener listener, ExportJob job)
+            throws SQLException, IOException {
+        long total = source.count();
+        listener.progress(0, total);
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".part");
+        long[] rows = { 0 };
+        boolean done = false;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            if (target.getFileName().toString().endsWith(".gz")) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            }
+            out.write(UTF8_BOM);
+
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+                    BUFFER_SIZE)) {
+                source.stream(new ExportDAO.RowVisitor() {
+                    @Override
+                    public void columns(ResultSetMetaData metaData) throws SQLException, IOException {
+                        writeHeader(writer, metaData);
+                    }
+
+                    @Override
+                    public void visit(ResultSet rs) throws SQLException, IOException {
+                        job.checkCancelled();
+                        writeRow(writer, rs);
+                        if (++rows[0] % PROGRESS_INTERVAL == 0) {
+                            listener.progress(rows[0], Math.max(total, rows[0]));
+                        }
+                    }
+                });
+            }
+            done = true;
+        } finally {
+            if (!done) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        LocalStorage.moveAtomically(tmp, target);
+        listener.progress(rows[0], rows[0]);
+        return rows[0];
+    }
+
+    private static void writeHeader(Writer writer, ResultSetMetaData metaData) throws SQLException, IOException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (i > 1) {
+                writer.write(',');
+            }
+            writeField(writer, metaData.getColumnLabel(i));
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeRow(Writer writer, ResultSet rs) throws SQLException, IOException {
+        int columns = rs.getMetaData().getColumnCount();
+        for (int i = 1; i <= columns; i++) {
+            if (i > 1) {
+                writer.write(',');
+            }
+            writeField(writer, rs.getString(i));
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Écrire un champ, entre guillemets s'il contient une virgule, un guillemet ou un saut de ligne
+     */
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null)
+            return;
+
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,49 @@
+package com.inventory.services;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Export en cours (CSV, PDF...), annulable et suivi par son avancement
+ */
+public final class ExportJob {
+
+    /**
+     * Avancement d'un export (appelé sur le thread d'export)
+     */
+    public interface ProgressListener {
+        void progress(long done, long total);
+    }
+
+    private final CompletableFuture<Long> result = new CompletableFuture<>();
+    private volatile boolean cancelled;
+
+    ExportJob() {
+    }
+
+    /**
+     * Demander l'arrêt de l'export (pris en compte à la ligne suivante)
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Quantité exportée (lignes, pages...); échoue avec une CancellationException si l'export est annulé
+     */
+    public CompletableFuture<Long> getResult() {
+        return result;
+    }
+
+    /**
+     * Interrompre le travail en cours si l'export a été annulé
+     */
+    void checkCancelled() {
+        if (cancelled || Thread.currentThread().isInterrupted())
+            throw new CancellationException("Export annulé");
+    }
+}
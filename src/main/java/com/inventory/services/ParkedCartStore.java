@@ -0,0 +1,174 @@
+package com.inventory.services;
+
+import com.inventory.models.Sale;
+import com.inventory.utils.LocalStorage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Paniers mis en attente sur la caisse.
+ *
+ * Les ventes en attente restent en mémoire (reprise immédiate) et sont
+ * recopiées en arrière-plan dans un fichier local compact, ce qui leur permet
+ * de survivre à un redémarrage sans aucune écriture en base avant l'encaissement.
+ */
+public final class ParkedCartStore {
+
+    private static final int MAGIC = 0x50524B31; // "PRK1"
+    private static final String FILE_NAME = "parked-carts.bin";
+
+    private static ParkedCartStore instance;
+
+    private final Path file;
+    private final List<Sale> parked = new ArrayList<>();
+    private final ExecutorService writer;
+
+    // Dernier instantané à écrire (les écritures intermédiaires sont fusionnées)
+    private final AtomicReference<byte[]> pendingSnapshot = new AtomicReference<>();
+
+    private ParkedCartStore(Path file) {
+        this.file = file;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "parked-carts-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        load();
+    }
+
+    /**
+     * Obtenir le magasin (chargé depuis le disque au premier appel)
+     */
+    public static synchronized ParkedCartStore getInstance() {
+        if (instance == null) {
+            instance = new ParkedCartStore(LocalStorage.file(FILE_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * Terminer les écritures en cours
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.writer.shutdown();
+            try {
+                instance.writer.awaitTermination(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            instance = null;
+        }
+    }
+
+    /**
+     * Ventes en attente, de la plus ancienne à la plus récente
+     */
+    public synchronized List<Sale> getParked() {
+        return Collections.unmodifiableList(new ArrayList<>(parked));
+    }
+
+    public synchronized int size() {
+        return parked.size();
+    }
+
+    /**
+     * Mettre une vente en attente
+     */
+    public synchronized void park(Sale sale) {
+        parked.add(sale);
+        scheduleSave();
+    }
+
+    /**
+     * Reprendre une vente en attente (retirée de la liste), ou null si inconnue
+     */
+    public synchronized Sale resume(String saleNumber) {
+        Iterator<Sale> iterator = parked.iterator();
+        while (iterator.hasNext()) {
+            Sale sale = iterator.next();
+            if (sale.getSaleNumber().equals(saleNumber)) {
+                iterator.remove();
+                scheduleSave();
+                return sale;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Abandonner une vente en attente
+     */
+    public synchronized boolean discard(String saleNumber) {
+        return resume(saleNumber) != null;
+    }
+
+    private void scheduleSave() {
+        // Encodé sur le thread appelant: les ventes pourront être modifiées après reprise
+        byte[] snapshot = encode(parked);
+        if (pendingSnapshot.getAndSet(snapshot) == null) {
+            writer.execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        byte[] snapshot = pendingSnapshot.getAndSet(null);
+        if (snapshot == null)
+            return;
+        try {
+            LocalStorage.writeAtomically(file, snapshot);
+        } catch (IOException e) {
+            System.err.println("❌ Erreur sauvegarde paniers en attente: " + e.getMessage());
+        }
+    }
+
+    private static byte[] encode(List<Sale> sales) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * Math.max(1, sales.size()));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(sales.size());
+            for (Sale sale : sales) {
+                SaleCodec.write(out, sale);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void load() {
+        if (!Files.exists(file))
+            return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                System.err.println("⚠️ Fichier des paniers en attente non reconnu: " + file);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                parked.add(SaleCodec.read(in));
+            }
+            if (count > 0) {
+                System.out.println("🛒 Paniers en attente restaurés: " + count);
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Erreur lecture paniers en attente: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.inventory.services;
+
+import com.inventory.dao.ExportDAO;
+import com.inventory.models.ReportEntry;
+import com.inventory.models.ReportPeriod;
+import com.inventory.models.ReportSummary;
+import com.inventory.utils.LocalStorage;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.events.Event;
+import com.itextpdf.kernel.events.IEventHandler;
+import com.itextpdf.kernel.events.PdfDocumentEvent;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Image;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.text.NumberFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Génération du rapport PDF de l'écran des rapports (indicateurs, graphiques,
+ * meilleurs produits, stock faible et inventaire) sur un thread dédié.
+ *
+ * Le document est écrit en flux: chaque page terminée est écrite sur disque
+ * puis libérée, et les tableaux de stock sont lus en base ligne à ligne et
+ * ajoutés par blocs de {@link #TABLE_CHUNK} lignes. La mémoire utilisée ne
+ * dépend donc pas du nombre de produits.
+ */
+public final class PdfReportService {
+
+    private static final int TABLE_CHUNK = 100;
+    private static final int PROGRESS_INTERVAL = 500;
+    private static final float MARGIN = 36;
+    private static final float TITLE_SIZE = 18;
+    private static final float SECTION_SIZE = 13;
+    private static final float TEXT_SIZE = 9;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    /**
+     * Graphique rendu en image (pixels RGB, 3 octets par pixel, ligne par ligne)
+     */
+    public static final class ChartImage {
+        private final String title;
+        private final int width;
+        private final int height;
+        private final byte[] rgb;
+
+        public ChartImage(String title, int width, int height, byte[] rgb) {
+            this.title = title;
+            this.width = width;
+            this.height = height;
+            this.rgb = rgb;
+        }
+    }
+
+    /**
+     * Contenu de l'écran des rapports au moment de l'export
+     */
+    public static final class Content {
+        private final ReportPeriod period;
+        private final ReportSummary summary;
+        private final List<ReportEntry> topProducts;
+        private final List<ChartImage> charts;
+
+        public Content(ReportPeriod period, ReportSummary summary, List<ReportEntry> topProducts,
+                List<ChartImage> charts) {
+            this.period = period;
+            this.summary = summary;
+            this.topProducts = topProducts;
+            this.charts = charts;
+        }
+    }
+
+    private static PdfReportService instance;
+
+    private final ExportDAO exportDAO = new ExportDAO();
+    private final ExecutorService executor;
+
+    private PdfReportService() {
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "pdf-report");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    public static synchronized PdfReportService getInstance() {
+        if (instance == null) {
+            instance = new PdfReportService();
+        }
+        return instance;
+    }
+
+    /**
+     * Arrêter le thread de génération (le rapport en cours est abandonné)
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.executor.shutdownNow();
+            instance = null;
+        }
+    }
+
+    /**
+     * Générer le rapport en arrière-plan. Le résultat est le nombre de pages;
+     * l'avancement compte les lignes des tableaux de stock.
+     */
+    public ExportJob generate(Content content, Path target, ExportJob.ProgressListener listener) {
+        ExportJob job = new ExportJob();
+        executor.execute(() -> {
+            try {
+                job.getResult().complete(write(content, target, listener, job));
+            } catch (IOException | SQLException | RuntimeException e) {
+                job.getResult().completeExceptionally(e);
+            }
+        });
+        return job;
+    }
+
+    private long write(Content content, Path target, ExportJob.ProgressListener listener, ExportJob job)
+            throws SQLException, IOException {
+        long total = exportDAO.countLowStock() + exportDAO.countProducts();
+        long[] rows = { 0 };
+        listener.progress(0, total);
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".part");
+        long pages;
+        boolean done = false;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+            PdfDocument pdf = new PdfDocument(new PdfWriter(out));
+            PdfFont regular = PdfFontFactory.createFont(StandardFonts.HELVETICA, PdfEncodings.WINANSI);
+            PdfFont bold = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD, PdfEncodings.WINANSI);
+            pdf.addEventHandler(PdfDocumentEvent.END_PAGE, new PageFooter(regular));
+
+            // immediateFlush: les pages terminées sont écrites et libérées au fil de l'eau
+            try (Document document = new Document(pdf, PageSize.A4, true)) {
+                document.setMargins(MARGIN, MARGIN, MARGIN + 12, MARGIN);
+                document.setFont(regular).setFontSize(TEXT_SIZE);
+
+                writeHeader(document, bold, content.period);
+                writeSummary(document, bold, content.summary);
+                for (ChartImage chart : content.charts) {
+                    writeChart(document, bold, chart);
+                }
+                writeTopProducts(document, bold, content.topProducts);
+
+                Runnable rowWritten = () -> {
+                    if (++rows[0] % PROGRESS_INTERVAL == 0) {
+                        listener.progress(rows[0], Math.max(total, rows[0]));
+                    }
+                };
+                section(document, bold, "Produits en stock faible");
+                TableWriter lowStock = new TableWriter(document, bold, job, rowWritten);
+                exportDAO.streamLowStock(lowStock);
+                lowStock.complete();
+
+                section(document, bold, "Inventaire");
+                TableWriter inventory = new TableWriter(document, bold, job, rowWritten);
+                exportDAO.streamProducts(inventory);
+                inventory.complete();
+
+                pages = pdf.getNumberOfPages();
+            }
+            done = true;
+        } finally {
+            if (!done) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        LocalStorage.moveAtomically(tmp, target);
+        listener.progress(rows[0], rows[0]);
+        return pages;
+    }
+
+    // ========== Sections ==========
+
+    private void writeHeader(Document document, PdfFont bold, ReportPeriod period) {
+        document.add(new Paragraph("Rapport des ventes et du stock").setFont(bold).setFontSize(TITLE_SIZE));
+        document.add(new Paragraph("Période du " + period.getFrom().format(DATE_FORMAT) + " au "
+                + period.getTo().format(DATE_FORMAT) + " — édité le "
+                + LocalDateTime.now().format(DATE_TIME_FORMAT)));
+    }
+
+    private void writeSummary(Document document, PdfFont bold, ReportSummary summary) {
+        NumberFormat format = NumberFormat.getInstance(Locale.FRANCE);
+        Table table = new Table(UnitValue.createPercentArray(4)).useAllAvailableWidth();
+        String[][] kpis = {
+                { "Chiffre d'affaires", format.format(summary.getRevenue()) + " FCFA" },
+                { "Ventes", String.valueOf(summary.getSaleCount()) },
+                { "Produits vendus", String.valueOf(summary.getUnitsSold()) },
+                { "Panier moyen", format.format(summary.getAverageBasket()) + " FCFA" }
+        };
+        for (String[] kpi : kpis) {
+            table.addCell(new Cell().add(new Paragraph(kpi[0]))
+                    .add(new Paragraph(kpi[1]).setFont(bold).setFontSize(SECTION_SIZE)));
+        }
+        section(document, bold, "Synthèse");
+        document.add(table);
+    }
+
+    private void writeChart(Document document, PdfFont bold, ChartImage chart) {
+        section(document, bold, chart.title);
+        Image image = new Image(ImageDataFactory.create(chart.width, chart.height, 3, 8, chart.rgb, null));
+        document.add(image.setAutoScaleWidth(true));
+    }
+
+    private void writeTopProducts(Document document, PdfFont bold, List<ReportEntry> topProducts) {
+        section(document, bold, "Meilleurs produits");
+        NumberFormat format = NumberFormat.getInstance(Locale.FRANCE);
+        Table table = new Table(UnitValue.createPercentArray(new float[] { 1, 6, 2, 3 })).useAllAvailableWidth();
+        for (String header : new String[] { "#", "Produit", "Vendus", "Montant (FCFA)" }) {
+            table.addHeaderCell(new Cell().add(new Paragraph(header).setFont(bold)));
+        }
+        int rank = 1;
+        for (ReportEntry entry : topProducts) {
+            table.addCell(String.valueOf(rank++));
+            table.addCell(entry.getLabel());
+            table.addCell(new Cell().add(new Paragraph(String.valueOf(entry.getQuantity())))
+                    .setTextAlignment(TextAlignment.RIGHT));
+            table.addCell(new Cell().add(new Paragraph(format.format(entry.getAmount())))
+                    .setTextAlignment(TextAlignment.RIGHT));
+        }
+        document.add(table);
+    }
+
+    private static void section(Document document, PdfFont bold, String title) {
+        document.add(new Paragraph(title).setFont(bold).setFontSize(SECTION_SIZE).setMarginTop(12));
+    }
+
+    /**
+     * Tableau alimenté ligne à ligne par la base: déclaré « grand tableau »,
+     * il est ajouté au document avant d'être rempli et vidé tous les TABLE_CHUNK lignes
+     */
+    private static final class TableWriter implements ExportDAO.RowVisitor {
+        private final Document document;
+        private final PdfFont bold;
+        private final ExportJob job;
+        private final Runnable rowWritten;
+        private Table table;
+        private int columns;
+        private int pendingRows;
+
+        TableWriter(Document document, PdfFont bold, ExportJob job, Runnable rowWritten) {
+            this.document = document;
+            this.bold = bold;
+            this.job = job;
+            this.rowWritten = rowWritten;
+        }
+
+        @Override
+        public void columns(ResultSetMetaData metaData) throws SQLException {
+            columns = metaData.getColumnCount();
+            table = new Table(UnitValue.createPercentArray(columns), true).useAllAvailableWidth();
+            table.setFontSize(TEXT_SIZE - 1);
+            for (int i = 1; i <= columns; i++) {
+                table.addHeaderCell(new Cell().add(new Paragraph(metaData.getColumnLabel(i)).setFont(bold)));
+            }
+            document.add(table);
+        }
+
+        @Override
+        public void visit(ResultSet rs) throws SQLException {
+            job.checkCancelled();
+            for (int i = 1; i <= columns; i++) {
+                String value = rs.getString(i);
+                table.addCell(value != null ? value : "");
+            }
+            rowWritten.run();
+            if (++pendingRows == TABLE_CHUNK) {
+                table.flush();
+                pendingRows = 0;
+            }
+        }
+
+        /**
+         * Terminer le tableau (appelé après la dernière ligne)
+         */
+        void complete() {
+            table.complete();
+        }
+    }
+
+    /**
+     * Numéro de page en pied de page (le total n'est pas connu pendant l'écriture en flux)
+     */
+    private static final class PageFooter implements IEventHandler {
+        private final PdfFont font;
+
+        PageFooter(PdfFont font) {
+            this.font = font;
+        }
+
+        @Override
+        public void handleEvent(Event event) {
+            PdfDocumentEvent documentEvent = (PdfDocumentEvent) event;
+            PdfDocument pdf = documentEvent.getDocument();
+            PdfPage page = documentEvent.getPage();
+            Rectangle size = page.getPageSize();
+            PdfCanvas canvas = new PdfCanvas(page.newContentStreamBefore(), page.getResources(), pdf);
+            canvas.beginText()
+                    .setFontAndSize(font, 8)
+                    .moveText(size.getWidth() / 2 - 15, MARGIN / 2)
+                    .showText("Page " + pdf.getPageNumber(page))
+                    .endText()
+                    .release();
+        }
+    }
+}
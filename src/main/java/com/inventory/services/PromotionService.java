@@ -0,0 +1,243 @@
+package com.inventory.services;
+
+import com.inventory.dao.PromotionDAO;
+import com.inventory.models.Promotion;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Promotions actives indexées en mémoire par produit.
+ *
+ * Pour chaque produit, les intervalles de promotion sont découpés en segments
+ * disjoints portant la meilleure remise applicable; la remise d'une ligne de
+ * panier se résout par une recherche dichotomique, sans requête à la base.
+ * L'index est reconstruit en arrière-plan lorsque les promotions changent.
+ */
+public final class PromotionService {
+
+    private static final long CHANGE_CHECK_MINUTES = 5;
+    private static final BigDecimal MAX_DISCOUNT = BigDecimal.valueOf(100);
+
+    private static PromotionService instance;
+
+    private final PromotionDAO promotionDAO = new PromotionDAO();
+    private final ScheduledExecutorService executor;
+
+    // Instantané immuable remplacé d'un bloc à chaque rechargement
+    private volatile Map<Integer, IntervalIndex> index = Collections.emptyMap();
+    private volatile String loadedVersion;
+
+    private PromotionService() {
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "promotion-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Obtenir le service (le premier appel lance le chargement de l'index)
+     */
+    public static synchronized PromotionService getInstance() {
+        if (instance == null) {
+            instance = new PromotionService();
+            instance.refreshAsync();
+            instance.executor.scheduleWithFixedDelay(instance::refreshIfChanged,
+                    CHANGE_CHECK_MINUTES, CHANGE_CHECK_MINUTES, TimeUnit.MINUTES);
+        }
+        return instance;
+    }
+
+    /**
+     * Arrêter le rafraîchissement périodique
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.executor.shutdownNow();
+            instance = null;
+        }
+    }
+
+    /**
+     * Demander la reconstruction de l'index (après une modification des promotions)
+     */
+    public void refreshAsync() {
+        executor.execute(this::refresh);
+    }
+
+    /**
+     * Créer une promotion puis reconstruire l'index
+     *
+     * @throws IllegalArgumentException si la remise ou les dates sont invalides
+     */
+    public boolean create(Promotion promotion) {
+        validate(promotion);
+        boolean created = promotionDAO.create(promotion);
+        if (created) {
+            refreshAsync();
+        }
+        return created;
+    }
+
+    /**
+     * Mettre à jour une promotion puis reconstruire l'index
+     *
+     * @throws IllegalArgumentException si la remise ou les dates sont invalides
+     */
+    public boolean update(Promotion promotion) {
+        validate(promotion);
+        boolean updated = promotionDAO.update(promotion);
+        if (updated) {
+            refreshAsync();
+        }
+        return updated;
+    }
+
+    /**
+     * Supprimer une promotion puis reconstruire l'index
+     */
+    public boolean delete(int id) {
+        boolean deleted = promotionDAO.delete(id);
+        if (deleted) {
+            refreshAsync();
+        }
+        return deleted;
+    }
+
+    /**
+     * Vérifier qu'une promotion est applicable: remise entre 0 et 100 %, période non vide
+     */
+    public static void validate(Promotion promotion) {
+        if (!isValidDiscount(promotion.getDiscountPercentage())) {
+            throw new IllegalArgumentException("Remise invalide (0-100 %): " + promotion.getDiscountPercentage());
+        }
+        if (promotion.getStartDate() == null || promotion.getEndDate() == null
+                || promotion.getStartDate().isAfter(promotion.getEndDate())) {
+            throw new IllegalArgumentException("Période de promotion invalide: " + promotion.getStartDate()
+                    + " > " + promotion.getEndDate());
+        }
+    }
+
+    private static boolean isValidDiscount(BigDecimal discount) {
+        return discount != null && discount.signum() >= 0 && discount.compareTo(MAX_DISCOUNT) <= 0;
+    }
+
+    /**
+     * Meilleure remise (en %) applicable à un produit à une date donnée
+     */
+    public BigDecimal discountFor(int productId, LocalDate date) {
+        IntervalIndex productIndex = index.get(productId);
+        if (productIndex == null)
+            return BigDecimal.ZERO;
+        return productIndex.bestAt(date.toEpochDay());
+    }
+
+    /**
+     * Meilleure remise (en %) applicable aujourd'hui
+     */
+    public BigDecimal discountFor(int productId) {
+        return discountFor(productId, LocalDate.now());
+    }
+
+    /**
+     * Nombre de produits ayant au moins une promotion en cours ou à venir
+     */
+    public int getPromotedProductCount() {
+        return index.size();
+    }
+
+    private void refreshIfChanged() {
+        String version = promotionDAO.fetchVersion();
+        if (version != null && !version.equals(loadedVersion)) {
+            refresh();
+        }
+    }
+
+    private void refresh() {
+        try {
+            String version = promotionDAO.fetchVersion();
+            if (version == null) {
+                // Base indisponible: conserver l'index courant
+                return;
+            }
+            List<Promotion> promotions = promotionDAO.findCurrentAndUpcoming();
+
+            Map<Integer, List<Promotion>> byProduct = new HashMap<>();
+            for (Promotion promotion : promotions) {
+                // Une remise hors limites saisie directement en base donnerait un prix négatif
+                if (!isValidDiscount(promotion.getDiscountPercentage())) {
+                    System.err.println("⚠️ Promotion " + promotion.getId() + " ignorée, remise invalide: "
+                            + promotion.getDiscountPercentage());
+                    continue;
+                }
+                byProduct.computeIfAbsent(promotion.getProductId(), k -> new ArrayList<>()).add(promotion);
+            }
+
+            Map<Integer, IntervalIndex> rebuilt = new HashMap<>(byProduct.size() * 2);
+            byProduct.forEach((productId, list) -> rebuilt.put(productId, IntervalIndex.build(list)));
+
+            index = Collections.unmodifiableMap(rebuilt);
+            loadedVersion = version;
+            System.out.println("🏷️ Promotions chargées: " + promotions.size() + " sur " + rebuilt.size() + " produits");
+        } catch (RuntimeException e) {
+            System.err.println("❌ Erreur chargement promotions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Segments disjoints [début, début suivant) en jours epoch, avec la meilleure remise de chacun
+     */
+    static final class IntervalIndex {
+        private final long[] boundaries;
+        private final BigDecimal[] discounts;
+
+        private IntervalIndex(long[] boundaries, BigDecimal[] discounts) {
+            this.boundaries = boundaries;
+            this.discounts = discounts;
+        }
+
+        static IntervalIndex build(List<Promotion> promotions) {
+            TreeSet<Long> points = new TreeSet<>();
+            for (Promotion promotion : promotions) {
+                points.add(promotion.getStartDate().toEpochDay());
+                points.add(promotion.getEndDate().toEpochDay() + 1);
+            }
+
+            long[] boundaries = points.stream().mapToLong(Long::longValue).toArray();
+            BigDecimal[] discounts = new BigDecimal[boundaries.length];
+            for (int i = 0; i < boundaries.length; i++) {
+                long day = boundaries[i];
+                BigDecimal best = BigDecimal.ZERO;
+                for (Promotion promotion : promotions) {
+                    if (promotion.getStartDate().toEpochDay() <= day
+                            && day <= promotion.getEndDate().toEpochDay()
+                            && promotion.getDiscountPercentage().compareTo(best) > 0) {
+                        best = promotion.getDiscountPercentage();
+                    }
+                }
+                discounts[i] = best;
+            }
+            return new IntervalIndex(boundaries, discounts);
+        }
+
+        BigDecimal bestAt(long epochDay) {
+            int position = Arrays.binarySearch(boundaries, epochDay);
+            int segment = position >= 0 ? position : -position - 2;
+            if (segment < 0)
+                return BigDecimal.ZERO;
+            return Objects.requireNonNullElse(discounts[segment], BigDecimal.ZERO);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.inventory.services;
+
+import com.inventory.models.Sale;
+import com.inventory.utils.LocalStorage;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Génération des reçus de caisse (PDF et texte ESC/POS) sur un thread dédié.
+ *
+ * Les polices et le modèle de mise en page sont chargés une seule fois, au
+ * démarrage et hors du thread JavaFX; chaque reçu ne fait que poser ses
+ * lignes, ce qui n'ajoute aucun délai perceptible à la vente suivante. Si le
+ * chargement échoue, les ventes continuent sans reçu.
+ */
+public final class ReceiptService {
+
+    private static final float MM = 72f / 25.4f;
+    private static final float PAGE_WIDTH = 80 * MM;
+    private static final float MARGIN = 4 * MM;
+    private static final float FONT_SIZE = 8.5f;
+    private static final float LINE_HEIGHT = 11f;
+
+    // Commandes ESC/POS
+    private static final byte[] ESC_INIT = { 0x1B, 0x40 };
+    private static final byte[] ESC_CODEPAGE_PC850 = { 0x1B, 0x74, 0x02 };
+    private static final byte[] ESC_BOLD_ON = { 0x1B, 0x45, 0x01 };
+    private static final byte[] ESC_BOLD_OFF = { 0x1B, 0x45, 0x00 };
+    private static final byte[] ESC_ALIGN_LEFT = { 0x1B, 0x61, 0x00 };
+    private static final byte[] ESC_ALIGN_CENTER = { 0x1B, 0x61, 0x01 };
+    private static final byte[] ESC_FEED_AND_CUT = { 0x1D, 0x56, 0x42, 0x03 };
+    private static final Charset PC850 = Charset.forName("IBM850");
+
+    private static CompletableFuture<ReceiptService> ready;
+
+    private final ReceiptTemplate template;
+    private final FontProgram regularFont;
+    private final FontProgram boldFont;
+    private final ExecutorService executor;
+    private final Path outputDirectory;
+
+    private ReceiptService() throws IOException {
+        this.template = ReceiptTemplate.load();
+        this.regularFont = FontProgramFactory.createFont(StandardFonts.COURIER);
+        this.boldFont = FontProgramFactory.createFont(StandardFonts.COURIER_BOLD);
+        this.outputDirectory = LocalStorage.directory("receipts");
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "receipt-printer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * Charger les polices et le modèle en arrière-plan (appelé au démarrage)
+     */
+    public static synchronized void start() {
+        if (ready != null)
+            return;
+        ready = CompletableFuture.supplyAsync(() -> {
+            try {
+                return new ReceiptService();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossible de charger les polices des reçus", e);
+            }
+        }, task -> {
+            Thread thread = new Thread(task, "receipt-loader");
+            thread.setDaemon(true);
+            thread.start();
+        });
+        ready.whenComplete((service, error) -> {
+            if (error != null) {
+                System.err.println("❌ Reçus indisponibles: " + error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Service prêt, complété en erreur si les polices n'ont pas pu être chargées
+     */
+    public static synchronized CompletableFuture<ReceiptService> ready() {
+        start();
+        return ready;
+    }
+
+    /**
+     * Arrêter le thread d'impression
+     */
+    public static synchronized void shutdown() {
+        if (ready != null) {
+            ready.thenAccept(service -> service.executor.shutdown());
+            ready = null;
+        }
+    }
+
+    /**
+     * Générer en arrière-plan le reçu PDF et sa version ESC/POS dans le dossier des reçus.
+     * Le futur est complété avec le chemin du PDF.
+     */
+    public CompletableFuture<Path> generate(Sale sale) {
+        return CompletableFuture.supplyAsync(() -> {
+            Path pdf = outputDirectory.resolve(sale.getSaleNumber() + ".pdf");
+            Path text = outputDirectory.resolve(sale.getSaleNumber() + ".prn");
+            List<ReceiptTemplate.Line> lines = template.layout(sale);
+            try (OutputStream pdfOut = new BufferedOutputStream(Files.newOutputStream(pdf));
+                    OutputStream textOut = new BufferedOutputStream(Files.newOutputStream(text))) {
+                writePdf(lines, pdfOut);
+                writeEscPos(lines, textOut);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return pdf;
+        }, executor);
+    }
+
+    /**
+     * Écrire le reçu PDF d'une vente dans un flux
+     */
+    public void writePdf(Sale sale, OutputStream out) {
+        writePdf(template.layout(sale), out);
+    }
+
+    /**
+     * Écrire le reçu ESC/POS d'une vente dans un flux
+     */
+    public void writeEscPos(Sale sale, OutputStream out) throws IOException {
+        writeEscPos(template.layout(sale), out);
+    }
+
+    private void writePdf(List<ReceiptTemplate.Line> lines, OutputStream out) {
+        // Hauteur de page ajustée au contenu, comme un rouleau thermique
+        float height = lines.size() * LINE_HEIGHT + 2 * MARGIN;
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
+
+        try (PdfDocument pdf = new PdfDocument(writer)) {
+            PdfFont regular = PdfFontFactory.createFont(regularFont, PdfEncodings.WINANSI);
+            PdfFont bold = PdfFontFactory.createFont(boldFont, PdfEncodings.WINANSI);
+            PdfPage page = pdf.addNewPage(new PageSize(PAGE_WIDTH, height));
+            PdfCanvas canvas = new PdfCanvas(page);
+
+            float charWidth = regular.getWidth("0", FONT_SIZE);
+            float usableWidth = PAGE_WIDTH - 2 * MARGIN;
+            float y = height - MARGIN - FONT_SIZE;
+
+            canvas.beginText();
+            float x = MARGIN;
+            canvas.moveText(x, y);
+            for (ReceiptTemplate.Line line : lines) {
+                float lineX = MARGIN;
+                if (line.centered()) {
+                    lineX += Math.max(0, (usableWidth - line.text().length() * charWidth) / 2);
+                }
+                canvas.moveText(lineX - x, 0);
+                x = lineX;
+                canvas.setFontAndSize(line.bold() ? bold : regular, FONT_SIZE);
+                canvas.showText(line.text());
+                canvas.moveText(0, -LINE_HEIGHT);
+            }
+            canvas.endText();
+            canvas.release();
+        }
+    }
+
+    private void writeEscPos(List<ReceiptTemplate.Line> lines, OutputStream out) throws IOException {
+        out.write(ESC_INIT);
+        out.write(ESC_CODEPAGE_PC850);
+        for (ReceiptTemplate.Line line : lines) {
+            out.write(line.centered() ? ESC_ALIGN_CENTER : ESC_ALIGN_LEFT);
+            if (line.bold())
+                out.write(ESC_BOLD_ON);
+            out.write(line.text().getBytes(PC850));
+            if (line.bold())
+                out.write(ESC_BOLD_OFF);
+            out.write('\n');
+        }
+        out.write(ESC_ALIGN_LEFT);
+        out.write(ESC_FEED_AND_CUT);
+        out.flush();
+    }
+}
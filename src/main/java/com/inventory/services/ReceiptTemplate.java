@@ -0,0 +1,161 @@
+package com.inventory.services;
+
+import com.inventory.models.Sale;
+import com.inventory.models.SaleItem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Modèle de mise en page des reçus (colonnes fixes), chargé une seule fois.
+ * Le même découpage en lignes sert au PDF et à la sortie ESC/POS.
+ */
+public final class ReceiptTemplate {
+
+    /**
+     * Ligne de reçu prête à imprimer
+     */
+    public record Line(String text, boolean bold, boolean centered) {
+    }
+
+    private static final String RESOURCE = "/receipt/receipt.properties";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final String storeName;
+    private final String storeAddress;
+    private final String storePhone;
+    private final String footer;
+    private final int columns;
+    private final String separator;
+    private final List<Line> headerLines;
+
+    private ReceiptTemplate(Properties properties) {
+        this.storeName = properties.getProperty("store.name", "StockPro");
+        this.storeAddress = properties.getProperty("store.address", "");
+        this.storePhone = properties.getProperty("store.phone", "");
+        this.footer = properties.getProperty("footer", "Merci de votre visite !");
+        this.columns = Integer.parseInt(properties.getProperty("columns", "42").trim());
+        this.separator = "-".repeat(columns);
+
+        // L'en-tête ne dépend pas de la vente: il est calculé une fois
+        List<Line> header = new ArrayList<>();
+        header.add(new Line(fit(storeName), true, true));
+        if (!storeAddress.isBlank())
+            header.add(new Line(fit(storeAddress), false, true));
+        if (!storePhone.isBlank())
+            header.add(new Line(fit("Tél: " + storePhone), false, true));
+        header.add(new Line(separator, false, false));
+        this.headerLines = List.copyOf(header);
+    }
+
+    /**
+     * Charger le modèle depuis les ressources de l'application
+     */
+    public static ReceiptTemplate load() {
+        Properties properties = new Properties();
+        try (InputStream in = ReceiptTemplate.class.getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Modèle de reçu illisible, valeurs par défaut utilisées: " + e.getMessage());
+        }
+        return new ReceiptTemplate(properties);
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Découper une vente en lignes de reçu
+     */
+    public List<Line> layout(Sale sale) {
+        List<Line> lines = new ArrayList<>(headerLines.size() + sale.getItems().size() * 2 + 12);
+        lines.addAll(headerLines);
+
+        lines.add(plain("Ticket: " + sale.getSaleNumber()));
+        if (sale.getCreatedAt() != null)
+            lines.add(plain("Date: " + sale.getCreatedAt().format(DATE_FORMAT)));
+        if (sale.getUserName() != null)
+            lines.add(plain("Caissier: " + sale.getUserName()));
+        lines.add(plain(separator));
+
+        for (SaleItem item : sale.getItems()) {
+            lines.add(plain(item.getProductName()));
+            lines.add(plain(columns("  " + item.getQuantity() + " x " + amount(item.getUnitPrice()),
+                    amount(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()))))));
+            BigDecimal discount = item.getDiscountAmount();
+            if (discount.signum() > 0) {
+                lines.add(plain(columns("  Remise " + item.getDiscountPercentage().stripTrailingZeros().toPlainString()
+                        + "%", "-" + amount(discount))));
+            }
+        }
+
+        lines.add(plain(separator));
+        if (sale.getDiscountAmount() != null && sale.getDiscountAmount().signum() > 0)
+            lines.add(plain(columns("Remise", "-" + amount(sale.getDiscountAmount()))));
+        if (sale.getTaxAmount() != null && sale.getTaxAmount().signum() > 0)
+            lines.add(plain(columns("Taxes", amount(sale.getTaxAmount()))));
+        lines.add(new Line(columns("TOTAL", amount(sale.getFinalAmount()) + " FCFA"), true, false));
+        lines.add(plain(columns("Articles", String.valueOf(sale.getTotalItems()))));
+        lines.add(plain(columns("Paiement", sale.getPaymentMethodDisplay())));
+        if (sale.getCustomerName() != null && !sale.getCustomerName().isBlank())
+            lines.add(plain("Client: " + sale.getCustomerName()));
+
+        lines.add(plain(separator));
+        lines.add(new Line(fit(footer), false, true));
+        return lines;
+    }
+
+    private Line plain(String text) {
+        return new Line(fit(text), false, false);
+    }
+
+    private String fit(String text) {
+        if (text == null)
+            return "";
+        return text.length() <= columns ? text : text.substring(0, columns);
+    }
+
+    /**
+     * Aligner un libellé à gauche et une valeur à droite sur la largeur du reçu
+     */
+    private String columns(String left, String right) {
+        int space = columns - left.length() - right.length();
+        if (space < 1) {
+            left = left.substring(0, Math.max(0, columns - right.length() - 1));
+            space = 1;
+        }
+        return left + " ".repeat(space) + right;
+    }
+
+    /**
+     * Formater un montant en FCFA (sans décimales, groupes de milliers séparés par une espace)
+     */
+    static String amount(BigDecimal value) {
+        if (value == null)
+            return "0";
+        String digits = value.setScale(0, RoundingMode.HALF_UP).abs().toPlainString();
+        StringBuilder out = new StringBuilder(digits.length() + digits.length() / 3 + 1);
+        if (value.signum() < 0 && !digits.equals("0"))
+            out.append('-');
+        int head = digits.length() % 3;
+        if (head > 0)
+            out.append(digits, 0, head);
+        for (int i = head; i < digits.length(); i += 3) {
+            if (out.length() > 0 && out.charAt(out.length() - 1) != '-')
+                out.append(' ');
+            out.append(digits, i, i + 3);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,315 @@
+package com.inventory.services;
+
+import com.inventory.models.Refund;
+import com.inventory.models.ReportPeriod;
+import com.inventory.models.ReportSummary;
+import com.inventory.models.Sale;
+import com.inventory.utils.LocalStorage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache des résultats de rapports, par section et par période.
+ *
+ * Une période close (terminée avant aujourd'hui) expire après
+ * {@link #CLOSED_PERIOD_TTL_MS}, une période en cours après
+ * {@link #CURRENT_PERIOD_TTL_MS}. Les ventes et leurs retours invalident les
+ * sections de ventes dont la période contient leur date et les sections de
+ * stock; les modifications du catalogue (CatalogService) les sections de
+ * stock, ou tout le cache pour une catégorie renommée. Une reconstruction des
+ * agrégats vide tout le cache, y compris celui de l'application en cours
+ * quand elle est faite par l'outil de reconstruction (fichier témoin
+ * {@link #REBUILD_MARKER}, vérifié au plus toutes les
+ * {@link #CURRENT_PERIOD_TTL_MS}). Au-delà de {@link #MAX_ENTRIES}, les
+ * entrées les moins récemment lues sont retirées.
+ *
+ * Les valeurs mises en cache sont partagées: les appelants ne doivent pas les modifier.
+ */
+public final class ReportCache implements SaleEventBus.Listener {
+
+    public static final long CURRENT_PERIOD_TTL_MS = 30_000;
+    public static final long CLOSED_PERIOD_TTL_MS = 3_600_000;
+    public static final String REBUILD_MARKER = "sales-summary.rebuilt";
+    public static final int MAX_ENTRIES = 500;
+
+    /**
+     * Sections de rapport mises en cache, et données dont elles dépendent
+     */
+    public enum Section {
+        SUMMARY(true, false),
+        SALES_TREND(true, false),
+        CATEGORIES(true, false),
+        PAYMENT_METHODS(true, false),
+        TOP_PRODUCTS(true, true),
+        LOW_STOCK(false, true);
+
+        private final boolean sales;
+        private final boolean stock;
+
+        Section(boolean sales, boolean stock) {
+            this.sales = sales;
+            this.stock = stock;
+        }
+    }
+
+    private record Key(Section section, LocalDate from, LocalDate to) {
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long expiresAt;
+
+        Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static ReportCache instance;
+
+    // Ordre d'accès: l'entrée la moins récemment lue est la première retirée
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > MAX_ENTRIES) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // Incrémenté à chaque invalidation: un résultat calculé avant n'est pas conservé
+    private long version;
+
+    // Dernière reconstruction des agrégats vue (date du fichier témoin, null s'il est absent)
+    private FileTime rebuiltAt = readRebuildMarker();
+    private long rebuildCheckedAt = System.currentTimeMillis();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private ReportCache() {
+    }
+
+    /**
+     * Obtenir le cache (abonné aux ventes dès le premier appel)
+     */
+    public static synchronized ReportCache getInstance() {
+        if (instance == null) {
+            instance = new ReportCache();
+            SaleEventBus.getInstance().subscribe(instance);
+        }
+        return instance;
+    }
+
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            SaleEventBus.getInstance().unsubscribe(instance);
+            System.out.println("📊 Cache des rapports: " + instance.getStats());
+            instance = null;
+        }
+    }
+
+    /**
+     * Résultat d'une section pour une période (null = section sans période),
+     * calculé par loader s'il est absent ou expiré
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Section section, ReportPeriod period, Supplier<T> loader) {
+        Key key = new Key(section, period != null ? period.getFrom() : null, period != null ? period.getTo() : null);
+        long loadVersion;
+
+        synchronized (this) {
+            checkRebuildMarker();
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.currentTimeMillis() < entry.expiresAt) {
+                    hits.incrementAndGet();
+                    return (T) entry.value;
+                }
+                entries.remove(key);
+                expirations.incrementAndGet();
+            }
+            loadVersion = version;
+        }
+
+        // Calcul hors verrou: les sections se chargent en parallèle
+        misses.incrementAndGet();
+        T value = loader.get();
+
+        synchronized (this) {
+            if (version == loadVersion) {
+                entries.put(key, new Entry(value, expiresAt(period, value)));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Période close: durée longue. Période en cours, section sans période ou
+     * résultat vide (les DAO renvoient un résultat vide en cas d'erreur): durée courte.
+     */
+    private static long expiresAt(ReportPeriod period, Object value) {
+        boolean closed = period != null && period.getTo().isBefore(LocalDate.now());
+        boolean empty = value == null
+                || (value instanceof Collection<?> collection && collection.isEmpty())
+                || (value instanceof ReportSummary summary && summary.getSaleCount() == 0);
+        return System.currentTimeMillis() + (closed && !empty ? CLOSED_PERIOD_TTL_MS : CURRENT_PERIOD_TTL_MS);
+    }
+
+    // ========== Invalidation ==========
+
+    @Override
+    public void saleCompleted(Sale sale) {
+        invalidate(sale.getCreatedAt() != null ? sale.getCreatedAt().toLocalDate() : LocalDate.now());
+    }
+
+    @Override
+    public void saleRefunded(Sale sale, Refund refund) {
+        invalidate(sale.getCreatedAt() != null ? sale.getCreatedAt().toLocalDate() : LocalDate.now());
+    }
+
+    /**
+     * Une vente du jour donné a changé: sections de ventes couvrant ce jour et sections de stock
+     */
+    private synchronized void invalidate(LocalDate saleDate) {
+        version++;
+        removeIf(key -> key.section().stock
+                || (key.section().sales && (key.from() == null
+                        || (!saleDate.isBefore(key.from()) && !saleDate.isAfter(key.to())))));
+    }
+
+    /**
+     * Le stock ou les fiches produits ont changé hors vente (ajustement, modification)
+     */
+    public synchronized void invalidateStock() {
+        version++;
+        removeIf(key -> key.section().stock);
+    }
+
+    /**
+     * Tout oublier (après une reconstruction des agrégats, par exemple)
+     */
+    public synchronized void invalidateAll() {
+        version++;
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    /**
+     * Les agrégats de ventes ont été reconstruits: vider ce cache et signaler la
+     * reconstruction à l'application en cours (appelé aussi depuis l'outil de reconstruction)
+     */
+    public static void summariesRebuilt() {
+        try {
+            LocalStorage.writeAtomically(LocalStorage.file(REBUILD_MARKER),
+                    Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException e) {
+            System.err.println("❌ Erreur écriture du témoin de reconstruction: " + e.getMessage());
+        }
+        ReportCache cache;
+        synchronized (ReportCache.class) {
+            cache = instance;
+        }
+        if (cache != null) {
+            synchronized (cache) {
+                cache.rebuiltAt = readRebuildMarker();
+                cache.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Vider le cache si le fichier témoin a changé depuis la dernière vérification
+     */
+    private void checkRebuildMarker() {
+        long now = System.currentTimeMillis();
+        if (now - rebuildCheckedAt < CURRENT_PERIOD_TTL_MS)
+            return;
+        rebuildCheckedAt = now;
+
+        FileTime marker = readRebuildMarker();
+        if (!Objects.equals(marker, rebuiltAt)) {
+            rebuiltAt = marker;
+            invalidateAll();
+        }
+    }
+
+    static FileTime readRebuildMarker() {
+        try {
+            return Files.getLastModifiedTime(LocalStorage.file(REBUILD_MARKER));
+        } catch (IOException e) {
+            return null; // Aucune reconstruction signalée
+        }
+    }
+
+    private interface KeyFilter {
+        boolean matches(Key key);
+    }
+
+    private void removeIf(KeyFilter filter) {
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (filter.matches(keys.next())) {
+                keys.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    // ========== Statistiques ==========
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getExpirationCount() {
+        return expirations.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Part des lectures servies par le cache (0 à 1)
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public String getStats() {
+        return String.format("%d entrées, %d succès, %d échecs (%.0f %%), %d expirées, %d invalidées, %d évincées",
+                size(), getHitCount(), getMissCount(), getHitRate() * 100, getExpirationCount(),
+                getInvalidationCount(), getEvictionCount());
+    }
+}
@@ -0,0 +1,520 @@
+package com.inventory.services;
+
+import com.inventory.dao.ProductDAO;
+import com.inventory.dao.ReportDAO;
+import com.inventory.dao.StockSnapshotDAO;
+import com.inventory.models.Product;
+import com.inventory.models.Refund;
+import com.inventory.models.ReportEntry;
+import com.inventory.models.ReportPeriod;
+import com.inventory.models.ReportSummary;
+import com.inventory.models.Sale;
+import com.inventory.utils.BackgroundScheduler;
+import com.inventory.utils.LocalStorage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Rapports précalculés aux heures creuses et conservés sur disque: rapport Z
+ * de chaque journée close, valorisation du stock en fin de mois et liste des
+ * produits en stock faible.
+ *
+ * Les calculs sont lancés pendant la plage creuse (par défaut de 21 h à 7 h,
+ * propriétés "inventory.reports.offpeak.start" et "inventory.reports.offpeak.end")
+ * ou quand la caisse est inactive depuis {@link #IDLE_MINUTES} minutes, jamais
+ * pendant l'affluence. Chaque instantané est un petit fichier binaire qui
+ * s'ouvre aussitôt depuis l'écran des rapports.
+ *
+ * Un instantané n'est recalculé que si les données de sa période changent:
+ * vente rejouée ou annulée ce jour-là (dans ce processus), ou empreinte
+ * (nombre de ventes, chiffre d'affaires, unités) différente de celle des
+ * agrégats journaliers lors de la vérification suivante (autres caisses).
+ * La valorisation d'un mois clos est figée une fois calculée.
+ */
+public final class ReportSnapshotService implements SaleEventBus.Listener {
+
+    public static final int IDLE_MINUTES = 15;
+
+    private static final int DAYS_PRECOMPUTED = 7;
+    private static final int DAYS_KEPT = 62;
+    private static final int MONTHS_KEPT = 24;
+    private static final int TOP_PRODUCTS = 10;
+    private static final long CHECK_MINUTES = 10;
+    private static final long INITIAL_DELAY_MINUTES = 2;
+    private static final long LOW_STOCK_MAX_AGE_MINUTES = 60;
+    private static final int OFF_PEAK_START = Integer.getInteger("inventory.reports.offpeak.start", 21);
+    private static final int OFF_PEAK_END = Integer.getInteger("inventory.reports.offpeak.end", 7);
+
+    private static final int MAGIC = 0x52534e50; // "RSNP"
+    private static final byte VERSION = 1;
+
+    /**
+     * Rapport Z d'une journée close: synthèse, modes de paiement, catégories et meilleurs produits
+     */
+    public record DailyReport(LocalDate day, ReportSummary summary, List<ReportEntry> paymentMethods,
+            List<ReportEntry> categories, List<ReportEntry> topProducts, LocalDateTime computedAt) {
+
+        /**
+         * Tendance d'une seule journée (un point), au format de ReportDAO.findSalesTrend
+         */
+        public List<ReportEntry> trend() {
+            ReportPeriod period = new ReportPeriod(day, day);
+            return List.of(new ReportEntry(period.getBucketLabel(day), summary.getSaleCount(), summary.getRevenue()));
+        }
+    }
+
+    /**
+     * Valorisation du stock en fin de mois, au prix d'achat, par catégorie
+     * (quantité = unités en stock, montant = valeur)
+     */
+    public record StockValuation(YearMonth month, List<ReportEntry> categories, LocalDateTime computedAt) {
+
+        public BigDecimal total() {
+            BigDecimal total = BigDecimal.ZERO;
+            for (ReportEntry entry : categories) {
+                total = total.add(entry.getAmount());
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Produits en stock faible lors du dernier calcul
+     */
+    public record LowStock(List<Product> products, LocalDateTime computedAt) {
+    }
+
+    private static ReportSnapshotService instance;
+
+    private final ReportDAO reportDAO = new ReportDAO();
+    private final ProductDAO productDAO = new ProductDAO();
+    private final StockSnapshotDAO stockSnapshotDAO = new StockSnapshotDAO();
+    private final Path directory = LocalStorage.directory("report-snapshots");
+    private final ExecutorService executor;
+    private ScheduledFuture<?> check;
+
+    // Journées dont une vente a changé depuis leur instantané (ce processus)
+    private final Set<LocalDate> dirtyDays = ConcurrentHashMap.newKeySet();
+    private volatile boolean lowStockDirty;
+    private volatile long lastSaleAt = System.currentTimeMillis();
+
+    private ReportSnapshotService() {
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "report-snapshots");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Démarrer le précalcul planifié des rapports
+     */
+    public static synchronized ReportSnapshotService start() {
+        if (instance == null) {
+            instance = new ReportSnapshotService();
+            SaleEventBus.getInstance().subscribe(instance);
+            instance.check = BackgroundScheduler.scheduleWithFixedDelay("rapports précalculés",
+                    instance::submitIfOffPeak, INITIAL_DELAY_MINUTES, CHECK_MINUTES, TimeUnit.MINUTES);
+        }
+        return instance;
+    }
+
+    /**
+     * Service démarré, ou null
+     */
+    public static synchronized ReportSnapshotService getInstance() {
+        return instance;
+    }
+
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            SaleEventBus.getInstance().unsubscribe(instance);
+            instance.check.cancel(false);
+            instance.executor.shutdownNow();
+            instance = null;
+        }
+    }
+
+    /**
+     * Le stock ou les fiches produits ont changé hors vente (appelé par CatalogService)
+     */
+    public static void stockChanged() {
+        ReportSnapshotService service = getInstance();
+        if (service != null) {
+            service.lowStockDirty = true;
+        }
+    }
+
+    // ========== Lecture ==========
+
+    /**
+     * Rapport Z précalculé d'une journée close, ou null s'il est absent ou obsolète.
+     * L'empreinte enregistrée est comparée à l'agrégat du jour (une ligne): une
+     * modification faite hors de cette application (autre caisse, reconstruction
+     * des agrégats) rend aussi le rapport obsolète. Cette requête impose
+     * d'appeler la méthode hors du thread JavaFX.
+     */
+    public DailyReport dailyReport(LocalDate day) {
+        if (!day.isBefore(LocalDate.now()) || dirtyDays.contains(day))
+            return null;
+
+        try (DataInputStream in = open(dailyFile(day))) {
+            if (in == null)
+                return null;
+            String current = fingerprint(reportDAO.findSummary(new ReportPeriod(day, day)));
+            if (!current.equals(readFingerprint(in))) {
+                dirtyDays.add(day); // Recalculé au prochain passage
+                return null;
+            }
+            return new DailyReport(day, readSummary(in), readEntries(in), readEntries(in), readEntries(in),
+                    readDateTime(in));
+        } catch (IOException e) {
+            System.err.println("❌ Erreur lecture rapport Z du " + day + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Valorisation précalculée d'un mois clos, ou null
+     */
+    public StockValuation stockValuation(YearMonth month) {
+        try (DataInputStream in = open(valuationFile(month))) {
+            if (in == null)
+                return null;
+            return new StockValuation(month, readEntries(in), readDateTime(in));
+        } catch (IOException e) {
+            System.err.println("❌ Erreur lecture valorisation " + month + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Dernière liste de stock faible calculée, ou null si le stock a changé depuis
+     */
+    public LowStock lowStock() {
+        if (lowStockDirty)
+            return null;
+
+        try (DataInputStream in = open(lowStockFile())) {
+            if (in == null)
+                return null;
+            int count = in.readInt();
+            List<Product> products = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                products.add(readProduct(in));
+            }
+            return new LowStock(products, readDateTime(in));
+        } catch (IOException e) {
+            System.err.println("❌ Erreur lecture stock faible: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // ========== Invalidation ==========
+
+    @Override
+    public void saleCompleted(Sale sale) {
+        lastSaleAt = System.currentTimeMillis();
+        saleChanged(sale);
+    }
+
+    @Override
+    public void saleRefunded(Sale sale, Refund refund) {
+        saleChanged(sale);
+    }
+
+    /**
+     * Une vente d'une journée close (rejouée depuis le journal, retournée ou annulée) rend son rapport Z obsolète
+     */
+    private void saleChanged(Sale sale) {
+        lowStockDirty = true;
+        LocalDate day = sale.getCreatedAt() != null ? sale.getCreatedAt().toLocalDate() : LocalDate.now();
+        if (day.isBefore(LocalDate.now())) {
+            dirtyDays.add(day);
+        }
+    }
+
+    // ========== Précalcul ==========
+
+    /**
+     * Heures creuses ou caisse inactive
+     */
+    public boolean isOffPeak() {
+        int hour = LocalTime.now().getHour();
+        boolean night = OFF_PEAK_START > OFF_PEAK_END
+                ? hour >= OFF_PEAK_START || hour < OFF_PEAK_END
+                : hour >= OFF_PEAK_START && hour < OFF_PEAK_END;
+        return night || System.currentTimeMillis() - lastSaleAt >= TimeUnit.MINUTES.toMillis(IDLE_MINUTES);
+    }
+
+    private void submitIfOffPeak() {
+        if (isOffPeak()) {
+            executor.execute(this::refreshStale);
+        }
+    }
+
+    /**
+     * Recalculer les instantanés absents ou obsolètes, puis supprimer les plus anciens
+     */
+    public void refreshStale() {
+        try {
+            LocalDate today = LocalDate.now();
+            Set<LocalDate> days = new TreeSet<>(dirtyDays);
+            days.removeIf(day -> day.isBefore(today.minusDays(DAYS_KEPT)));
+            for (int i = 1; i <= DAYS_PRECOMPUTED; i++) {
+                days.add(today.minusDays(i));
+            }
+            for (LocalDate day : days) {
+                refreshDailyIfStale(day);
+            }
+
+            YearMonth lastMonth = YearMonth.from(today).minusMonths(1);
+            if (!Files.exists(valuationFile(lastMonth))) {
+                writeValuation(lastMonth);
+            }
+
+            if (lowStockDirty || isOlderThan(lowStockFile(), LOW_STOCK_MAX_AGE_MINUTES)) {
+                writeLowStock();
+            }
+
+            purge(today);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ Erreur précalcul des rapports: " + e.getMessage());
+        }
+    }
+
+    private void refreshDailyIfStale(LocalDate day) throws IOException {
+        // Marque retirée avant le calcul: une vente arrivée pendant le calcul la repose
+        boolean dirty = dirtyDays.remove(day);
+        ReportPeriod period = new ReportPeriod(day, day);
+        ReportSummary summary = reportDAO.findSummary(period);
+        String fingerprint = fingerprint(summary);
+
+        if (!dirty && fingerprint.equals(storedFingerprint(dailyFile(day))))
+            return;
+
+        if (summary.getSaleCount() == 0) {
+            // Journée sans vente (ou base indisponible): rien à précalculer
+            Files.deleteIfExists(dailyFile(day));
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (DataOutputStream out = header(bytes)) {
+            out.writeUTF(fingerprint);
+            writeSummary(out, summary);
+            writeEntries(out, reportDAO.findRevenueByPaymentMethod(period));
+            writeEntries(out, reportDAO.findRevenueByCategory(period));
+            writeEntries(out, reportDAO.findTopProducts(period, TOP_PRODUCTS));
+            writeDateTime(out, LocalDateTime.now());
+        }
+        LocalStorage.writeAtomically(dailyFile(day), bytes.toByteArray());
+        System.out.println("🧾 Rapport Z précalculé: " + day);
+    }
+
+    private void writeValuation(YearMonth month) throws IOException {
+        Map<Integer, Integer> quantities = stockSnapshotDAO
+                .findQuantitiesAt(month.plusMonths(1).atDay(1).atStartOfDay());
+        List<Product> products = productDAO.findAll();
+        if (quantities.isEmpty() || products.isEmpty())
+            return; // Base indisponible: nouvel essai à la prochaine vérification
+
+        Map<String, ReportEntry> byCategory = new TreeMap<>();
+        for (Product product : products) {
+            int quantity = Math.max(0, quantities.getOrDefault(product.getId(), 0));
+            BigDecimal price = Objects.requireNonNullElse(product.getPurchasePrice(), BigDecimal.ZERO);
+            String category = Objects.requireNonNullElse(product.getCategoryName(), "Sans catégorie");
+            ReportEntry entry = byCategory.computeIfAbsent(category, c -> new ReportEntry(c, 0, BigDecimal.ZERO));
+            entry.setQuantity(entry.getQuantity() + quantity);
+            entry.setAmount(entry.getAmount().add(price.multiply(BigDecimal.valueOf(quantity))));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (DataOutputStream out = header(bytes)) {
+            writeEntries(out, new ArrayList<>(byCategory.values()));
+            writeDateTime(out, LocalDateTime.now());
+        }
+        LocalStorage.writeAtomically(valuationFile(month), bytes.toByteArray());
+        System.out.println("🧾 Valorisation du stock précalculée: " + month);
+    }
+
+    private void writeLowStock() throws IOException {
+        lowStockDirty = false;
+        List<Product> products = productDAO.findLowStock();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = header(bytes)) {
+            out.writeInt(products.size());
+            for (Product product : products) {
+                writeProduct(out, product);
+            }
+            writeDateTime(out, LocalDateTime.now());
+        }
+        LocalStorage.writeAtomically(lowStockFile(), bytes.toByteArray());
+    }
+
+    private void purge(LocalDate today) throws IOException {
+        String oldestDay = dailyFile(today.minusDays(DAYS_KEPT)).getFileName().toString();
+        String oldestMonth = valuationFile(YearMonth.from(today).minusMonths(MONTHS_KEPT)).getFileName().toString();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                // Noms datés au format ISO: l'ordre alphabétique est l'ordre chronologique
+                if ((name.startsWith("z-") && name.compareTo(oldestDay) < 0)
+                        || (name.startsWith("valorisation-") && name.compareTo(oldestMonth) < 0)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // ========== Fichiers ==========
+
+    private Path dailyFile(LocalDate day) {
+        return directory.resolve("z-" + day + ".bin");
+    }
+
+    private Path valuationFile(YearMonth month) {
+        return directory.resolve("valorisation-" + month + ".bin");
+    }
+
+    private Path lowStockFile() {
+        return directory.resolve("stock-faible.bin");
+    }
+
+    private static boolean isOlderThan(Path file, long minutes) throws IOException {
+        return !Files.exists(file) || Files.getLastModifiedTime(file).toMillis()
+                < System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(minutes);
+    }
+
+    private static String fingerprint(ReportSummary summary) {
+        return summary.getSaleCount() + "/" + summary.getRevenue().toPlainString() + "/" + summary.getUnitsSold();
+    }
+
+    private String storedFingerprint(Path file) throws IOException {
+        try (DataInputStream in = open(file)) {
+            return in != null ? readFingerprint(in) : null;
+        }
+    }
+
+    private static DataOutputStream header(ByteArrayOutputStream bytes) throws IOException {
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        return out;
+    }
+
+    /**
+     * Ouvrir un instantané et vérifier son en-tête (null si absent ou d'une autre version)
+     */
+    private static DataInputStream open(Path file) throws IOException {
+        InputStream stream;
+        try {
+            stream = Files.newInputStream(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+            in.close();
+            return null;
+        }
+        return in;
+    }
+
+    private static String readFingerprint(DataInputStream in) throws IOException {
+        return in.readUTF();
+    }
+
+    private static void writeSummary(DataOutputStream out, ReportSummary summary) throws IOException {
+        out.writeInt(summary.getSaleCount());
+        out.writeUTF(summary.getRevenue().toPlainString());
+        out.writeInt(summary.getUnitsSold());
+    }
+
+    private static ReportSummary readSummary(DataInputStream in) throws IOException {
+        int saleCount = in.readInt();
+        BigDecimal revenue = new BigDecimal(in.readUTF());
+        return new ReportSummary(revenue, saleCount, in.readInt());
+    }
+
+    private static void writeEntries(DataOutputStream out, List<ReportEntry> entries) throws IOException {
+        out.writeInt(entries.size());
+        for (ReportEntry entry : entries) {
+            out.writeInt(entry.getId());
+            out.writeUTF(Objects.requireNonNullElse(entry.getLabel(), ""));
+            out.writeInt(entry.getQuantity());
+            out.writeUTF(entry.getAmount().toPlainString());
+        }
+    }
+
+    private static List<ReportEntry> readEntries(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<ReportEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = in.readInt();
+            ReportEntry entry = new ReportEntry(in.readUTF(), 0, BigDecimal.ZERO);
+            entry.setId(id);
+            entry.setQuantity(in.readInt());
+            entry.setAmount(new BigDecimal(in.readUTF()));
+            entries.add(entry);
+        }
+        return List.copyOf(entries);
+    }
+
+    /**
+     * Champs affichés par le rapport de stock faible uniquement
+     */
+    private static void writeProduct(DataOutputStream out, Product product) throws IOException {
+        out.writeInt(product.getId());
+        out.writeUTF(Objects.requireNonNullElse(product.getCode(), ""));
+        out.writeUTF(Objects.requireNonNullElse(product.getName(), ""));
+        out.writeInt(product.getQuantity());
+        out.writeInt(product.getAlertThreshold());
+    }
+
+    private static Product readProduct(DataInputStream in) throws IOException {
+        Product product = new Product();
+        product.setId(in.readInt());
+        product.setCode(in.readUTF());
+        product.setName(in.readUTF());
+        product.setQuantity(in.readInt());
+        product.setAlertThreshold(in.readInt());
+        return product;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeUTF(value.toString());
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        return LocalDateTime.parse(in.readUTF());
+    }
+}
@@ -0,0 +1,144 @@
+package com.inventory.services;
+
+import com.inventory.models.Sale;
+import com.inventory.models.SaleItem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sérialisation binaire compacte d'une vente et de ses lignes
+ * (utilisée par le journal de caisse hors ligne)
+ */
+public final class SaleCodec {
+
+    private static final byte VERSION = 1;
+
+    private SaleCodec() {
+    }
+
+    /**
+     * Encoder une vente en tableau d'octets
+     */
+    public static byte[] encode(Sale sale) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(out, sale);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Décoder une vente depuis un tableau d'octets
+     */
+    public static Sale decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            return read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Écrire une vente dans un flux
+     */
+    public static void write(DataOutputStream out, Sale sale) throws IOException {
+        out.writeByte(VERSION);
+        writeString(out, sale.getSaleNumber());
+        out.writeInt(sale.getUserId());
+        writeString(out, sale.getCustomerName());
+        writeString(out, sale.getCustomerPhone());
+        writeDecimal(out, sale.getTotalAmount());
+        writeDecimal(out, sale.getDiscountAmount());
+        writeDecimal(out, sale.getTaxAmount());
+        writeString(out, sale.getPaymentMethod());
+        writeString(out, sale.getStatus());
+        writeString(out, sale.getNotes());
+        out.writeLong(sale.getCreatedAt() != null ? sale.getCreatedAt().toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+
+        List<SaleItem> items = sale.getItems();
+        out.writeInt(items.size());
+        for (SaleItem item : items) {
+            out.writeInt(item.getProductId());
+            writeString(out, item.getProductCode());
+            writeString(out, item.getProductName());
+            out.writeInt(item.getQuantity());
+            writeDecimal(out, item.getUnitPrice());
+            writeDecimal(out, item.getDiscountPercentage());
+            writeDecimal(out, item.getSubtotal());
+        }
+    }
+
+    /**
+     * Lire une vente depuis un flux
+     */
+    public static Sale read(DataInputStream in) throws IOException {
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Version de vente non supportée: " + version);
+        }
+
+        Sale sale = new Sale();
+        sale.setSaleNumber(readString(in));
+        sale.setUserId(in.readInt());
+        sale.setCustomerName(readString(in));
+        sale.setCustomerPhone(readString(in));
+        sale.setTotalAmount(readDecimal(in));
+        sale.setDiscountAmount(readDecimal(in));
+        sale.setTaxAmount(readDecimal(in));
+        sale.setPaymentMethod(readString(in));
+        sale.setStatus(readString(in));
+        sale.setNotes(readString(in));
+        long createdAt = in.readLong();
+        if (createdAt != Long.MIN_VALUE) {
+            sale.setCreatedAt(LocalDateTime.ofEpochSecond(createdAt, 0, ZoneOffset.UTC));
+        }
+
+        int count = in.readInt();
+        List<SaleItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SaleItem item = new SaleItem();
+            item.setProductId(in.readInt());
+            item.setProductCode(readString(in));
+            item.setProductName(readString(in));
+            item.setQuantity(in.readInt());
+            item.setUnitPrice(readDecimal(in));
+            item.setDiscountPercentage(readDecimal(in));
+            item.setSubtotal(readDecimal(in));
+            items.add(item);
+        }
+        sale.setItems(items);
+        return sale;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        writeString(out, value != null ? value.toPlainString() : null);
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        String value = readString(in);
+        return value != null ? new BigDecimal(value) : null;
+    }
+}
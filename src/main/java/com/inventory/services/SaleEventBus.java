@@ -0,0 +1,76 @@
+package com.inventory.services;
+
+import com.inventory.models.Refund;
+import com.inventory.models.Sale;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Diffusion des ventes enregistrées en base (et de leurs retours et annulations).
+ *
+ * Les événements sont publiés après la validation de la transaction, sur le
+ * thread qui l'a effectuée; les abonnés doivent donc rester rapides et ne
+ * jamais toucher à l'interface directement.
+ */
+public final class SaleEventBus {
+
+    /**
+     * Abonné aux événements de vente
+     */
+    public interface Listener {
+        void saleCompleted(Sale sale);
+
+        /**
+         * Retour appliqué sur une vente (refund.getLines()); refund.isSaleCancelled()
+         * si toutes ses lignes sont désormais retournées
+         */
+        default void saleRefunded(Sale sale, Refund refund) {
+        }
+    }
+
+    private static final SaleEventBus INSTANCE = new SaleEventBus();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private SaleEventBus() {
+    }
+
+    public static SaleEventBus getInstance() {
+        return INSTANCE;
+    }
+
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Signaler une vente terminée, enregistrée en base
+     */
+    public void publishCompleted(Sale sale) {
+        for (Listener listener : listeners) {
+            try {
+                listener.saleCompleted(sale);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Erreur abonné ventes: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Signaler un retour, partiel ou complet, enregistré en base
+     */
+    public void publishRefunded(Sale sale, Refund refund) {
+        for (Listener listener : listeners) {
+            try {
+                listener.saleRefunded(sale, refund);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Erreur abonné ventes: " + e.getMessage());
+            }
+        }
+    }
+}
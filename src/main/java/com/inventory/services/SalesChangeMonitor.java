@@ -0,0 +1,167 @@
+package com.inventory.services;
+
+import com.inventory.dao.SalesCubeDAO;
+import com.inventory.models.Refund;
+import com.inventory.models.Sale;
+import com.inventory.utils.BackgroundScheduler;
+
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Détection des ventes et retours enregistrés hors de ce poste.
+ *
+ * Le cube des ventes et le classement des produits ne sont tenus à jour que
+ * par les événements de ce poste. Toutes les {@link #CHECK_SECONDS} secondes, les identifiants de vente et de
+ * retour apparus en base sont comparés à ceux reçus par les événements: un
+ * identifiant inconnu (autre caisse, rejeu depuis un autre poste) ou un
+ * changement du témoin de reconstruction des agrégats
+ * ({@link ReportCache#REBUILD_MARKER}) déclenche le rechargement du cube et
+ * le réamorçage du classement des produits les plus vendus.
+ *
+ * Une vente peut être validée après une vente d'identifiant supérieur: les
+ * identifiants sont relus jusqu'au plus grand identifiant vu deux
+ * vérifications plus tôt, ce qui couvre les transactions de moins de
+ * {@link #CHECK_SECONDS} secondes.
+ */
+public final class SalesChangeMonitor implements SaleEventBus.Listener {
+
+    public static final long CHECK_SECONDS = 30;
+
+    /**
+     * Identifiants déjà connus d'une table: tous ceux jusqu'à horizon, plus seen au-delà
+     */
+    private static final class IdWatch {
+        int horizon;
+        int lastMax;
+        final Set<Integer> seen = new HashSet<>();
+
+        IdWatch(int latest) {
+            this.horizon = latest;
+            this.lastMax = latest;
+        }
+
+        void seen(int id) {
+            if (id > horizon) {
+                seen.add(id);
+            }
+        }
+
+        /**
+         * Enregistrer les identifiants relus au-delà de horizon
+         *
+         * @return true si l'un d'eux n'avait été reçu par aucun événement
+         */
+        boolean update(Set<Integer> ids) {
+            boolean unknown = !seen.containsAll(ids);
+            seen.addAll(ids);
+            int max = lastMax;
+            for (int id : ids) {
+                max = Math.max(max, id);
+            }
+            horizon = lastMax;
+            lastMax = max;
+            seen.removeIf(id -> id <= horizon);
+            return unknown;
+        }
+    }
+
+    private static SalesChangeMonitor instance;
+
+    private final SalesCubeDAO cubeDAO = new SalesCubeDAO();
+    private ScheduledFuture<?> task;
+
+    // Protégés par this
+    private final IdWatch sales;
+    private final IdWatch refunds;
+    private FileTime rebuiltAt;
+
+    private SalesChangeMonitor(SalesCubeDAO.LatestIds latest) {
+        this.sales = new IdWatch(latest.saleId());
+        this.refunds = new IdWatch(latest.refundId());
+        this.rebuiltAt = ReportCache.readRebuildMarker();
+    }
+
+    /**
+     * Démarrer la surveillance (lecture immédiate des derniers identifiants: à
+     * appeler hors du thread JavaFX, avant le chargement du cube)
+     */
+    public static synchronized SalesChangeMonitor start() {
+        if (instance == null) {
+            SalesCubeDAO.LatestIds latest = new SalesCubeDAO().findLatestIds();
+            if (latest == null)
+                return null; // Base indisponible: le cube se recharge au prochain démarrage
+
+            instance = new SalesChangeMonitor(latest);
+            SaleEventBus.getInstance().subscribe(instance);
+            instance.task = BackgroundScheduler.scheduleWithFixedDelay("ventes des autres postes", instance::check,
+                    CHECK_SECONDS, CHECK_SECONDS, TimeUnit.SECONDS);
+        }
+        return instance;
+    }
+
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            SaleEventBus.getInstance().unsubscribe(instance);
+            instance.task.cancel(false);
+            instance = null;
+        }
+    }
+
+    // ========== Événements de ce poste ==========
+
+    @Override
+    public synchronized void saleCompleted(Sale sale) {
+        sales.seen(sale.getId());
+    }
+
+    @Override
+    public synchronized void saleRefunded(Sale sale, Refund refund) {
+        refunds.seen(refund.getId());
+    }
+
+    // ========== Vérification ==========
+
+    private void check() {
+        int saleHorizon;
+        int refundHorizon;
+        synchronized (this) {
+            saleHorizon = sales.horizon;
+            refundHorizon = refunds.horizon;
+        }
+
+        FileTime marker = ReportCache.readRebuildMarker();
+        SalesCubeDAO.RecentIds recent = cubeDAO.findIdsAfter(saleHorizon, refundHorizon);
+        if (recent == null)
+            return; // Base indisponible: nouvel essai à la prochaine vérification
+
+        boolean rebuilt;
+        boolean changed;
+        synchronized (this) {
+            rebuilt = !Objects.equals(marker, rebuiltAt);
+            rebuiltAt = marker;
+            // Les deux mises à jour ont lieu, même si la première signale déjà un changement
+            boolean newSales = sales.update(recent.saleIds());
+            boolean newRefunds = refunds.update(recent.refundIds());
+            changed = newSales || newRefunds;
+        }
+        if (!rebuilt && !changed)
+            return;
+
+        System.out.println(rebuilt
+                ? "🔄 Agrégats de ventes reconstruits: rechargement du cube et du classement des produits"
+                : "🔄 Ventes enregistrées sur un autre poste: rechargement du cube et du classement des produits");
+        SalesCube cube = SalesCube.getInstance();
+        if (cube != null) {
+            cube.reloadInBackground();
+        }
+        TopProductsTracker tracker = TopProductsTracker.getInstance();
+        if (tracker != null) {
+            tracker.reseedInBackground();
+        }
+    }
+}
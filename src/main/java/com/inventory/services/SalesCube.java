@@ -0,0 +1,593 @@
+package com.inventory.services;
+
+import com.inventory.dao.ProductDAO;
+import com.inventory.dao.SalesCubeDAO;
+import com.inventory.models.Product;
+import com.inventory.models.Refund;
+import com.inventory.models.ReportEntry;
+import com.inventory.models.ReportPeriod;
+import com.inventory.models.ReportSummary;
+import com.inventory.models.Sale;
+import com.inventory.models.SaleItem;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cube des ventes en mémoire: jour × catégorie × mode de paiement × caissier.
+ *
+ * Chargé au démarrage depuis les agrégats journaliers puis tenu à jour par
+ * les événements de vente de ce poste (et rechargé quand d'autres postes en
+ * enregistrent, voir {@link SalesChangeMonitor}), il répond à toute
+ * combinaison de période et de filtres sans requête. Deux familles de cellules sont conservées: les ventes
+ * (jour × paiement × caissier) pour les montants encaissés, et les lignes
+ * (jour × catégorie × paiement × caissier) dès qu'un filtre ou une
+ * répartition par catégorie est demandé, car une vente peut toucher plusieurs
+ * catégories. Les montants sont stockés en centimes.
+ */
+public final class SalesCube implements SaleEventBus.Listener {
+
+    /**
+     * Filtres d'une interrogation du cube (null = pas de filtre)
+     */
+    public static final class Slice {
+        private static final Slice ALL = new Slice(null, null, null);
+
+        private final Integer categoryId;
+        private final String paymentMethod;
+        private final Integer userId;
+
+        private Slice(Integer categoryId, String paymentMethod, Integer userId) {
+            this.categoryId = categoryId;
+            this.paymentMethod = paymentMethod;
+            this.userId = userId;
+        }
+
+        public static Slice all() {
+            return ALL;
+        }
+
+        public Slice withCategory(Integer categoryId) {
+            return new Slice(categoryId, paymentMethod, userId);
+        }
+
+        public Slice withPaymentMethod(String paymentMethod) {
+            return new Slice(categoryId, paymentMethod, userId);
+        }
+
+        public Slice withCashier(Integer userId) {
+            return new Slice(categoryId, paymentMethod, userId);
+        }
+
+        private boolean matches(SaleKey key) {
+            return (paymentMethod == null || paymentMethod.equals(key.paymentMethod()))
+                    && (userId == null || userId == key.userId());
+        }
+
+        private boolean matches(LineKey key) {
+            return (categoryId == null || categoryId == key.categoryId())
+                    && (paymentMethod == null || paymentMethod.equals(key.paymentMethod()))
+                    && (userId == null || userId == key.userId());
+        }
+    }
+
+    private record SaleKey(String paymentMethod, int userId) {
+    }
+
+    private record LineKey(int categoryId, String paymentMethod, int userId) {
+    }
+
+    // Événement reçu pendant le chargement (refund null = vente terminée)
+    private record Event(Sale sale, Refund refund) {
+    }
+
+    // Mesures d'une cellule: nombre de ventes, unités, montant en centimes
+    private static final class Measures {
+        long saleCount;
+        long units;
+        long cents;
+
+        void add(long saleCount, long units, long cents) {
+            this.saleCount += saleCount;
+            this.units += units;
+            this.cents += cents;
+        }
+
+        boolean isEmpty() {
+            return saleCount == 0 && units == 0 && cents == 0;
+        }
+    }
+
+    private static final class DayCells {
+        final Map<SaleKey, Measures> sales = new HashMap<>();
+        final Map<LineKey, Measures> lines = new HashMap<>();
+    }
+
+    private static SalesCube instance;
+
+    private final SalesCubeDAO cubeDAO = new SalesCubeDAO();
+    private final ProductDAO productDAO = new ProductDAO();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Protégés par le verrou
+    private NavigableMap<Long, DayCells> days = new TreeMap<>();
+    private Map<Integer, Integer> productCategories = new HashMap<>();
+    private Map<Integer, String> categoryNames = new HashMap<>();
+    private Map<Integer, String> userNames = new HashMap<>();
+    private Set<Integer> appliedRefundIds = new HashSet<>();
+    private SalesCubeDAO.Snapshot snapshot;
+    private boolean ready;
+
+    // Événements reçus pendant le chargement, appliqués ensuite
+    private final List<Event> pendingEvents = new ArrayList<>();
+
+    // Un seul chargement à la fois; une demande reçue pendant un chargement en relance un
+    private final Object reloadLock = new Object();
+    private boolean reloading;
+    private boolean reloadRequested;
+
+    private SalesCube() {
+    }
+
+    /**
+     * Démarrer le cube: abonnement aux ventes puis chargement en arrière-plan
+     */
+    public static synchronized SalesCube start() {
+        if (instance == null) {
+            instance = new SalesCube();
+            SaleEventBus.getInstance().subscribe(instance);
+            instance.reloadInBackground();
+        }
+        return instance;
+    }
+
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            SaleEventBus.getInstance().unsubscribe(instance);
+            instance = null;
+        }
+    }
+
+    /**
+     * Obtenir le cube démarré, ou null s'il ne l'est pas
+     */
+    public static synchronized SalesCube getInstance() {
+        return instance;
+    }
+
+    /**
+     * Le cube est chargé et peut répondre aux interrogations
+     */
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recharger le cube depuis la base (après une reconstruction des agrégats, par exemple)
+     */
+    public void reloadInBackground() {
+        synchronized (reloadLock) {
+            if (reloading) {
+                reloadRequested = true;
+                return;
+            }
+            reloading = true;
+        }
+        Thread loader = new Thread(() -> {
+            while (true) {
+                reload();
+                synchronized (reloadLock) {
+                    if (!reloadRequested) {
+                        reloading = false;
+                        return;
+                    }
+                    reloadRequested = false;
+                }
+            }
+        }, "sales-cube-loader");
+        loader.setDaemon(true);
+        loader.setPriority(Thread.MIN_PRIORITY);
+        loader.start();
+    }
+
+    private void reload() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.currentTimeMillis();
+        NavigableMap<Long, DayCells> loaded = new TreeMap<>();
+        SalesCubeDAO.Snapshot snapshot = cubeDAO.load(new SalesCubeDAO.Visitor() {
+            @Override
+            public void sale(LocalDate day, String paymentMethod, int userId, int saleCount, BigDecimal revenue,
+                    int unitsSold) {
+                cells(loaded, day).sales.computeIfAbsent(new SaleKey(paymentMethod, userId), k -> new Measures())
+                        .add(saleCount, unitsSold, toCents(revenue));
+            }
+
+            @Override
+            public void line(LocalDate day, int categoryId, String paymentMethod, int userId, int saleCount,
+                    int unitsSold, BigDecimal revenue) {
+                cells(loaded, day).lines
+                        .computeIfAbsent(new LineKey(categoryId, paymentMethod, userId), k -> new Measures())
+                        .add(saleCount, unitsSold, toCents(revenue));
+            }
+        });
+        if (snapshot == null)
+            return; // Base indisponible: les rapports restent servis par la base
+
+        lock.writeLock().lock();
+        try {
+            days = loaded;
+            productCategories = new HashMap<>(snapshot.getProductCategories());
+            categoryNames = new HashMap<>(snapshot.getCategoryNames());
+            userNames = new HashMap<>(snapshot.getUserNames());
+            appliedRefundIds = new HashSet<>(snapshot.getRefundIds());
+            this.snapshot = snapshot;
+            ready = true;
+
+            for (Event event : pendingEvents) {
+                if (event.refund() == null) {
+                    applyCompleted(event.sale());
+                } else {
+                    applyRefunded(event.sale(), event.refund());
+                }
+            }
+            pendingEvents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Les rapports calculés avant le rechargement ont pu lire d'autres agrégats
+        ReportCache.getInstance().invalidateAll();
+        System.out.println("🧊 Cube des ventes chargé: " + loaded.size() + " jours en "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // ========== Événements ==========
+
+    @Override
+    public void saleCompleted(Sale sale) {
+        // Catégories résolues hors verrou: un produit inconnu nécessite une requête
+        resolveCategories(sale, null);
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                pendingEvents.add(new Event(sale, null));
+            } else {
+                applyCompleted(sale);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saleRefunded(Sale sale, Refund refund) {
+        resolveCategories(sale, refund);
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                pendingEvents.add(new Event(sale, refund));
+            } else {
+                applyRefunded(sale, refund);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Un produit a été créé ou modifié: catégorie de ses ventes suivantes
+     */
+    public void productChanged(int productId, int categoryId) {
+        lock.writeLock().lock();
+        try {
+            productCategories.put(productId, categoryId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Une catégorie a été renommée
+     */
+    public void categoryChanged(int categoryId, String name) {
+        lock.writeLock().lock();
+        try {
+            categoryNames.put(categoryId, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyCompleted(Sale sale) {
+        // Les ventes visibles au chargement sont déjà dans les agrégats lus
+        if (snapshot.containsSale(sale.getId()) || !"COMPLETED".equals(sale.getStatus()))
+            return;
+        apply(sale, 1);
+    }
+
+    /**
+     * Retirer les lignes retournées; une annulation complète retire aussi la vente
+     * de ses cellules (et le reliquat de son total, compris dans getRevenueAmount())
+     */
+    private void applyRefunded(Sale sale, Refund refund) {
+        // Les retours visibles au chargement sont déjà déduits des agrégats lus
+        if (!appliedRefundIds.add(refund.getId()))
+            return;
+
+        DayCells cells = cells(days, sale.getCreatedAt().toLocalDate());
+        int count = refund.isSaleCancelled() ? 1 : 0;
+
+        int units = 0;
+        Map<Integer, long[]> byCategory = new HashMap<>();
+        if (count > 0) {
+            for (SaleItem item : sale.getItems()) {
+                byCategory.computeIfAbsent(productCategories.getOrDefault(item.getProductId(), 0), k -> new long[2]);
+            }
+        }
+        for (Refund.Line line : refund.getLines()) {
+            units += line.quantity();
+            long[] measures = byCategory.computeIfAbsent(productCategories.getOrDefault(line.productId(), 0),
+                    k -> new long[2]);
+            measures[0] += line.quantity();
+            measures[1] += toCents(line.amount());
+        }
+
+        cells.sales.computeIfAbsent(new SaleKey(sale.getPaymentMethod(), sale.getUserId()), k -> new Measures())
+                .add(-count, -units, -toCents(refund.getRevenueAmount()));
+        for (Map.Entry<Integer, long[]> line : byCategory.entrySet()) {
+            cells.lines.computeIfAbsent(new LineKey(line.getKey(), sale.getPaymentMethod(), sale.getUserId()),
+                    k -> new Measures())
+                    .add(-count, -line.getValue()[0], -line.getValue()[1]);
+        }
+    }
+
+    private void apply(Sale sale, int sign) {
+        DayCells cells = cells(days, sale.getCreatedAt().toLocalDate());
+
+        int units = 0;
+        Map<Integer, long[]> byCategory = new HashMap<>();
+        for (SaleItem item : sale.getItems()) {
+            units += item.getQuantity();
+            long[] line = byCategory.computeIfAbsent(productCategories.getOrDefault(item.getProductId(), 0),
+                    k -> new long[2]);
+            line[0] += item.getQuantity();
+            line[1] += toCents(item.getSubtotal());
+        }
+
+        cells.sales.computeIfAbsent(new SaleKey(sale.getPaymentMethod(), sale.getUserId()), k -> new Measures())
+                .add(sign, (long) sign * units, sign * toCents(sale.getTotalAmount()));
+        for (Map.Entry<Integer, long[]> line : byCategory.entrySet()) {
+            cells.lines.computeIfAbsent(new LineKey(line.getKey(), sale.getPaymentMethod(), sale.getUserId()),
+                    k -> new Measures())
+                    .add(sign, sign * line.getValue()[0], sign * line.getValue()[1]);
+        }
+    }
+
+    private void resolveCategories(Sale sale, Refund refund) {
+        List<Integer> productIds = new ArrayList<>();
+        for (SaleItem item : sale.getItems()) {
+            productIds.add(item.getProductId());
+        }
+        if (refund != null) {
+            for (Refund.Line line : refund.getLines()) {
+                productIds.add(line.productId());
+            }
+        }
+        for (int productId : productIds) {
+            boolean known;
+            lock.readLock().lock();
+            try {
+                known = productCategories.containsKey(productId);
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (!known) {
+                int categoryId = productDAO.findById(productId).map(Product::getCategoryId).orElse(0);
+                lock.writeLock().lock();
+                try {
+                    productCategories.put(productId, categoryId);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    // ========== Interrogations ==========
+
+    /**
+     * Chiffre d'affaires, nombre de ventes et unités vendues
+     */
+    public ReportSummary summary(ReportPeriod period, Slice slice) {
+        Measures total = new Measures();
+        lock.readLock().lock();
+        try {
+            for (DayCells cells : range(period).values()) {
+                accumulate(cells, slice, key -> total);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new ReportSummary(fromCents(total.cents), (int) total.saleCount, (int) total.units);
+    }
+
+    /**
+     * Ventes par jour ou par semaine (intervalles de {@link ReportPeriod#getBuckets()})
+     */
+    public List<ReportEntry> trend(ReportPeriod period, Slice slice) {
+        Map<LocalDate, Measures> buckets = new LinkedHashMap<>();
+        for (LocalDate bucket : period.getBuckets()) {
+            buckets.put(bucket, new Measures());
+        }
+
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Long, DayCells> day : range(period).entrySet()) {
+                Measures bucket = buckets.get(period.bucketOf(LocalDate.ofEpochDay(day.getKey())));
+                accumulate(day.getValue(), slice, key -> bucket);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<ReportEntry> entries = new ArrayList<>(buckets.size());
+        for (Map.Entry<LocalDate, Measures> bucket : buckets.entrySet()) {
+            entries.add(toEntry(period.getBucketLabel(bucket.getKey()), bucket.getValue()));
+        }
+        return entries;
+    }
+
+    /**
+     * Répartition par catégorie (montants des lignes)
+     */
+    public List<ReportEntry> byCategory(ReportPeriod period, Slice slice) {
+        Map<Integer, Measures> groups = new HashMap<>();
+        Map<Integer, String> names;
+        lock.readLock().lock();
+        try {
+            for (DayCells cells : range(period).values()) {
+                for (Map.Entry<LineKey, Measures> cell : cells.lines.entrySet()) {
+                    if (slice.matches(cell.getKey())) {
+                        Measures m = cell.getValue();
+                        groups.computeIfAbsent(cell.getKey().categoryId(), k -> new Measures())
+                                .add(m.saleCount, m.units, m.cents);
+                    }
+                }
+            }
+            names = categoryNames;
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Comme ReportDAO.findRevenueByCategory: quantité = unités vendues
+        return toEntries(groups, true,
+                id -> id == 0 ? "Sans catégorie" : names.getOrDefault(id, "Catégorie #" + id));
+    }
+
+    /**
+     * Répartition par mode de paiement
+     */
+    public List<ReportEntry> byPaymentMethod(ReportPeriod period, Slice slice) {
+        Map<String, Measures> groups = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (DayCells cells : range(period).values()) {
+                accumulate(cells, slice, key -> groups.computeIfAbsent(key.paymentMethod(), k -> new Measures()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toEntries(groups, false, Sale::getPaymentMethodDisplay);
+    }
+
+    /**
+     * Répartition par caissier
+     */
+    public List<ReportEntry> byCashier(ReportPeriod period, Slice slice) {
+        Map<Integer, Measures> groups = new HashMap<>();
+        Map<Integer, String> names;
+        lock.readLock().lock();
+        try {
+            for (DayCells cells : range(period).values()) {
+                accumulate(cells, slice, key -> groups.computeIfAbsent(key.userId(), k -> new Measures()));
+            }
+            names = userNames;
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toEntries(groups, false, id -> names.getOrDefault(id, "Utilisateur #" + id));
+    }
+
+    // ========== Utilitaires ==========
+
+    private interface GroupSelector {
+        Measures select(SaleKey key);
+    }
+
+    /**
+     * Ajouter les cellules d'un jour au groupe choisi: cellules de ventes sans
+     * filtre de catégorie, cellules de lignes sinon
+     */
+    private static void accumulate(DayCells cells, Slice slice, GroupSelector group) {
+        if (slice.categoryId == null) {
+            for (Map.Entry<SaleKey, Measures> cell : cells.sales.entrySet()) {
+                if (slice.matches(cell.getKey())) {
+                    Measures m = cell.getValue();
+                    group.select(cell.getKey()).add(m.saleCount, m.units, m.cents);
+                }
+            }
+        } else {
+            for (Map.Entry<LineKey, Measures> cell : cells.lines.entrySet()) {
+                if (slice.matches(cell.getKey())) {
+                    Measures m = cell.getValue();
+                    SaleKey key = new SaleKey(cell.getKey().paymentMethod(), cell.getKey().userId());
+                    group.select(key).add(m.saleCount, m.units, m.cents);
+                }
+            }
+        }
+    }
+
+    private NavigableMap<Long, DayCells> range(ReportPeriod period) {
+        return days.subMap(period.getFrom().toEpochDay(), true, period.getTo().toEpochDay(), true);
+    }
+
+    private static DayCells cells(NavigableMap<Long, DayCells> days, LocalDate day) {
+        return days.computeIfAbsent(day.toEpochDay(), k -> new DayCells());
+    }
+
+    private interface Labeler<K> {
+        String label(K key);
+    }
+
+    /**
+     * Entrées triées par montant décroissant; quantité = unités vendues ou nombre de ventes
+     */
+    private static <K> List<ReportEntry> toEntries(Map<K, Measures> groups, boolean unitsAsQuantity,
+            Labeler<K> labeler) {
+        List<ReportEntry> entries = new ArrayList<>();
+        for (Map.Entry<K, Measures> group : groups.entrySet()) {
+            if (!group.getValue().isEmpty()) {
+                ReportEntry entry = toEntry(labeler.label(group.getKey()), group.getValue());
+                if (unitsAsQuantity) {
+                    entry.setQuantity((int) group.getValue().units);
+                }
+                entries.add(entry);
+            }
+        }
+        entries.sort(Comparator.comparing(ReportEntry::getAmount).reversed());
+        return entries;
+    }
+
+    private static ReportEntry toEntry(String label, Measures measures) {
+        return new ReportEntry(label, (int) measures.saleCount, fromCents(measures.cents));
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).longValue();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,245 @@
+package com.inventory.services;
+
+import com.inventory.dao.StockMovementDAO;
+import com.inventory.models.StockMovement;
+import com.inventory.utils.LocalStorage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Écriture asynchrone du journal des mouvements de stock.
+ *
+ * Les mouvements sont déposés dans une file bornée et écrits par un thread
+ * dédié, en lots JDBC, dès que le lot est plein ou que le délai maximal est
+ * atteint: l'appelant ne paie jamais l'aller-retour vers la base.
+ *
+ * Si un lot est refusé, ses mouvements sont réécrits un par un: ceux que la
+ * base rejette (produit supprimé, par exemple) sont mis à l'écart dans un
+ * fichier local au lieu de bloquer la file; seule une base indisponible fait
+ * patienter le lot. Un mouvement qui ne trouve pas de place dans une file
+ * saturée est mis à l'écart dans le même fichier.
+ */
+public final class StockLedger {
+
+    private static final int CAPACITY = 10_000;
+    private static final int BATCH_SIZE = 200;
+    private static final long FLUSH_INTERVAL_MS = 500;
+    private static final long OFFER_TIMEOUT_MS = 50;
+    private static final long RETRY_DELAY_MS = 5_000;
+    private static final String REJECTED_FILE = "stock-movements-rejected.tsv";
+
+    // Marqueur d'arrêt: le thread d'écriture vide la file puis s'arrête
+    private static final StockMovement SHUTDOWN = new StockMovement();
+
+    private static StockLedger instance;
+
+    private final StockMovementDAO movementDAO = new StockMovementDAO();
+    private final BlockingQueue<StockMovement> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final Thread writer;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    // Mouvements acceptés mais pas encore écrits (file + lot en cours)
+    private final AtomicLong inFlight = new AtomicLong();
+
+    private StockLedger() {
+        this.writer = new Thread(this::run, "stock-ledger-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Obtenir le journal (le thread d'écriture démarre au premier appel)
+     */
+    public static synchronized StockLedger getInstance() {
+        if (instance == null) {
+            instance = new StockLedger();
+        }
+        return instance;
+    }
+
+    /**
+     * Écrire les mouvements en attente puis arrêter le thread d'écriture
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.queue.offer(SHUTDOWN);
+            try {
+                instance.writer.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            instance = null;
+        }
+    }
+
+    /**
+     * Enregistrer un mouvement (non bloquant sauf si la file est pleine; mis à l'écart si elle le reste)
+     */
+    public void record(StockMovement movement) {
+        inFlight.incrementAndGet();
+        try {
+            if (queue.offer(movement) || queue.offer(movement, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+                return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        inFlight.decrementAndGet();
+        dropped.incrementAndGet();
+        System.err.println("❌ Journal de stock saturé, mouvement mis à l'écart: " + movement);
+        appendRejected(List.of(movement));
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Mouvements refusés par la base, mis à l'écart dans le fichier des rejets
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Attendre que tous les mouvements déjà enregistrés soient écrits en base
+     *
+     * @return false si le délai est écoulé avant
+     */
+    public boolean awaitDrained(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (inFlight.get() > 0) {
+            if (System.currentTimeMillis() >= deadline)
+                return false;
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void run() {
+        List<StockMovement> batch = new ArrayList<>(BATCH_SIZE);
+        boolean running = true;
+
+        while (running) {
+            try {
+                // Attendre le premier mouvement, puis compléter le lot jusqu'au seuil ou au délai
+                if (batch.isEmpty()) {
+                    StockMovement first = queue.take();
+                    if (first == SHUTDOWN) {
+                        break;
+                    }
+                    batch.add(first);
+                }
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS);
+                while (batch.size() < BATCH_SIZE) {
+                    long remaining = deadline - System.nanoTime();
+                    StockMovement next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null)
+                        break;
+                    if (next == SHUTDOWN) {
+                        running = false;
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                if (!write(batch) && running) {
+                    // Base indisponible: conserver le reste du lot et réessayer plus tard
+                    Thread.sleep(RETRY_DELAY_MS);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+
+        // Dernière tentative pour ce qui reste à l'arrêt
+        queue.drainTo(batch);
+        batch.remove(SHUTDOWN);
+        if (!batch.isEmpty() && !write(batch)) {
+            System.err.println("⚠️ Mouvements de stock non écrits à l'arrêt: " + batch.size());
+        }
+    }
+
+    /**
+     * Écrire le lot, ou ligne par ligne s'il est refusé; les mouvements traités sont retirés du lot
+     *
+     * @return false s'il reste des mouvements à écrire (base indisponible)
+     */
+    private boolean write(List<StockMovement> batch) {
+        if (movementDAO.insertBatch(batch)) {
+            written.addAndGet(batch.size());
+            inFlight.addAndGet(-batch.size());
+            batch.clear();
+            return true;
+        }
+
+        List<StockMovement> refused = new ArrayList<>();
+        int processed = movementDAO.insertEach(batch, refused);
+        if (!refused.isEmpty()) {
+            deadLetter(refused);
+        }
+        written.addAndGet(processed - refused.size());
+        inFlight.addAndGet(-processed);
+        batch.subList(0, processed).clear();
+        return batch.isEmpty();
+    }
+
+    /**
+     * Mettre à l'écart des mouvements refusés par la base (une ligne TSV chacun)
+     */
+    private void deadLetter(List<StockMovement> movements) {
+        rejected.addAndGet(movements.size());
+        appendRejected(movements);
+    }
+
+    /**
+     * Ajouter des mouvements au fichier des rejets (partagé par le thread d'écriture et les appelants de record)
+     */
+    private synchronized void appendRejected(List<StockMovement> movements) {
+        Path file = LocalStorage.file(REJECTED_FILE);
+        StringBuilder lines = new StringBuilder();
+        for (StockMovement movement : movements) {
+            lines.append(LocalDateTime.now()).append('\t')
+                    .append(movement.getCreatedAt()).append('\t')
+                    .append(movement.getProductId()).append('\t')
+                    .append(movement.getUserId()).append('\t')
+                    .append(movement.getMovementType()).append('\t')
+                    .append(movement.getQuantity()).append('\t')
+                    .append(movement.getReferenceId()).append('\t')
+                    .append(String.valueOf(movement.getReason()).replaceAll("[\t\r\n]", " ")).append('\n');
+        }
+        try {
+            Files.writeString(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+            System.err.println("⚠️ " + movements.size() + " mouvement(s) de stock refusé(s), mis à l'écart dans " + file);
+        } catch (IOException e) {
+            System.err.println("❌ Erreur écriture des mouvements refusés: " + e.getMessage());
+        }
+    }
+}
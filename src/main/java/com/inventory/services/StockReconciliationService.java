@@ -0,0 +1,201 @@
+package com.inventory.services;
+
+import com.inventory.dao.StockReconciliationDAO;
+import com.inventory.models.StockDiscrepancy;
+import com.inventory.utils.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Réconciliation entre la quantité des produits et la somme de leurs mouvements de stock.
+ *
+ * Le catalogue est découpé en tranches d'identifiants vérifiées en parallèle,
+ * chacune sur sa propre connexion du pool; les sommes du journal sont calculées
+ * côté serveur par tranche, jamais produit par produit. Les écarts sont soit
+ * signalés, soit corrigés par des mouvements ADJUSTMENT: le journal rejoint
+ * alors products.quantity, qui reste la référence.
+ */
+public final class StockReconciliationService {
+
+    // Tranches au moins aussi larges, et environ quatre par thread pour équilibrer la charge
+    private static final int MIN_RANGE_SIZE = 500;
+    private static final int RANGES_PER_THREAD = 4;
+    private static final long LEDGER_DRAIN_TIMEOUT_MS = 10_000;
+
+    private final StockReconciliationDAO reconciliationDAO = new StockReconciliationDAO();
+
+    /**
+     * Résultat d'une réconciliation
+     */
+    public static final class Report {
+        private final int productsChecked;
+        private final List<StockDiscrepancy> discrepancies;
+        private final int corrected;
+        private final int failedRanges;
+        private final long elapsedMillis;
+
+        Report(int productsChecked, List<StockDiscrepancy> discrepancies, int corrected, int failedRanges,
+                long elapsedMillis) {
+            this.productsChecked = productsChecked;
+            this.discrepancies = Collections.unmodifiableList(discrepancies);
+            this.corrected = corrected;
+            this.failedRanges = failedRanges;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getProductsChecked() {
+            return productsChecked;
+        }
+
+        public List<StockDiscrepancy> getDiscrepancies() {
+            return discrepancies;
+        }
+
+        public int getCorrected() {
+            return corrected;
+        }
+
+        public int getFailedRanges() {
+            return failedRanges;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public boolean isComplete() {
+            return failedRanges == 0;
+        }
+
+        @Override
+        public String toString() {
+            return productsChecked + " produits vérifiés en " + elapsedMillis + " ms, "
+                    + discrepancies.size() + " écarts, " + corrected + " corrigés"
+                    + (failedRanges > 0 ? ", " + failedRanges + " tranches en erreur" : "");
+        }
+    }
+
+    /**
+     * Signaler les écarts sans rien modifier
+     */
+    public Report check() {
+        return reconcile(false, 0);
+    }
+
+    /**
+     * Vérifier tout le catalogue et, si demandé, corriger les écarts au nom d'un utilisateur
+     */
+    public Report reconcile(boolean autoCorrect, int userId) {
+        long start = System.currentTimeMillis();
+
+        // Les modifications manuelles passent par le journal asynchrone: attendre qu'il soit écrit
+        if (!StockLedger.getInstance().awaitDrained(LEDGER_DRAIN_TIMEOUT_MS)) {
+            System.err.println("⚠️ Journal de stock non vidé, des écarts transitoires peuvent apparaître");
+        }
+
+        int[] bounds;
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null)
+            return new Report(0, new ArrayList<>(), 0, 1, System.currentTimeMillis() - start);
+
+        try (conn) {
+            bounds = reconciliationDAO.findIdBounds(conn);
+        } catch (SQLException e) {
+            System.err.println("❌ Erreur réconciliation du stock: " + e.getMessage());
+            return new Report(0, new ArrayList<>(), 0, 1, System.currentTimeMillis() - start);
+        }
+        if (bounds == null) {
+            return new Report(0, new ArrayList<>(), 0, 0, System.currentTimeMillis() - start);
+        }
+
+        // Garder une connexion libre pour l'interface pendant la vérification
+        int threads = Math.max(1, DatabaseConnection.getPoolSize() - 1);
+        List<int[]> ranges = split(bounds[0], bounds[1], threads);
+
+        AtomicInteger checked = new AtomicInteger();
+        AtomicInteger corrected = new AtomicInteger();
+        List<StockDiscrepancy> discrepancies = Collections.synchronizedList(new ArrayList<>());
+        int failedRanges = 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, ranges.size()), r -> {
+            Thread thread = new Thread(r, "stock-reconciliation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(ranges.size());
+            for (int[] range : ranges) {
+                futures.add(executor.submit(() -> {
+                    reconcileRange(range[0], range[1], autoCorrect, userId, checked, corrected, discrepancies);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    failedRanges++;
+                    System.err.println("❌ Erreur réconciliation du stock: " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedRanges++;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<StockDiscrepancy> sorted = new ArrayList<>(discrepancies);
+        sorted.sort(Comparator.comparingInt(StockDiscrepancy::getProductId));
+        Report report = new Report(checked.get(), sorted, corrected.get(), failedRanges,
+                System.currentTimeMillis() - start);
+        System.out.println("🔎 Réconciliation du stock: " + report);
+        return report;
+    }
+
+    private void reconcileRange(int fromId, int toId, boolean autoCorrect, int userId, AtomicInteger checked,
+            AtomicInteger corrected, List<StockDiscrepancy> discrepancies) throws SQLException {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null)
+            throw new SQLException("Connexion indisponible");
+
+        try (conn) {
+            checked.addAndGet(reconciliationDAO.countProducts(conn, fromId, toId));
+            List<StockDiscrepancy> found = reconciliationDAO.findDiscrepancies(conn, fromId, toId);
+            if (found.isEmpty())
+                return;
+
+            if (autoCorrect) {
+                List<StockDiscrepancy> fixed = reconciliationDAO.correctDiscrepancies(conn, found, userId);
+                corrected.addAndGet(fixed.size());
+                discrepancies.addAll(fixed);
+            } else {
+                discrepancies.addAll(found);
+            }
+        }
+    }
+
+    /**
+     * Découper [minId, maxId] en tranches contiguës
+     */
+    private static List<int[]> split(int minId, int maxId, int threads) {
+        long span = (long) maxId - minId + 1;
+        long rangeSize = Math.max(MIN_RANGE_SIZE, (span + threads * RANGES_PER_THREAD - 1) / (threads * RANGES_PER_THREAD));
+
+        List<int[]> ranges = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += rangeSize) {
+            ranges.add(new int[] { (int) from, (int) Math.min(maxId, from + rangeSize - 1) });
+        }
+        return ranges;
+    }
+}
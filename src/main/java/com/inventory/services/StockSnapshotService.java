@@ -0,0 +1,104 @@
+package com.inventory.services;
+
+import com.inventory.dao.StockSnapshotDAO;
+import com.inventory.models.StockSnapshot;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instantanés périodiques du stock et stock à une date passée.
+ *
+ * Un instantané est pris dès que le dernier date de plus d'un jour; le stock
+ * à une date ne rejoue ainsi que les mouvements d'au plus une journée, quelle
+ * que soit la taille du journal.
+ */
+public final class StockSnapshotService {
+
+    private static final Duration SNAPSHOT_INTERVAL = Duration.ofDays(1);
+    private static final Duration RETENTION = Duration.ofDays(400);
+    private static final long CHECK_MINUTES = 60;
+    private static final long INITIAL_DELAY_MINUTES = 1;
+
+    private static StockSnapshotService instance;
+
+    private final StockSnapshotDAO snapshotDAO = new StockSnapshotDAO();
+    private final ScheduledExecutorService executor;
+
+    private StockSnapshotService() {
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stock-snapshot");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Démarrer la prise d'instantanés périodique
+     */
+    public static synchronized StockSnapshotService start() {
+        if (instance == null) {
+            instance = new StockSnapshotService();
+            instance.executor.scheduleWithFixedDelay(instance::snapshotIfDue,
+                    INITIAL_DELAY_MINUTES, CHECK_MINUTES, TimeUnit.MINUTES);
+        }
+        return instance;
+    }
+
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.executor.shutdownNow();
+            instance = null;
+        }
+    }
+
+    /**
+     * Stock de tous les produits au début d'une journée (product_id -> quantité)
+     */
+    public Map<Integer, Integer> quantitiesOn(LocalDate date) {
+        return snapshotDAO.findQuantitiesAt(date.atStartOfDay());
+    }
+
+    /**
+     * Stock de tous les produits à un instant donné (product_id -> quantité)
+     */
+    public Map<Integer, Integer> quantitiesAt(LocalDateTime at) {
+        return snapshotDAO.findQuantitiesAt(at);
+    }
+
+    /**
+     * Stock d'un produit à un instant donné
+     */
+    public int quantityAt(int productId, LocalDateTime at) {
+        return snapshotDAO.findQuantityAt(productId, at);
+    }
+
+    /**
+     * Prendre immédiatement un instantané
+     */
+    public Optional<StockSnapshot> takeSnapshot() {
+        Optional<StockSnapshot> snapshot = snapshotDAO.create();
+        snapshot.ifPresent(s -> System.out.println("📸 Instantané de stock: " + s.getProductCount() + " produits"));
+        return snapshot;
+    }
+
+    private void snapshotIfDue() {
+        try {
+            Optional<StockSnapshot> latest = snapshotDAO.findLatest();
+            boolean due = latest.isEmpty()
+                    || latest.get().getTakenAt().isBefore(LocalDateTime.now().minus(SNAPSHOT_INTERVAL));
+            if (due && takeSnapshot().isPresent()) {
+                snapshotDAO.deleteOlderThan(LocalDateTime.now().minus(RETENTION));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("❌ Erreur instantané de stock: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.inventory.services;
+
+import com.inventory.dao.ReportDAO;
+import com.inventory.models.Refund;
+import com.inventory.models.ReportEntry;
+import com.inventory.models.ReportPeriod;
+import com.inventory.models.Sale;
+import com.inventory.models.SaleItem;
+import com.inventory.utils.SpaceSavingSketch;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classement en direct des produits les plus vendus (en unités) pour
+ * aujourd'hui, cette semaine et ce mois.
+ *
+ * Chaque fenêtre tient un {@link SpaceSavingSketch} de {@link #CAPACITY}
+ * compteurs: la mémoire reste bornée quel que soit le nombre de produits.
+ * La fenêtre est amorcée depuis la base avec le compte exact de ses
+ * {@link #CAPACITY} meilleurs produits, puis suivie par les événements de
+ * vente. Pour N unités vendues sur la fenêtre, les quantités affichées
+ * surestiment les quantités réelles d'au plus N / CAPACITY, et tout produit
+ * ayant dépassé N / CAPACITY unités figure dans le classement. Les montants
+ * d'un produit entré dans le classement après l'amorçage ne comptent que ses
+ * ventes depuis son entrée.
+ *
+ * Une fenêtre est vidée puis réamorcée au changement de période (minuit,
+ * lundi, premier du mois), et toutes le sont quand d'autres postes
+ * enregistrent des ventes (voir {@link SalesChangeMonitor}); pendant
+ * l'amorçage, le classement est servi par la base.
+ */
+public final class TopProductsTracker implements SaleEventBus.Listener {
+
+    /**
+     * Nombre de compteurs par fenêtre
+     */
+    public static final int CAPACITY = 256;
+
+    /**
+     * Fenêtres suivies
+     */
+    public enum Window {
+        TODAY, WEEK, MONTH;
+
+        ReportPeriod currentPeriod() {
+            return switch (this) {
+                case TODAY -> ReportPeriod.today();
+                case WEEK -> ReportPeriod.thisWeek();
+                case MONTH -> ReportPeriod.thisMonth();
+            };
+        }
+    }
+
+    // Événement reçu pendant l'amorçage (refund null = vente terminée)
+    private record Event(Sale sale, Refund refund) {
+    }
+
+    private static final class WindowState {
+        final Window window;
+        final SpaceSavingSketch<Integer> sketch = new SpaceSavingSketch<>(CAPACITY);
+        // Événements reçus pendant l'amorçage
+        final List<Event> pendingEvents = new ArrayList<>();
+        LocalDate from;
+        // Ventes et retours déjà comptés par l'amorçage
+        ReportDAO.TopProductsSeed seed;
+        long generation;
+        boolean seeding;
+        boolean ready;
+
+        WindowState(Window window) {
+            this.window = window;
+        }
+    }
+
+    private static TopProductsTracker instance;
+
+    private final ReportDAO reportDAO = new ReportDAO();
+    private final Map<Window, WindowState> windows = new EnumMap<>(Window.class);
+
+    private TopProductsTracker() {
+        for (Window window : Window.values()) {
+            windows.put(window, new WindowState(window));
+        }
+    }
+
+    /**
+     * Démarrer le suivi: abonnement aux ventes puis amorçage des fenêtres en arrière-plan
+     */
+    public static synchronized TopProductsTracker start() {
+        if (instance == null) {
+            instance = new TopProductsTracker();
+            SaleEventBus.getInstance().subscribe(instance);
+            synchronized (instance) {
+                for (WindowState state : instance.windows.values()) {
+                    instance.roll(state);
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            SaleEventBus.getInstance().unsubscribe(instance);
+            instance = null;
+        }
+    }
+
+    /**
+     * Obtenir le suivi démarré, ou null s'il ne l'est pas
+     */
+    public static synchronized TopProductsTracker getInstance() {
+        return instance;
+    }
+
+    // ========== Événements ==========
+
+    @Override
+    public synchronized void saleCompleted(Sale sale) {
+        for (WindowState state : windows.values()) {
+            rollIfNeeded(state);
+            if (!state.ready) {
+                state.pendingEvents.add(new Event(sale, null));
+            } else {
+                applyCompleted(state, sale);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void saleRefunded(Sale sale, Refund refund) {
+        for (WindowState state : windows.values()) {
+            rollIfNeeded(state);
+            if (!state.ready) {
+                state.pendingEvents.add(new Event(sale, refund));
+            } else {
+                applyRefunded(state, sale, refund);
+            }
+        }
+    }
+
+    private void applyCompleted(WindowState state, Sale sale) {
+        // Les ventes visibles à l'amorçage sont déjà comptées
+        if (state.seed.containsSale(sale.getId()) || !"COMPLETED".equals(sale.getStatus()) || !inWindow(state, sale))
+            return;
+
+        for (SaleItem item : sale.getItems()) {
+            state.sketch.offer(item.getProductId(), item.getQuantity(), item.getProductName(),
+                    toCents(item.getSubtotal()));
+        }
+    }
+
+    private void applyRefunded(WindowState state, Sale sale, Refund refund) {
+        // Les retours visibles à l'amorçage sont déjà déduits
+        if (state.seed.containsRefund(refund.getId()) || !inWindow(state, sale))
+            return;
+
+        for (Refund.Line line : refund.getLines()) {
+            state.sketch.decrement(line.productId(), line.quantity(), toCents(line.amount()));
+        }
+    }
+
+    private static boolean inWindow(WindowState state, Sale sale) {
+        return sale.getCreatedAt() != null && !sale.getCreatedAt().toLocalDate().isBefore(state.from);
+    }
+
+    // ========== Amorçage ==========
+
+    /**
+     * Réamorcer toutes les fenêtres depuis la base (ventes enregistrées sur un autre poste)
+     */
+    public synchronized void reseedInBackground() {
+        for (WindowState state : windows.values()) {
+            roll(state);
+        }
+    }
+
+    private void rollIfNeeded(WindowState state) {
+        if (!state.window.currentPeriod().getFrom().equals(state.from)) {
+            roll(state);
+        } else if (!state.ready && !state.seeding) {
+            seedInBackground(state); // Nouvel essai après une base indisponible
+        }
+    }
+
+    /**
+     * Passer à la période courante de la fenêtre: vider le classement et le réamorcer
+     */
+    private void roll(WindowState state) {
+        state.from = state.window.currentPeriod().getFrom();
+        state.sketch.clear();
+        state.pendingEvents.clear();
+        state.ready = false;
+        state.generation++;
+        seedInBackground(state);
+    }
+
+    private void seedInBackground(WindowState state) {
+        state.seeding = true;
+        long generation = state.generation;
+        Thread seeder = new Thread(() -> seed(state, generation), "top-products-seeder");
+        seeder.setDaemon(true);
+        seeder.setPriority(Thread.MIN_PRIORITY);
+        seeder.start();
+    }
+
+    private void seed(WindowState state, long generation) {
+        ReportPeriod period;
+        synchronized (this) {
+            period = new ReportPeriod(state.from, LocalDate.now());
+        }
+
+        // Classement, unités et ventes comptées lus dans un même instantané:
+        // les ventes et retours absents de l'instantané arrivent par les événements
+        ReportDAO.TopProductsSeed seed = reportDAO.findTopProductsSeed(period, CAPACITY);
+
+        synchronized (this) {
+            if (generation != state.generation)
+                return; // Période changée entre-temps: un autre amorçage est en cours
+            state.seeding = false;
+            if (seed == null)
+                return; // Base indisponible: le classement reste servi par la base
+
+            for (ReportEntry entry : seed.getTopProducts()) {
+                state.sketch.seed(entry.getId(), entry.getQuantity(), entry.getLabel(), toCents(entry.getAmount()));
+            }
+            state.sketch.seedTotal(seed.getUnitsSold());
+            state.seed = seed;
+            state.ready = true;
+
+            for (Event event : state.pendingEvents) {
+                if (event.refund() == null) {
+                    applyCompleted(state, event.sale());
+                } else {
+                    applyRefunded(state, event.sale(), event.refund());
+                }
+            }
+            state.pendingEvents.clear();
+        }
+        System.out.println("🏆 Classement des produits amorcé (" + state.window + "): "
+                + seed.getTopProducts().size() + " produits");
+    }
+
+    // ========== Interrogations ==========
+
+    /**
+     * Les n produits les plus vendus de la période, ou null si la période
+     * n'est pas une fenêtre suivie ou si sa fenêtre n'est pas encore amorcée
+     */
+    public synchronized List<ReportEntry> top(ReportPeriod period, int n) {
+        WindowState state = stateOf(period);
+        if (state == null)
+            return null;
+
+        List<ReportEntry> entries = new ArrayList<>(n);
+        for (SpaceSavingSketch.Counter<Integer> counter : state.sketch.top(n)) {
+            String label = counter.getLabel() != null ? counter.getLabel() : "Produit #" + counter.getKey();
+            ReportEntry entry = new ReportEntry(label, (int) counter.getCount(), fromCents(counter.getAmountCents()));
+            entry.setId(counter.getKey());
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Surestimation maximale des quantités du classement de la période (N / CAPACITY),
+     * ou -1 si la période n'est pas suivie
+     */
+    public synchronized long getErrorBound(ReportPeriod period) {
+        WindowState state = stateOf(period);
+        return state == null ? -1 : state.sketch.getErrorBound();
+    }
+
+    private WindowState stateOf(ReportPeriod period) {
+        for (WindowState state : windows.values()) {
+            rollIfNeeded(state);
+            if (state.ready && state.window.currentPeriod().equals(period)) {
+                return state;
+            }
+        }
+        return null;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).longValue();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
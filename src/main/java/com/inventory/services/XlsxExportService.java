@@ -0,0 +1,175 @@
+package com.inventory.services;
+
+import com.inventory.dao.ExportDAO;
+import com.inventory.models.ReportPeriod;
+import com.inventory.utils.LocalStorage;
+import com.inventory.utils.XlsxStreamWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Export Excel pour la comptabilité: ventes, lignes de vente, valorisation
+ * du stock et mouvements de stock d'une période, une feuille chacun.
+ *
+ * Les lignes sont lues en flux (ExportDAO) et écrites aussitôt dans le
+ * classeur (XlsxStreamWriter): la mémoire utilisée ne dépend pas du nombre
+ * de lignes, même pour un million de lignes. Le type de chaque colonne
+ * (nombre, montant, date, texte) est déduit du résultat de la requête.
+ */
+public final class XlsxExportService {
+
+    private static final int PROGRESS_INTERVAL = 1_000;
+
+    private interface Sheet {
+        void stream(ExportDAO.RowVisitor visitor) throws SQLException, IOException;
+    }
+
+    private static XlsxExportService instance;
+
+    private final ExportDAO exportDAO = new ExportDAO();
+    private final ExecutorService executor;
+
+    private XlsxExportService() {
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "xlsx-export");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    public static synchronized XlsxExportService getInstance() {
+        if (instance == null) {
+            instance = new XlsxExportService();
+        }
+        return instance;
+    }
+
+    /**
+     * Arrêter le thread d'export (l'export en cours est abandonné)
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.executor.shutdownNow();
+            instance = null;
+        }
+    }
+
+    /**
+     * Exporter en arrière-plan le classeur comptable de la période. Le résultat est le nombre de lignes.
+     */
+    public ExportJob exportAccounting(ReportPeriod period, Path target, ExportJob.ProgressListener listener) {
+        ExportJob job = new ExportJob();
+        executor.execute(() -> {
+            try {
+                job.getResult().complete(write(period, target, listener, job));
+            } catch (IOException | SQLException | RuntimeException e) {
+                job.getResult().completeExceptionally(e);
+            }
+        });
+        return job;
+    }
+
+    private long write(ReportPeriod period, Path target, ExportJob.ProgressListener listener, ExportJob job)
+            throws SQLException, IOException {
+        long total = exportDAO.countSales(period) + exportDAO.countSaleItems(period) + exportDAO.countProducts()
+                + exportDAO.countMovements(period);
+        listener.progress(0, total);
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".part");
+        long[] rows = { 0 };
+        Runnable rowWritten = () -> {
+            if (++rows[0] % PROGRESS_INTERVAL == 0) {
+                listener.progress(rows[0], Math.max(total, rows[0]));
+            }
+        };
+
+        boolean done = false;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp));
+                XlsxStreamWriter workbook = new XlsxStreamWriter(out)) {
+            writeSheet(workbook, "Ventes", visitor -> exportDAO.streamSales(period, visitor), job, rowWritten);
+            writeSheet(workbook, "Lignes de vente", visitor -> exportDAO.streamSaleItems(period, visitor), job,
+                    rowWritten);
+            writeSheet(workbook, "Valorisation du stock", exportDAO::streamStockValuation, job, rowWritten);
+            writeSheet(workbook, "Mouvements de stock", visitor -> exportDAO.streamMovements(period, visitor), job,
+                    rowWritten);
+            done = true;
+        } finally {
+            if (!done) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        LocalStorage.moveAtomically(tmp, target);
+        listener.progress(rows[0], rows[0]);
+        return rows[0];
+    }
+
+    private void writeSheet(XlsxStreamWriter workbook, String name, Sheet sheet, ExportJob job, Runnable rowWritten)
+            throws SQLException, IOException {
+        sheet.stream(new ExportDAO.RowVisitor() {
+            private int[] types;
+
+            @Override
+            public void columns(ResultSetMetaData metaData) throws SQLException, IOException {
+                types = new int[metaData.getColumnCount()];
+                String[] headers = new String[types.length];
+                for (int i = 0; i < types.length; i++) {
+                    types[i] = metaData.getColumnType(i + 1);
+                    headers[i] = metaData.getColumnLabel(i + 1);
+                }
+                workbook.startSheet(name, headers);
+            }
+
+            @Override
+            public void visit(ResultSet rs) throws SQLException, IOException {
+                job.checkCancelled();
+                workbook.startRow();
+                for (int i = 0; i < types.length; i++) {
+                    writeCell(workbook, rs, i + 1, types[i]);
+                }
+                workbook.endRow();
+                rowWritten.run();
+            }
+        });
+        workbook.endSheet();
+    }
+
+    private static void writeCell(XlsxStreamWriter workbook, ResultSet rs, int column, int type)
+            throws SQLException, IOException {
+        switch (type) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> {
+                long value = rs.getLong(column);
+                if (rs.wasNull()) {
+                    workbook.emptyCell();
+                } else {
+                    workbook.cell(value);
+                }
+            }
+            case Types.DECIMAL, Types.NUMERIC -> workbook.amount(rs.getBigDecimal(column));
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> {
+                double value = rs.getDouble(column);
+                if (rs.wasNull()) {
+                    workbook.emptyCell();
+                } else {
+                    workbook.cell(value);
+                }
+            }
+            case Types.DATE -> workbook.cell(rs.getObject(column, LocalDate.class));
+            case Types.TIMESTAMP -> workbook.cell(rs.getObject(column, LocalDateTime.class));
+            default -> workbook.cell(rs.getString(column));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.inventory.tools;
+
+import com.inventory.utils.DownsampledSeries;
+import com.inventory.utils.Lttb;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.layout.StackPane;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Banc d'essai du rendu d'une courbe longue: série complète contre série
+ * réduite par LTTB à la largeur du graphique (mise en page et rendu d'un
+ * LineChart, plus le coût du sous-échantillonnage lui-même).
+ *
+ * Usage: java -cp target/classes:... com.inventory.tools.ChartDownsamplingBenchmark [largeur] [répétitions]
+ * (nécessite un affichage, comme l'application)
+ */
+public final class ChartDownsamplingBenchmark {
+
+    private static final int[] SIZES = { 365, 2_000, 8_760 };
+    private static final DateTimeFormatter LABEL_FORMAT = DateTimeFormatter.ofPattern("dd/MM HH'h'");
+
+    private ChartDownsamplingBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        Platform.startup(() -> started.complete(null));
+        started.get();
+
+        int threshold = DownsampledSeries.pointsFor(width);
+        System.out.println("Graphique de " + width + " px (" + threshold + " points après réduction), "
+                + runs + " rendus par mesure");
+        System.out.printf("%8s  %14s  %14s  %12s%n", "points", "complète (ms)", "réduite (ms)", "LTTB (ms)");
+
+        for (int size : SIZES) {
+            List<String> labels = new ArrayList<>(size);
+            double[] values = sampleSeries(size, labels);
+
+            // Préchauffage JIT et premier rendu
+            render(width, labels, values, null);
+            render(width, labels, values, Lttb.select(values, threshold));
+
+            double raw = 0;
+            double sampled = 0;
+            double lttb = 0;
+            for (int run = 0; run < runs; run++) {
+                raw += render(width, labels, values, null);
+
+                long start = System.nanoTime();
+                int[] indices = Lttb.select(values, threshold);
+                lttb += (System.nanoTime() - start) / 1e6;
+
+                sampled += render(width, labels, values, indices);
+            }
+            System.out.printf("%,8d  %14.1f  %14.1f  %12.3f%n", size, raw / runs, sampled / runs, lttb / runs);
+        }
+
+        Platform.exit();
+    }
+
+    /**
+     * Durée (ms) de la création des points, de la mise en page et du rendu d'un LineChart
+     */
+    private static double render(int width, List<String> labels, double[] values, int[] indices)
+            throws InterruptedException, ExecutionException {
+        CompletableFuture<Double> elapsed = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            long start = System.nanoTime();
+
+            LineChart<String, Number> chart = new LineChart<>(new CategoryAxis(), new NumberAxis());
+            chart.setAnimated(false);
+            chart.setLegendVisible(false);
+            XYChart.Series<String, Number> series = new XYChart.Series<>();
+            int count = indices != null ? indices.length : values.length;
+            for (int i = 0; i < count; i++) {
+                int index = indices != null ? indices[i] : i;
+                series.getData().add(new XYChart.Data<>(labels.get(index), values[index]));
+            }
+            chart.getData().add(series);
+
+            Scene scene = new Scene(new StackPane(chart), width, 400);
+            chart.applyCss();
+            chart.layout();
+            scene.snapshot(null);
+
+            elapsed.complete((System.nanoTime() - start) / 1e6);
+        });
+        return elapsed.get();
+    }
+
+    /**
+     * Ventes horaires simulées: cycle journalier, tendance et quelques pics
+     */
+    private static double[] sampleSeries(int size, List<String> labels) {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            double daily = 1 + Math.sin(i * 2 * Math.PI / 24);
+            values[i] = 20_000 + 15_000 * daily + 20 * i + random.nextGaussian() * 3_000
+                    + (random.nextInt(200) == 0 ? 80_000 : 0);
+            labels.add(start.plusHours(i).format(LABEL_FORMAT));
+        }
+        return values;
+    }
+}
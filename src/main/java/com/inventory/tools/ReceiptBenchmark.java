@@ -0,0 +1,103 @@
+package com.inventory.tools;
+
+import com.inventory.models.Product;
+import com.inventory.models.Sale;
+import com.inventory.models.SaleItem;
+import com.inventory.services.ReceiptService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Banc d'essai de la génération des reçus (reçus par seconde, PDF et ESC/POS).
+ *
+ * Usage: java -cp target/classes:... com.inventory.tools.ReceiptBenchmark [lignes] [secondes]
+ */
+public final class ReceiptBenchmark {
+
+    private ReceiptBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Sale sale = sampleSale(lines);
+        ReceiptService service = ReceiptService.ready().join();
+        CountingOutputStream sink = new CountingOutputStream();
+
+        System.out.println("Reçu de " + lines + " lignes, mesure sur " + seconds + " s par format");
+
+        // Préchauffage JIT
+        for (int i = 0; i < 500; i++) {
+            service.writePdf(sale, sink);
+            service.writeEscPos(sale, sink);
+        }
+
+        report("PDF", seconds, sink, () -> service.writePdf(sale, sink));
+        report("ESC/POS", seconds, sink, () -> service.writeEscPos(sale, sink));
+
+        ReceiptService.shutdown();
+    }
+
+    private interface Job {
+        void run() throws IOException;
+    }
+
+    private static void report(String label, int seconds, CountingOutputStream sink, Job job) throws IOException {
+        sink.count = 0;
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long start = System.nanoTime();
+        int receipts = 0;
+        while (System.nanoTime() < deadline) {
+            job.run();
+            receipts++;
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-8s %,10.0f reçus/s  %8.3f ms/reçu  %,8d octets/reçu%n",
+                label, receipts / elapsed, elapsed * 1000 / receipts, sink.count / receipts);
+    }
+
+    private static Sale sampleSale(int lines) {
+        Sale sale = new Sale();
+        sale.setSaleNumber("VNT-BENCH0001");
+        sale.setUserName("Caissier Test");
+        sale.setCustomerName("Client Démo");
+        sale.setCreatedAt(LocalDateTime.now());
+
+        List<SaleItem> items = new ArrayList<>(lines);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 1; i <= lines; i++) {
+            Product product = new Product("PRD" + String.format("%06d", i), "Produit de démonstration n°" + i,
+                    BigDecimal.valueOf(250L * i), 100);
+            product.setId(i);
+            SaleItem item = new SaleItem(product, 1 + i % 4);
+            if (i % 3 == 0) {
+                item.setDiscountPercentage(BigDecimal.TEN);
+            }
+            items.add(item);
+            total = total.add(item.getSubtotal());
+        }
+        sale.setItems(items);
+        sale.setTotalAmount(total);
+        return sale;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
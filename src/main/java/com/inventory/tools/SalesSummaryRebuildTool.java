@@ -0,0 +1,41 @@
+package com.inventory.tools;
+
+import com.inventory.dao.SalesSummaryDAO;
+import com.inventory.services.ReportCache;
+import com.inventory.utils.DatabaseConnection;
+
+import java.time.LocalDate;
+
+/**
+ * Reconstruction des agrégats journaliers des ventes (reprise d'historique).
+ *
+ * Usage: java -cp target/classes:... com.inventory.tools.SalesSummaryRebuildTool [du au]
+ *
+ * Dates au format AAAA-MM-JJ, incluses; sans argument, tout l'historique est recalculé.
+ */
+public final class SalesSummaryRebuildTool {
+
+    private SalesSummaryRebuildTool() {
+    }
+
+    public static void main(String[] args) {
+        if (!DatabaseConnection.testConnection()) {
+            System.exit(2);
+        }
+
+        SalesSummaryDAO summaryDAO = new SalesSummaryDAO();
+        long start = System.currentTimeMillis();
+        int days = args.length >= 2
+                ? summaryDAO.rebuild(LocalDate.parse(args[0]), LocalDate.parse(args[1]))
+                : summaryDAO.rebuildAll();
+
+        if (days >= 0) {
+            System.out.println("📊 Agrégats reconstruits: " + days + " jours en "
+                    + (System.currentTimeMillis() - start) + " ms");
+            // L'application en cours vide son cache des rapports à sa prochaine lecture
+            ReportCache.summariesRebuilt();
+        }
+        DatabaseConnection.closeConnection();
+        System.exit(days >= 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.inventory.tools;
+
+import com.inventory.models.StockDiscrepancy;
+import com.inventory.services.StockLedger;
+import com.inventory.services.StockReconciliationService;
+import com.inventory.utils.DatabaseConnection;
+
+/**
+ * Réconciliation du stock en ligne de commande.
+ *
+ * Usage: java -cp target/classes:... com.inventory.tools.StockReconciliationTool [--fix idUtilisateur]
+ *
+ * Sans option, les écarts sont seulement listés; avec --fix, ils sont corrigés
+ * par des mouvements ADJUSTMENT enregistrés au nom de l'utilisateur indiqué.
+ */
+public final class StockReconciliationTool {
+
+    private static final int MAX_LISTED = 50;
+
+    private StockReconciliationTool() {
+    }
+
+    public static void main(String[] args) {
+        boolean fix = args.length > 1 && "--fix".equals(args[0]);
+        int userId = fix ? Integer.parseInt(args[1]) : 0;
+
+        if (!DatabaseConnection.testConnection()) {
+            System.exit(2);
+        }
+
+        StockReconciliationService.Report report = new StockReconciliationService().reconcile(fix, userId);
+
+        int listed = 0;
+        for (StockDiscrepancy discrepancy : report.getDiscrepancies()) {
+            if (listed++ == MAX_LISTED) {
+                System.out.println("  ... " + (report.getDiscrepancies().size() - MAX_LISTED) + " autres");
+                break;
+            }
+            System.out.println("  " + discrepancy + " -> ajustement " + discrepancy.getDifference());
+        }
+
+        StockLedger.shutdown();
+        DatabaseConnection.closeConnection();
+        System.exit(report.isComplete() && (fix || report.getDiscrepancies().isEmpty()) ? 0 : 1);
+    }
+}
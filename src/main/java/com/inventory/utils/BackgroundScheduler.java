@@ -0,0 +1,72 @@
+package com.inventory.utils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planificateur partagé des tâches de fond périodiques (remplace java.util.Timer).
+ *
+ * Un seul thread démon de faible priorité: les tâches planifiées doivent être
+ * courtes ou déléguer leur travail. Une tâche qui lève une exception est
+ * journalisée et reste planifiée, au contraire d'un Timer qui s'arrête.
+ */
+public final class BackgroundScheduler {
+
+    private static ScheduledExecutorService executor;
+
+    private BackgroundScheduler() {
+    }
+
+    private static synchronized ScheduledExecutorService executor() {
+        if (executor == null) {
+            ScheduledThreadPoolExecutor pool = (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(1, r -> {
+                Thread thread = new Thread(r, "background-scheduler");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            // Une tâche annulée ne reste pas dans la file jusqu'à son échéance
+            pool.setRemoveOnCancelPolicy(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
+    /**
+     * Exécuter une tâche périodiquement, delay après la fin de la précédente exécution
+     */
+    public static ScheduledFuture<?> scheduleWithFixedDelay(String name, Runnable task, long initialDelay, long delay,
+            TimeUnit unit) {
+        return executor().scheduleWithFixedDelay(guarded(name, task), initialDelay, delay, unit);
+    }
+
+    /**
+     * Exécuter une tâche une seule fois après un délai
+     */
+    public static ScheduledFuture<?> schedule(String name, Runnable task, long delay, TimeUnit unit) {
+        return executor().schedule(guarded(name, task), delay, unit);
+    }
+
+    /**
+     * Arrêter le planificateur (les tâches planifiées sont abandonnées)
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private static Runnable guarded(String name, Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("❌ Erreur tâche planifiée " + name + ": " + e.getMessage());
+            }
+        };
+    }
+}
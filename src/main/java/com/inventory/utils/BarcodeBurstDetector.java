@@ -0,0 +1,104 @@
+package com.inventory.utils;
+
+import javafx.event.EventHandler;
+import javafx.scene.Node;
+import javafx.scene.input.KeyEvent;
+
+import java.util.function.Consumer;
+
+/**
+ * Détection des lecteurs de codes-barres en mode clavier (keyboard wedge).
+ *
+ * Un lecteur tape le code entier en quelques millisecondes puis envoie un
+ * terminateur (Entrée ou Tab). Une rafale de caractères rapprochés suivie d'un
+ * terminateur est remise au gestionnaire comme un scan; la saisie humaine,
+ * beaucoup plus lente, n'est pas interceptée.
+ */
+public final class BarcodeBurstDetector {
+
+    // Écart maximal entre deux touches d'une rafale (les lecteurs sont sous 10 ms)
+    private static final long DEFAULT_MAX_GAP_NANOS = 35_000_000L;
+    private static final int DEFAULT_MIN_LENGTH = 4;
+
+    private final Consumer<String> onScan;
+    private final long maxGapNanos;
+    private final int minLength;
+    private final StringBuilder burst = new StringBuilder();
+    private final EventHandler<KeyEvent> filter = this::handleKeyTyped;
+
+    private long lastKeyNanos;
+    private Node target;
+
+    public BarcodeBurstDetector(Consumer<String> onScan) {
+        this(onScan, DEFAULT_MAX_GAP_NANOS, DEFAULT_MIN_LENGTH);
+    }
+
+    public BarcodeBurstDetector(Consumer<String> onScan, long maxGapNanos, int minLength) {
+        this.onScan = onScan;
+        this.maxGapNanos = maxGapNanos;
+        this.minLength = minLength;
+    }
+
+    /**
+     * Écouter les frappes sur un nœud (en général la racine de la vue POS)
+     */
+    public void attach(Node node) {
+        detach();
+        target = node;
+        target.addEventFilter(KeyEvent.KEY_TYPED, filter);
+    }
+
+    public void detach() {
+        if (target != null) {
+            target.removeEventFilter(KeyEvent.KEY_TYPED, filter);
+            target = null;
+        }
+        reset();
+    }
+
+    /**
+     * Une rafale rapide est-elle en cours (à ignorer par la recherche)
+     */
+    public boolean isBurstInProgress() {
+        return burst.length() >= 2 && System.nanoTime() - lastKeyNanos <= maxGapNanos;
+    }
+
+    private void handleKeyTyped(KeyEvent event) {
+        String character = event.getCharacter();
+        if (character == null || character.isEmpty() || event.isControlDown() || event.isAltDown())
+            return;
+
+        long now = System.nanoTime();
+        boolean withinBurst = now - lastKeyNanos <= maxGapNanos;
+        lastKeyNanos = now;
+
+        char c = character.charAt(0);
+        if (c == '\r' || c == '\n' || c == '\t') {
+            if (withinBurst && burst.length() >= minLength) {
+                String code = burst.toString();
+                reset();
+                event.consume();
+                onScan.accept(code);
+                return;
+            }
+            reset();
+            return;
+        }
+
+        if (Character.isISOControl(c)) {
+            reset();
+            return;
+        }
+
+        // Une pause trop longue démarre une nouvelle rafale candidate
+        if (!withinBurst) {
+            burst.setLength(0);
+        }
+        burst.append(c);
+    }
+
+    private void reset() {
+        burst.setLength(0);
+        lastKeyNanos = 0;
+    }
+}
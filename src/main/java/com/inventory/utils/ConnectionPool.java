@@ -0,0 +1,251 @@
+package com.inventory.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool de connexions JDBC minimal.
+ *
+ * Les connexions remises aux DAO sont des mandataires: close() rend la
+ * connexion physique au pool au lieu de la fermer. Le nombre de connexions
+ * ouvertes est borné; au-delà, l'appelant attend qu'une connexion se libère.
+ *
+ * Une connexion rendue retrouve l'état de session de son ouverture
+ * (autocommit, lecture seule, isolation, base courante). Une connexion sur
+ * laquelle une variable de session a été modifiée (instruction SET) est
+ * fermée au lieu d'être remise au pool: l'état du serveur ne fuit pas d'un
+ * appelant à l'autre.
+ *
+ * Les instructions ouvertes pendant la requête d'une section d'écran sont
+ * signalées à sa {@link SectionScope}, qui peut les annuler côté serveur.
+ */
+final class ConnectionPool {
+
+    // Au-delà de cette durée d'inactivité, une connexion est vérifiée avant d'être remise
+    private static final long VALIDATE_AFTER_IDLE_MS = 30_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long acquireTimeoutMs;
+    private final Semaphore permits;
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private volatile boolean closed;
+
+    // État de session d'une connexion neuve, relevé à la première ouverture
+    private volatile Integer defaultIsolation;
+    private volatile String defaultCatalog;
+
+    private record IdleConnection(Connection connection, long since) {
+    }
+
+    ConnectionPool(String url, String user, String password, int maxSize, long acquireTimeoutMs) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    int getAvailable() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Obtenir une connexion (à fermer par l'appelant pour la rendre au pool)
+     */
+    Connection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pool de connexions fermé");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Aucune connexion disponible après " + acquireTimeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attente de connexion interrompue", e);
+        }
+
+        try {
+            return wrap(takeIdleOrOpen());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Fermer toutes les connexions inactives et refuser les demandes suivantes
+     */
+    void close() {
+        closed = true;
+        synchronized (idle) {
+            for (IdleConnection entry : idle) {
+                closeQuietly(entry.connection());
+            }
+            idle.clear();
+        }
+    }
+
+    private Connection takeIdleOrOpen() throws SQLException {
+        while (true) {
+            IdleConnection entry;
+            synchronized (idle) {
+                entry = idle.pollFirst();
+            }
+            if (entry == null) {
+                Connection connection = DriverManager.getConnection(url, user, password);
+                if (defaultIsolation == null) {
+                    defaultCatalog = connection.getCatalog();
+                    defaultIsolation = connection.getTransactionIsolation();
+                }
+                return connection;
+            }
+            boolean stale = System.currentTimeMillis() - entry.since() > VALIDATE_AFTER_IDLE_MS;
+            if (!stale || entry.connection().isValid(2)) {
+                return entry.connection();
+            }
+            closeQuietly(entry.connection());
+        }
+    }
+
+    private void release(Connection physical, boolean sessionModified) {
+        try {
+            if (closed || sessionModified || physical.isClosed()) {
+                closeQuietly(physical);
+                return;
+            }
+            // Remettre la connexion dans un état neutre
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            if (defaultIsolation != null && physical.getTransactionIsolation() != defaultIsolation) {
+                physical.setTransactionIsolation(defaultIsolation);
+            }
+            if (defaultCatalog != null && !defaultCatalog.equals(physical.getCatalog())) {
+                physical.setCatalog(defaultCatalog);
+            }
+            synchronized (idle) {
+                idle.addFirst(new IdleConnection(physical, System.currentTimeMillis()));
+            }
+        } catch (SQLException e) {
+            closeQuietly(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean released;
+            private volatile boolean sessionModified;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!released) {
+                            released = true;
+                            release(physical, sessionModified);
+                        }
+                        return null;
+                    case "isClosed":
+                        return released || physical.isClosed();
+                    case "unwrap":
+                    case "isWrapperFor":
+                        break;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled[" + physical + "]";
+                    default:
+                        if (released) {
+                            throw new SQLException("Connexion déjà rendue au pool");
+                        }
+                        if (args != null && args.length > 0 && isSessionStatement(args[0])) {
+                            sessionModified = true;
+                        }
+                }
+                Object result;
+                try {
+                    result = method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof Statement statement) {
+                    // Requête d'une section d'écran: annulable avec sa portée
+                    SectionScope.track(statement);
+                    if (method.getName().equals("createStatement")) {
+                        return watch(statement, (Connection) proxy, () -> sessionModified = true);
+                    }
+                }
+                return result;
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, handler);
+    }
+
+    /**
+     * Mandataire d'un Statement qui signale les instructions SET exécutées
+     */
+    private static Statement watch(Statement statement, Connection owner, Runnable onSessionStatement) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("getConnection")) {
+                return owner;
+            }
+            if (args != null && args.length > 0 && isSessionStatement(args[0])) {
+                onSessionStatement.run();
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[] { Statement.class }, handler);
+    }
+
+    /**
+     * Instruction susceptible de modifier l'état de la session (SET ...)
+     */
+    private static boolean isSessionStatement(Object sql) {
+        if (!(sql instanceof String text))
+            return false;
+        String statement = text.stripLeading().toUpperCase(Locale.ROOT);
+        return statement.startsWith("SET ") || statement.startsWith("SET\n");
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Connexion déjà inutilisable
+        }
+    }
+}
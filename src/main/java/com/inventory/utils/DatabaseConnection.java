@@ -1,13 +1,17 @@
 package com.inventory.utils;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Gestionnaire de connexion à la base de données MySQL
- * Utilise le pattern Singleton pour garantir une seule connexion
+ * Les connexions proviennent d'un pool borné: chaque DAO ferme la sienne
+ * après usage, ce qui la rend au pool, et plusieurs threads peuvent
+ * interroger la base en parallèle
  */
 public class DatabaseConnection {
 
@@ -19,53 +23,106 @@ public class DatabaseConnection {
     private static final String PASSWORD = "jimand123"; // À configurer
 
     private static final String URL = String.format(
-            "jdbc:mysql://%s:%s/%s?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true",
+            "jdbc:mysql://%s:%s/%s?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true"
+                    + "&rewriteBatchedStatements=true",
             HOST, PORT, DATABASE);
 
-    private static Connection connection = null;
+    // Taille du pool, surchargeable via la propriété système "inventory.db.pool.size"
+    private static final int POOL_SIZE = Integer.getInteger("inventory.db.pool.size", 8);
+    private static final long ACQUIRE_TIMEOUT_MS = 10_000;
+
+    private static ConnectionPool pool = null;
+
+    // Index ajoutés après la création initiale des tables: CREATE TABLE IF NOT EXISTS
+    // ne modifie pas une table existante, ils sont donc créés à part s'ils manquent
+    // (table, nom de l'index, colonnes)
+    private static final String[][] INDEXES = {
+            { "products", "idx_products_updated", "updated_at" },
+            { "promotions", "idx_promotions_active", "is_active, end_date" },
+            { "sales", "idx_sales_created", "created_at, id" },
+            { "sales", "idx_sales_user_created", "user_id, created_at, id" },
+            { "sales", "idx_sales_status_created", "status, created_at, payment_method, total_amount" },
+            { "sale_items", "idx_sale_items_sale", "sale_id, product_id, quantity, subtotal" },
+            { "sale_refund_items", "idx_refund_items_sale_item", "sale_item_id" },
+            { "stock_movements", "idx_movements_product_created", "product_id, created_at, id" },
+            { "stock_movements", "idx_movements_created", "created_at" },
+            { "stock_snapshots", "idx_snapshots_taken", "taken_at" },
+            { "notifications", "idx_notifications_unread", "is_read, user_id" },
+    };
 
     /**
-     * Obtenir la connexion à la base de données (Singleton)
+     * Obtenir une connexion du pool (à fermer après usage pour la rendre au pool)
      */
     public static Connection getConnection() {
         try {
-            if (connection == null || connection.isClosed()) {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
-                System.out.println("✅ Connexion à MySQL établie avec succès!");
-            }
+            return getPool().acquire();
         } catch (ClassNotFoundException e) {
             System.err.println("❌ Driver MySQL non trouvé: " + e.getMessage());
         } catch (SQLException e) {
             System.err.println("❌ Erreur de connexion MySQL: " + e.getMessage());
         }
-        return connection;
+        return null;
+    }
+
+    /**
+     * Nombre maximal de connexions simultanées
+     */
+    public static int getPoolSize() {
+        return POOL_SIZE;
+    }
+
+    private static synchronized ConnectionPool getPool() throws ClassNotFoundException {
+        if (pool == null) {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+            pool = new ConnectionPool(URL, USER, PASSWORD, POOL_SIZE, ACQUIRE_TIMEOUT_MS);
+        }
+        return pool;
     }
 
     /**
      * Tester la connexion à la base de données
      */
     public static boolean testConnection() {
-        try {
-            Connection conn = getConnection();
-            return conn != null && !conn.isClosed();
+        try (Connection conn = getConnection()) {
+            return conn != null && conn.isValid(2);
         } catch (SQLException e) {
             return false;
         }
     }
 
     /**
-     * Fermer la connexion
+     * Fermer les connexions du pool
      */
-    public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("🔌 Connexion à la base de données fermée.");
-            }
-        } catch (SQLException e) {
-            System.err.println("❌ Erreur lors de la fermeture: " + e.getMessage());
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+            System.out.println("🔌 Connexion à la base de données fermée.");
+        }
+    }
+
+    /**
+     * Création du schéma lancée au démarrage (null tant qu'elle n'a pas été lancée)
+     */
+    private static CompletableFuture<Void> schemaReady;
+
+    /**
+     * Créer le schéma et l'admin par défaut une seule fois, hors du thread JavaFX.
+     * Le résultat se termine quand les tables existent: les services qui lisent
+     * la base démarrent ensuite.
+     */
+    public static synchronized CompletableFuture<Void> initializeAsync() {
+        if (schemaReady == null) {
+            schemaReady = new CompletableFuture<>();
+            Thread thread = new Thread(() -> {
+                initializeDatabase();
+                insertDefaultAdmin();
+                schemaReady.complete(null);
+            }, "database-init");
+            thread.setDaemon(true);
+            thread.start();
         }
+        return schemaReady;
     }
 
     /**
@@ -148,6 +205,7 @@ public class DatabaseConnection {
                             is_active BOOLEAN DEFAULT TRUE,
                             created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                             updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                            INDEX idx_products_updated (updated_at),
                             FOREIGN KEY (category_id) REFERENCES categories(id) ON DELETE SET NULL,
                             FOREIGN KEY (supplier_id) REFERENCES suppliers(id) ON DELETE SET NULL
                         )
@@ -164,6 +222,7 @@ public class DatabaseConnection {
                             is_active BOOLEAN DEFAULT TRUE,
                             created_by INT,
                             created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                            INDEX idx_promotions_active (is_active, end_date),
                             FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE,
                             FOREIGN KEY (created_by) REFERENCES users(id) ON DELETE SET NULL
                         )
@@ -184,6 +243,9 @@ public class DatabaseConnection {
                             status ENUM('COMPLETED', 'PENDING', 'CANCELLED') DEFAULT 'COMPLETED',
                             notes TEXT,
                             created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                            INDEX idx_sales_created (created_at, id),
+                            INDEX idx_sales_user_created (user_id, created_at, id),
+                            INDEX idx_sales_status_created (status, created_at, payment_method, total_amount),
                             FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE RESTRICT
                         )
                     """);
@@ -198,11 +260,42 @@ public class DatabaseConnection {
                             unit_price DECIMAL(10,2) NOT NULL,
                             discount_percentage DECIMAL(5,2) DEFAULT 0,
                             subtotal DECIMAL(12,2) NOT NULL,
+                            INDEX idx_sale_items_sale (sale_id, product_id, quantity, subtotal),
                             FOREIGN KEY (sale_id) REFERENCES sales(id) ON DELETE CASCADE,
                             FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE RESTRICT
                         )
                     """);
 
+            // Table des retours et annulations (request_id rend l'opération rejouable)
+            stmt.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS sale_refunds (
+                            id INT PRIMARY KEY AUTO_INCREMENT,
+                            request_id VARCHAR(64) UNIQUE NOT NULL,
+                            sale_id INT NOT NULL,
+                            user_id INT NOT NULL,
+                            reason VARCHAR(255),
+                            amount DECIMAL(12,2) NOT NULL DEFAULT 0,
+                            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                            FOREIGN KEY (sale_id) REFERENCES sales(id) ON DELETE CASCADE,
+                            FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE RESTRICT
+                        )
+                    """);
+
+            // Table des lignes retournées
+            stmt.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS sale_refund_items (
+                            id INT PRIMARY KEY AUTO_INCREMENT,
+                            refund_id INT NOT NULL,
+                            sale_item_id INT NOT NULL,
+                            product_id INT NOT NULL,
+                            quantity INT NOT NULL,
+                            amount DECIMAL(12,2) NOT NULL,
+                            INDEX idx_refund_items_sale_item (sale_item_id),
+                            FOREIGN KEY (refund_id) REFERENCES sale_refunds(id) ON DELETE CASCADE,
+                            FOREIGN KEY (sale_item_id) REFERENCES sale_items(id) ON DELETE CASCADE
+                        )
+                    """);
+
             // Table des mouvements de stock
             stmt.executeUpdate("""
                         CREATE TABLE IF NOT EXISTS stock_movements (
@@ -214,11 +307,72 @@ public class DatabaseConnection {
                             reason VARCHAR(255),
                             reference_id INT,
                             created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                            INDEX idx_movements_product_created (product_id, created_at, id),
+                            INDEX idx_movements_created (created_at),
                             FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE,
                             FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE RESTRICT
                         )
                     """);
 
+            // Table des instantanés de stock
+            stmt.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS stock_snapshots (
+                            id INT PRIMARY KEY AUTO_INCREMENT,
+                            taken_at TIMESTAMP NOT NULL,
+                            product_count INT NOT NULL DEFAULT 0,
+                            INDEX idx_snapshots_taken (taken_at)
+                        )
+                    """);
+
+            // Table des quantités par instantané
+            stmt.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS stock_snapshot_items (
+                            snapshot_id INT NOT NULL,
+                            product_id INT NOT NULL,
+                            quantity INT NOT NULL,
+                            PRIMARY KEY (snapshot_id, product_id),
+                            FOREIGN KEY (snapshot_id) REFERENCES stock_snapshots(id) ON DELETE CASCADE,
+                            FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+                        )
+                    """);
+
+            // Agrégats journaliers des ventes terminées (tenus à jour à l'encaissement)
+            stmt.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS sales_daily_summary (
+                            sale_date DATE PRIMARY KEY,
+                            sale_count INT NOT NULL DEFAULT 0,
+                            revenue DECIMAL(14,2) NOT NULL DEFAULT 0,
+                            units_sold INT NOT NULL DEFAULT 0
+                        )
+                    """);
+
+            // Agrégats journaliers des lignes par catégorie, mode de paiement et caissier (0 = sans catégorie)
+            stmt.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS sales_daily_category (
+                            sale_date DATE NOT NULL,
+                            category_id INT NOT NULL,
+                            payment_method ENUM('CASH', 'CARD', 'MOBILE') NOT NULL,
+                            user_id INT NOT NULL,
+                            sale_count INT NOT NULL DEFAULT 0,
+                            units_sold INT NOT NULL DEFAULT 0,
+                            revenue DECIMAL(14,2) NOT NULL DEFAULT 0,
+                            PRIMARY KEY (sale_date, category_id, payment_method, user_id)
+                        )
+                    """);
+
+            // Agrégats journaliers des ventes par mode de paiement et caissier
+            stmt.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS sales_daily_payment (
+                            sale_date DATE NOT NULL,
+                            payment_method ENUM('CASH', 'CARD', 'MOBILE') NOT NULL,
+                            user_id INT NOT NULL,
+                            sale_count INT NOT NULL DEFAULT 0,
+                            revenue DECIMAL(14,2) NOT NULL DEFAULT 0,
+                            units_sold INT NOT NULL DEFAULT 0,
+                            PRIMARY KEY (sale_date, payment_method, user_id)
+                        )
+                    """);
+
             // Table des notifications
             stmt.executeUpdate("""
                         CREATE TABLE IF NOT EXISTS notifications (
@@ -229,6 +383,7 @@ public class DatabaseConnection {
                             type ENUM('INFO', 'WARNING', 'ERROR', 'SUCCESS') DEFAULT 'INFO',
                             is_read BOOLEAN DEFAULT FALSE,
                             created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                            INDEX idx_notifications_unread (is_read, user_id),
                             FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
                         )
                     """);
@@ -248,14 +403,51 @@ public class DatabaseConnection {
                         )
                     """);
 
-            System.out.println("✅ Toutes les tables ont été créées/vérifiées avec succès!");
+            createMissingIndexes(conn);
 
-            // Réactiver les vérifications de clés étrangères
-            stmt.executeUpdate("SET FOREIGN_KEY_CHECKS = 1");
+            System.out.println("✅ Toutes les tables ont été créées/vérifiées avec succès!");
 
         } catch (SQLException e) {
             System.err.println("❌ Erreur lors de l'initialisation des tables: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            // Réactiver les vérifications de clés étrangères, même si l'initialisation a échoué
+            // (la connexion, modifiée par un SET, est de toute façon fermée au lieu d'être remise au pool)
+            try (conn; Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("SET FOREIGN_KEY_CHECKS = 1");
+            } catch (SQLException e) {
+                System.err.println("⚠️ Vérifications de clés étrangères non réactivées: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Créer les index absents des tables existantes (sans effet s'ils existent déjà)
+     */
+    private static void createMissingIndexes(Connection conn) throws SQLException {
+        String sql = """
+                    SELECT COUNT(*) FROM information_schema.statistics
+                    WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?
+                """;
+
+        try (PreparedStatement check = conn.prepareStatement(sql);
+                Statement stmt = conn.createStatement()) {
+            for (String[] index : INDEXES) {
+                check.setString(1, index[0]);
+                check.setString(2, index[1]);
+                try (ResultSet rs = check.executeQuery()) {
+                    rs.next();
+                    if (rs.getInt(1) > 0)
+                        continue;
+                }
+                try {
+                    stmt.executeUpdate("CREATE INDEX " + index[1] + " ON " + index[0] + " (" + index[2] + ")");
+                    System.out.println("✅ Index '" + index[1] + "' ajouté à la table '" + index[0] + "'.");
+                } catch (SQLException e) {
+                    // Un index manquant ralentit les requêtes sans empêcher le démarrage
+                    System.err.println("❌ Erreur création index " + index[1] + ": " + e.getMessage());
+                }
+            }
         }
     }
 
@@ -267,7 +459,7 @@ public class DatabaseConnection {
         if (conn == null)
             return;
 
-        try (Statement stmt = conn.createStatement()) {
+        try (conn; Statement stmt = conn.createStatement()) {
             // Vérifier si un admin existe
             var rs = stmt.executeQuery("SELECT COUNT(*) FROM users WHERE role = 'ADMIN'");
             rs.next();
@@ -0,0 +1,76 @@
+package com.inventory.utils;
+
+import javafx.scene.chart.XYChart;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Série d'un graphique à axe de catégories, réduite à la largeur du graphique.
+ *
+ * La série complète est conservée; le graphique ne reçoit que les points
+ * retenus par {@link Lttb} (un point pour {@link #PIXELS_PER_POINT} pixels),
+ * recalculés quand les données changent (nouvelle période) ou quand la
+ * largeur du graphique change (redimensionnement). Une année de données
+ * journalières crée ainsi une centaine de nœuds au lieu de plusieurs centaines.
+ */
+public final class DownsampledSeries {
+
+    // Largeur d'une étiquette de catégorie tournée à la verticale
+    public static final double PIXELS_PER_POINT = 12;
+
+    // Largeur supposée tant que le graphique n'a pas encore été mis en page
+    private static final double DEFAULT_WIDTH = 800;
+
+    private final XYChart<String, Number> chart;
+    private final XYChart.Series<String, Number> series = new XYChart.Series<>();
+
+    private List<String> labels = List.of();
+    private double[] values = new double[0];
+    private int sampledPoints = -1;
+
+    /**
+     * Associer une série réduite au graphique (elle remplace ses séries)
+     */
+    public DownsampledSeries(XYChart<String, Number> chart, String name) {
+        this.chart = chart;
+        series.setName(name);
+        chart.getData().setAll(List.of(series));
+        chart.widthProperty().addListener((obs, oldWidth, newWidth) -> resample(false));
+    }
+
+    /**
+     * Remplacer les données complètes de la série (une valeur par étiquette)
+     */
+    public void setData(List<String> labels, List<? extends Number> values) {
+        this.labels = List.copyOf(labels);
+        this.values = new double[values.size()];
+        for (int i = 0; i < this.values.length; i++) {
+            this.values[i] = values.get(i).doubleValue();
+        }
+        resample(true);
+    }
+
+    /**
+     * Nombre de points affichés pour une largeur de graphique
+     */
+    public static int pointsFor(double width) {
+        return Math.max(3, (int) ((width > 0 ? width : DEFAULT_WIDTH) / PIXELS_PER_POINT));
+    }
+
+    private void resample(boolean dataChanged) {
+        int threshold = pointsFor(chart.getWidth());
+        // Tant que la série tient dans la largeur, un redimensionnement ne change rien
+        int points = Math.min(threshold, values.length);
+        if (!dataChanged && points == sampledPoints)
+            return;
+        sampledPoints = points;
+
+        int[] indices = Lttb.select(values, threshold);
+        List<XYChart.Data<String, Number>> data = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            data.add(new XYChart.Data<>(labels.get(index), values[index]));
+        }
+        series.getData().setAll(data);
+    }
+}
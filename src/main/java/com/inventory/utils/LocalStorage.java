@@ -0,0 +1,66 @@
+package com.inventory.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Accès au répertoire de données local de l'application (journal, paniers, instantanés...)
+ * Par défaut ~/.inventory, surchargeable via la propriété système "inventory.data.dir"
+ */
+public final class LocalStorage {
+
+    private static final Path BASE_DIR = Paths.get(System.getProperty("inventory.data.dir",
+            System.getProperty("user.home") + "/.inventory"));
+
+    private LocalStorage() {
+    }
+
+    /**
+     * Obtenir un sous-répertoire de données (créé si nécessaire)
+     */
+    public static Path directory(String name) {
+        Path dir = BASE_DIR.resolve(name);
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de créer le répertoire " + dir, e);
+        }
+        return dir;
+    }
+
+    /**
+     * Obtenir le chemin d'un fichier à la racine du répertoire de données
+     */
+    public static Path file(String name) {
+        try {
+            Files.createDirectories(BASE_DIR);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de créer le répertoire " + BASE_DIR, e);
+        }
+        return BASE_DIR.resolve(name);
+    }
+
+    /**
+     * Écrire un fichier de façon atomique (fichier temporaire puis renommage)
+     */
+    public static void writeAtomically(Path target, byte[] data) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(tmp, data);
+        moveAtomically(tmp, target);
+    }
+
+    /**
+     * Remplacer un fichier par un autre, de façon atomique si le système de fichiers le permet
+     */
+    public static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (java.nio.file.AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
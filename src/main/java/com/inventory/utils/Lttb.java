@@ -0,0 +1,141 @@
+package com.inventory.utils;
+
+/**
+ * Sous-échantillonnage de séries pour les graphiques (Largest-Triangle-Three-Buckets).
+ *
+ * Les points intérieurs sont répartis en seuils - 2 intervalles; dans chacun,
+ * le point retenu est celui qui forme le plus grand triangle avec le point
+ * retenu précédent et la moyenne de l'intervalle suivant. Le premier et le
+ * dernier point sont toujours conservés, ainsi que le minimum et le maximum
+ * de la série: un pic ou un creux isolé reste visible sur la courbe réduite.
+ */
+public final class Lttb {
+
+    private Lttb() {
+    }
+
+    /**
+     * Indices des points à conserver, pour des abscisses régulièrement espacées
+     */
+    public static int[] select(double[] y, int threshold) {
+        return select(null, y, threshold);
+    }
+
+    /**
+     * Indices des points à conserver, croissants: threshold points (un de plus si le
+     * minimum et le maximum tombent dans le même intervalle). x null = abscisses 0, 1, 2...
+     */
+    public static int[] select(double[] x, double[] y, int threshold) {
+        int n = y.length;
+        if (threshold >= n || threshold < 3) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] sampled = new int[threshold];
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        sampled[0] = 0;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Moyenne de l'intervalle suivant (le dernier point pour le dernier intervalle)
+            int nextStart = (int) Math.floor((bucket + 1) * every) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += xAt(x, i);
+                avgY += y[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            // Point de l'intervalle courant formant le plus grand triangle avec a et la moyenne suivante
+            int start = (int) Math.floor(bucket * every) + 1;
+            int end = (int) Math.floor((bucket + 1) * every) + 1;
+            double ax = xAt(x, a);
+            double ay = y[a];
+            double maxArea = -1;
+            int selected = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((ax - avgX) * (y[i] - ay) - (ax - xAt(x, i)) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = i;
+                }
+            }
+            sampled[bucket + 1] = selected;
+            a = selected;
+        }
+        sampled[threshold - 1] = n - 1;
+
+        return keepExtremes(sampled, y, every);
+    }
+
+    /**
+     * Placer le minimum et le maximum à la place du point retenu dans leur
+     * intervalle (un point de plus s'ils tombent dans le même intervalle)
+     */
+    private static int[] keepExtremes(int[] sampled, double[] y, double every) {
+        int min = 0;
+        int max = 0;
+        for (int i = 1; i < y.length; i++) {
+            if (y[i] < y[min]) {
+                min = i;
+            }
+            if (y[i] > y[max]) {
+                max = i;
+            }
+        }
+
+        int extra = -1;
+        for (int extreme : new int[] { min, max }) {
+            if (extreme == 0 || extreme == y.length - 1)
+                continue;
+            int slot = bucketOf(extreme, every, sampled.length - 2) + 1;
+            if (sampled[slot] == extreme)
+                continue;
+            if (sampled[slot] == min || sampled[slot] == max) {
+                extra = extreme;
+            } else {
+                sampled[slot] = extreme;
+            }
+        }
+        if (extra < 0)
+            return sampled;
+
+        int[] result = new int[sampled.length + 1];
+        int j = 0;
+        for (int index : sampled) {
+            if (extra >= 0 && extra < index) {
+                result[j++] = extra;
+                extra = -1;
+            }
+            result[j++] = index;
+        }
+        return result;
+    }
+
+    /**
+     * Intervalle contenant un point intérieur (mêmes bornes que la sélection)
+     */
+    private static int bucketOf(int index, double every, int buckets) {
+        int bucket = Math.min((int) ((index - 1) / every), buckets - 1);
+        // Corriger l'arrondi de la division flottante
+        while (bucket > 0 && (int) Math.floor(bucket * every) + 1 > index) {
+            bucket--;
+        }
+        while (bucket < buckets - 1 && (int) Math.floor((bucket + 1) * every) + 1 <= index) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static double xAt(double[] x, int i) {
+        return x != null ? x[i] : i;
+    }
+}
@@ -0,0 +1,216 @@
+package com.inventory.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Générateur de numéros de vente uniques sans accès à la base (type Snowflake).
+ *
+ * Un identifiant 63 bits est composé de:
+ * 41 bits d'horodatage (ms depuis le 01/01/2024), 10 bits d'identifiant de caisse
+ * et 12 bits de séquence. Il est formaté en "VNT-" suivi de sa forme base 36.
+ *
+ * L'identifiant de caisse doit être configuré (propriété système
+ * "inventory.till.id" ou fichier till.id du répertoire de données), distinct
+ * pour chaque caisse: c'est lui qui garantit l'absence de collision entre
+ * caisses. L'horodatage logique est réservé par tranches de {@link #LEASE_MS} ms
+ * dans un fichier local: après un redémarrage, même si l'horloge a reculé, les
+ * identifiants reprennent au-delà de la dernière tranche réservée.
+ */
+public final class SaleNumberGenerator {
+
+    public static final String PREFIX = "VNT-";
+
+    private static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int TILL_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_TILL_ID = (1L << TILL_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final String TILL_ID_PROPERTY = "inventory.till.id";
+    private static final String TILL_ID_FILE = "till.id";
+    private static final String STATE_FILE = "sale-number.state";
+
+    // Durée d'horodatage réservée à chaque écriture du fichier d'état
+    public static final long LEASE_MS = 10_000;
+
+    private static volatile SaleNumberGenerator defaultInstance;
+
+    private final long tillId;
+    private final LongSupplier clock;
+
+    // Dernier horodatage logique et séquence, regroupés pour un CAS unique
+    private final AtomicLong state = new AtomicLong();
+
+    // Fichier d'état (null = pas de persistance) et fin de la tranche d'horodatage réservée
+    private final Path stateFile;
+    private volatile long reservedUntil;
+
+    public SaleNumberGenerator(int tillId) {
+        this(tillId, System::currentTimeMillis, null);
+    }
+
+    SaleNumberGenerator(int tillId, LongSupplier clock) {
+        this(tillId, clock, null);
+    }
+
+    SaleNumberGenerator(int tillId, LongSupplier clock, Path stateFile) {
+        if (tillId < 0 || tillId > MAX_TILL_ID) {
+            throw new IllegalArgumentException("Identifiant de caisse hors limites (0-" + MAX_TILL_ID + "): " + tillId);
+        }
+        this.tillId = tillId;
+        this.clock = clock;
+        this.stateFile = stateFile;
+        if (stateFile != null) {
+            // Reprendre au-delà de la dernière tranche réservée avant l'arrêt
+            long reserved = readReservation(stateFile);
+            state.set(reserved << SEQUENCE_BITS);
+            reservedUntil = reserved;
+        }
+    }
+
+    /**
+     * Obtenir le générateur de la caisse courante.
+     *
+     * @throws IllegalStateException si l'identifiant de caisse n'est pas configuré ou invalide
+     */
+    public static SaleNumberGenerator getDefault() {
+        SaleNumberGenerator generator = defaultInstance;
+        if (generator == null) {
+            synchronized (SaleNumberGenerator.class) {
+                generator = defaultInstance;
+                if (generator == null) {
+                    generator = new SaleNumberGenerator(resolveTillId(), System::currentTimeMillis,
+                            LocalStorage.file(STATE_FILE));
+                    defaultInstance = generator;
+                }
+            }
+        }
+        return generator;
+    }
+
+    /**
+     * Générer un nouveau numéro de vente
+     */
+    public String next() {
+        return PREFIX + Long.toString(nextId(), 36).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Générer un nouvel identifiant numérique.
+     * En cas de recul de l'horloge, l'horodatage logique précédent est conservé
+     * et la séquence continue, ce qui garantit des identifiants strictement croissants.
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = current + 1;
+            } else {
+                // Séquence épuisée pour cette milliseconde: emprunter la suivante
+                next = (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                if (stateFile != null && timestamp >= reservedUntil) {
+                    reserve(timestamp);
+                }
+                return (timestamp << (TILL_BITS + SEQUENCE_BITS)) | (tillId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public int getTillId() {
+        return (int) tillId;
+    }
+
+    /**
+     * Extraire l'identifiant de caisse d'un numéro de vente généré
+     */
+    public static int extractTillId(String saleNumber) {
+        long id = Long.parseLong(saleNumber.substring(PREFIX.length()), 36);
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_TILL_ID);
+    }
+
+    /**
+     * Réserver l'horodatage jusqu'à timestamp + LEASE_MS avant de l'utiliser
+     */
+    private synchronized void reserve(long timestamp) {
+        if (timestamp < reservedUntil)
+            return;
+        long until = timestamp + LEASE_MS;
+        try {
+            LocalStorage.writeAtomically(stateFile, ByteBuffer.allocate(Long.BYTES).putLong(until).array());
+        } catch (IOException e) {
+            // La vente n'est pas bloquée; seule la protection après redémarrage est affaiblie
+            System.err.println("⚠️ Erreur sauvegarde de l'état des numéros de vente: " + e.getMessage());
+        }
+        reservedUntil = until;
+    }
+
+    private static long readReservation(Path file) {
+        try {
+            if (Files.exists(file)) {
+                byte[] data = Files.readAllBytes(file);
+                if (data.length == Long.BYTES) {
+                    return ByteBuffer.wrap(data).getLong();
+                }
+                System.err.println("⚠️ État des numéros de vente illisible, ignoré");
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Erreur lecture de l'état des numéros de vente: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Identifiant de caisse configuré: propriété système, sinon fichier till.id
+     * du répertoire de données. Aucun identifiant n'est tiré au hasard: deux
+     * caisses pourraient obtenir le même.
+     */
+    private static int resolveTillId() {
+        String configured = System.getProperty(TILL_ID_PROPERTY);
+        String source = "propriété " + TILL_ID_PROPERTY;
+        if (configured == null) {
+            Path file = LocalStorage.file(TILL_ID_FILE);
+            source = "fichier " + file;
+            if (!Files.exists(file)) {
+                throw new IllegalStateException("Identifiant de caisse non configuré: définir la propriété "
+                        + TILL_ID_PROPERTY + " ou créer le fichier " + file + " (entier de 0 à " + MAX_TILL_ID
+                        + ", distinct pour chaque caisse)");
+            }
+            try {
+                configured = Files.readString(file, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new IllegalStateException("Identifiant de caisse illisible (" + source + "): " + e.getMessage(), e);
+            }
+        }
+
+        int tillId;
+        try {
+            tillId = Integer.parseInt(configured.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Identifiant de caisse invalide (" + source + "): \"" + configured.trim()
+                    + "\"", e);
+        }
+        if (tillId < 0 || tillId > MAX_TILL_ID) {
+            throw new IllegalStateException("Identifiant de caisse hors limites (" + source + ", 0-" + MAX_TILL_ID
+                    + "): " + tillId);
+        }
+        return tillId;
+    }
+}
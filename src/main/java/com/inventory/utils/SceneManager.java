@@ -26,6 +26,7 @@ public class SceneManager {
         scenes.put("products", "/fxml/ProductsView.fxml");
         scenes.put("categories", "/fxml/CategoriesView.fxml");
         scenes.put("sales", "/fxml/SalesView.fxml");
+        scenes.put("sales-history", "/fxml/SalesHistoryView.fxml");
         scenes.put("users", "/fxml/UsersView.fxml");
         scenes.put("reports", "/fxml/ReportsView.fxml");
         scenes.put("settings", "/fxml/SettingsView.fxml");
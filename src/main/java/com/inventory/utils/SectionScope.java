@@ -0,0 +1,213 @@
+package com.inventory.utils;
+
+import javafx.application.Platform;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Chargement concurrent des sections d'un écran, sous une même portée.
+ *
+ * Chaque section lance sa requête sur l'exécuteur et s'affiche (sur le thread
+ * JavaFX) dès que son propre résultat arrive. Les sections partagent une
+ * échéance: une section encore en cours à l'échéance est abandonnée et
+ * signalée en échec, sans retarder les autres. Une erreur dans une section
+ * n'affecte pas non plus les autres. Annuler la portée (changement de
+ * période, écran quitté) abandonne les requêtes en cours et écarte tous les
+ * résultats qui n'ont pas encore été affichés.
+ *
+ * Interrompre le thread ne suffit pas à arrêter une lecture bloquée sur la
+ * socket MySQL: les instructions ouvertes par une section (relevées par le
+ * pool de connexions) sont donc annulées côté serveur avec
+ * Statement.cancel(), ce qui rend aussitôt la connexion et le thread. Elles
+ * reçoivent aussi un délai d'exécution égal au temps restant avant
+ * l'échéance (une seconde au moins), et une instruction ouverte par une section déjà abandonnée
+ * est refusée.
+ *
+ * Les méthodes fork et cancel sont appelées sur le thread JavaFX.
+ */
+public final class SectionScope {
+
+    // Section dont la requête s'exécute sur le thread courant (null hors d'une section)
+    private static final ThreadLocal<Section> CURRENT = new ThreadLocal<>();
+
+    private final class Section {
+        final String name;
+        final Runnable onFailure;
+        // Premier arrivé entre l'affichage, l'échec et l'échéance
+        final AtomicBoolean settled = new AtomicBoolean();
+        // Instructions ouvertes par la requête de la section
+        final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+        volatile boolean abandoned;
+        Future<?> future;
+
+        Section(String name, Runnable onFailure) {
+            this.name = name;
+            this.onFailure = onFailure;
+        }
+
+        SectionScope scope() {
+            return SectionScope.this;
+        }
+
+        void fail(String reason) {
+            if (settled.compareAndSet(false, true)) {
+                System.err.println("❌ Section " + name + ": " + reason);
+                Platform.runLater(() -> {
+                    if (!cancelled) {
+                        onFailure.run();
+                    }
+                });
+            }
+        }
+
+        /**
+         * Arrêter la requête: interruption du thread et annulation des instructions en cours (en arrière-plan)
+         */
+        void abandon() {
+            abandoned = true;
+            future.cancel(true);
+            if (!statements.isEmpty()) {
+                // KILL QUERY passe par une connexion annexe: jamais sur le thread JavaFX
+                BackgroundScheduler.schedule("annulation des requêtes", this::cancelStatements, 0,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void cancelStatements() {
+            for (Statement statement : statements) {
+                try {
+                    if (!statement.isClosed()) {
+                        statement.cancel();
+                    }
+                } catch (SQLException e) {
+                    System.err.println("❌ Erreur annulation requête de la section " + name + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private final ExecutorService executor;
+    private final List<Section> sections = new ArrayList<>();
+    private final ScheduledFuture<?> deadline;
+    private final long deadlineAt;
+    private volatile boolean cancelled;
+
+    /**
+     * Ouvrir une portée dont les sections doivent toutes aboutir avant l'échéance
+     */
+    public SectionScope(ExecutorService executor, Duration timeout) {
+        this.executor = executor;
+        this.deadlineAt = System.currentTimeMillis() + timeout.toMillis();
+        this.deadline = BackgroundScheduler.schedule("échéance des sections", this::expire,
+                timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Charger une section: query sur l'exécuteur, puis render sur le thread JavaFX
+     */
+    public <T> void fork(String name, Supplier<T> query, Consumer<T> render) {
+        fork(name, query, render, () -> {
+        });
+    }
+
+    /**
+     * Charger une section; onFailure est appelé sur le thread JavaFX en cas d'erreur ou d'échéance dépassée
+     */
+    public <T> void fork(String name, Supplier<T> query, Consumer<T> render, Runnable onFailure) {
+        if (cancelled)
+            return;
+
+        Section section = new Section(name, onFailure);
+        section.future = executor.submit(() -> {
+            T result;
+            CURRENT.set(section);
+            try {
+                result = query.get();
+            } catch (RuntimeException e) {
+                section.fail(e.getMessage());
+                return;
+            } finally {
+                CURRENT.remove();
+                section.statements.clear(); // Fermées par la requête: plus rien à annuler
+            }
+            if (Thread.currentThread().isInterrupted() || !section.settled.compareAndSet(false, true))
+                return; // Échéance dépassée ou portée annulée pendant la requête
+
+            Platform.runLater(() -> {
+                if (!cancelled) {
+                    render.accept(result);
+                }
+            });
+        });
+        synchronized (sections) {
+            sections.add(section);
+        }
+    }
+
+    /**
+     * Abandonner toutes les sections: requêtes en cours interrompues, résultats écartés
+     */
+    public void cancel() {
+        cancelled = true;
+        deadline.cancel(false);
+        synchronized (sections) {
+            for (Section section : sections) {
+                section.settled.set(true);
+                section.abandon();
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void expire() {
+        List<Section> pending;
+        synchronized (sections) {
+            pending = new ArrayList<>(sections);
+        }
+        for (Section section : pending) {
+            if (!section.settled.get()) {
+                section.fail("délai dépassé");
+                section.abandon();
+            }
+        }
+    }
+
+    /**
+     * Relever une instruction ouverte sur le thread courant (appelé par le pool
+     * de connexions); sans effet hors d'une section
+     *
+     * @throws SQLException si la section a été abandonnée (l'instruction est alors fermée)
+     */
+    static void track(Statement statement) throws SQLException {
+        Section section = CURRENT.get();
+        if (section == null)
+            return;
+
+        if (section.abandoned) {
+            statement.close();
+            throw new SQLException("Section " + section.name + " abandonnée");
+        }
+        long remainingMs = section.scope().deadlineAt - System.currentTimeMillis();
+        statement.setQueryTimeout((int) Math.max(1, (remainingMs + 999) / 1000));
+        section.statements.add(statement);
+        if (section.abandoned) {
+            statement.cancel(); // Abandonnée pendant l'enregistrement (thread de la requête)
+        }
+    }
+}
@@ -3,8 +3,8 @@ package com.inventory.utils;
 import com.inventory.models.User;
 
 import java.time.LocalDateTime;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Gestionnaire de session utilisateur
@@ -14,7 +14,7 @@ public class SessionManager {
 
     private static User currentUser = null;
     private static LocalDateTime lastActivity = null;
-    private static Timer inactivityTimer = null;
+    private static ScheduledFuture<?> inactivityTimer = null;
 
     // Durée d'inactivité avant déconnexion automatique (30 minutes)
     private static final long INACTIVITY_TIMEOUT = 30 * 60 * 1000; // 30 minutes en millisecondes
@@ -88,23 +88,19 @@ public class SessionManager {
      */
     private static void startInactivityTimer() {
         stopInactivityTimer();
-        inactivityTimer = new Timer(true);
-        inactivityTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                if (lastActivity != null) {
-                    long elapsed = System.currentTimeMillis() -
-                            java.sql.Timestamp.valueOf(lastActivity).getTime();
-                    if (elapsed >= INACTIVITY_TIMEOUT) {
-                        System.out.println("⏱️ Déconnexion automatique pour inactivité");
-                        javafx.application.Platform.runLater(() -> {
-                            endSession();
-                            SceneManager.switchTo("login");
-                        });
-                    }
+        inactivityTimer = BackgroundScheduler.scheduleWithFixedDelay("inactivité", () -> {
+            if (lastActivity != null) {
+                long elapsed = System.currentTimeMillis() -
+                        java.sql.Timestamp.valueOf(lastActivity).getTime();
+                if (elapsed >= INACTIVITY_TIMEOUT) {
+                    System.out.println("⏱️ Déconnexion automatique pour inactivité");
+                    javafx.application.Platform.runLater(() -> {
+                        endSession();
+                        SceneManager.switchTo("login");
+                    });
                 }
             }
-        }, INACTIVITY_TIMEOUT, 60000); // Vérifier toutes les minutes
+        }, INACTIVITY_TIMEOUT, 60000, TimeUnit.MILLISECONDS); // Vérifier toutes les minutes
     }
 
     /**
@@ -112,7 +108,7 @@ public class SessionManager {
      */
     private static void stopInactivityTimer() {
         if (inactivityTimer != null) {
-            inactivityTimer.cancel();
+            inactivityTimer.cancel(false);
             inactivityTimer = null;
         }
     }
@@ -0,0 +1,214 @@
+package com.inventory.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Suivi approché des éléments les plus fréquents d'un flux (algorithme Space-Saving pondéré).
+ *
+ * Au plus {@code capacity} compteurs sont conservés. Lorsqu'un élément non
+ * suivi arrive et que tous les compteurs sont pris, il remplace l'élément de
+ * plus petit compte et hérite de ce compte comme erreur. Garanties, pour un
+ * total N des poids reçus:
+ * <ul>
+ * <li>le compte estimé d'un élément suivi dépasse son compte réel d'au plus
+ * son erreur, elle-même bornée par N / capacity;</li>
+ * <li>tout élément de compte réel supérieur à N / capacity est suivi.</li>
+ * </ul>
+ * Les diminutions (annulations) ne s'appliquent qu'aux éléments suivis et
+ * sortent du cadre de ces garanties.
+ *
+ * Non synchronisé: l'appelant protège les accès concurrents.
+ */
+public final class SpaceSavingSketch<K> {
+
+    /**
+     * Compteur d'un élément suivi
+     */
+    public static final class Counter<K> {
+        private final K key;
+        private final long sequence;
+        private String label;
+        private long count;
+        private long error;
+        private long amountCents;
+
+        private Counter(K key, long sequence) {
+            this.key = key;
+            this.sequence = sequence;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * Compte estimé (majorant du compte réel)
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Surestimation maximale du compte
+         */
+        public long getError() {
+            return error;
+        }
+
+        /**
+         * Compte réel minimal garanti
+         */
+        public long getGuaranteedCount() {
+            return count - error;
+        }
+
+        /**
+         * Montant accumulé depuis que l'élément est suivi (en centimes)
+         */
+        public long getAmountCents() {
+            return amountCents;
+        }
+    }
+
+    private static final Comparator<Counter<?>> BY_COUNT = Comparator
+            .<Counter<?>>comparingLong(c -> c.count)
+            .thenComparingLong(c -> c.sequence);
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters = new HashMap<>();
+    private final TreeSet<Counter<K>> ordered = new TreeSet<>(BY_COUNT);
+    private long total;
+    private long sequence;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacité invalide: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Total des poids reçus (N)
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Surestimation maximale de n'importe quel compte: N / capacity
+     */
+    public long getErrorBound() {
+        return total / capacity;
+    }
+
+    /**
+     * Ajouter un poids à un élément
+     */
+    public void offer(K key, long weight, String label, long amountCents) {
+        if (weight <= 0)
+            return;
+        total += weight;
+
+        Counter<K> counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter<>(key, sequence++);
+            } else {
+                // Remplacer l'élément le moins fréquent, dont le compte devient l'erreur du nouveau
+                Counter<K> evicted = ordered.pollFirst();
+                counters.remove(evicted.key);
+                counter = new Counter<>(key, sequence++);
+                counter.count = evicted.count;
+                counter.error = evicted.count;
+            }
+            counters.put(key, counter);
+        } else {
+            ordered.remove(counter);
+        }
+
+        counter.count += weight;
+        counter.amountCents += amountCents;
+        if (label != null) {
+            counter.label = label;
+        }
+        ordered.add(counter);
+    }
+
+    /**
+     * Amorcer un élément avec un compte exact (aucune erreur).
+     *
+     * Pour conserver les garanties, amorcer un sketch vide avec les éléments
+     * les plus fréquents, dans l'ordre, puis déclarer le total avec {@link #seedTotal(long)}.
+     */
+    public void seed(K key, long count, String label, long amountCents) {
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            ordered.remove(counter);
+        } else if (counters.size() >= capacity) {
+            return;
+        } else {
+            counter = new Counter<>(key, sequence++);
+            counters.put(key, counter);
+        }
+        counter.count += count;
+        counter.amountCents += amountCents;
+        counter.label = label;
+        ordered.add(counter);
+    }
+
+    /**
+     * Déclarer le total des poids déjà reçus lors de l'amorçage (éléments non suivis compris)
+     */
+    public void seedTotal(long seededTotal) {
+        total += seededTotal;
+    }
+
+    /**
+     * Retirer un poids à un élément suivi (sans effet sur un élément non suivi)
+     */
+    public void decrement(K key, long weight, long amountCents) {
+        Counter<K> counter = counters.get(key);
+        if (counter == null || weight <= 0)
+            return;
+
+        ordered.remove(counter);
+        long removed = Math.min(weight, counter.count);
+        counter.count -= removed;
+        counter.error = Math.min(counter.error, counter.count);
+        counter.amountCents -= amountCents;
+        total -= removed;
+        ordered.add(counter);
+    }
+
+    /**
+     * Les n éléments de plus grand compte estimé, du plus grand au plus petit
+     */
+    public List<Counter<K>> top(int n) {
+        List<Counter<K>> result = new ArrayList<>(Math.min(n, counters.size()));
+        for (Counter<K> counter : ordered.descendingSet()) {
+            if (result.size() == n || counter.count == 0)
+                break;
+            result.add(counter);
+        }
+        return result;
+    }
+
+    public void clear() {
+        counters.clear();
+        ordered.clear();
+        total = 0;
+    }
+}
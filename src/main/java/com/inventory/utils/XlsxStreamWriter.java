@@ -0,0 +1,323 @@
+package com.inventory.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Écriture en flux d'un classeur Excel (XLSX, SpreadsheetML).
+ *
+ * Chaque ligne est écrite dans l'archive dès qu'elle est terminée: aucune
+ * ligne n'est conservée en mémoire. Les textes sont écrits en ligne
+ * (inlineStr) plutôt que dans une table partagée qui grandirait avec le
+ * fichier. Les feuilles sont écrites l'une après l'autre, en un seul
+ * passage; le classeur qui les référence est écrit à la fermeture.
+ *
+ * Une feuille Excel est limitée à {@link #MAX_ROWS} lignes: au-delà, les
+ * lignes continuent dans une nouvelle feuille (« Nom (2) ») avec le même en-tête.
+ */
+public final class XlsxStreamWriter implements AutoCloseable {
+
+    public static final int MAX_ROWS = 1_048_576;
+
+    // Styles (index dans cellXfs de styles.xml)
+    private static final int STYLE_HEADER = 1;
+    private static final int STYLE_DATE = 2;
+    private static final int STYLE_DATE_TIME = 3;
+    private static final int STYLE_AMOUNT = 4;
+
+    private static final LocalDate EXCEL_EPOCH = LocalDate.of(1899, 12, 30);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private final List<String> sheetNames = new ArrayList<>();
+
+    // Feuille en cours
+    private String sheetName;
+    private String[] headers;
+    private int sheetPart;
+    private int rowNumber;
+    private int columnNumber;
+    private boolean inRow;
+
+    public XlsxStreamWriter(OutputStream out) {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Commencer une feuille avec sa ligne d'en-tête (figée à l'écran)
+     */
+    public void startSheet(String name, String... headers) throws IOException {
+        endSheet();
+        this.sheetName = name;
+        this.headers = headers;
+        this.sheetPart = 1;
+        openSheet(name);
+    }
+
+    private void openSheet(String name) throws IOException {
+        sheetNames.add(name);
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetNames.size() + ".xml"));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                + "<sheetViews><sheetView workbookViewId=\"0\">"
+                + "<pane ySplit=\"1\" topLeftCell=\"A2\" activePane=\"bottomLeft\" state=\"frozen\"/>"
+                + "</sheetView></sheetViews>"
+                + "<sheetFormatPr defaultColWidth=\"18\" defaultRowHeight=\"15\"/>"
+                + "<sheetData>");
+        rowNumber = 0;
+
+        startRow();
+        for (String header : headers) {
+            cell(header, STYLE_HEADER);
+        }
+        endRow();
+    }
+
+    /**
+     * Terminer la feuille en cours (appelé aussi par startSheet et close)
+     */
+    public void endSheet() throws IOException {
+        if (sheetName == null)
+            return;
+        if (inRow) {
+            endRow();
+        }
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+        sheetName = null;
+    }
+
+    public void startRow() throws IOException {
+        if (inRow) {
+            endRow();
+        }
+        if (rowNumber == MAX_ROWS) {
+            // Feuille pleine: continuer dans une nouvelle feuille
+            String name = sheetName;
+            endSheet();
+            sheetName = name;
+            sheetPart++;
+            openSheet(name + " (" + sheetPart + ")");
+        }
+        rowNumber++;
+        columnNumber = 0;
+        inRow = true;
+        writer.write("<row r=\"" + rowNumber + "\">");
+    }
+
+    public void endRow() throws IOException {
+        writer.write("</row>");
+        inRow = false;
+    }
+
+    /**
+     * Nombre de lignes de la feuille en cours, en-tête compris
+     */
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    // ========== Cellules ==========
+
+    public void emptyCell() {
+        columnNumber++;
+    }
+
+    public void cell(String value) throws IOException {
+        cell(value, 0);
+    }
+
+    private void cell(String value, int style) throws IOException {
+        String ref = nextRef();
+        if (value == null || value.isEmpty())
+            return;
+        writer.write("<c r=\"" + ref + "\" t=\"inlineStr\"" + styleAttribute(style) + "><is><t xml:space=\"preserve\">");
+        writeEscaped(value);
+        writer.write("</t></is></c>");
+    }
+
+    public void cell(long value) throws IOException {
+        number(Long.toString(value), 0);
+    }
+
+    public void cell(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            emptyCell();
+            return;
+        }
+        number(Double.toString(value), 0);
+    }
+
+    /**
+     * Montant, affiché avec séparateur de milliers et deux décimales
+     */
+    public void amount(BigDecimal value) throws IOException {
+        if (value == null) {
+            emptyCell();
+            return;
+        }
+        number(value.toPlainString(), STYLE_AMOUNT);
+    }
+
+    public void cell(LocalDate value) throws IOException {
+        if (value == null) {
+            emptyCell();
+            return;
+        }
+        number(Long.toString(ChronoUnit.DAYS.between(EXCEL_EPOCH, value)), STYLE_DATE);
+    }
+
+    public void cell(LocalDateTime value) throws IOException {
+        if (value == null) {
+            emptyCell();
+            return;
+        }
+        // Jours depuis l'origine Excel, fraction de journée pour l'heure
+        double serial = ChronoUnit.DAYS.between(EXCEL_EPOCH, value.toLocalDate())
+                + value.toLocalTime().toSecondOfDay() / 86_400d;
+        number(Double.toString(serial), STYLE_DATE_TIME);
+    }
+
+    private void number(String value, int style) throws IOException {
+        writer.write("<c r=\"" + nextRef() + "\"" + styleAttribute(style) + "><v>" + value + "</v></c>");
+    }
+
+    private String nextRef() {
+        return columnName(++columnNumber) + rowNumber;
+    }
+
+    private static String styleAttribute(int style) {
+        return style == 0 ? "" : " s=\"" + style + "\"";
+    }
+
+    /**
+     * Nom de colonne Excel d'un numéro de colonne (1 = A, 27 = AA)
+     */
+    private static String columnName(int column) {
+        StringBuilder name = new StringBuilder();
+        while (column > 0) {
+            int rest = (column - 1) % 26;
+            name.insert(0, (char) ('A' + rest));
+            column = (column - 1) / 26;
+        }
+        return name.toString();
+    }
+
+    private void writeEscaped(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> writer.write("&lt;");
+                case '>' -> writer.write("&gt;");
+                case '&' -> writer.write("&amp;");
+                case '"' -> writer.write("&quot;");
+                default -> {
+                    // Caractères de contrôle interdits en XML (sauf tabulation et sauts de ligne)
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+    }
+
+    // ========== Classeur ==========
+
+    /**
+     * Terminer la dernière feuille puis écrire les parties communes du classeur
+     */
+    @Override
+    public void close() throws IOException {
+        endSheet();
+
+        StringBuilder contentTypes = new StringBuilder(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                        + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                        + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                        + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                        + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                        + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        StringBuilder workbook = new StringBuilder(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                        + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                        + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+        StringBuilder workbookRels = new StringBuilder(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                        + "<Relationship Id=\"rIdStyles\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>");
+
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            contentTypes.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+            workbook.append("<sheet name=\"").append(escapeAttribute(sheetTitle(sheetNames.get(i - 1))))
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+            workbookRels.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                    .append(i).append(".xml\"/>");
+        }
+        contentTypes.append("</Types>");
+        workbook.append("</sheets></workbook>");
+        workbookRels.append("</Relationships>");
+
+        writeEntry("[Content_Types].xml", contentTypes.toString());
+        writeEntry("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        writeEntry("xl/workbook.xml", workbook.toString());
+        writeEntry("xl/_rels/workbook.xml.rels", workbookRels.toString());
+        writeEntry("xl/styles.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                + "<numFmts count=\"1\"><numFmt numFmtId=\"164\" formatCode=\"dd/mm/yyyy hh:mm\"/></numFmts>"
+                + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+                + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+                + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                + "<cellXfs count=\"5\">"
+                + "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+                + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>"
+                + "<xf numFmtId=\"14\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+                + "<xf numFmtId=\"164\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+                + "<xf numFmtId=\"4\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+                + "</cellXfs>"
+                + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+                + "</styleSheet>");
+        writer.close();
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(content);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    /**
+     * Nom de feuille accepté par Excel: 31 caractères au plus, sans []:*?/\
+     */
+    private static String sheetTitle(String name) {
+        String title = name.replaceAll("[\\[\\]:*?/\\\\]", " ");
+        return title.length() > 31 ? title.substring(0, 31) : title;
+    }
+
+    private static String escapeAttribute(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
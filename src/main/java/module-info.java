@@ -12,6 +12,11 @@ module com.inventory {
     requires java.sql;
     requires jbcrypt;
 
+    // iText 7 (modules automatiques)
+    requires kernel;
+    requires io;
+    requires layout;
+
     requires org.slf4j;
 
     opens com.inventory to javafx.fxml;
@@ -22,5 +27,7 @@ module com.inventory {
     exports com.inventory.controllers;
     exports com.inventory.models;
     exports com.inventory.dao;
+    exports com.inventory.services;
     exports com.inventory.utils;
+    exports com.inventory.tools;
 }